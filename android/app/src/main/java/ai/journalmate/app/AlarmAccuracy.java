@@ -0,0 +1,156 @@
+package ai.journalmate.app;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+
+import java.util.Arrays;
+
+/**
+ * Per-device record of how late alarms actually fire
+ *
+ * Every alarm armed by ReminderScheduler carries the time it was armed for;
+ * the receivers report the real fire time here. The last SAMPLE_SIZE drifts
+ * are kept separately for exact and inexact alarms (without the exact-alarm
+ * permission, OEM batching and Doze can push reminders back many minutes).
+ *
+ * ReminderScheduler uses the inexact median to arm inexact alarms that much
+ * earlier, and JS reads the numbers through NativeNotifications to decide
+ * whether asking for the exact-alarm permission is worth it.
+ */
+public final class AlarmAccuracy {
+    private static final String TAG = "AlarmAccuracy";
+    private static final String PREFS_NAME = "journalmate_alarm_accuracy";
+
+    public static final String STRATEGY_EXACT = "exact";
+    public static final String STRATEGY_INEXACT = "inexact";
+
+    private static final int SAMPLE_SIZE = 50;
+    // Fewer samples than this are too noisy to act on
+    static final int MIN_SAMPLES = 5;
+    // Median lateness beyond which inexact alarms are armed early
+    static final long DRIFT_THRESHOLD_MS = 2 * 60 * 1000L;
+    // Never fire more than this ahead of the requested time
+    static final long MAX_LEAD_MS = 15 * 60 * 1000L;
+    // p90 lateness at which the exact-alarm permission is worth asking for
+    private static final long PROMPT_THRESHOLD_MS = 5 * 60 * 1000L;
+
+    private AlarmAccuracy() {}
+
+    /**
+     * An alarm armed for armedAt fired now
+     */
+    public static synchronized void record(Context context, String strategy, long armedAt) {
+        if (armedAt <= 0) return;
+        long drift = System.currentTimeMillis() - armedAt;
+        SharedPreferences prefs = prefs(context);
+
+        JSONArray samples = load(prefs, strategy);
+        samples.put(drift);
+        while (samples.length() > SAMPLE_SIZE) {
+            samples.remove(0);
+        }
+        prefs.edit()
+            .putString(strategy, samples.toString())
+            .putInt(strategy + "_total", prefs.getInt(strategy + "_total", 0) + 1)
+            .apply();
+
+        if (drift > DRIFT_THRESHOLD_MS) {
+            Log.d(TAG, strategy + " alarm fired " + (drift / 1000) + "s late");
+        }
+    }
+
+    /**
+     * How far ahead of the target to arm an inexact alarm, from measured drift
+     * (0 until enough samples show it is needed)
+     */
+    static synchronized long inexactLeadMs(Context context) {
+        return inexactLeadMs(prefs(context));
+    }
+
+    static long inexactLeadMs(SharedPreferences prefs) {
+        long[] drifts = sorted(load(prefs, STRATEGY_INEXACT));
+        if (drifts.length < MIN_SAMPLES) return 0;
+
+        long median = percentile(drifts, 50);
+        if (median <= DRIFT_THRESHOLD_MS) return 0;
+        return Math.min(median, MAX_LEAD_MS);
+    }
+
+    /**
+     * Stats for JS: per strategy (samples, total, medianMs, p90Ms, maxMs),
+     * plus the current lead, exact-alarm permission and a prompt hint
+     */
+    public static synchronized JSObject toJS(Context context) {
+        SharedPreferences prefs = prefs(context);
+        JSObject result = new JSObject();
+        result.put(STRATEGY_EXACT, strategyStats(prefs, STRATEGY_EXACT));
+        JSObject inexact = strategyStats(prefs, STRATEGY_INEXACT);
+        result.put(STRATEGY_INEXACT, inexact);
+
+        boolean canExact = canScheduleExactAlarms(context);
+        result.put("canScheduleExactAlarms", canExact);
+        result.put("inexactLeadMs", inexactLeadMs(context));
+        // Only worth prompting when inexact delivery has been measurably late
+        result.put("shouldRequestExactAlarms", !canExact
+            && inexact.getInteger("samples", 0) >= MIN_SAMPLES
+            && inexact.optLong("p90Ms", 0) > PROMPT_THRESHOLD_MS);
+        return result;
+    }
+
+    public static synchronized void reset(Context context) {
+        prefs(context).edit().clear().apply();
+    }
+
+    static boolean canScheduleExactAlarms(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) return true;
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        return alarmManager != null && alarmManager.canScheduleExactAlarms();
+    }
+
+    private static JSObject strategyStats(SharedPreferences prefs, String strategy) {
+        long[] drifts = sorted(load(prefs, strategy));
+        JSObject stats = new JSObject();
+        stats.put("samples", drifts.length);
+        stats.put("total", prefs.getInt(strategy + "_total", 0));
+        if (drifts.length > 0) {
+            stats.put("medianMs", percentile(drifts, 50));
+            stats.put("p90Ms", percentile(drifts, 90));
+            stats.put("maxMs", drifts[drifts.length - 1]);
+        }
+        return stats;
+    }
+
+    private static JSONArray load(SharedPreferences prefs, String strategy) {
+        try {
+            return new JSONArray(prefs.getString(strategy, "[]"));
+        } catch (Exception e) {
+            return new JSONArray();
+        }
+    }
+
+    static long[] sorted(JSONArray samples) {
+        long[] values = new long[samples.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = samples.optLong(i);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    // Nearest-rank percentile of a sorted, non-empty array
+    static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,154 @@
+package ai.journalmate.app;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+/**
+ * Handshake between MainActivity and the web app
+ *
+ * The SPA calls ready() once its native event listeners are registered;
+ * MainActivity's queued actions (shortcut routes, shares, auth tokens) are
+ * delivered at that moment through BridgeReadiness as one 'nativeEvents'
+ * plugin event (drainEvents() fetches anything queued before the SPA's
+ * listener existed). Events stay queued until the SPA handled them and
+ * calls ackEvents(); a SPA that didn't declare acknowledgements in ready()
+ * or drainEvents() gets the queue drained instead. ackAuthToken() confirms an OAuth
+ * token arrived, so MainActivity skips its fallback page load.
+ * getStartupPayload() hands over API responses StartupAccelerator fetched
+ * during cold start.
+ */
+@CapacitorPlugin(name = "AppBridge")
+public class AppBridgePlugin extends Plugin {
+    private static final String TAG = "AppBridgePlugin";
+    private static final long STARTUP_PAYLOAD_WAIT_MS = 3000;
+
+    // The loaded SPA acknowledges events with ackEvents(), so delivery leaves them queued
+    private volatile boolean spaAcknowledges = false;
+
+    /**
+     * { acknowledge }: true when the SPA calls ackEvents() after handling events
+     */
+    @PluginMethod
+    public void ready(PluginCall call) {
+        spaAcknowledges = call.getBoolean("acknowledge", false);
+        BridgeReadiness.markReady();
+
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    /**
+     * All queued native events, oldest first: { events: [{ seq, type, at, payload }] }
+     * With { acknowledge: true } they stay queued until ackEvents().
+     */
+    @PluginMethod
+    public void drainEvents(PluginCall call) {
+        if (call.getBoolean("acknowledge", false)) {
+            spaAcknowledges = true;
+        }
+        try {
+            JSObject result = new JSObject();
+            result.put("events", new JSArray(takeEvents()));
+            call.resolve(result);
+        } catch (JSONException e) {
+            Log.e(TAG, "Unreadable event queue: " + e.getMessage());
+            call.reject("Unreadable event queue");
+        }
+    }
+
+    /**
+     * Push everything queued to the SPA's 'nativeEvents' listener
+     * Retained by Capacitor if the listener isn't registered yet.
+     */
+    public void deliverEvents() {
+        String events = takeEvents();
+        if (events.equals("[]")) return;
+        try {
+            JSObject data = new JSObject();
+            data.put("events", new JSArray(events));
+            notifyListeners("nativeEvents", data, true);
+        } catch (JSONException e) {
+            Log.e(TAG, "Unreadable event queue: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The SPA handled every event up to and including { seq }
+     */
+    @PluginMethod
+    public void ackEvents(PluginCall call) {
+        Long seq = call.getLong("seq");
+        if (seq == null) {
+            call.reject("seq is required");
+            return;
+        }
+        NativeEventQueue.acknowledge(getContext(), seq);
+
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    private String takeEvents() {
+        return spaAcknowledges
+            ? NativeEventQueue.peekAll(getContext())
+            : NativeEventQueue.drain(getContext());
+    }
+
+    @PluginMethod
+    public void ackAuthToken(PluginCall call) {
+        String token = call.getString("token");
+        if (token == null) {
+            call.reject("token is required");
+            return;
+        }
+        // Touches MainActivity's token state, which is otherwise only used on the main thread
+        getActivity().runOnUiThread(() -> MainActivity.acknowledgeAuthToken(getContext(), token));
+
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    /**
+     * An API response prefetched at cold start, once: { key } ->
+     * { data, userId, fetchedAt } or { data: null } when there is none
+     */
+    @PluginMethod
+    public void getStartupPayload(PluginCall call) {
+        String key = call.getString("key");
+        if (key == null) {
+            call.reject("key is required");
+            return;
+        }
+        // May wait briefly for an in-flight fetch, off the plugin thread
+        StartupAccelerator.take(key, STARTUP_PAYLOAD_WAIT_MS, payload -> {
+            JSObject result = new JSObject();
+            if (payload == null) {
+                result.put("data", null);
+                call.resolve(result);
+                return;
+            }
+            try {
+                Object data = payload.json.trim().startsWith("[")
+                    ? new JSArray(payload.json) : new JSObject(payload.json);
+                result.put("data", data);
+                result.put("userId", payload.userId);
+                result.put("fetchedAt", payload.fetchedAt);
+            } catch (JSONException e) {
+                Log.w(TAG, "Unreadable startup payload " + key + ": " + e.getMessage());
+                result.put("data", null);
+            }
+            call.resolve(result);
+        });
+    }
+}
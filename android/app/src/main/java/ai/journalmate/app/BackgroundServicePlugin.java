@@ -1,10 +1,7 @@
 package ai.journalmate.app;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -14,9 +11,9 @@ import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.util.Log;
 
-import ai.journalmate.app.widgets.JournalMateWidget2x2;
-import ai.journalmate.app.widgets.JournalMateWidget4x1;
-import ai.journalmate.app.widgets.JournalMateWidget4x2;
+import ai.journalmate.app.widgets.WidgetFields;
+import ai.journalmate.app.widgets.WidgetSnapshot;
+import ai.journalmate.app.widgets.WidgetUpdater;
 
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
@@ -34,8 +31,11 @@ import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -52,37 +52,11 @@ public class BackgroundServicePlugin extends Plugin {
     private static final String TAG = "BackgroundServicePlugin";
     private static final String PREFS_NAME = "journalmate_prefs";
     private static final String WORK_NAME = "task_sync_work";
-    private static final String ALERT_CHANNEL_ID = "journalmate_alerts";
-    private static final String ALERT_CHANNEL_NAME = "JournalMate Alerts";
 
     @Override
     public void load() {
         super.load();
-        createAlertNotificationChannel();
-    }
-
-    /**
-     * Create the alert notification channel for one-time notifications
-     */
-    private void createAlertNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                ALERT_CHANNEL_ID,
-                ALERT_CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription("Important alerts and reminders from JournalMate");
-            channel.enableVibration(true);
-            channel.setVibrationPattern(new long[]{0, 400, 200, 400});
-            channel.setShowBadge(true);
-            channel.enableLights(true);
-
-            NotificationManager manager = getContext().getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-                Log.d(TAG, "Alert notification channel created: " + ALERT_CHANNEL_ID);
-            }
-        }
+        NotificationChannels.ensureChannels(getContext());
     }
 
     /**
@@ -149,6 +123,33 @@ public class BackgroundServicePlugin extends Plugin {
         Log.d(TAG, "Updating progress: " + completedTasks + "/" + totalTasks);
 
         try {
+            // Optional timed tasks ({ title, dueAt } in epoch ms) drive the countdown
+            List<LiveProgressState.UpcomingTask> upcoming = new ArrayList<>();
+            JSArray upcomingTasks = call.getArray("upcomingTasks", null);
+            if (upcomingTasks != null) {
+                for (int i = 0; i < upcomingTasks.length(); i++) {
+                    JSONObject task = upcomingTasks.optJSONObject(i);
+                    if (task != null) {
+                        upcoming.add(new LiveProgressState.UpcomingTask(
+                            task.optString("title", "Task"), task.optLong("dueAt", 0)));
+                    }
+                }
+            }
+            Long nextTaskDueAt = call.getLong("nextTaskDueAt");
+            if (nextTaskDueAt != null && upcoming.isEmpty() && !nextTaskTitle.isEmpty()) {
+                upcoming.add(new LiveProgressState.UpcomingTask(nextTaskTitle, nextTaskDueAt));
+            }
+
+            // Fast path: the running service re-renders in-process, no intent needed
+            LiveProgressState.Snapshot snapshot = new LiveProgressState.Snapshot(
+                completedTasks, totalTasks, streak, nextTaskTitle, nextTaskTime, upcoming);
+            if (LiveProgressState.publish(snapshot)) {
+                JSObject result = new JSObject();
+                result.put("success", true);
+                call.resolve(result);
+                return;
+            }
+
             Context context = getContext();
             Intent serviceIntent = new Intent(context, JournalMateService.class);
             serviceIntent.setAction("UPDATE_PROGRESS");
@@ -338,6 +339,8 @@ public class BackgroundServicePlugin extends Plugin {
      * Update widget data cache directly from app
      * This allows instant widget updates without API calls
      * Call this when task/goal progress changes, then call refreshWidgets()
+     * Optional tasks: [{id, title, completed}] for the task rows on the large widget
+     * Optional weeklyCompleted: completions per day for the last 7 days, oldest first
      */
     @PluginMethod
     public void updateWidgetData(PluginCall call) {
@@ -368,6 +371,18 @@ public class BackgroundServicePlugin extends Plugin {
                 .putInt("totalPlans", totalPlans)
                 .putLong("lastFetchTime", System.currentTimeMillis())
                 .apply();
+            WidgetSnapshot.markStatsWritten(getContext());
+
+            // Lists are only stored when a widget size that renders them is placed
+            JSArray tasks = call.getArray("tasks", null);
+            if (tasks != null && WidgetFields.needsTasks(getContext())) {
+                WidgetSnapshot.saveTasks(getContext(), tasks);
+            }
+
+            JSArray weeklyCompleted = call.getArray("weeklyCompleted", null);
+            if (weeklyCompleted != null && WidgetFields.needsWeeklyTrend(getContext())) {
+                WidgetSnapshot.saveWeeklyCompleted(getContext(), weeklyCompleted);
+            }
 
             JSObject result = new JSObject();
             result.put("success", true);
@@ -388,13 +403,7 @@ public class BackgroundServicePlugin extends Plugin {
         Log.d(TAG, "Refreshing all widgets");
 
         try {
-            Context context = getContext();
-            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-
-            // Refresh all widget types
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget2x2.class);
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget4x1.class);
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget4x2.class);
+            WidgetUpdater.refreshNow(getContext());
 
             JSObject result = new JSObject();
             result.put("success", true);
@@ -406,15 +415,32 @@ public class BackgroundServicePlugin extends Plugin {
         }
     }
 
-    private void refreshWidgetClass(Context context, AppWidgetManager manager, Class<?> widgetClass) {
-        ComponentName widget = new ComponentName(context, widgetClass);
-        int[] ids = manager.getAppWidgetIds(widget);
-        if (ids.length > 0) {
-            Intent intent = new Intent(context, widgetClass);
-            intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-            intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
-            context.sendBroadcast(intent);
-            Log.d(TAG, "Refreshed " + ids.length + " widgets of type: " + widgetClass.getSimpleName());
+    /**
+     * Enable or disable the foreground service's realtime event stream.
+     * Takes effect immediately if the service is running, otherwise on its next start.
+     */
+    @PluginMethod
+    public void setRealtimeEnabled(PluginCall call) {
+        boolean enabled = call.getBoolean("enabled", false);
+        Log.d(TAG, "Realtime channel " + (enabled ? "enabled" : "disabled"));
+
+        try {
+            RealtimeChannel.setEnabled(getContext(), enabled);
+
+            if (LiveProgressState.isServiceRunning()) {
+                Intent serviceIntent = new Intent(getContext(), JournalMateService.class);
+                serviceIntent.setAction(JournalMateService.ACTION_REALTIME_CHANGED);
+                getContext().startService(serviceIntent);
+            }
+
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("enabled", enabled);
+            call.resolve(result);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to set realtime mode: " + e.getMessage());
+            call.reject("Failed to set realtime mode: " + e.getMessage());
         }
     }
 
@@ -437,6 +463,9 @@ public class BackgroundServicePlugin extends Plugin {
             result.put("syncIntervalMinutes", syncInterval);
             result.put("reminderMinutesBefore", reminderMinutes);
             result.put("hasCredentials", hasCredentials);
+            result.put("realtimeEnabled", RealtimeChannel.isEnabled(getContext()));
+            result.put("realtimeConnected", RealtimeChannel.isConnected());
+            result.put("originId", RealtimeChannel.originId(getContext()));
             call.resolve(result);
 
         } catch (Exception e) {
@@ -465,7 +494,7 @@ public class BackgroundServicePlugin extends Plugin {
         String title = call.getString("title", "JournalMate");
         String body = call.getString("body", "");
         Integer id = call.getInt("id", (int) System.currentTimeMillis());
-        String channel = call.getString("channel", ALERT_CHANNEL_ID);
+        String channel = call.getString("channel", NotificationChannels.CHANNEL_ALERTS);
         String haptic = call.getString("haptic", "medium");
         String route = call.getString("route", null);
         String category = call.getString("category", null);
@@ -498,8 +527,8 @@ public class BackgroundServicePlugin extends Plugin {
 
             // Get the appropriate channel (fallback to alerts if channel doesn't exist)
             String effectiveChannel = channel;
-            if (notificationType != null && (channel == null || channel.equals(ALERT_CHANNEL_ID))) {
-                effectiveChannel = NotificationChannels.getChannelForType(notificationType);
+            if (notificationType != null && (channel == null || channel.equals(NotificationChannels.CHANNEL_ALERTS))) {
+                effectiveChannel = NotificationChannels.getChannelForType(getContext(), notificationType);
             }
 
             // Create intent to open app when notification is tapped
@@ -1,12 +1,10 @@
 package ai.journalmate.app;
 
 import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
 import androidx.work.Constraints;
@@ -15,10 +13,6 @@ import androidx.work.NetworkType;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -27,6 +21,10 @@ import java.util.concurrent.TimeUnit;
  * Responsible for:
  * 1. Re-enabling background sync (WorkManager survives reboot, but let's be sure)
  * 2. Triggering an immediate sync to reschedule task reminders
+ *
+ * Also re-arms scheduled notifications when the exact alarm permission is
+ * granted, so pending inexact alarms become exact - both the stored ones and
+ * the task reminders TaskSyncWorker arms on its next sync.
  */
 public class BootReceiver extends BroadcastReceiver {
     private static final String TAG = "BootReceiver";
@@ -54,6 +52,11 @@ public class BootReceiver extends BroadcastReceiver {
                 enableBackgroundSync(context, intervalMinutes);
                 Log.d(TAG, "Background sync re-enabled after boot");
             }
+        } else if (AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED.equals(action)) {
+            Log.d(TAG, "Exact alarm permission granted, re-arming scheduled notifications");
+            restoreScheduledNotifications(context);
+            // Task reminders are armed by the sync; run one now so they become exact too
+            TaskSyncWorker.requestExpeditedSync(context);
         }
     }
 
@@ -63,67 +66,8 @@ public class BootReceiver extends BroadcastReceiver {
      */
     private void restoreScheduledNotifications(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences("scheduled_notifications", Context.MODE_PRIVATE);
-            Map<String, ?> all = prefs.getAll();
-            int restored = 0;
-            int expired = 0;
-
-            AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-            if (alarmManager == null) {
-                Log.e(TAG, "AlarmManager not available");
-                return;
-            }
-
-            for (Map.Entry<String, ?> entry : all.entrySet()) {
-                try {
-                    JSONObject json = new JSONObject((String) entry.getValue());
-                    long triggerAt = json.getLong("triggerAt");
-
-                    if (triggerAt > System.currentTimeMillis()) {
-                        // Future notification - reschedule
-                        int id = json.getInt("id");
-                        String title = json.getString("title");
-                        String body = json.getString("body");
-
-                        Intent alarmIntent = new Intent(context, NotificationAlarmReceiver.class);
-                        alarmIntent.setAction("SCHEDULED_NOTIFICATION");
-                        alarmIntent.putExtra("id", id);
-                        alarmIntent.putExtra("title", title);
-                        alarmIntent.putExtra("body", body);
-
-                        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                            context,
-                            id,
-                            alarmIntent,
-                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                        );
-
-                        // Schedule with appropriate method based on Android version
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-                            if (alarmManager.canScheduleExactAlarms()) {
-                                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                            } else {
-                                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                            }
-                        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                        } else {
-                            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                        }
-
-                        restored++;
-                    } else {
-                        // Past due - remove from storage
-                        prefs.edit().remove(entry.getKey()).apply();
-                        expired++;
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Failed to parse scheduled notification: " + e.getMessage());
-                    prefs.edit().remove(entry.getKey()).apply();
-                }
-            }
-
-            Log.d(TAG, "Boot restoration complete: " + restored + " restored, " + expired + " expired");
+            int restored = ReminderScheduler.restoreScheduledNotifications(context);
+            Log.d(TAG, "Boot restoration complete: " + restored + " restored");
         } catch (Exception e) {
             Log.e(TAG, "Failed to restore scheduled notifications: " + e.getMessage());
         }
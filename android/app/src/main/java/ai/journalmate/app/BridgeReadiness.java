@@ -0,0 +1,216 @@
+package ai.journalmate.app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.WebView;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.WebViewListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-shot latch for "the web app can take native-to-JS calls now"
+ *
+ * Ready means the Capacitor bridge and WebView are attached (MainActivity
+ * calls attach() after super.onCreate) and the SPA has called
+ * AppBridge.ready() once its listeners are set up. Actions queued with
+ * whenReady() before that run in order the moment it happens, on the main
+ * thread - no polling.
+ *
+ * A page load (including a full reload) closes the latch again until the new
+ * page signals. If the page finishes loading but never signals (a web build
+ * without AppBridge), the latch opens once after FALLBACK_READY_MS.
+ */
+public final class BridgeReadiness {
+    private static final String TAG = "BridgeReadiness";
+    private static final long FALLBACK_READY_MS = 5000;
+
+    public interface Action {
+        void run(WebView webView);
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Only touched on the main thread
+    private static final Latch<WebView> latch = new Latch<>();
+
+    private BridgeReadiness() {}
+
+    /**
+     * Readiness state and pending actions, independent of Android threading
+     * (BridgeReadiness drives it from the main thread)
+     */
+    static final class Latch<T> {
+        interface Callback<T> {
+            void run(T target);
+        }
+
+        // Keyed so a newer action of the same kind (e.g. route) replaces an older one
+        final Map<String, Callback<T>> pending = new LinkedHashMap<>();
+        private T target = null;
+        private boolean spaReady = false;
+        // Opened by the SPA itself, as opposed to the page-load fallback
+        private boolean spaSignaled = false;
+        private int pageGeneration = 0;
+
+        void attach(T newTarget) {
+            target = newTarget;
+            spaReady = false;
+        }
+
+        void detach(T oldTarget) {
+            if (oldTarget == target) {
+                target = null;
+                spaReady = false;
+            }
+        }
+
+        /**
+         * A page load started; the new page has to signal again
+         *
+         * @return the load's generation, for fallbackDue()
+         */
+        int pageStarted() {
+            pageGeneration++;
+            if (spaReady) {
+                Log.d(TAG, "Page load started, waiting for the SPA again");
+            }
+            spaReady = false;
+            spaSignaled = false;
+            return pageGeneration;
+        }
+
+        int generation() {
+            return pageGeneration;
+        }
+
+        /**
+         * FALLBACK_READY_MS after a page load: open the latch unless the
+         * page signaled meanwhile or a newer load started
+         */
+        void fallbackDue(int generation) {
+            if (!spaReady && generation == pageGeneration && target != null) {
+                Log.w(TAG, "SPA did not signal ready, opening latch after page load");
+                open(false);
+            }
+        }
+
+        boolean isReady() {
+            return spaReady && target != null;
+        }
+
+        boolean spaSignaled() {
+            return spaSignaled && isReady();
+        }
+
+        void whenReady(String key, Callback<T> action) {
+            pending.remove(key);
+            pending.put(key, action);
+            if (isReady()) {
+                drain();
+            }
+        }
+
+        void cancel(String key) {
+            pending.remove(key);
+        }
+
+        void open(boolean signaled) {
+            if (target == null) return;
+            if (!spaReady) {
+                Log.d(TAG, "Bridge ready, draining " + pending.size() + " pending action(s)");
+            }
+            spaReady = true;
+            spaSignaled = spaSignaled || signaled;
+            drain();
+        }
+
+        private void drain() {
+            List<Callback<T>> actions = new ArrayList<>(pending.values());
+            pending.clear();
+            for (Callback<T> action : actions) {
+                try {
+                    action.run(target);
+                } catch (Exception e) {
+                    Log.e(TAG, "Pending action failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Attach the activity's bridge; page loads reset readiness from here on
+     */
+    public static void attach(Bridge bridge) {
+        if (bridge == null || bridge.getWebView() == null) return;
+        runOnMain(() -> {
+            latch.attach(bridge.getWebView());
+            bridge.addWebViewListener(new WebViewListener() {
+                @Override
+                public void onPageStarted(WebView view) {
+                    latch.pageStarted();
+                }
+
+                @Override
+                public void onPageLoaded(WebView view) {
+                    final int generation = latch.generation();
+                    mainHandler.postDelayed(() -> latch.fallbackDue(generation), FALLBACK_READY_MS);
+                }
+            });
+        });
+    }
+
+    /**
+     * The activity is going away; keep queued actions for the next attach
+     */
+    public static void detach(Bridge bridge) {
+        if (bridge == null) return;
+        runOnMain(() -> latch.detach(bridge.getWebView()));
+    }
+
+    /**
+     * Called by AppBridgePlugin when the SPA says it is ready
+     */
+    public static void markReady() {
+        runOnMain(() -> latch.open(true));
+    }
+
+    public static boolean isReady() {
+        return latch.isReady();
+    }
+
+    /**
+     * Whether the current page signaled ready itself (and so speaks the
+     * AppBridge protocol), rather than the latch opening on the fallback
+     */
+    public static boolean spaSignaled() {
+        return latch.spaSignaled();
+    }
+
+    /**
+     * Run action now if ready, otherwise as soon as the latch opens.
+     * A pending action with the same key is replaced.
+     */
+    public static void whenReady(String key, Action action) {
+        runOnMain(() -> latch.whenReady(key, action::run));
+    }
+
+    /**
+     * Drop a pending action that no longer applies
+     */
+    public static void cancel(String key) {
+        runOnMain(() -> latch.cancel(key));
+    }
+
+    private static void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.util.Calendar;
+
+/**
+ * When (and how loudly) a native notification should be delivered
+ *
+ * Decisions are made once, at scheduling time, from the user's quiet hours
+ * (device local time, synced from notification preferences) and a mode per
+ * channel:
+ * - ON_TIME: deliver at the target time, always alerting
+ * - SILENT_IN_QUIET: deliver on time, but silently during quiet hours
+ *   (time-critical reminders - deferring them past the due time is useless)
+ * - DEFER: move deliveries that fall in quiet hours to when they end
+ * - BATCH: low priority - round up to the next shared window (and past quiet
+ *   hours) and schedule inexactly, so several items cost one wakeup
+ */
+public final class DeliveryPolicy {
+    private static final String TAG = "DeliveryPolicy";
+    private static final String PREFS_NAME = "journalmate_prefs";
+    private static final String KEY_QUIET_ENABLED = "quietHoursEnabled";
+    private static final String KEY_QUIET_START = "quietHoursStartMinutes";
+    private static final String KEY_QUIET_END = "quietHoursEndMinutes";
+    private static final String KEY_CHANNEL_MODES = "deliveryChannelModes";
+
+    // Off until the app syncs the user's preferences - most users never set quiet hours
+    private static final boolean DEFAULT_QUIET_ENABLED = false;
+    // Same default times as the server's notification preferences
+    private static final int DEFAULT_QUIET_START = 22 * 60;
+    private static final int DEFAULT_QUIET_END = 8 * 60;
+
+    static final long BATCH_WINDOW_MS = 30 * 60 * 1000L;
+    // Deferred items share a window at the end of quiet hours
+    static final long DEFER_WINDOW_MS = 10 * 60 * 1000L;
+
+    public enum Mode { ON_TIME, SILENT_IN_QUIET, DEFER, BATCH }
+
+    /**
+     * Where and how to deliver one notification
+     */
+    public static final class Decision {
+        public final long deliverAt;
+        // 0 = exact time; otherwise the inexact window the OS may use
+        public final long windowMs;
+        public final boolean silent;
+
+        Decision(long deliverAt, long windowMs, boolean silent) {
+            this.deliverAt = deliverAt;
+            this.windowMs = windowMs;
+            this.silent = silent;
+        }
+    }
+
+    private DeliveryPolicy() {}
+
+    /**
+     * Decide delivery for a notification on channelId targeted at targetAt
+     *
+     * @param priority optional per-item override: "low" batches, "high"
+     *                 delivers on time; null uses the channel's mode
+     */
+    public static Decision decide(Context context, String channelId, String priority, long targetAt) {
+        Mode mode = modeFor(context, channelId, priority);
+        SharedPreferences prefs = prefs(context);
+        boolean quietEnabled = prefs.getBoolean(KEY_QUIET_ENABLED, DEFAULT_QUIET_ENABLED);
+        int quietStart = prefs.getInt(KEY_QUIET_START, DEFAULT_QUIET_START);
+        int quietEnd = prefs.getInt(KEY_QUIET_END, DEFAULT_QUIET_END);
+
+        switch (mode) {
+            case BATCH: {
+                long windowStart = nextWindowBoundary(targetAt);
+                if (quietEnabled && isQuiet(windowStart, quietStart, quietEnd)) {
+                    windowStart = nextWindowBoundary(quietEndAfter(windowStart, quietEnd));
+                }
+                return new Decision(windowStart, BATCH_WINDOW_MS, false);
+            }
+            case DEFER:
+                if (quietEnabled && isQuiet(targetAt, quietStart, quietEnd)) {
+                    return new Decision(quietEndAfter(targetAt, quietEnd), DEFER_WINDOW_MS, false);
+                }
+                return new Decision(targetAt, 0, false);
+            case SILENT_IN_QUIET:
+                return new Decision(targetAt, 0, quietEnabled && isQuiet(targetAt, quietStart, quietEnd));
+            case ON_TIME:
+            default:
+                return new Decision(targetAt, 0, false);
+        }
+    }
+
+    /**
+     * For something arriving right now (a push): post it silently instead of
+     * alerting? Pushes can't be deferred without another wakeup, so any mode
+     * other than ON_TIME is silenced during quiet hours.
+     */
+    public static boolean silenceNow(Context context, String channelId) {
+        return modeFor(context, channelId, null) != Mode.ON_TIME
+            && isQuietAt(context, System.currentTimeMillis());
+    }
+
+    /**
+     * Whether quiet hours are in effect at the given time
+     */
+    public static boolean isQuietAt(Context context, long time) {
+        SharedPreferences prefs = prefs(context);
+        return prefs.getBoolean(KEY_QUIET_ENABLED, DEFAULT_QUIET_ENABLED)
+            && isQuiet(time, prefs.getInt(KEY_QUIET_START, DEFAULT_QUIET_START), prefs.getInt(KEY_QUIET_END, DEFAULT_QUIET_END));
+    }
+
+    /**
+     * Turn quiet hours on or off, keeping the stored times
+     */
+    public static void setQuietHoursEnabled(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_QUIET_ENABLED, enabled).apply();
+    }
+
+    /**
+     * Store quiet hours as minutes of the day ("HH:MM" parsed by the caller)
+     */
+    public static void setQuietHours(Context context, boolean enabled, int startMinutes, int endMinutes) {
+        prefs(context).edit()
+            .putBoolean(KEY_QUIET_ENABLED, enabled)
+            .putInt(KEY_QUIET_START, startMinutes)
+            .putInt(KEY_QUIET_END, endMinutes)
+            .apply();
+    }
+
+    /**
+     * Override a channel's mode (null restores the default)
+     */
+    public static void setChannelMode(Context context, String channelId, Mode mode) {
+        SharedPreferences prefs = prefs(context);
+        try {
+            JSONObject modes = new JSONObject(prefs.getString(KEY_CHANNEL_MODES, "{}"));
+            if (mode == null) {
+                modes.remove(channelId);
+            } else {
+                modes.put(channelId, mode.name());
+            }
+            prefs.edit().putString(KEY_CHANNEL_MODES, modes.toString()).apply();
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to store channel mode: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse "HH:MM" into minutes of the day, or -1 if malformed
+     */
+    public static int parseTime(String value) {
+        if (value == null) return -1;
+        try {
+            String[] parts = value.split(":");
+            int hours = Integer.parseInt(parts[0].trim());
+            int minutes = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) return -1;
+            return hours * 60 + minutes;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static Mode modeFor(Context context, String channelId, String priority) {
+        if ("low".equals(priority)) return Mode.BATCH;
+        if ("high".equals(priority)) return Mode.SILENT_IN_QUIET;
+
+        try {
+            JSONObject modes = new JSONObject(prefs(context).getString(KEY_CHANNEL_MODES, "{}"));
+            String override = modes.optString(channelId, null);
+            if (override != null) return Mode.valueOf(override);
+        } catch (Exception e) {
+            // Fall through to the defaults
+        }
+
+        if (channelId == null) return Mode.SILENT_IN_QUIET;
+        switch (channelId) {
+            case NotificationChannels.CHANNEL_SCHEDULED:
+                return Mode.DEFER;
+            case NotificationChannels.CHANNEL_ASSISTANT:
+            case NotificationChannels.CHANNEL_STREAKS:
+            case NotificationChannels.CHANNEL_ACHIEVEMENTS:
+                return Mode.BATCH;
+            default:
+                return Mode.SILENT_IN_QUIET;
+        }
+    }
+
+    private static int minuteOfDay(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        return cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE);
+    }
+
+    static boolean isQuiet(long time, int start, int end) {
+        if (start == end) return false;
+        int minute = minuteOfDay(time);
+        if (start < end) {
+            return minute >= start && minute < end;
+        }
+        // Spans midnight
+        return minute >= start || minute < end;
+    }
+
+    /**
+     * The first quiet-hours end strictly after the given time
+     */
+    static long quietEndAfter(long time, int end) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        cal.set(Calendar.HOUR_OF_DAY, end / 60);
+        cal.set(Calendar.MINUTE, end % 60);
+        cal.set(Calendar.SECOND, 0);
+        cal.set(Calendar.MILLISECOND, 0);
+        if (cal.getTimeInMillis() <= time) {
+            cal.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return cal.getTimeInMillis();
+    }
+
+    /**
+     * Round up to the next batch window boundary in local time
+     */
+    static long nextWindowBoundary(long time) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(time);
+        long offset = cal.get(Calendar.ZONE_OFFSET) + cal.get(Calendar.DST_OFFSET);
+        long local = time + offset;
+        long rounded = ((local + BATCH_WINDOW_MS - 1) / BATCH_WINDOW_MS) * BATCH_WINDOW_MS;
+        return rounded - offset;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,19 @@
+package ai.journalmate.app;
+
+import android.app.Application;
+
+/**
+ * Starts the cold-start warm-up (StartupAccelerator) as early as possible
+ * when the process is created to show MainActivity. Background starts for
+ * pushes, alarms, widgets and WorkManager skip it.
+ */
+public class JournalMateApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (StartupAccelerator.isForegroundLaunch()) {
+            StartupAccelerator.start(this);
+        }
+    }
+}
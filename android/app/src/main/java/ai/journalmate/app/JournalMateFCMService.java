@@ -1,21 +1,17 @@
 package ai.journalmate.app;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
-import android.graphics.Color;
-import androidx.core.app.NotificationCompat;
 
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
+import ai.journalmate.app.widgets.WidgetSnapshot;
+import ai.journalmate.app.widgets.WidgetUpdater;
+
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -29,10 +25,10 @@ import java.util.concurrent.Executors;
  */
 public class JournalMateFCMService extends FirebaseMessagingService {
     private static final String TAG = "JournalMateFCM";
-    private static final String CHANNEL_ID = "journalmate_push";
-    private static final String CHANNEL_NAME = "JournalMate Notifications";
     private static final String PREFS_NAME = "journalmate_prefs";
     private static final String API_BASE_URL = "https://journalmate.ai";
+    private static final String TYPE_WIDGET_UPDATE = "widget_update";
+    private static final String TYPE_ROUTING_UPDATE = "routing_update";
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
@@ -54,27 +50,66 @@ public class JournalMateFCMService extends FirebaseMessagingService {
         super.onMessageReceived(remoteMessage);
         Log.d(TAG, "Message received from: " + remoteMessage.getFrom());
 
-        // Check if message contains a notification payload
-        if (remoteMessage.getNotification() != null) {
-            String title = remoteMessage.getNotification().getTitle();
-            String body = remoteMessage.getNotification().getBody();
-            Log.d(TAG, "Notification - Title: " + title + ", Body: " + body);
-            showNotification(title, body, null);
+        // Silent widget stats push - update the cache and widgets, never show anything
+        if (TYPE_WIDGET_UPDATE.equals(remoteMessage.getData().get("type"))) {
+            handleWidgetUpdate(remoteMessage.getData());
+            return;
         }
 
-        // Check if message contains data payload
+        // Silent: the server changed its notification routing table
+        if (TYPE_ROUTING_UPDATE.equals(remoteMessage.getData().get("type"))) {
+            executor.execute(() -> NotificationRouting.refresh(getApplicationContext()));
+            return;
+        }
+
+        // Notification and data payloads describe the same message - merge them
+        // so it is shown once, then let the ingest pipeline dedupe and bundle it
         Map<String, String> data = remoteMessage.getData();
-        if (!data.isEmpty()) {
-            Log.d(TAG, "Data payload: " + data);
+        RemoteMessage.Notification notification = remoteMessage.getNotification();
+
+        NotificationIngest.Message message = new NotificationIngest.Message();
+        message.messageId = data.containsKey("messageId") ? data.get("messageId") : remoteMessage.getMessageId();
+        message.collapseKey = remoteMessage.getCollapseKey();
+        // Group pushes carry their type as notificationType
+        message.type = data.containsKey("type") ? data.get("type") : data.get("notificationType");
+        message.channelId = data.get("channelId");
+        message.title = data.containsKey("title") ? data.get("title") : (notification != null ? notification.getTitle() : null);
+        message.body = data.containsKey("body") ? data.get("body") : (notification != null ? notification.getBody() : null);
+        message.activityId = data.get("activityId");
+        message.groupId = data.get("groupId");
+        message.imageUrl = data.containsKey("imageUrl") ? data.get("imageUrl")
+            : (notification != null && notification.getImageUrl() != null ? notification.getImageUrl().toString() : null);
+        message.avatarUrl = data.get("avatarUrl");
+        try {
+            message.sentAt = data.containsKey("sentAt") ? Long.parseLong(data.get("sentAt")) : remoteMessage.getSentTime();
+        } catch (NumberFormatException e) {
+            message.sentAt = remoteMessage.getSentTime();
+        }
 
-            String title = data.get("title");
-            String body = data.get("body");
-            String activityId = data.get("activityId");
-            String type = data.get("type");
+        Log.d(TAG, "Push type=" + message.type + ", id=" + message.messageId);
+        NotificationIngest.ingest(this, message);
+    }
 
-            if (title != null && body != null) {
-                showNotification(title, body, activityId);
-            }
+    /**
+     * Handle a compact widget_update data message
+     *
+     * Payload (all values strings, as FCM data requires):
+     *   type=widget_update, version=<server epoch ms>, and any of
+     *   streak, totalCompleted, completionRate, plansComplete, totalPlans,
+     *   tasksCompleted, tasksTotal, unreadNotifications,
+     *   weeklyCompleted (comma-separated, last 7 days oldest first)
+     */
+    private void handleWidgetUpdate(Map<String, String> data) {
+        long version;
+        try {
+            version = Long.parseLong(data.get("version"));
+        } catch (Exception e) {
+            Log.w(TAG, "widget_update without a valid version, ignoring");
+            return;
+        }
+
+        if (WidgetSnapshot.applyStatsUpdate(this, version, data)) {
+            WidgetUpdater.requestRefresh(this);
         }
     }
 
@@ -123,69 +158,4 @@ public class JournalMateFCMService extends FirebaseMessagingService {
             }
         });
     }
-
-    /**
-     * Display a notification to the user
-     */
-    private void showNotification(String title, String body, String activityId) {
-        createNotificationChannel();
-
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        // Add activity ID if provided for deep linking
-        if (activityId != null) {
-            intent.putExtra("activityId", activityId);
-        }
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-            this,
-            0,
-            intent,
-            PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Purple accent color matching widget design (#8b5cf6)
-        int accentColor = Color.parseColor("#8b5cf6");
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-            .setSmallIcon(R.drawable.ic_notification)
-            .setContentTitle(title != null ? title : "JournalMate")
-            .setContentText(body != null ? body : "")
-            .setAutoCancel(true)
-            .setContentIntent(pendingIntent)
-            .setPriority(NotificationCompat.PRIORITY_HIGH)
-            .setColor(accentColor)
-            .setColorized(true);
-
-        NotificationManager notificationManager =
-            (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-
-        // Use unique ID based on timestamp
-        int notificationId = (int) System.currentTimeMillis();
-        notificationManager.notify(notificationId, builder.build());
-
-        Log.d(TAG, "Notification displayed with ID: " + notificationId);
-    }
-
-    /**
-     * Create notification channel for Android O and above
-     */
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription("JournalMate activity reminders and updates");
-            channel.enableLights(true);
-            channel.enableVibration(true);
-
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            notificationManager.createNotificationChannel(channel);
-
-            Log.d(TAG, "Notification channel created: " + CHANNEL_ID);
-        }
-    }
 }
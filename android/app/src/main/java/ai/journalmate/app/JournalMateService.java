@@ -1,13 +1,17 @@
 package ai.journalmate.app;
 
+import android.app.AlarmManager;
 import android.app.Notification;
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.SystemClock;
+import android.text.format.DateFormat;
 import android.util.Log;
 import android.view.View;
 import android.widget.RemoteViews;
@@ -15,6 +19,8 @@ import android.widget.RemoteViews;
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
+import java.util.Date;
+
 /**
  * Foreground Service for JournalMate
  *
@@ -24,24 +30,45 @@ import androidx.core.app.NotificationCompat;
  * This service runs in the foreground, meaning it won't be killed by Android
  * and keeps the app "running at the top".
  */
-public class JournalMateService extends Service {
+public class JournalMateService extends Service implements LiveProgressState.Listener {
     private static final String TAG = "JournalMateService";
-    private static final String CHANNEL_ID = "journalmate_foreground";
-    private static final String CHANNEL_NAME = "JournalMate Active";
     private static final int NOTIFICATION_ID = 1001;
+    private static final String ACTION_ROLLOVER = "ROLLOVER_NEXT_TASK";
+    static final String ACTION_REALTIME_CHANGED = "REALTIME_CHANGED";
+    // The rollover alarm doesn't wake the device - a minute of slack lets it batch
+    private static final long ROLLOVER_WINDOW_MS = 60 * 1000;
+
+    // Current state - updated in-process through LiveProgressState, or by intent
+    private LiveProgressState.Snapshot state = LiveProgressState.EMPTY;
+    // What the posted notification currently shows (null before the first post)
+    private LiveProgressState.Snapshot renderedState;
 
-    // Current state - can be updated from JavaScript bridge
-    private int completedTasks = 0;
-    private int totalTasks = 0;
-    private int currentStreak = 0;
-    private String nextTaskTitle = "";
-    private String nextTaskTime = "";
+    // Built once per service instance - only the content changes between updates
+    private NotificationCompat.Builder builder;
+    private PendingIntent openPendingIntent;
+    private PendingIntent addTaskPendingIntent;
+    private PendingIntent viewTodayPendingIntent;
+    // Optional push channel (see RealtimeChannel), null when disabled
+    private RealtimeChannel realtimeChannel;
+    // Timed task the posted notification is counting down to (null if none)
+    private LiveProgressState.UpcomingTask shownUpcoming;
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "JournalMateService created");
-        createNotificationChannel();
+        NotificationChannels.ensureChannels(this);
+        LiveProgressState.setListener(this);
+
+        // After an OS restart the process is fresh - show the last rendered
+        // progress right away, and only go to the network if it's old
+        state = LiveProgressState.restore(this);
+        if (LiveProgressState.isStale()) {
+            Log.d(TAG, "Restored progress is stale, requesting sync");
+            TaskSyncWorker.requestExpeditedSync(this);
+        }
+
+        applyRealtimeSetting();
     }
 
     @Override
@@ -52,18 +79,24 @@ public class JournalMateService extends Service {
             String action = intent.getAction();
 
             if ("UPDATE_PROGRESS".equals(action)) {
-                // Update from JavaScript bridge
-                completedTasks = intent.getIntExtra("completedTasks", completedTasks);
-                totalTasks = intent.getIntExtra("totalTasks", totalTasks);
-                currentStreak = intent.getIntExtra("streak", currentStreak);
-                nextTaskTitle = intent.getStringExtra("nextTaskTitle");
-                nextTaskTime = intent.getStringExtra("nextTaskTime");
-
-                if (nextTaskTitle == null) nextTaskTitle = "";
-                if (nextTaskTime == null) nextTaskTime = "";
-
-                updateNotification();
+                // Update from an intent - only used when the service wasn't running yet.
+                // Timed tasks aren't in the extras; callers published them just before.
+                state = new LiveProgressState.Snapshot(
+                    intent.getIntExtra("completedTasks", state.completedTasks),
+                    intent.getIntExtra("totalTasks", state.totalTasks),
+                    intent.getIntExtra("streak", state.streak),
+                    intent.getStringExtra("nextTaskTitle"),
+                    intent.getStringExtra("nextTaskTime"),
+                    LiveProgressState.get().upcoming
+                );
+                LiveProgressState.set(state);
+                // Fall through to startForeground - startForegroundService() requires it
+            } else if (ACTION_REALTIME_CHANGED.equals(action)) {
+                applyRealtimeSetting();
                 return START_STICKY;
+            } else if (ACTION_ROLLOVER.equals(action)) {
+                // The task being counted down has passed - re-render to promote the next one
+                Log.d(TAG, "Next task passed, rolling over");
             } else if ("STOP_SERVICE".equals(action)) {
                 stopForeground(true);
                 stopSelf();
@@ -73,6 +106,9 @@ public class JournalMateService extends Service {
 
         // Start as foreground service with notification
         startForeground(NOTIFICATION_ID, buildNotification());
+        renderedState = state;
+        LiveProgressState.persist(this);
+        scheduleRollover();
 
         return START_STICKY; // Restart if killed
     }
@@ -83,41 +119,59 @@ public class JournalMateService extends Service {
         return null; // Not a bound service
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            ProgressBitmapRenderer.clear();
+        }
+    }
+
     @Override
     public void onDestroy() {
+        LiveProgressState.setListener(null);
+        cancelRollover();
+        if (realtimeChannel != null) {
+            realtimeChannel.stop();
+            realtimeChannel = null;
+        }
         super.onDestroy();
         Log.d(TAG, "JournalMateService destroyed");
     }
 
     /**
-     * Create the notification channel (required for Android 8.0+)
+     * Start or stop the realtime channel to match the user's setting
      */
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_LOW // Low = no sound, but visible
-            );
-            channel.setDescription("Shows your daily progress and upcoming tasks");
-            channel.setShowBadge(false);
-            channel.setSound(null, null); // Silent
-
-            NotificationManager manager = getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-            }
+    private void applyRealtimeSetting() {
+        boolean enabled = RealtimeChannel.isEnabled(this);
+        if (enabled && realtimeChannel == null) {
+            realtimeChannel = new RealtimeChannel(this);
+            realtimeChannel.start();
+        } else if (!enabled && realtimeChannel != null) {
+            realtimeChannel.stop();
+            realtimeChannel = null;
         }
     }
 
     /**
-     * Build the foreground notification with custom layout
+     * In-process update from LiveProgressState (main thread)
      */
-    private Notification buildNotification() {
+    @Override
+    public void onProgressChanged(LiveProgressState.Snapshot snapshot) {
+        state = snapshot;
+        updateNotification();
+    }
+
+    /**
+     * Create the PendingIntents and the Builder once - they never change
+     */
+    private void ensureBuilder() {
+        if (builder != null) return;
+
         // Intent to open app when notification is tapped
         Intent openIntent = new Intent(this, MainActivity.class);
         openIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        PendingIntent openPendingIntent = PendingIntent.getActivity(
+        openPendingIntent = PendingIntent.getActivity(
             this, 0, openIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
@@ -126,7 +180,7 @@ public class JournalMateService extends Service {
         Intent addTaskIntent = new Intent(this, MainActivity.class);
         addTaskIntent.setAction("ADD_TASK");
         addTaskIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        PendingIntent addTaskPendingIntent = PendingIntent.getActivity(
+        addTaskPendingIntent = PendingIntent.getActivity(
             this, 1, addTaskIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
@@ -135,19 +189,57 @@ public class JournalMateService extends Service {
         Intent viewTodayIntent = new Intent(this, MainActivity.class);
         viewTodayIntent.setAction("VIEW_TODAY");
         viewTodayIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        PendingIntent viewTodayPendingIntent = PendingIntent.getActivity(
+        viewTodayPendingIntent = PendingIntent.getActivity(
             this, 2, viewTodayIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
         );
 
-        // Create custom RemoteViews layout
+        builder = new NotificationCompat.Builder(this, NotificationChannels.CHANNEL_FOREGROUND)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("JournalMate")
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setOngoing(true) // Can't be dismissed
+            .setShowWhen(false) // Don't show timestamp
+            .setOnlyAlertOnce(true)
+            .setContentIntent(openPendingIntent)
+            .addAction(R.drawable.ic_notification, "Add Task", addTaskPendingIntent)
+            .addAction(R.drawable.ic_notification, "Today", viewTodayPendingIntent);
+    }
+
+    /**
+     * Build the foreground notification with custom layout
+     */
+    private Notification buildNotification() {
+        ensureBuilder();
+
+        int completedTasks = state.completedTasks;
+        int totalTasks = state.totalTasks;
+        int currentStreak = state.streak;
+        String nextTaskTitle = state.nextTaskTitle;
+        String nextTaskTime = state.nextTaskTime;
+
+        // Notification RemoteViews are replaced wholesale on notify, so the
+        // view is recreated - but it only carries the content fields
         RemoteViews customView = new RemoteViews(getPackageName(), R.layout.notification_live_progress);
 
         // Calculate progress percentage
-        int percentage = totalTasks > 0 ? (int) ((completedTasks * 100.0) / totalTasks) : 0;
+        int percentage = state.percentage();
 
-        // Update progress ring
-        customView.setProgressBar(R.id.progress_ring, 100, percentage, false);
+        // Update progress ring - cached bitmap, falling back to the ProgressBar drawables
+        Bitmap ring = null;
+        try {
+            ring = ProgressBitmapRenderer.progressRing(this, 48, percentage, ProgressBitmapRenderer.systemTheme(this));
+        } catch (Exception e) {
+            Log.w(TAG, "Ring render failed, using ProgressBar: " + e.getMessage());
+        }
+        if (ring != null) {
+            customView.setImageViewBitmap(R.id.progress_ring_image, ring);
+            customView.setViewVisibility(R.id.progress_ring_image, View.VISIBLE);
+            customView.setViewVisibility(R.id.progress_ring, View.GONE);
+            customView.setViewVisibility(R.id.progress_background, View.GONE);
+        } else {
+            customView.setProgressBar(R.id.progress_ring, 100, percentage, false);
+        }
         customView.setTextViewText(R.id.progress_percentage, percentage + "%");
 
         // Update title
@@ -171,8 +263,25 @@ public class JournalMateService extends Service {
             customView.setViewVisibility(R.id.streak_badge, View.GONE);
         }
 
-        // Update next task if available
-        if (!nextTaskTitle.isEmpty()) {
+        // Update next task if available - a timed task counts down by itself
+        // (the row's chronometer, the only countdown shown - the header keeps
+        // setShowWhen(false)), so the notification needs no periodic updates
+        long now = System.currentTimeMillis();
+        shownUpcoming = state.nextUpcoming(now);
+        customView.setViewVisibility(R.id.next_task_countdown, View.GONE);
+        if (shownUpcoming != null) {
+            customView.setViewVisibility(R.id.next_task, View.VISIBLE);
+            String nextText = "\uD83D\uDCCB Next: " + shownUpcoming.title;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                long base = SystemClock.elapsedRealtime() + (shownUpcoming.dueAt - now);
+                customView.setChronometer(R.id.next_task_countdown, base, "in %s", true);
+                customView.setChronometerCountDown(R.id.next_task_countdown, true);
+                customView.setViewVisibility(R.id.next_task_countdown, View.VISIBLE);
+            } else {
+                nextText += " at " + DateFormat.getTimeFormat(this).format(new Date(shownUpcoming.dueAt));
+            }
+            customView.setTextViewText(R.id.next_task, nextText);
+        } else if (!nextTaskTitle.isEmpty()) {
             customView.setViewVisibility(R.id.next_task, View.VISIBLE);
             String nextText = "\uD83D\uDCCB Next: " + nextTaskTitle;
             if (!nextTaskTime.isEmpty()) {
@@ -194,29 +303,58 @@ public class JournalMateService extends Service {
             contentText = "No tasks for today. Tap to add one!";
         }
 
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-            .setSmallIcon(R.drawable.ic_notification)
-            .setContentTitle("JournalMate")
-            .setContentText(contentText)
+        builder.setContentText(contentText)
             .setCustomContentView(customView)
-            .setCustomBigContentView(customView)
-            .setPriority(NotificationCompat.PRIORITY_LOW)
-            .setOngoing(true) // Can't be dismissed
-            .setShowWhen(false) // Don't show timestamp
-            .setContentIntent(openPendingIntent)
-            .addAction(R.drawable.ic_notification, "Add Task", addTaskPendingIntent)
-            .addAction(R.drawable.ic_notification, "Today", viewTodayPendingIntent);
+            .setCustomBigContentView(customView);
 
         return builder.build();
     }
 
     /**
-     * Update the notification with new data
+     * Update the notification with new data (skipped if nothing visible changed)
      */
     private void updateNotification() {
+        if (state.equals(renderedState)) {
+            return;
+        }
         NotificationManager manager = getSystemService(NotificationManager.class);
         if (manager != null) {
             manager.notify(NOTIFICATION_ID, buildNotification());
+            renderedState = state;
+            LiveProgressState.persist(this);
+            scheduleRollover();
+        }
+    }
+
+    /**
+     * Schedule a single, non-waking alarm for when the counted-down task
+     * passes, so the next one gets promoted. Replaces any earlier rollover.
+     */
+    private void scheduleRollover() {
+        AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) return;
+
+        PendingIntent rollover = rolloverIntent();
+        if (shownUpcoming == null) {
+            alarmManager.cancel(rollover);
+            return;
+        }
+        alarmManager.setWindow(AlarmManager.RTC, shownUpcoming.dueAt, ROLLOVER_WINDOW_MS, rollover);
+    }
+
+    private void cancelRollover() {
+        AlarmManager alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(rolloverIntent());
         }
     }
+
+    private PendingIntent rolloverIntent() {
+        Intent intent = new Intent(this, JournalMateService.class);
+        intent.setAction(ACTION_ROLLOVER);
+        return PendingIntent.getService(
+            this, 3, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
 }
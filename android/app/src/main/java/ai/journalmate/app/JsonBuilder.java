@@ -0,0 +1,173 @@
+package ai.journalmate.app;
+
+/**
+ * Streaming JSON writer for native-to-JS payloads
+ *
+ * Appends straight into one StringBuilder (size it with the constructor hint
+ * for big payloads), so a share with hundreds of file URIs and a long caption
+ * serializes in a single pass. Strings are escaped per RFC 8259, plus U+2028 /
+ * U+2029, which are valid in JSON but end a line in older JS engines - the
+ * output can be embedded in a script as an expression.
+ *
+ * Not a validator: callers are expected to pair begin/end and name/value.
+ */
+public final class JsonBuilder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder out;
+    // Per nesting level: does the next element need a leading comma?
+    private boolean[] needsComma = new boolean[8];
+    private int depth = 0;
+    // Just wrote a name; the value follows without a comma
+    private boolean afterName = false;
+
+    public JsonBuilder() {
+        this(64);
+    }
+
+    public JsonBuilder(int capacityHint) {
+        out = new StringBuilder(capacityHint);
+    }
+
+    public JsonBuilder beginObject() {
+        beforeValue();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    public JsonBuilder endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    public JsonBuilder beginArray() {
+        beforeValue();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    public JsonBuilder endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    public JsonBuilder name(String name) {
+        if (needsComma[depth]) out.append(',');
+        needsComma[depth] = true;
+        writeString(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * A string value; null writes JSON null
+     */
+    public JsonBuilder value(String value) {
+        beforeValue();
+        if (value == null) {
+            out.append("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonBuilder value(long value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    public JsonBuilder value(boolean value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Already-serialized JSON, copied verbatim
+     */
+    public JsonBuilder rawValue(String json) {
+        beforeValue();
+        out.append(json);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    /**
+     * A single escaped, quoted JSON string
+     */
+    public static String quote(String value) {
+        JsonBuilder builder = new JsonBuilder(value.length() + 16);
+        builder.writeString(value);
+        return builder.toString();
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (needsComma[depth]) out.append(',');
+        needsComma[depth] = true;
+    }
+
+    private void push() {
+        depth++;
+        if (depth == needsComma.length) {
+            boolean[] grown = new boolean[depth * 2];
+            System.arraycopy(needsComma, 0, grown, 0, depth);
+            needsComma = grown;
+        }
+        needsComma[depth] = false;
+    }
+
+    private void writeString(String value) {
+        out.append('"');
+        int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                escape = null;
+            } else {
+                continue;
+            }
+
+            // Copy the unescaped run in one call, then the escape
+            if (i > runStart) out.append(value, runStart, i);
+            if (escape != null) {
+                out.append(escape);
+            } else {
+                out.append("\\u")
+                    .append(HEX[(c >> 12) & 0xf])
+                    .append(HEX[(c >> 8) & 0xf])
+                    .append(HEX[(c >> 4) & 0xf])
+                    .append(HEX[c & 0xf]);
+            }
+            runStart = i + 1;
+        }
+        if (length > runStart) out.append(value, runStart, length);
+        out.append('"');
+    }
+}
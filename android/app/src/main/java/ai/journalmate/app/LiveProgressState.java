@@ -0,0 +1,302 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process channel for the live progress notification
+ *
+ * The JS bridge and the sync worker run in the same process as
+ * JournalMateService, so while the service is running they publish progress
+ * here and the service re-renders directly on the main thread - no
+ * startForegroundService intent, no activity manager round trip. When the
+ * service isn't running, publish() returns false and callers start it with
+ * an intent as before.
+ *
+ * The last rendered state is also persisted so a service restarted by the OS
+ * shows correct progress on its first frame, without waiting for the network.
+ */
+public final class LiveProgressState {
+
+    /**
+     * A timed task the notification can count down to
+     */
+    public static final class UpcomingTask {
+        public final String title;
+        public final long dueAt;
+
+        public UpcomingTask(String title, long dueAt) {
+            this.title = title != null ? title : "";
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof UpcomingTask)) return false;
+            UpcomingTask other = (UpcomingTask) o;
+            return dueAt == other.dueAt && title.equals(other.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * title.hashCode() + (int) (dueAt ^ (dueAt >>> 32));
+        }
+    }
+
+    /**
+     * Progress shown in the ongoing notification
+     */
+    public static final class Snapshot {
+        // Enough to keep promoting next tasks for the rest of the day
+        private static final int MAX_UPCOMING = 10;
+
+        public final int completedTasks;
+        public final int totalTasks;
+        public final int streak;
+        public final String nextTaskTitle;
+        public final String nextTaskTime;
+        // Timed tasks, soonest first - when present these drive the countdown
+        public final List<UpcomingTask> upcoming;
+
+        public Snapshot(int completedTasks, int totalTasks, int streak,
+                        String nextTaskTitle, String nextTaskTime) {
+            this(completedTasks, totalTasks, streak, nextTaskTitle, nextTaskTime, null);
+        }
+
+        public Snapshot(int completedTasks, int totalTasks, int streak,
+                        String nextTaskTitle, String nextTaskTime, List<UpcomingTask> upcoming) {
+            this.completedTasks = completedTasks;
+            this.totalTasks = totalTasks;
+            this.streak = streak;
+            this.nextTaskTitle = nextTaskTitle != null ? nextTaskTitle : "";
+            this.nextTaskTime = nextTaskTime != null ? nextTaskTime : "";
+
+            List<UpcomingTask> sorted = new ArrayList<>();
+            if (upcoming != null) {
+                for (UpcomingTask task : upcoming) {
+                    if (task != null && task.dueAt > 0) sorted.add(task);
+                }
+                Collections.sort(sorted, (a, b) -> Long.compare(a.dueAt, b.dueAt));
+            }
+            if (sorted.size() > MAX_UPCOMING) {
+                sorted = sorted.subList(0, MAX_UPCOMING);
+            }
+            this.upcoming = Collections.unmodifiableList(new ArrayList<>(sorted));
+        }
+
+        public int percentage() {
+            return totalTasks > 0 ? (int) ((completedTasks * 100.0) / totalTasks) : 0;
+        }
+
+        /**
+         * The first timed task still ahead of now, or null
+         */
+        public UpcomingTask nextUpcoming(long now) {
+            for (UpcomingTask task : upcoming) {
+                if (task.dueAt > now) return task;
+            }
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Snapshot)) return false;
+            Snapshot other = (Snapshot) o;
+            return completedTasks == other.completedTasks
+                && totalTasks == other.totalTasks
+                && streak == other.streak
+                && nextTaskTitle.equals(other.nextTaskTitle)
+                && nextTaskTime.equals(other.nextTaskTime)
+                && upcoming.equals(other.upcoming);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = completedTasks;
+            result = 31 * result + totalTasks;
+            result = 31 * result + streak;
+            result = 31 * result + nextTaskTitle.hashCode();
+            result = 31 * result + nextTaskTime.hashCode();
+            result = 31 * result + upcoming.hashCode();
+            return result;
+        }
+    }
+
+    /**
+     * Implemented by the running service
+     */
+    interface Listener {
+        void onProgressChanged(Snapshot snapshot);
+    }
+
+    public static final Snapshot EMPTY = new Snapshot(0, 0, 0, "", "");
+
+    private static final String TAG = "LiveProgressState";
+    private static final String PREFS_NAME = "journalmate_live_progress";
+    private static final String KEY_STATE = "state";
+
+    // Restored progress older than this gets an expedited sync behind it
+    private static final long STALE_AFTER_MS = 30 * 60 * 1000;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static Snapshot current = EMPTY;
+    // When the current progress was received (0 = never)
+    private static long updatedAt = 0;
+    private static Listener listener;
+
+    private LiveProgressState() {}
+
+    /**
+     * Publish new progress to the running service
+     *
+     * @return true if the service is running and will render the update,
+     *         false if the caller needs to start the service itself
+     */
+    public static boolean publish(Snapshot snapshot) {
+        Listener target;
+        synchronized (LiveProgressState.class) {
+            target = listener;
+            if (snapshot.equals(current)) {
+                // Nothing changed - the notification already shows this, but it is confirmed fresh
+                updatedAt = System.currentTimeMillis();
+                return target != null;
+            }
+            current = snapshot;
+            updatedAt = System.currentTimeMillis();
+        }
+
+        if (target == null) {
+            return false;
+        }
+        mainHandler.post(() -> target.onProgressChanged(snapshot));
+        return true;
+    }
+
+    /**
+     * Last published progress
+     */
+    public static synchronized Snapshot get() {
+        return current;
+    }
+
+    /**
+     * Store progress without notifying (the service applying an intent itself)
+     */
+    static synchronized void set(Snapshot snapshot) {
+        current = snapshot;
+        updatedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Save the current progress (called by the service after it renders)
+     * as one compact value: [completed, total, streak, updatedAt, title, time,
+     * [[title, dueAt], ...]]
+     */
+    static void persist(Context context) {
+        Snapshot snapshot;
+        long receivedAt;
+        synchronized (LiveProgressState.class) {
+            snapshot = current;
+            receivedAt = updatedAt;
+        }
+
+        JSONArray packed = new JSONArray()
+            .put(snapshot.completedTasks)
+            .put(snapshot.totalTasks)
+            .put(snapshot.streak)
+            .put(receivedAt)
+            .put(snapshot.nextTaskTitle)
+            .put(snapshot.nextTaskTime);
+        JSONArray upcoming = new JSONArray();
+        for (UpcomingTask task : snapshot.upcoming) {
+            upcoming.put(new JSONArray().put(task.title).put(task.dueAt));
+        }
+        packed.put(upcoming);
+        prefs(context).edit().putString(KEY_STATE, packed.toString()).apply();
+    }
+
+    /**
+     * Load persisted progress if nothing has been published in this process yet
+     * (i.e. the process was killed and the service restarted)
+     *
+     * @return the current progress, restored or not
+     */
+    static Snapshot restore(Context context) {
+        synchronized (LiveProgressState.class) {
+            if (updatedAt != 0) {
+                return current;
+            }
+        }
+
+        String json = prefs(context).getString(KEY_STATE, null);
+        if (json == null) {
+            return get();
+        }
+
+        try {
+            JSONArray packed = new JSONArray(json);
+            List<UpcomingTask> upcoming = new ArrayList<>();
+            JSONArray packedUpcoming = packed.optJSONArray(6);
+            if (packedUpcoming != null) {
+                for (int i = 0; i < packedUpcoming.length(); i++) {
+                    JSONArray entry = packedUpcoming.optJSONArray(i);
+                    if (entry != null) {
+                        upcoming.add(new UpcomingTask(entry.optString(0, ""), entry.optLong(1, 0)));
+                    }
+                }
+            }
+            Snapshot restored = new Snapshot(
+                packed.optInt(0, 0),
+                packed.optInt(1, 0),
+                packed.optInt(2, 0),
+                packed.optString(4, ""),
+                packed.optString(5, ""),
+                upcoming
+            );
+            synchronized (LiveProgressState.class) {
+                if (updatedAt == 0) {
+                    current = restored;
+                    updatedAt = packed.optLong(3, 0);
+                }
+                Log.d(TAG, "Restored progress " + current.completedTasks + "/" + current.totalTasks);
+                return current;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to restore progress: " + e.getMessage());
+            return get();
+        }
+    }
+
+    /**
+     * Whether the progress being shown is old enough to need a refresh
+     */
+    static synchronized boolean isStale() {
+        return System.currentTimeMillis() - updatedAt > STALE_AFTER_MS;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Whether JournalMateService is currently running in this process
+     */
+    public static synchronized boolean isServiceRunning() {
+        return listener != null;
+    }
+
+    static synchronized void setListener(Listener newListener) {
+        listener = newListener;
+    }
+}
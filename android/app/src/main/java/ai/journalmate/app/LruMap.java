@@ -0,0 +1,26 @@
+package ai.journalmate.app;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map bounded to maxEntries that evicts the least recently used entry
+ *
+ * Access-ordered, so get() counts as a use. Not thread-safe; callers
+ * synchronize.
+ */
+final class LruMap<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxEntries;
+
+    LruMap(int maxEntries) {
+        super(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+    }
+}
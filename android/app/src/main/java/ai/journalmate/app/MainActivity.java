@@ -1,6 +1,7 @@
 package ai.journalmate.app;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
@@ -19,16 +20,16 @@ import com.getcapacitor.BridgeActivity;
 import com.getcapacitor.Plugin;
 import com.ryltsov.alex.plugins.file.opener.FileOpenerPlugin;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
+
 public class MainActivity extends BridgeActivity {
 
-    // Store incoming intent for cold start
-    private static String pendingShareData = null;
-    // Store pending deep link auth token for OAuth callback
-    private static String pendingAuthToken = null;
-    // Track if periodic token checker is currently running
-    private boolean tokenCheckerActive = false;
-    // Handler for periodic checks
-    private android.os.Handler tokenCheckerHandler = null;
+    // Shares, routes and auth tokens wait in NativeEventQueue until the SPA acknowledges them.
+    // Auth token handed to the SPA and waiting for its acknowledgement
+    private static String tokenAwaitingAck = null;
+    // Time the SPA has to acknowledge an auth token before the fallback page load
+    private static final long AUTH_ACK_DEADLINE_MS = 3000;
 
     // File chooser callback for handling <input type="file"> in WebView
     private ValueCallback<Uri[]> filePathCallback;
@@ -36,6 +37,9 @@ public class MainActivity extends BridgeActivity {
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // Normally already started by JournalMateApplication; no-op then
+        StartupAccelerator.start(this);
+
         // IMPORTANT: Register custom plugins BEFORE super.onCreate()
         // The bridge starts in super.onCreate() and won't see plugins registered after
         registerPlugin(SharePlugin.class);
@@ -47,11 +51,16 @@ public class MainActivity extends BridgeActivity {
         registerPlugin(AppShortcutsPlugin.class);
         registerPlugin(SpeechPlugin.class);
         registerPlugin(FileOpenerPlugin.class);
+        registerPlugin(AppBridgePlugin.class);
+        registerPlugin(MediaUploadPlugin.class);
 
         super.onCreate(savedInstanceState);
 
-        // Create all notification channels for smart notifications
-        NotificationChannels.createAllChannels(this);
+        // Bridge and WebView exist now; queued native-to-JS actions run once the SPA signals ready
+        BridgeReadiness.attach(getBridge());
+
+        // Create all notification channels (no-op once done for this schema version)
+        NotificationChannels.ensureChannels(this);
 
         // Initialize file chooser launcher for handling file input in WebView
         fileChooserLauncher = registerForActivityResult(
@@ -77,10 +86,6 @@ public class MainActivity extends BridgeActivity {
         // Handle intent (share intents and deep links)
         handleIncomingIntent(getIntent());
 
-        // Schedule a check for pending auth tokens after WebView fully loads
-        // This handles cold-start OAuth where the token arrives before WebView is ready
-        schedulePendingTokenCheck();
-
         // Setup WebChromeClient to handle file input (<input type="file">) in WebView
         // This is required for profile image upload and other file selections to work
         setupFileChooser();
@@ -91,135 +96,56 @@ public class MainActivity extends BridgeActivity {
      * Without this, <input type="file"> clicks do nothing in Android WebView
      */
     private void setupFileChooser() {
-        // Delay setup to ensure bridge and webview are ready
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            if (getBridge() != null && getBridge().getWebView() != null) {
-                WebView webView = getBridge().getWebView();
-                webView.setWebChromeClient(new WebChromeClient() {
-                    @Override
-                    public boolean onShowFileChooser(WebView webView, ValueCallback<Uri[]> filePathCallbackParam,
-                                                     FileChooserParams fileChooserParams) {
-                        android.util.Log.d("MainActivity", "[FILE CHOOSER] onShowFileChooser called");
-
-                        // Cancel any existing callback
-                        if (filePathCallback != null) {
-                            filePathCallback.onReceiveValue(null);
-                        }
-                        filePathCallback = filePathCallbackParam;
-
-                        // Create intent for file picker
-                        Intent intent = fileChooserParams.createIntent();
-                        try {
-                            fileChooserLauncher.launch(intent);
-                            android.util.Log.d("MainActivity", "[FILE CHOOSER] File picker launched");
-                            return true;
-                        } catch (Exception e) {
-                            android.util.Log.e("MainActivity", "[FILE CHOOSER] Failed to launch file picker: " + e.getMessage());
-                            filePathCallback = null;
-                            return false;
-                        }
+        // The WebView is attached by super.onCreate(), so this can run immediately
+        if (getBridge() != null && getBridge().getWebView() != null) {
+            WebView webView = getBridge().getWebView();
+            webView.setWebChromeClient(new WebChromeClient() {
+                @Override
+                public boolean onShowFileChooser(WebView webView, ValueCallback<Uri[]> filePathCallbackParam,
+                                                 FileChooserParams fileChooserParams) {
+                    android.util.Log.d("MainActivity", "[FILE CHOOSER] onShowFileChooser called");
+
+                    // Cancel any existing callback
+                    if (filePathCallback != null) {
+                        filePathCallback.onReceiveValue(null);
+                    }
+                    filePathCallback = filePathCallbackParam;
+
+                    // Create intent for file picker
+                    Intent intent = fileChooserParams.createIntent();
+                    try {
+                        fileChooserLauncher.launch(intent);
+                        android.util.Log.d("MainActivity", "[FILE CHOOSER] File picker launched");
+                        return true;
+                    } catch (Exception e) {
+                        android.util.Log.e("MainActivity", "[FILE CHOOSER] Failed to launch file picker: " + e.getMessage());
+                        filePathCallback = null;
+                        return false;
                     }
-                });
-                android.util.Log.d("MainActivity", "[FILE CHOOSER] WebChromeClient setup complete");
-            } else {
-                android.util.Log.w("MainActivity", "[FILE CHOOSER] Bridge or WebView not ready, retrying...");
-                // Retry after another delay
-                setupFileChooser();
-            }
-        }, 500);
-    }
-    
-    /**
-     * Schedule periodic checks for pending auth tokens until delivered or timeout
-     * This ensures tokens are delivered even on slow cold starts
-     * NOTE: pendingAuthToken is only cleared after successful loadUrl, not before
-     * Can be called multiple times - will restart the checker if a new token arrives
-     */
-    private void schedulePendingTokenCheck() {
-        // If checker already active, it will pick up the new token
-        if (tokenCheckerActive) {
-            android.util.Log.d("MainActivity", "Token checker already active, will pick up new token");
-            return;
-        }
-        
-        final int CHECK_INTERVAL_MS = 1000;
-        final int MAX_CHECKS = 120; // Up to 120 seconds of checking (2 minutes)
-        
-        tokenCheckerHandler = new android.os.Handler(android.os.Looper.getMainLooper());
-        final int[] checkCount = {0};
-        tokenCheckerActive = true;
-        
-        Runnable tokenChecker = new Runnable() {
-            @Override
-            public void run() {
-                checkCount[0]++;
-                
-                if (pendingAuthToken != null && getBridge() != null && getBridge().getWebView() != null) {
-                    android.util.Log.d("MainActivity", "Pending token found on check #" + checkCount[0] + ", delivering...");
-                    // Don't clear token here - directNavigateWithTokenConfirmed will clear it after success
-                    directNavigateWithTokenConfirmed(pendingAuthToken);
-                    // Check again to confirm token was cleared
-                    tokenCheckerHandler.postDelayed(this, CHECK_INTERVAL_MS);
-                } else if (pendingAuthToken != null && checkCount[0] < MAX_CHECKS) {
-                    // Token pending but bridge not ready, check again later
-                    tokenCheckerHandler.postDelayed(this, CHECK_INTERVAL_MS);
-                } else if (pendingAuthToken != null) {
-                    android.util.Log.w("MainActivity", "Token delivery timeout after " + MAX_CHECKS + " checks");
-                    // Keep token - onResume will try again
-                    tokenCheckerActive = false;
-                } else {
-                    // Token was delivered successfully
-                    android.util.Log.d("MainActivity", "Token delivered, stopping checker");
-                    tokenCheckerActive = false;
                 }
-            }
-        };
-        
-        // Start checking after a short delay to allow initial setup
-        tokenCheckerHandler.postDelayed(tokenChecker, CHECK_INTERVAL_MS);
+            });
+            android.util.Log.d("MainActivity", "[FILE CHOOSER] WebChromeClient setup complete");
+        } else {
+            android.util.Log.w("MainActivity", "[FILE CHOOSER] Bridge or WebView not available");
+        }
     }
     
     @Override
     public void onResume() {
         super.onResume();
-        // Check for pending auth token on every resume - handles cases where
-        // token arrived but couldn't be delivered, and user returns to app
-        if (pendingAuthToken != null) {
-            android.util.Log.d("MainActivity", "onResume: Found pending auth token, attempting delivery");
-            if (getBridge() != null && getBridge().getWebView() != null) {
-                directNavigateWithTokenConfirmed(pendingAuthToken);
-            } else {
-                // Bridge not ready, start/restart the periodic checker
-                schedulePendingTokenCheck();
-            }
-        }
-    }
-    
-    /**
-     * Directly navigate with token and only clear pendingAuthToken after success
-     * This version confirms delivery before clearing the token
-     */
-    private void directNavigateWithTokenConfirmed(String token) {
-        if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-            runOnUiThread(() -> {
-                try {
-                    String baseUrl = "https://journalmate.ai";
-                    String authUrl = baseUrl + "/?token=" + token;
-                    android.util.Log.d("MainActivity", "Confirmed navigation to: " + authUrl);
-                    this.getBridge().getWebView().loadUrl(authUrl);
-                    
-                    // Only clear after loadUrl succeeds (no exception thrown)
-                    pendingAuthToken = null;
-                    android.util.Log.d("MainActivity", "Token delivered and cleared successfully");
-                } catch (Exception e) {
-                    android.util.Log.e("MainActivity", "Confirmed navigation failed: " + e.getMessage());
-                    // Don't clear token - keep it for next attempt
-                }
-            });
+        // Events queued before a process death (or not yet acknowledged) are delivered on resume
+        if (!NativeEventQueue.isEmpty(this)) {
+            android.util.Log.d("MainActivity", "onResume: Found queued native events, scheduling delivery");
+            scheduleEventDelivery();
         }
-        // If bridge not ready, don't clear token - periodic checker will try again
     }
 
+    @Override
+    public void onDestroy() {
+        BridgeReadiness.detach(getBridge());
+        super.onDestroy();
+    }
+    
     /**
      * Configure system bars to use solid colors and prevent content bleeding
      */
@@ -253,6 +179,9 @@ public class MainActivity extends BridgeActivity {
     }
     
     private void handleIncomingIntent(Intent intent) {
+        // Opened from one of our notifications
+        NotificationTelemetry.recordFromIntent(this, intent, NotificationTelemetry.EVENT_TAPPED, null);
+
         String action = intent.getAction();
         String type = intent.getType();
 
@@ -260,21 +189,21 @@ public class MainActivity extends BridgeActivity {
         if (action != null) {
             switch (action) {
                 case "ADD_TASK":
-                    navigateToRoute("/tasks?action=add");
+                    navigateToRoute("/tasks?action=add", "shortcut");
                     return;
                 case "VIEW_TODAY":
-                    navigateToRoute("/tasks?view=today");
+                    navigateToRoute("/tasks?view=today", "shortcut");
                     return;
                 case "QUICK_JOURNAL":
-                    navigateToRoute("/journal?action=new");
+                    navigateToRoute("/journal?action=new", "shortcut");
                     return;
                 case "VIEW_ACTIVITIES":
-                    navigateToRoute("/activities");
+                    navigateToRoute("/activities", "shortcut");
                     return;
                 case "VIEW_TASK":
                     String taskId = intent.getStringExtra("taskId");
                     if (taskId != null) {
-                        navigateToRoute("/tasks/" + taskId);
+                        navigateToRoute("/tasks/" + taskId, "notification");
                     }
                     return;
             }
@@ -308,48 +237,22 @@ public class MainActivity extends BridgeActivity {
     }
 
     /**
-     * Navigate the WebView to a specific route via JavaScript
+     * Navigate the SPA to a route without reloading the page
+     *
+     * Queued as a 'route' event ({ route, source }); the app's router turns it
+     * into a history API route change. A page that can't drain the queue gets
+     * a real page load of the route instead (see deliverQueuedEvents).
      */
-    // Store pending route for cold start shortcuts
-    private static String pendingShortcutRoute = null;
-
-    private void navigateToRoute(String route) {
-        if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-            runOnUiThread(() -> {
-                try {
-                    android.util.Log.d("MainActivity", "Navigating to route: " + route);
-                    // Use JavaScript to navigate within the SPA instead of loading external URL
-                    String jsCode = "javascript:window.location.href = '" + route + "';";
-                    this.getBridge().getWebView().evaluateJavascript(
-                        "window.location.href = '" + route + "';",
-                        null
-                    );
-                } catch (Exception e) {
-                    android.util.Log.e("MainActivity", "Navigation failed: " + e.getMessage());
-                }
-            });
-        } else {
-            // Store for when bridge is ready (cold start)
-            android.util.Log.d("MainActivity", "Bridge not ready, storing pending route: " + route);
-            pendingShortcutRoute = route;
-            // Schedule a check to navigate once bridge is ready
-            schedulePendingRouteCheck();
+    private void navigateToRoute(String route, String source) {
+        try {
+            queueEvent(NativeEventQueue.TYPE_ROUTE, new JSONObject()
+                .put("route", route)
+                .put("source", source));
+        } catch (org.json.JSONException e) {
+            android.util.Log.e("MainActivity", "Failed to queue route: " + e.getMessage());
         }
     }
 
-    private void schedulePendingRouteCheck() {
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            if (pendingShortcutRoute != null && getBridge() != null && getBridge().getWebView() != null) {
-                String route = pendingShortcutRoute;
-                pendingShortcutRoute = null;
-                navigateToRoute(route);
-            } else if (pendingShortcutRoute != null) {
-                // Retry if bridge still not ready
-                schedulePendingRouteCheck();
-            }
-        }, 500);
-    }
-
     /**
      * Handle deep links including OAuth callbacks
      * journalmate://auth?token=xxx - OAuth callback with auth token
@@ -365,265 +268,195 @@ public class MainActivity extends BridgeActivity {
             String token = uri.getQueryParameter("token");
             if (token != null && !token.isEmpty()) {
                 android.util.Log.d("MainActivity", "OAuth auth token received via deep link");
-                pendingAuthToken = token;
-                // Reset checker state so it can be restarted for this new token
-                tokenCheckerActive = false;
-                // Start/restart the periodic checker for this new token
-                schedulePendingTokenCheck();
-                // Also try immediate notification via JavaScript event
+                // Delivered as soon as the SPA is ready (immediately on hot start)
                 notifyAuthDeepLink(token);
             }
         }
         // Handle other deep links (journalmate://share/xxx, etc.)
         else if ("journalmate".equals(scheme)) {
             // Let the WebView handle other deep links via standard URL routing
+            // journalmate://share/abc -> /share/abc (the host is the first path segment)
             String path = uri.getPath();
             String query = uri.getQuery();
-            String webUrl = path != null ? path : "/";
+            String webUrl = (host != null ? "/" + host : "") + (path != null ? path : "");
+            if (webUrl.isEmpty()) webUrl = "/";
             if (query != null && !query.isEmpty()) {
                 webUrl += "?" + query;
             }
             // Navigate WebView to the path
-            if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-                final String finalUrl = webUrl;
-                runOnUiThread(() -> {
-                    this.getBridge().getWebView().loadUrl("javascript:window.location.href='" + finalUrl + "'");
-                });
-            }
+            navigateToRoute(webUrl, "deepLink");
         }
     }
 
     /**
-     * Notify the WebView about OAuth auth token received via deep link
-     * Uses multiple methods with retry logic to ensure token delivery
+     * Queue the OAuth auth token received via deep link for the SPA
+     * A newer token replaces a pending one
      */
     private void notifyAuthDeepLink(String token) {
         android.util.Log.d("MainActivity", "notifyAuthDeepLink called with token");
-        
-        // Store token for retry attempts
-        pendingAuthToken = token;
-        
-        // Try immediate notification
-        attemptTokenDelivery(token, 0);
-    }
-    
-    /**
-     * Attempt to deliver the auth token to the WebView
-     * Retries up to 5 times with increasing delays if WebView isn't ready
-     */
-    private void attemptTokenDelivery(String token, int attemptNumber) {
-        final int MAX_ATTEMPTS = 5;
-        final int BASE_DELAY_MS = 500;
-        
-        if (attemptNumber >= MAX_ATTEMPTS) {
-            android.util.Log.w("MainActivity", "Max token delivery attempts reached, using direct navigation");
-            // Final fallback: directly load the URL with token
-            directNavigateWithToken(token);
-            return;
-        }
-        
-        android.util.Log.d("MainActivity", "Token delivery attempt " + (attemptNumber + 1) + "/" + MAX_ATTEMPTS);
-        
-        if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-            runOnUiThread(() -> {
-                try {
-                    // Method 1: Dispatch custom event (works when JS is ready)
-                    String eventJs = String.format(
-                        "(function() { " +
-                        "  try { " +
-                        "    window.dispatchEvent(new CustomEvent('authDeepLink', { detail: { token: '%s' } })); " +
-                        "    console.log('[MainActivity] authDeepLink event dispatched'); " +
-                        "    return 'dispatched'; " +
-                        "  } catch(e) { " +
-                        "    console.error('[MainActivity] Event dispatch failed:', e); " +
-                        "    return 'failed'; " +
-                        "  } " +
-                        "})();",
-                        escapeJson(token)
-                    );
-                    
-                    this.getBridge().getWebView().evaluateJavascript(eventJs, (result) -> {
-                        android.util.Log.d("MainActivity", "JS event result: " + result);
-                        // Note: Event "dispatched" doesn't confirm listener received it
-                        // Don't clear pendingAuthToken here - let directNavigate or periodic checker
-                        // handle confirmed delivery
-                    });
-                    
-                    // Method 2: Also navigate to URL with token (belt and suspenders)
-                    // This handles cases where the event listener isn't set up yet
-                    new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-                        directNavigateWithToken(token);
-                    }, 300);
-                    
-                } catch (Exception e) {
-                    android.util.Log.e("MainActivity", "Token delivery failed: " + e.getMessage());
-                    // Retry after delay
-                    scheduleRetry(token, attemptNumber + 1, BASE_DELAY_MS * (attemptNumber + 1));
-                }
-            });
-        } else {
-            android.util.Log.d("MainActivity", "Bridge not ready, scheduling retry");
-            // Bridge not ready, retry after delay
-            scheduleRetry(token, attemptNumber + 1, BASE_DELAY_MS * (attemptNumber + 1));
+        try {
+            NativeEventQueue.replace(this, NativeEventQueue.TYPE_AUTH, new JSONObject().put("token", token));
+            scheduleEventDelivery();
+        } catch (org.json.JSONException e) {
+            android.util.Log.e("MainActivity", "Failed to queue auth token: " + e.getMessage());
         }
     }
-    
+
+    private void queueEvent(String type, JSONObject payload) {
+        queueEvent(type, payload.toString());
+    }
+
+    private void queueEvent(String type, String payloadJson) {
+        NativeEventQueue.enqueue(this, type, payloadJson);
+        scheduleEventDelivery();
+    }
+
     /**
-     * Schedule a retry attempt for token delivery
+     * Deliver the queue as soon as the SPA is ready (immediately on hot start)
      */
-    private void scheduleRetry(String token, int nextAttempt, int delayMs) {
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            attemptTokenDelivery(token, nextAttempt);
-        }, delayMs);
+    private void scheduleEventDelivery() {
+        BridgeReadiness.whenReady("events", this::deliverQueuedEvents);
     }
-    
+
     /**
-     * Directly navigate the WebView to a URL with the token parameter
-     * This is the most reliable method for remote URL WebViews
-     * Includes retry logic if bridge isn't ready yet
+     * Hand queued events to the web app
+     *
+     * A SPA that signaled ready gets the whole queue in one AppBridge
+     * 'nativeEvents' plugin event (on startup it drains it itself with
+     * AppBridge.drainEvents()). A queued auth token must then be acknowledged
+     * (AppBridge.ackAuthToken) within AUTH_ACK_DEADLINE_MS, otherwise it is
+     * delivered once more by a page load with the token in the URL.
+     *
+     * A page that never signaled (web build without the queue) gets the
+     * legacy deliveries: incomingShare events, and one page load for the
+     * token or the latest route.
      */
-    private void directNavigateWithToken(String token) {
-        directNavigateWithToken(token, 0);
-    }
-    
-    private void directNavigateWithToken(String token, int retryCount) {
-        // No longer capped - the periodic checker in schedulePendingTokenCheck handles the timeout
-        // This method just tries once and lets the periodic checker handle retries
-        final int NAVIGATION_RETRY_DELAY_MS = 500;
-        
-        if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-            runOnUiThread(() -> {
-                try {
-                    // For remote URLs (journalmate.ai), navigate to the full URL with token
-                    String baseUrl = "https://journalmate.ai";
-                    String authUrl = baseUrl + "/?token=" + token;
-                    android.util.Log.d("MainActivity", "Direct navigation to: " + authUrl);
-                    this.getBridge().getWebView().loadUrl(authUrl);
-                    
-                    // Clear pending token only after successful loadUrl
-                    pendingAuthToken = null;
-                    android.util.Log.d("MainActivity", "Token delivered successfully via directNavigate");
-                } catch (Exception e) {
-                    android.util.Log.e("MainActivity", "Direct navigation failed: " + e.getMessage());
-                    // Don't clear token - periodic checker will retry
+    private void deliverQueuedEvents(WebView webView) {
+        if (BridgeReadiness.spaSignaled()) {
+            JSONObject auth = NativeEventQueue.peekFirst(this, NativeEventQueue.TYPE_AUTH);
+            if (auth != null) {
+                String token = auth.optJSONObject("payload") != null
+                    ? auth.optJSONObject("payload").optString("token", null) : null;
+                if (token != null && !token.equals(tokenAwaitingAck)) {
+                    tokenAwaitingAck = token;
+                    new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
+                        if (token.equals(tokenAwaitingAck)) {
+                            android.util.Log.w("MainActivity", "No auth token acknowledgement, falling back to page load");
+                            NativeEventQueue.removeType(this, NativeEventQueue.TYPE_AUTH);
+                            directNavigateWithToken(webView, token);
+                        }
+                    }, AUTH_ACK_DEADLINE_MS);
                 }
-            });
-        } else {
-            // Bridge not ready - don't clear token, periodic checker will handle it
-            android.util.Log.d("MainActivity", "Bridge not ready for navigation, relying on periodic checker");
+            }
+            AppBridgePlugin appBridge = getAppBridge();
+            if (appBridge != null) {
+                appBridge.deliverEvents();
+            }
+            return;
+        }
+
+        JSONArray events;
+        try {
+            events = new JSONArray(NativeEventQueue.drain(this));
+        } catch (org.json.JSONException e) {
+            android.util.Log.e("MainActivity", "Unreadable event queue: " + e.getMessage());
+            return;
+        }
+        String token = null;
+        String route = null;
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            JSONObject payload = event != null ? event.optJSONObject("payload") : null;
+            if (payload == null) continue;
+            switch (event.optString("type")) {
+                case NativeEventQueue.TYPE_SHARE:
+                    dispatchLegacyShare(webView, payload.toString());
+                    break;
+                case NativeEventQueue.TYPE_ROUTE:
+                    route = payload.optString("route", null);
+                    break;
+                case NativeEventQueue.TYPE_AUTH:
+                    token = payload.optString("token", null);
+                    break;
+            }
+        }
+        if (token != null) {
+            directNavigateWithToken(webView, token);
+        } else if (route != null) {
+            android.util.Log.d("MainActivity", "Loading route without SPA queue support: " + route);
+            webView.loadUrl(NativeHttp.BASE_URL + route);
         }
     }
-    
+
+    private AppBridgePlugin getAppBridge() {
+        if (getBridge() == null) return null;
+        com.getcapacitor.PluginHandle handle = getBridge().getPlugin("AppBridge");
+        return handle != null ? (AppBridgePlugin) handle.getInstance() : null;
+    }
+
     /**
-     * Schedule a retry for direct navigation
+     * The SPA received the auth token (called by AppBridgePlugin)
      */
-    private void scheduleNavigationRetry(String token, int nextRetry, int delayMs) {
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            directNavigateWithToken(token, nextRetry);
-        }, delayMs);
+    public static void acknowledgeAuthToken(Context context, String token) {
+        if (token == null) return;
+        if (token.equals(tokenAwaitingAck)) {
+            android.util.Log.d("MainActivity", "Auth token acknowledged by the SPA");
+            tokenAwaitingAck = null;
+        }
+        // Received through another path (launch URL) before the queue was drained
+        JSONObject queued = NativeEventQueue.peekFirst(context, NativeEventQueue.TYPE_AUTH);
+        if (queued != null && queued.optJSONObject("payload") != null
+            && token.equals(queued.optJSONObject("payload").optString("token"))) {
+            NativeEventQueue.removeType(context, NativeEventQueue.TYPE_AUTH);
+        }
     }
 
     /**
-     * Get pending auth token for cold start OAuth callback
+     * Directly navigate the WebView to a URL with the token parameter
+     * Fallback when the SPA didn't acknowledge the token
      */
-    public static String getPendingAuthToken() {
-        String token = pendingAuthToken;
-        pendingAuthToken = null; // Clear after retrieval
-        return token;
+    private void directNavigateWithToken(WebView webView, String token) {
+        try {
+            // For remote URLs (journalmate.ai), navigate to the full URL with token
+            String authUrl = NativeHttp.BASE_URL + "/?token=" + Uri.encode(token);
+            android.util.Log.d("MainActivity", "Direct navigation to: " + authUrl);
+            webView.loadUrl(authUrl);
+            tokenAwaitingAck = null;
+        } catch (Exception e) {
+            android.util.Log.e("MainActivity", "Direct navigation failed: " + e.getMessage());
+        }
     }
-    
+
     private void handleSendText(Intent intent) {
         String sharedText = intent.getStringExtra(Intent.EXTRA_TEXT);
         String sharedSubject = intent.getStringExtra(Intent.EXTRA_SUBJECT);
 
         if (sharedText != null) {
-            // Fire prefetch request IMMEDIATELY for social media URLs (before WebView loads)
-            // This starts content extraction in the background while the app is loading
-            if (isSocialMediaUrl(sharedText)) {
-                prefetchUrl(sharedText);
-            }
-
-            String shareJson = String.format(
-                "{\"type\":\"text\",\"text\":\"%s\",\"title\":\"%s\"}",
-                escapeJson(sharedText),
-                escapeJson(sharedSubject != null ? sharedSubject : "")
-            );
-
-            // Store for cold start AND notify if bridge ready
-            pendingShareData = shareJson;
-            notifyBridge(shareJson);
+            // Start server-side extraction of social media links now, while the WebView loads
+            UrlPrefetcher.prefetch(this, sharedText);
+
+            String shareJson = new JsonBuilder(sharedText.length() + 64)
+                .beginObject()
+                .name("type").value("text")
+                .name("text").value(sharedText)
+                .name("title").value(sharedSubject != null ? sharedSubject : "")
+                .endObject()
+                .toString();
+
+            queueShare(shareJson);
         }
     }
 
-    /**
-     * Check if a URL is from a social media platform that supports prefetching
-     */
-    private boolean isSocialMediaUrl(String text) {
-        if (text == null) return false;
-        String lowerText = text.toLowerCase();
-        return lowerText.contains("instagram.com") ||
-               lowerText.contains("tiktok.com") ||
-               lowerText.contains("youtube.com") ||
-               lowerText.contains("youtu.be");
-    }
-
-    /**
-     * Fire a prefetch request to start extracting social media content in the background
-     * This runs before the WebView loads, so content may be cached by the time user interacts
-     */
-    private void prefetchUrl(String url) {
-        android.util.Log.d("MainActivity", "[PREFETCH] Starting background prefetch for: " + url);
-
-        // Run in background thread to avoid blocking UI
-        new Thread(() -> {
-            java.net.HttpURLConnection conn = null;
-            try {
-                // Use the remote server URL for prefetch
-                java.net.URL prefetchEndpoint = new java.net.URL("https://journalmate.ai/api/parse-url/prefetch");
-                conn = (java.net.HttpURLConnection) prefetchEndpoint.openConnection();
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setRequestProperty("Accept", "application/json");
-                conn.setDoOutput(true);
-                conn.setConnectTimeout(5000);
-                conn.setReadTimeout(5000);
-
-                // Send the URL to prefetch
-                String jsonBody = "{\"url\":\"" + escapeJson(url) + "\"}";
-                byte[] outputBytes = jsonBody.getBytes("UTF-8");
-                conn.getOutputStream().write(outputBytes);
-
-                // Fire and forget - we don't wait for the response
-                int responseCode = conn.getResponseCode();
-                android.util.Log.d("MainActivity", "[PREFETCH] Prefetch request sent, response: " + responseCode);
-
-            } catch (Exception e) {
-                android.util.Log.e("MainActivity", "[PREFETCH] Prefetch failed: " + e.getMessage());
-                // Fail silently - prefetch is an optimization, not critical
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            }
-        }).start();
-    }
-    
     private void handleSendImage(Intent intent) {
         android.net.Uri imageUri = intent.getParcelableExtra(Intent.EXTRA_STREAM);
         String captionText = intent.getStringExtra(Intent.EXTRA_TEXT);
         String subject = intent.getStringExtra(Intent.EXTRA_SUBJECT);
         
         if (imageUri != null) {
-            String shareJson = String.format(
-                "{\"type\":\"image\",\"mediaType\":\"image\",\"files\":[\"%s\"],\"caption\":\"%s\",\"title\":\"%s\"}",
-                escapeJson(imageUri.toString()),
-                escapeJson(captionText != null ? captionText : ""),
-                escapeJson(subject != null ? subject : "")
-            );
-            
-            // Store for cold start AND notify if bridge ready
-            pendingShareData = shareJson;
-            notifyBridge(shareJson);
+            // Downscale/EXIF-strip while the WebView starts; the SPA collects the results
+            SharedMediaIngest.start(this, java.util.Collections.singletonList(imageUri));
+            queueShare(mediaShareJson("image", java.util.Collections.singletonList(imageUri),
+                captionText, subject != null ? subject : ""));
         }
     }
     
@@ -633,16 +466,10 @@ public class MainActivity extends BridgeActivity {
         String subject = intent.getStringExtra(Intent.EXTRA_SUBJECT);
         
         if (videoUri != null) {
-            String shareJson = String.format(
-                "{\"type\":\"video\",\"mediaType\":\"video\",\"files\":[\"%s\"],\"caption\":\"%s\",\"title\":\"%s\"}",
-                escapeJson(videoUri.toString()),
-                escapeJson(captionText != null ? captionText : ""),
-                escapeJson(subject != null ? subject : "")
-            );
-            
-            // Store for cold start AND notify if bridge ready
-            pendingShareData = shareJson;
-            notifyBridge(shareJson);
+            // Metadata and keyframes while the WebView starts; the SPA collects them
+            SharedVideoIngest.start(this, java.util.Collections.singletonList(videoUri));
+            queueShare(mediaShareJson("video", java.util.Collections.singletonList(videoUri),
+                captionText, subject != null ? subject : ""));
         }
     }
     
@@ -651,22 +478,8 @@ public class MainActivity extends BridgeActivity {
         String captionText = intent.getStringExtra(Intent.EXTRA_TEXT);
         
         if (imageUris != null) {
-            StringBuilder filesJson = new StringBuilder("[");
-            for (int i = 0; i < imageUris.size(); i++) {
-                if (i > 0) filesJson.append(",");
-                filesJson.append("\"").append(escapeJson(imageUris.get(i).toString())).append("\"");
-            }
-            filesJson.append("]");
-            
-            String shareJson = String.format(
-                "{\"type\":\"image\",\"mediaType\":\"image\",\"files\":%s,\"caption\":\"%s\"}",
-                filesJson.toString(),
-                escapeJson(captionText != null ? captionText : "")
-            );
-            
-            // Store for cold start AND notify if bridge ready
-            pendingShareData = shareJson;
-            notifyBridge(shareJson);
+            SharedMediaIngest.start(this, imageUris);
+            queueShare(mediaShareJson("image", imageUris, captionText, null));
         }
     }
     
@@ -675,63 +488,53 @@ public class MainActivity extends BridgeActivity {
         String captionText = intent.getStringExtra(Intent.EXTRA_TEXT);
         
         if (videoUris != null) {
-            StringBuilder filesJson = new StringBuilder("[");
-            for (int i = 0; i < videoUris.size(); i++) {
-                if (i > 0) filesJson.append(",");
-                filesJson.append("\"").append(escapeJson(videoUris.get(i).toString())).append("\"");
-            }
-            filesJson.append("]");
-            
-            String shareJson = String.format(
-                "{\"type\":\"video\",\"mediaType\":\"video\",\"files\":%s,\"caption\":\"%s\"}",
-                filesJson.toString(),
-                escapeJson(captionText != null ? captionText : "")
-            );
-            
-            // Store for cold start AND notify if bridge ready
-            pendingShareData = shareJson;
-            notifyBridge(shareJson);
+            SharedVideoIngest.start(this, videoUris);
+            queueShare(mediaShareJson("video", videoUris, captionText, null));
         }
     }
-    
-    private void notifyBridge(String shareJson) {
-        // Only notify if bridge is ready (app in foreground)
-        if (this.getBridge() != null && this.getBridge().getWebView() != null) {
-            android.util.Log.d("MainActivity", "[SHARE] Notifying bridge with share data: " + shareJson);
-            runOnUiThread(() -> {
-                try {
-                    // Dispatch a CustomEvent with the share data in the detail property
-                    String js = String.format(
-                        "(function() { " +
-                        "  var event = new CustomEvent('incomingShare', { detail: %s }); " +
-                        "  window.dispatchEvent(event); " +
-                        "  console.log('[MainActivity] incomingShare event dispatched with detail:', %s); " +
-                        "})();",
-                        shareJson, shareJson
-                    );
-                    this.getBridge().getWebView().evaluateJavascript(js, null);
-                    android.util.Log.d("MainActivity", "[SHARE] JavaScript event dispatched successfully");
-                } catch (Exception e) {
-                    android.util.Log.e("MainActivity", "[SHARE] Failed to dispatch JS event: " + e.getMessage());
-                }
-            });
-        } else {
-            android.util.Log.d("MainActivity", "[SHARE] Bridge not ready, share data stored for cold start retrieval");
+
+    /**
+     * Media share payload: { type, mediaType, files, caption, title? } in one pass
+     */
+    private String mediaShareJson(String mediaType, java.util.List<android.net.Uri> uris,
+                                  String caption, String title) {
+        // content:// URIs are ~100 chars; size the buffer once for big multi-file shares
+        JsonBuilder json = new JsonBuilder(128 + uris.size() * 100 + (caption != null ? caption.length() : 0))
+            .beginObject()
+            .name("type").value(mediaType)
+            .name("mediaType").value(mediaType)
+            .name("files").beginArray();
+        for (android.net.Uri uri : uris) {
+            json.value(uri.toString());
+        }
+        json.endArray()
+            .name("caption").value(caption != null ? caption : "");
+        if (title != null) {
+            json.name("title").value(title);
         }
+        return json.endObject().toString();
     }
     
-    public static String getPendingShareData() {
-        String data = pendingShareData;
-        pendingShareData = null; // Clear after retrieval
-        return data;
+    private void queueShare(String shareJson) {
+        queueEvent(NativeEventQueue.TYPE_SHARE, shareJson);
     }
-    
-    private String escapeJson(String text) {
-        if (text == null) return "";
-        return text.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+
+    /**
+     * incomingShare event for web builds that don't drain the event queue
+     */
+    private void dispatchLegacyShare(WebView webView, String shareJson) {
+        android.util.Log.d("MainActivity", "[SHARE] Notifying bridge with share data: " + shareJson);
+        try {
+            // Dispatch a CustomEvent with the share data in the detail property
+            // (payload embedded once, as the argument)
+            String js = "(function(detail) { " +
+                "  window.dispatchEvent(new CustomEvent('incomingShare', { detail: detail })); " +
+                "  console.log('[MainActivity] incomingShare event dispatched with detail:', detail); " +
+                "})(" + shareJson + ");";
+            webView.evaluateJavascript(js, null);
+            android.util.Log.d("MainActivity", "[SHARE] JavaScript event dispatched successfully");
+        } catch (Exception e) {
+            android.util.Log.e("MainActivity", "[SHARE] Failed to dispatch JS event: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,163 @@
+package ai.journalmate.app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Background uploads of shared media (MediaUploadWorker) for the web app
+ *
+ * enqueue() copies the shared file into app storage while the read grant is
+ * still valid, then hands it to WorkManager; the upload survives the app
+ * going to the background. Changes are pushed as
+ * 'uploadProgress' events with the same shape getUploads() returns:
+ * { id, status, offset, size, media?, error? }.
+ */
+@CapacitorPlugin(name = "MediaUpload")
+public class MediaUploadPlugin extends Plugin {
+    private static final String TAG = "MediaUploadPlugin";
+    // Staging copies can take a while for large videos; keep them off the bridge thread
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private LiveData<List<WorkInfo>> workInfos;
+    private Observer<List<WorkInfo>> observer;
+    // Last emitted "status:offset" per upload, so unrelated WorkInfo changes stay quiet
+    private final Map<String, String> lastEmitted = new HashMap<>();
+
+    @Override
+    public void load() {
+        super.load();
+        // LiveData must be observed on the main thread
+        new Handler(Looper.getMainLooper()).post(() -> {
+            workInfos = WorkManager.getInstance(getContext()).getWorkInfosByTagLiveData(MediaUploadWorker.WORK_TAG);
+            observer = this::onWorkInfosChanged;
+            workInfos.observeForever(observer);
+        });
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (workInfos != null && observer != null) {
+            workInfos.removeObserver(observer);
+        }
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Start a background upload: { uri, mimeType, filename?, wifiOnly? } -> { id }
+     */
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        String uri = call.getString("uri");
+        String mimeType = call.getString("mimeType");
+        if (uri == null) {
+            call.reject("uri is required");
+            return;
+        }
+        if (mimeType == null) {
+            mimeType = getContext().getContentResolver().getType(android.net.Uri.parse(uri));
+        }
+        if (mimeType == null) {
+            call.reject("mimeType is required");
+            return;
+        }
+
+        String type = mimeType;
+        executor.execute(() -> {
+            try {
+                String id = MediaUploadWorker.enqueue(getContext(), uri, type,
+                    call.getString("filename"), call.getBoolean("wifiOnly", false));
+                JSObject result = new JSObject();
+                result.put("id", id);
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.w(TAG, "Cannot read " + uri + ": " + e.getMessage());
+                call.reject("Cannot read the shared file", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getUploads(PluginCall call) {
+        JSArray uploads = new JSArray();
+        for (JSONObject state : MediaUploadWorker.all(getContext())) {
+            uploads.put(toJS(state));
+        }
+        JSObject result = new JSObject();
+        result.put("uploads", uploads);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        String id = call.getString("id");
+        if (id == null) {
+            call.reject("id is required");
+            return;
+        }
+        MediaUploadWorker.cancel(getContext(), id);
+        emit(id);
+
+        JSObject result = new JSObject();
+        result.put("success", true);
+        call.resolve(result);
+    }
+
+    private void onWorkInfosChanged(List<WorkInfo> infos) {
+        if (infos == null) return;
+        for (WorkInfo info : infos) {
+            String id = MediaUploadWorker.idOf(info);
+            if (id != null) emit(id);
+        }
+    }
+
+    private void emit(String id) {
+        JSONObject state = MediaUploadWorker.load(getContext(), id);
+        if (state == null) return;
+        String signature = state.optString("status") + ":" + state.optLong("offset");
+        if (signature.equals(lastEmitted.get(id))) return;
+        lastEmitted.put(id, signature);
+        notifyListeners("uploadProgress", toJS(state));
+    }
+
+    private static JSObject toJS(JSONObject state) {
+        JSObject upload = new JSObject();
+        upload.put("id", state.optString("id"));
+        upload.put("uri", state.optString("uri"));
+        upload.put("status", state.optString("status"));
+        upload.put("offset", state.optLong("offset"));
+        upload.put("size", state.optLong("size"));
+        JSONObject media = state.optJSONObject("media");
+        if (media != null) {
+            try {
+                upload.put("media", JSObject.fromJSONObject(media));
+            } catch (Exception e) {
+                Log.w(TAG, "Unreadable upload media: " + e.getMessage());
+            }
+        }
+        if (state.has("error")) {
+            upload.put("error", state.optString("error"));
+        }
+        return upload;
+    }
+}
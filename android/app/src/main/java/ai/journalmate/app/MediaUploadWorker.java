@@ -0,0 +1,579 @@
+package ai.journalmate.app;
+
+import android.app.Notification;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.ServiceInfo;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable background upload of shared media
+ *
+ * Streams a shared file to /api/media/uploads in chunks. enqueue() first copies
+ * the content:// (or file://) source into app storage: the read grant from the
+ * sharing app ends with the share, and cache files can be cleared, while the
+ * upload may only run hours later. The server reports how many bytes it holds, so a run that is interrupted - app
+ * swiped away, network dropped, process killed - resumes from that offset on
+ * the next attempt instead of starting over. Runs as long-running work in a
+ * dataSync foreground service with a progress notification, and only while
+ * the network constraint holds (any network, or unmetered when wifiOnly).
+ *
+ * State per upload lives in SharedPreferences so MediaUploadPlugin can report
+ * it to the web app at any time; progress is also published as WorkInfo
+ * progress, which the plugin turns into 'uploadProgress' events.
+ */
+public class MediaUploadWorker extends Worker {
+    private static final String TAG = "MediaUploadWorker";
+    private static final String PREFS_NAME = "journalmate_media_uploads";
+    public static final String WORK_TAG = "media_upload";
+    private static final String ID_TAG_PREFIX = "media_upload_id:";
+    private static final String KEY_ID = "id";
+    private static final String STAGING_DIR = "media_uploads";
+
+    private static final int NOTIFICATION_ID_BASE = 2000;
+    private static final int DEFAULT_CHUNK_BYTES = 1024 * 1024;
+    private static final int MIN_CHUNK_BYTES = 256 * 1024;
+    private static final int MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 12;
+    // Server lost the partial file (e.g. redeploy): start over at most this often
+    private static final int MAX_RESTARTS = 2;
+    private static final long RETAIN_FINISHED_MS = 7L * 24 * 60 * 60 * 1000;
+
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_UPLOADING = "uploading";
+    public static final String STATUS_DONE = "done";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    public MediaUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Copy the source into app storage and queue its upload (one unique job
+     * per upload id). Does file I/O; call off the main thread.
+     *
+     * @return the upload id used in progress events
+     * @throws IOException or SecurityException if the source can't be read
+     */
+    public static String enqueue(Context context, String uri, String mimeType, String filename, boolean wifiOnly)
+            throws IOException {
+        prune(context);
+        String id = UUID.randomUUID().toString().replace("-", "");
+        File staged = stage(context, id, Uri.parse(uri));
+        try {
+            JSONObject state = new JSONObject();
+            state.put("id", id);
+            state.put("uri", uri);
+            state.put("path", staged.getAbsolutePath());
+            state.put("size", staged.length());
+            state.put("mimeType", mimeType);
+            state.put("filename", filename);
+            state.put("wifiOnly", wifiOnly);
+            state.put("status", STATUS_QUEUED);
+            state.put("offset", 0);
+            state.put("createdAt", System.currentTimeMillis());
+            save(context, state);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to record upload: " + e.getMessage());
+        }
+
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(wifiOnly ? NetworkType.UNMETERED : NetworkType.CONNECTED)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(MediaUploadWorker.class)
+            .setConstraints(constraints)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+            .setInputData(new Data.Builder().putString(KEY_ID, id).build())
+            .addTag(WORK_TAG)
+            .addTag(ID_TAG_PREFIX + id)
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+            workName(id),
+            ExistingWorkPolicy.KEEP,
+            request
+        );
+
+        Log.d(TAG, "Queued upload " + id + " (" + mimeType + ", wifiOnly=" + wifiOnly + ")");
+        return id;
+    }
+
+    public static void cancel(Context context, String id) {
+        WorkManager.getInstance(context).cancelUniqueWork(workName(id));
+        JSONObject state = load(context, id);
+        if (state != null && !STATUS_DONE.equals(state.optString("status"))) {
+            try {
+                state.put("status", STATUS_CANCELLED);
+                save(context, state);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to record cancellation: " + e.getMessage());
+            }
+        }
+        if (state != null) discardStaged(state);
+    }
+
+    /**
+     * Every known upload, oldest first
+     */
+    public static List<JSONObject> all(Context context) {
+        List<JSONObject> uploads = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : prefs(context).getAll().entrySet()) {
+            try {
+                uploads.add(new JSONObject(String.valueOf(entry.getValue())));
+            } catch (Exception e) {
+                // Skip unreadable entries
+            }
+        }
+        Collections.sort(uploads, (a, b) -> Long.compare(a.optLong("createdAt"), b.optLong("createdAt")));
+        return uploads;
+    }
+
+    /**
+     * Forget finished uploads after RETAIN_FINISHED_MS
+     */
+    private static void prune(Context context) {
+        long cutoff = System.currentTimeMillis() - RETAIN_FINISHED_MS;
+        SharedPreferences.Editor editor = null;
+        for (JSONObject state : all(context)) {
+            String status = state.optString("status");
+            boolean finished = STATUS_DONE.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+            if (finished && state.optLong("updatedAt", state.optLong("createdAt")) < cutoff) {
+                if (editor == null) editor = prefs(context).edit();
+                editor.remove(state.optString("id"));
+                discardStaged(state);
+            }
+        }
+        if (editor != null) editor.apply();
+    }
+
+    public static JSONObject load(Context context, String id) {
+        String stored = prefs(context).getString(id, null);
+        if (stored == null) return null;
+        try {
+            return new JSONObject(stored);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Upload id a WorkInfo belongs to
+     */
+    public static String idOf(WorkInfo info) {
+        for (String tag : info.getTags()) {
+            if (tag.startsWith(ID_TAG_PREFIX)) return tag.substring(ID_TAG_PREFIX.length());
+        }
+        return null;
+    }
+
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        return foregroundInfo(0, 0);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String id = getInputData().getString(KEY_ID);
+        JSONObject state = id != null ? load(context, id) : null;
+        if (state == null) {
+            return Result.failure();
+        }
+        if (STATUS_DONE.equals(state.optString("status")) || STATUS_CANCELLED.equals(state.optString("status"))) {
+            return Result.success();
+        }
+
+        try {
+            // Long-running: keep going when the app is backgrounded
+            setForegroundAsync(foregroundInfo(state.optLong("offset"), state.optLong("size"))).get();
+        } catch (Exception e) {
+            // Android 12+ can refuse a foreground start from the background; upload anyway
+            Log.w(TAG, "Running without foreground service: " + e.getMessage());
+        }
+
+        try {
+            return upload(context, state);
+        } catch (SecurityException | FileNotFoundException e) {
+            // The copy is gone or unreadable; retrying can't bring it back
+            return fail(context, state, "Shared file is no longer readable");
+        } catch (Exception e) {
+            Log.w(TAG, "Upload " + id + " interrupted at " + state.optLong("offset") + ": " + e.getMessage());
+            return retryOrFail(context, state, e.getMessage());
+        }
+    }
+
+    private Result upload(Context context, JSONObject state) throws Exception {
+        String id = state.getString("id");
+        // Uploads queued before staging existed still read the original URI
+        String path = state.optString("path", null);
+        Uri uri = path != null ? Uri.fromFile(new File(path)) : Uri.parse(state.getString("uri"));
+
+        long size = state.optLong("size", 0);
+        if (size <= 0) {
+            size = sourceSize(context, uri);
+            if (size <= 0) {
+                return fail(context, state, "Could not read the shared file");
+            }
+            state.put("size", size);
+        }
+
+        // Where are we? The server's byte count wins over our own record
+        String uploadId = state.optString("uploadId", null);
+        int chunkSize = state.optInt("chunkSize", DEFAULT_CHUNK_BYTES);
+        long offset = 0;
+        if (uploadId != null) {
+            NativeHttp.Response response = NativeHttp.get(context, "/api/media/uploads/" + uploadId);
+            if (response.code == 404) {
+                uploadId = restart(state);
+            } else if (!response.isSuccessful()) {
+                return retryOrFail(context, state, "Status check returned " + response.code);
+            } else {
+                JSONObject status = response.json();
+                if (status.optBoolean("completed")) {
+                    return complete(context, state, status.optJSONObject("media"));
+                }
+                offset = status.optLong("offset");
+            }
+        }
+        if (uploadId == null) {
+            JSONObject body = new JSONObject();
+            body.put("filename", state.optString("filename", null));
+            body.put("mimeType", state.optString("mimeType"));
+            body.put("size", size);
+            NativeHttp.Response response = NativeHttp.postJson(context, "/api/media/uploads", body);
+            if (!response.isSuccessful()) {
+                return rejectedOrRetry(context, state, response);
+            }
+            JSONObject created = response.json();
+            uploadId = created.getString("uploadId");
+            chunkSize = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES,
+                created.optInt("chunkSize", DEFAULT_CHUNK_BYTES)));
+            state.put("uploadId", uploadId);
+            state.put("chunkSize", chunkSize);
+        }
+
+        state.put("status", STATUS_UPLOADING);
+        state.put("offset", offset);
+        save(context, state);
+        publishProgress(id, offset, size);
+
+        byte[] buffer = new byte[chunkSize];
+        InputStream in = openAt(context, uri, offset);
+        try {
+            while (offset < size) {
+                if (isStopped()) {
+                    // Constraint lost or cancelled; WorkManager reschedules if it wasn't a cancel
+                    return Result.retry();
+                }
+
+                int length = readChunk(in, buffer, (int) Math.min(chunkSize, size - offset));
+                if (length <= 0) {
+                    return fail(context, state, "Shared file ended early");
+                }
+                byte[] chunk = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+
+                NativeHttp.Response response = NativeHttp.request(context, "PUT", "/api/media/uploads/" + uploadId, chunk,
+                    new NativeHttp.Options()
+                        .timeouts(15000, 60000)
+                        .contentType("application/octet-stream")
+                        .header("Upload-Offset", String.valueOf(offset)));
+
+                if (response.code == 409) {
+                    // Out of sync (a previous chunk partly landed): jump to the server's offset
+                    JSONObject status = response.json();
+                    if (status.optBoolean("completed")) {
+                        NativeHttp.Response check = NativeHttp.get(context, "/api/media/uploads/" + uploadId);
+                        return complete(context, state, check.isSuccessful() ? check.json().optJSONObject("media") : null);
+                    }
+                    offset = status.optLong("offset");
+                    in.close();
+                    in = openAt(context, uri, offset);
+                    continue;
+                }
+                if (response.code == 404) {
+                    restart(state);
+                    save(context, state);
+                    return Result.retry();
+                }
+                if (!response.isSuccessful()) {
+                    return rejectedOrRetry(context, state, response);
+                }
+
+                JSONObject status = response.json();
+                offset = status.optLong("offset", offset + length);
+                state.put("offset", offset);
+                save(context, state);
+                publishProgress(id, offset, size);
+
+                if (status.optBoolean("completed")) {
+                    return complete(context, state, status.optJSONObject("media"));
+                }
+            }
+        } finally {
+            in.close();
+        }
+        // All bytes sent but the server didn't report completion; check again next run
+        return retryOrFail(context, state, "Upload not confirmed");
+    }
+
+    private String restart(JSONObject state) throws Exception {
+        int restarts = state.optInt("restarts", 0) + 1;
+        if (restarts > MAX_RESTARTS) {
+            throw new IOException("Server lost the upload too often");
+        }
+        Log.w(TAG, "Server no longer has upload " + state.optString("uploadId") + ", starting over");
+        state.put("restarts", restarts);
+        state.remove("uploadId");
+        state.put("offset", 0);
+        return null;
+    }
+
+    private void publishProgress(String id, long offset, long size) {
+        setProgressAsync(new Data.Builder()
+            .putString(KEY_ID, id)
+            .putLong("offset", offset)
+            .putLong("size", size)
+            .build());
+        try {
+            setForegroundAsync(foregroundInfo(offset, size));
+        } catch (Exception e) {
+            // Not running in the foreground
+        }
+    }
+
+    private Result complete(Context context, JSONObject state, JSONObject media) throws Exception {
+        state.put("status", STATUS_DONE);
+        state.put("offset", state.optLong("size"));
+        state.remove("error");
+        if (media != null) state.put("media", media);
+        state.put("completedAt", System.currentTimeMillis());
+        save(context, state);
+        discardStaged(state);
+        Log.d(TAG, "Upload " + state.optString("id") + " complete (" + state.optLong("size") / 1024 + " KB)");
+        return Result.success(new Data.Builder().putString(KEY_ID, state.optString("id")).build());
+    }
+
+    private Result rejectedOrRetry(Context context, JSONObject state, NativeHttp.Response response) {
+        int code = response.code;
+        if (code >= 400 && code < 500 && code != 408 && code != 429) {
+            // Too big, wrong type, not signed in - retrying won't help
+            String message = "Upload rejected (" + code + ")";
+            try {
+                message = response.json().optString("error", message);
+            } catch (Exception e) {
+                // Not JSON
+            }
+            return fail(context, state, message);
+        }
+        return retryOrFail(context, state, "Server returned " + code);
+    }
+
+    private Result retryOrFail(Context context, JSONObject state, String error) {
+        if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+            return fail(context, state, error);
+        }
+        try {
+            state.put("error", error);
+            save(context, state);
+        } catch (Exception e) {
+            // Keep retrying regardless
+        }
+        return Result.retry();
+    }
+
+    private Result fail(Context context, JSONObject state, String error) {
+        Log.w(TAG, "Upload " + state.optString("id") + " failed: " + error);
+        try {
+            state.put("status", STATUS_FAILED);
+            state.put("error", error);
+            save(context, state);
+        } catch (Exception e) {
+            // Nothing more to record
+        }
+        discardStaged(state);
+        return Result.failure(new Data.Builder().putString(KEY_ID, state.optString("id")).build());
+    }
+
+    private ForegroundInfo foregroundInfo(long offset, long size) {
+        Context context = getApplicationContext();
+        NotificationChannels.ensureChannels(context);
+
+        int percent = size > 0 ? (int) (offset * 100 / size) : 0;
+        Notification notification = new NotificationCompat.Builder(context, NotificationChannels.CHANNEL_FOREGROUND)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("Uploading shared media")
+            .setContentText(size > 0 ? percent + "%" : "Starting…")
+            .setProgress(100, percent, size <= 0)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .setShowWhen(false)
+            .build();
+
+        int notificationId = NOTIFICATION_ID_BASE + Math.abs(getId().hashCode() % 1000);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(notificationId, notification,
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(notificationId, notification);
+    }
+
+    /**
+     * Copy source into noBackupFilesDir/media_uploads, named by upload id
+     */
+    private static File stage(Context context, String id, Uri source) throws IOException {
+        File dir = new File(context.getNoBackupFilesDir(), STAGING_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File target = new File(dir, id);
+        InputStream in = context.getContentResolver().openInputStream(source);
+        if (in == null) throw new FileNotFoundException("Cannot open " + source);
+        try (InputStream input = in; OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            target.delete();
+            throw e;
+        }
+        if (target.length() == 0) {
+            target.delete();
+            throw new IOException("Shared file is empty");
+        }
+        return target;
+    }
+
+    private static void discardStaged(JSONObject state) {
+        String path = state.optString("path", null);
+        if (path != null && new File(path).delete()) {
+            Log.d(TAG, "Removed staged copy for upload " + state.optString("id"));
+        }
+    }
+
+    /**
+     * The source opened at offset: seek when the provider gives a real file,
+     * otherwise skip through the stream
+     */
+    private static InputStream openAt(Context context, Uri uri, long offset) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        ParcelFileDescriptor pfd = resolver.openFileDescriptor(uri, "r");
+        if (pfd != null) {
+            FileInputStream in = new ParcelFileDescriptor.AutoCloseInputStream(pfd);
+            try {
+                in.getChannel().position(offset);
+                return in;
+            } catch (IOException e) {
+                // A pipe, not seekable
+                in.close();
+            }
+        }
+
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) throw new IOException("Cannot open " + uri);
+        long remaining = offset;
+        while (remaining > 0) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    in.close();
+                    throw new IOException("Source shorter than resume offset");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return in;
+    }
+
+    private static int readChunk(InputStream in, byte[] buffer, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, total, length - total);
+            if (read == -1) break;
+            total += read;
+        }
+        return total;
+    }
+
+    private static long sourceSize(Context context, Uri uri) {
+        if ("file".equals(uri.getScheme()) && uri.getPath() != null) {
+            return new File(uri.getPath()).length();
+        }
+        try (Cursor cursor = context.getContentResolver().query(uri,
+                new String[] { OpenableColumns.SIZE }, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                long size = cursor.getLong(0);
+                if (size > 0) return size;
+            }
+        } catch (Exception e) {
+            Log.d(TAG, "Size query failed: " + e.getMessage());
+        }
+        try (android.content.res.AssetFileDescriptor afd =
+                 context.getContentResolver().openAssetFileDescriptor(uri, "r")) {
+            return afd != null ? afd.getLength() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void save(Context context, JSONObject state) {
+        try {
+            state.put("updatedAt", System.currentTimeMillis());
+        } catch (Exception e) {
+            // Not fatal
+        }
+        prefs(context).edit().putString(state.optString("id"), state.toString()).apply();
+    }
+
+    private static String workName(String id) {
+        return "media_upload_" + id;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,252 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Ordered, persisted queue of native-to-JS events
+ *
+ * Shares, shortcut/deep-link routes and OAuth tokens are appended here the
+ * moment the intent arrives, and the web app fetches them all in one
+ * AppBridge.drainEvents() call. Entries are typed ({ seq, type, at, payload })
+ * and kept in arrival order, so a burst of shares during a cold start arrives
+ * complete instead of the last one overwriting the rest.
+ *
+ * Delivery doesn't remove anything: entries stay until the web app
+ * acknowledges them by sequence number after handling them, so a reload or
+ * crash in between delivers them again. drain() is only for pages that
+ * predate acknowledgements.
+ *
+ * The queue is written synchronously so it survives the process being
+ * killed between the intent and the bridge becoming ready. It is bounded;
+ * when full, the oldest entry is dropped. Payloads arrive already serialized
+ * (JsonBuilder) and are appended to the stored array as text - the queue is
+ * only parsed when it overflows or an entry is picked out.
+ */
+public final class NativeEventQueue {
+    private static final String TAG = "NativeEventQueue";
+    private static final String PREFS_NAME = "journalmate_native_events";
+    private static final String KEY_EVENTS = "events";
+    private static final String KEY_SEQ = "seq";
+    private static final String KEY_COUNT = "count";
+
+    public static final String TYPE_SHARE = "share";
+    public static final String TYPE_ROUTE = "route";
+    public static final String TYPE_AUTH = "auth";
+
+    static final int CAPACITY = 50;
+
+    private NativeEventQueue() {}
+
+    /**
+     * Append an event
+     *
+     * @param payloadJson serialized JSON object (JsonBuilder output)
+     * @return its sequence number
+     */
+    public static long enqueue(Context context, String type, String payloadJson) {
+        return enqueue(prefs(context), type, payloadJson);
+    }
+
+    static synchronized long enqueue(SharedPreferences prefs, String type, String payloadJson) {
+        long seq = prefs.getLong(KEY_SEQ, 0) + 1;
+        int count = prefs.getInt(KEY_COUNT, 0);
+        String stored = prefs.getString(KEY_EVENTS, "[]");
+
+        String entry = new JsonBuilder(payloadJson.length() + 64)
+            .beginObject()
+            .name("seq").value(seq)
+            .name("type").value(type)
+            .name("at").value(System.currentTimeMillis())
+            .name("payload").rawValue(payloadJson)
+            .endObject()
+            .toString();
+
+        String events;
+        if (count >= CAPACITY) {
+            // Rare: parse once to drop the oldest entries
+            JSONArray parsed = load(prefs);
+            while (parsed.length() >= CAPACITY) {
+                JSONObject dropped = parsed.optJSONObject(0);
+                parsed.remove(0);
+                Log.w(TAG, "Queue full, dropped " + (dropped != null ? dropped.optString("type") : "?") + " event");
+            }
+            count = parsed.length();
+            events = append(parsed.toString(), entry);
+        } else {
+            events = append(stored, entry);
+        }
+
+        // commit(): the intent may be followed by process death before the bridge is up
+        prefs.edit()
+            .putString(KEY_EVENTS, events)
+            .putInt(KEY_COUNT, count + 1)
+            .putLong(KEY_SEQ, seq)
+            .commit();
+        return seq;
+    }
+
+    public static long enqueue(Context context, String type, JSONObject payload) {
+        return enqueue(context, type, payload.toString());
+    }
+
+    /**
+     * Append an event, replacing any queued event of the same type
+     * (for types where only the latest matters, like auth tokens)
+     */
+    public static synchronized long replace(Context context, String type, JSONObject payload) {
+        removeType(context, type);
+        return enqueue(context, type, payload.toString());
+    }
+
+    /**
+     * Every queued event, oldest first, as a JSON array string (nothing is removed)
+     */
+    public static String peekAll(Context context) {
+        return peekAll(prefs(context));
+    }
+
+    static synchronized String peekAll(SharedPreferences prefs) {
+        return prefs.getString(KEY_EVENTS, "[]");
+    }
+
+    /**
+     * Remove the events the web app has handled: every entry up to and including seq
+     */
+    public static void acknowledge(Context context, long seq) {
+        acknowledge(prefs(context), seq);
+    }
+
+    static synchronized void acknowledge(SharedPreferences prefs, long seq) {
+        if (prefs.getInt(KEY_COUNT, 0) == 0) return;
+        JSONArray events = load(prefs);
+        JSONArray remaining = new JSONArray();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            if (event != null && event.optLong("seq") > seq) {
+                remaining.put(event);
+            }
+        }
+        if (remaining.length() != events.length()) {
+            store(prefs, remaining);
+        }
+    }
+
+    /**
+     * Remove and return every queued event, oldest first, as a JSON array string
+     * (for pages that don't acknowledge events)
+     */
+    public static String drain(Context context) {
+        return drain(prefs(context));
+    }
+
+    static synchronized String drain(SharedPreferences prefs) {
+        String events = prefs.getString(KEY_EVENTS, "[]");
+        if (prefs.getInt(KEY_COUNT, 0) > 0) {
+            prefs.edit().putString(KEY_EVENTS, "[]").putInt(KEY_COUNT, 0).commit();
+        }
+        return events;
+    }
+
+    /**
+     * Remove and return the oldest event of a type, or null
+     */
+    public static JSONObject takeFirst(Context context, String type) {
+        return takeFirst(prefs(context), type);
+    }
+
+    static synchronized JSONObject takeFirst(SharedPreferences prefs, String type) {
+        JSONArray events = load(prefs);
+        JSONArray remaining = new JSONArray();
+        JSONObject taken = null;
+
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            if (event == null) continue;
+            if (taken == null && type.equals(event.optString("type"))) {
+                taken = event;
+            } else {
+                remaining.put(event);
+            }
+        }
+
+        if (taken != null) {
+            store(prefs, remaining);
+        }
+        return taken;
+    }
+
+    /**
+     * The oldest event of a type without removing it, or null
+     */
+    public static synchronized JSONObject peekFirst(Context context, String type) {
+        JSONArray events = load(prefs(context));
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            if (event != null && type.equals(event.optString("type"))) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    public static synchronized void removeType(Context context, String type) {
+        SharedPreferences prefs = prefs(context);
+        JSONArray events = load(prefs);
+        JSONArray remaining = new JSONArray();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            if (event != null && !type.equals(event.optString("type"))) {
+                remaining.put(event);
+            }
+        }
+        if (remaining.length() != events.length()) {
+            store(prefs, remaining);
+        }
+    }
+
+    public static boolean isEmpty(Context context) {
+        return isEmpty(prefs(context));
+    }
+
+    static synchronized boolean isEmpty(SharedPreferences prefs) {
+        return prefs.getInt(KEY_COUNT, 0) == 0;
+    }
+
+    private static String append(String array, String entry) {
+        // array is "[]" or "[...]" - splice the entry in before the closing bracket
+        int close = array.lastIndexOf(']');
+        if (close < 0) return "[" + entry + "]";
+        boolean empty = array.substring(0, close).trim().equals("[");
+        return new StringBuilder(array.length() + entry.length() + 1)
+            .append(array, 0, close)
+            .append(empty ? "" : ",")
+            .append(entry)
+            .append(']')
+            .toString();
+    }
+
+    private static void store(SharedPreferences prefs, JSONArray events) {
+        prefs.edit()
+            .putString(KEY_EVENTS, events.toString())
+            .putInt(KEY_COUNT, events.length())
+            .commit();
+    }
+
+    private static JSONArray load(SharedPreferences prefs) {
+        try {
+            return new JSONArray(prefs.getString(KEY_EVENTS, "[]"));
+        } catch (Exception e) {
+            Log.w(TAG, "Discarding unreadable event queue: " + e.getMessage());
+            return new JSONArray();
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
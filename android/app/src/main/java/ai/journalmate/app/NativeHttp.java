@@ -0,0 +1,193 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Small HttpURLConnection helper shared by native code that talks to the
+ * JournalMate API or downloads assets outside the WebView
+ *
+ * Relative paths resolve against the API base URL and carry the stored auth
+ * token; absolute URLs (CDN images etc.) are fetched without credentials.
+ * Bodies are read fully and capped, so a bad response can't exhaust memory;
+ * open() hands out the connection instead for streamed responses.
+ */
+public final class NativeHttp {
+    public static final String BASE_URL = "https://journalmate.ai";
+    private static final String PREFS_NAME = "journalmate_prefs";
+
+    private static final int DEFAULT_TIMEOUT_MS = 10000;
+    private static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private NativeHttp() {}
+
+    /**
+     * A completed response
+     */
+    public static final class Response {
+        public final int code;
+        public final byte[] body;
+        public final String contentType;
+
+        Response(int code, byte[] body, String contentType) {
+            this.code = code;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+
+        public String text() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+        public JSONObject json() throws Exception {
+            return new JSONObject(text());
+        }
+    }
+
+    /**
+     * Per-request settings; the defaults suit API calls
+     */
+    public static final class Options {
+        int connectTimeoutMs = DEFAULT_TIMEOUT_MS;
+        int readTimeoutMs = DEFAULT_TIMEOUT_MS;
+        int maxBytes = DEFAULT_MAX_BYTES;
+        String accept = "application/json";
+        String contentType = "application/json";
+        Map<String, String> headers = null;
+
+        public Options timeouts(int connectMs, int readMs) {
+            connectTimeoutMs = connectMs;
+            readTimeoutMs = readMs;
+            return this;
+        }
+
+        public Options maxBytes(int bytes) {
+            maxBytes = bytes;
+            return this;
+        }
+
+        public Options accept(String mimeType) {
+            accept = mimeType;
+            return this;
+        }
+
+        public Options contentType(String mimeType) {
+            contentType = mimeType;
+            return this;
+        }
+
+        public Options header(String name, String value) {
+            if (headers == null) headers = new HashMap<>();
+            headers.put(name, value);
+            return this;
+        }
+    }
+
+    public static Response get(Context context, String pathOrUrl) throws IOException {
+        return request(context, "GET", pathOrUrl, null, new Options());
+    }
+
+    public static Response get(Context context, String pathOrUrl, Options options) throws IOException {
+        return request(context, "GET", pathOrUrl, null, options);
+    }
+
+    public static Response postJson(Context context, String path, JSONObject body) throws IOException {
+        return request(context, "POST", path, body.toString().getBytes(StandardCharsets.UTF_8), new Options());
+    }
+
+    public static Response request(Context context, String method, String pathOrUrl,
+                                   byte[] body, Options options) throws IOException {
+        HttpURLConnection conn = open(context, method, pathOrUrl, options);
+        try {
+            if (body != null) {
+                conn.setDoOutput(true);
+                // Stream instead of buffering a copy (upload chunks are ~1 MB)
+                conn.setFixedLengthStreamingMode(body.length);
+                conn.setRequestProperty("Content-Type", options.contentType);
+                OutputStream os = conn.getOutputStream();
+                try {
+                    os.write(body);
+                } finally {
+                    os.close();
+                }
+            }
+
+            int code = conn.getResponseCode();
+            InputStream in = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            byte[] bytes = in != null ? readCapped(in, options.maxBytes) : new byte[0];
+            return new Response(code, bytes, conn.getContentType());
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * A configured but unsent connection, for responses that are consumed as
+     * a stream (server-sent events) rather than read into a Response. Same
+     * URL resolution, auth, timeouts and headers as request(); the caller
+     * reads it and disconnects.
+     */
+    public static HttpURLConnection open(Context context, String method, String pathOrUrl,
+                                         Options options) throws IOException {
+        boolean api = !pathOrUrl.startsWith("http://") && !pathOrUrl.startsWith("https://");
+        URL url = new URL(api ? BASE_URL + pathOrUrl : pathOrUrl);
+
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod(method);
+        conn.setConnectTimeout(options.connectTimeoutMs);
+        conn.setReadTimeout(options.readTimeoutMs);
+        conn.setInstanceFollowRedirects(true);
+        if (options.accept != null) {
+            conn.setRequestProperty("Accept", options.accept);
+        }
+        if (options.headers != null) {
+            for (Map.Entry<String, String> header : options.headers.entrySet()) {
+                conn.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+
+        if (api) {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            String authToken = prefs.getString("authToken", null);
+            if (authToken != null) {
+                conn.setRequestProperty("Authorization", "Bearer " + authToken);
+            }
+        }
+        return conn;
+    }
+
+    private static byte[] readCapped(InputStream in, int maxBytes) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("Response larger than " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
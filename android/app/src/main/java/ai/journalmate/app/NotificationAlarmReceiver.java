@@ -1,6 +1,5 @@
 package ai.journalmate.app;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
@@ -28,8 +27,6 @@ import androidx.core.content.ContextCompat;
  */
 public class NotificationAlarmReceiver extends BroadcastReceiver {
     private static final String TAG = "NotificationAlarmReceiver";
-    private static final String CHANNEL_ID = "journalmate_scheduled";
-    private static final String CHANNEL_NAME = "Scheduled Notifications";
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -39,6 +36,7 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
             Log.w(TAG, "Received unknown action: " + action);
             return;
         }
+        ReminderScheduler.onAlarmFired(context, intent);
 
         int id = intent.getIntExtra("id", 0);
         String title = intent.getStringExtra("title");
@@ -47,42 +45,18 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
         Log.d(TAG, "Scheduled notification triggered - ID: " + id + ", Title: " + title);
 
         // Show the notification
-        showNotification(context, id, title, body);
+        showNotification(context, id, title, body, intent);
 
         // Remove from scheduled storage
         NotificationPlugin.removeScheduledNotification(context, id);
     }
 
-    /**
-     * Create notification channel for scheduled notifications
-     */
-    private void createNotificationChannel(Context context) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_HIGH // High priority for scheduled reminders
-            );
-            channel.setDescription("Scheduled reminders and notifications");
-            channel.enableVibration(true);
-            channel.setVibrationPattern(new long[]{0, 500, 200, 500});
-            channel.setShowBadge(true);
-            channel.enableLights(true);
-            channel.setLightColor(Color.parseColor("#8b5cf6")); // Purple accent
-
-            NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
-            if (notificationManager != null) {
-                notificationManager.createNotificationChannel(channel);
-            }
-        }
-    }
-
     /**
      * Show the notification
      */
-    private void showNotification(Context context, int id, String title, String body) {
+    private void showNotification(Context context, int id, String title, String body, Intent alarmIntent) {
         // Ensure channel exists
-        createNotificationChannel(context);
+        NotificationChannels.ensureChannels(context);
 
         // Check permission on Android 13+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
@@ -96,6 +70,7 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
         // Intent to open app when notification is tapped
         Intent openIntent = new Intent(context, MainActivity.class);
         openIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        NotificationTelemetry.tag(openIntent, id, NotificationChannels.CHANNEL_SCHEDULED, "scheduled");
 
         PendingIntent pendingIntent = PendingIntent.getActivity(
             context,
@@ -108,7 +83,7 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
         int accentColor = Color.parseColor("#8b5cf6");
 
         // Build the notification
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannels.CHANNEL_SCHEDULED)
             .setSmallIcon(R.drawable.ic_notification)
             .setContentTitle(title != null ? title : "JournalMate")
             .setContentText(body != null ? body : "")
@@ -118,7 +93,10 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
             .setAutoCancel(true)
             .setContentIntent(pendingIntent)
             .setColor(accentColor)
-            .setVibrate(new long[]{0, 500, 200, 500});
+            .setVibrate(new long[]{0, 500, 200, 500})
+            // Delivered during quiet hours (DeliveryPolicy decided at scheduling time)
+            .setSilent(alarmIntent.getBooleanExtra(ReminderScheduler.EXTRA_SILENT, false));
+        NotificationTelemetry.track(context, builder, null, id, NotificationChannels.CHANNEL_SCHEDULED, "scheduled");
 
         // Show the notification
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
@@ -126,6 +104,10 @@ public class NotificationAlarmReceiver extends BroadcastReceiver {
         try {
             notificationManager.notify(id, builder.build());
             Log.d(TAG, "Scheduled notification shown with ID: " + id);
+            NotificationTelemetry.posted(context, id, NotificationChannels.CHANNEL_SCHEDULED, "scheduled",
+                alarmIntent.getLongExtra(NotificationTelemetry.EXTRA_SCHEDULED_AT, 0),
+                alarmIntent.hasExtra(NotificationTelemetry.EXTRA_EXACT)
+                    ? alarmIntent.getBooleanExtra(NotificationTelemetry.EXTRA_EXACT, true) : null);
         } catch (SecurityException e) {
             Log.e(TAG, "Security exception showing notification: " + e.getMessage());
         }
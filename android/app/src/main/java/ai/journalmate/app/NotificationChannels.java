@@ -10,6 +10,11 @@ import android.net.Uri;
 import android.os.Build;
 import android.util.Log;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Centralized notification channel management for JournalMate
  *
@@ -18,6 +23,10 @@ import android.util.Log;
  * - LED colors (purple brand color)
  * - Appropriate importance levels
  * - Channel groups for organization in system settings
+ *
+ * Every channel the app posts to is defined here. Callers use ensureChannels(),
+ * which creates or migrates them once per SCHEMA_VERSION; after that it is an
+ * in-memory check with no binder calls.
  */
 public class NotificationChannels {
     private static final String TAG = "NotificationChannels";
@@ -40,6 +49,22 @@ public class NotificationChannels {
     public static final String CHANNEL_ASSISTANT = "journalmate_assistant";
     public static final String CHANNEL_ALERTS = "journalmate_alerts";
 
+    // Channels owned by the native layer (services, receivers, plugins)
+    public static final String CHANNEL_FOREGROUND = "journalmate_foreground";
+    public static final String CHANNEL_REMINDERS = "journalmate_reminders";
+    public static final String CHANNEL_SCHEDULED = "journalmate_scheduled";
+    public static final String CHANNEL_PUSH = "journalmate_push";
+    public static final String CHANNEL_GENERAL = "journalmate_notifications";
+
+    // Bump when a channel is added, changed or retired
+    private static final int SCHEMA_VERSION = 1;
+    // Channels from older schema versions to delete on migration
+    private static final String[] RETIRED_CHANNELS = {};
+    // In no-backup storage: a restore onto a new device must not skip creation
+    private static final String SCHEMA_FILE = "notification_channels_schema";
+
+    private static volatile boolean channelsReady = false;
+
     // Vibration patterns (in milliseconds)
     // Pattern format: [delay, vibrate, pause, vibrate, ...]
     public static final long[] VIBRATION_LIGHT = {0, 50};
@@ -49,8 +74,58 @@ public class NotificationChannels {
     public static final long[] VIBRATION_URGENT = {0, 300, 100, 300, 100, 300};
 
     /**
-     * Create all notification channels and groups
-     * Should be called when app starts (e.g., in MainActivity.onCreate or Application.onCreate)
+     * Make sure all channels exist at the current schema version.
+     * Cheap enough to call before every notification.
+     */
+    public static void ensureChannels(Context context) {
+        if (channelsReady) return;
+
+        synchronized (NotificationChannels.class) {
+            if (channelsReady) return;
+
+            File schemaFile = new File(context.getNoBackupFilesDir(), SCHEMA_FILE);
+            if (readSchemaVersion(schemaFile) != SCHEMA_VERSION) {
+                createAllChannels(context);
+                deleteRetiredChannels(context);
+                writeSchemaVersion(schemaFile);
+                Log.d(TAG, "Notification channels at schema v" + SCHEMA_VERSION);
+            }
+            channelsReady = true;
+        }
+    }
+
+    private static int readSchemaVersion(File file) {
+        if (!file.exists()) return 0;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[16];
+            int read = in.read(buffer);
+            return read > 0 ? Integer.parseInt(new String(buffer, 0, read, StandardCharsets.UTF_8).trim()) : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static void writeSchemaVersion(File file) {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(String.valueOf(SCHEMA_VERSION).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to record channel schema: " + e.getMessage());
+        }
+    }
+
+    private static void deleteRetiredChannels(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || RETIRED_CHANNELS.length == 0) return;
+
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager == null) return;
+        for (String channelId : RETIRED_CHANNELS) {
+            manager.deleteNotificationChannel(channelId);
+        }
+    }
+
+    /**
+     * Create all notification channels and groups.
+     * Prefer ensureChannels(), which only does this once per schema version.
      */
     public static void createAllChannels(Context context) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
@@ -75,6 +150,7 @@ public class NotificationChannels {
         createAchievementsChannel(manager);
         createAssistantChannel(manager);
         createAlertsChannel(manager);
+        createNativeChannels(manager);
 
         Log.d(TAG, "All notification channels created successfully");
     }
@@ -260,6 +336,75 @@ public class NotificationChannels {
         Log.d(TAG, "Alerts channel created: " + CHANNEL_ALERTS);
     }
 
+    /**
+     * Channels used by the native services, receivers and plugins
+     * (previously each created its own on every run)
+     */
+    private static void createNativeChannels(NotificationManager manager) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+
+        // Ongoing progress notification - Low = no sound, but visible
+        NotificationChannel foreground = new NotificationChannel(
+            CHANNEL_FOREGROUND,
+            "JournalMate Active",
+            NotificationManager.IMPORTANCE_LOW
+        );
+        foreground.setDescription("Shows your daily progress and upcoming tasks");
+        foreground.setShowBadge(false);
+        foreground.setSound(null, null); // Silent
+        manager.createNotificationChannel(foreground);
+
+        // AlarmManager task reminders - High = sound + heads-up
+        NotificationChannel reminders = new NotificationChannel(
+            CHANNEL_REMINDERS,
+            "Task Reminders",
+            NotificationManager.IMPORTANCE_HIGH
+        );
+        reminders.setDescription("Reminders for upcoming tasks");
+        reminders.enableVibration(true);
+        reminders.setVibrationPattern(new long[]{0, 500, 200, 500});
+        reminders.setShowBadge(true);
+        manager.createNotificationChannel(reminders);
+
+        // Notifications scheduled from JS
+        NotificationChannel scheduled = new NotificationChannel(
+            CHANNEL_SCHEDULED,
+            "Scheduled Notifications",
+            NotificationManager.IMPORTANCE_HIGH
+        );
+        scheduled.setDescription("Scheduled reminders and notifications");
+        scheduled.enableVibration(true);
+        scheduled.setVibrationPattern(new long[]{0, 500, 200, 500});
+        scheduled.setShowBadge(true);
+        scheduled.enableLights(true);
+        scheduled.setLightColor(BRAND_COLOR);
+        manager.createNotificationChannel(scheduled);
+
+        // FCM pushes
+        NotificationChannel push = new NotificationChannel(
+            CHANNEL_PUSH,
+            "JournalMate Notifications",
+            NotificationManager.IMPORTANCE_HIGH
+        );
+        push.setDescription("JournalMate activity reminders and updates");
+        push.enableLights(true);
+        push.enableVibration(true);
+        manager.createNotificationChannel(push);
+
+        // General notifications shown from JS
+        NotificationChannel general = new NotificationChannel(
+            CHANNEL_GENERAL,
+            "JournalMate Notifications",
+            NotificationManager.IMPORTANCE_DEFAULT
+        );
+        general.setDescription("Notifications from JournalMate app");
+        general.enableVibration(true);
+        general.setShowBadge(true);
+        manager.createNotificationChannel(general);
+
+        Log.d(TAG, "Native channels created");
+    }
+
     /**
      * Get the vibration pattern for a haptic type
      *
@@ -289,77 +434,20 @@ public class NotificationChannels {
 
     /**
      * Get the channel ID for a notification type/category
-     * Maps server notification types to Android channels
+     * Maps server notification types to Android channels via NotificationRouting
      *
      * @param notificationType The type from server (e.g., "task_due_soon", "group_invite_received")
      * @return Channel ID to use
      */
     public static String getChannelForType(String notificationType) {
-        if (notificationType == null) {
-            return CHANNEL_ALERTS;
-        }
-
-        // Task-related
-        if (notificationType.startsWith("task_")) {
-            return CHANNEL_TASKS;
-        }
-
-        // Activity-related
-        if (notificationType.startsWith("activity_") ||
-            notificationType.startsWith("timeline_") ||
-            notificationType.startsWith("trip_") ||
-            notificationType.startsWith("reservation_") ||
-            notificationType.startsWith("flight_") ||
-            notificationType.startsWith("hotel_") ||
-            notificationType.startsWith("movie_") ||
-            notificationType.startsWith("show_")) {
-            return CHANNEL_ACTIVITIES;
-        }
-
-        // Group-related
-        if (notificationType.startsWith("group_")) {
-            return CHANNEL_GROUPS;
-        }
-
-        // Streak-related
-        if (notificationType.startsWith("streak_")) {
-            if (notificationType.contains("milestone")) {
-                return CHANNEL_ACHIEVEMENTS;
-            }
-            return CHANNEL_STREAKS;
-        }
-
-        // Goal-related (goes to tasks channel)
-        if (notificationType.startsWith("goal_")) {
-            return CHANNEL_TASKS;
-        }
-
-        // Accountability check-ins
-        if (notificationType.contains("checkin") ||
-            notificationType.contains("review") ||
-            notificationType.startsWith("weekly_") ||
-            notificationType.startsWith("monthly_") ||
-            notificationType.startsWith("quarterly_")) {
-            return CHANNEL_ASSISTANT;
-        }
-
-        // Assistant/suggestions
-        if (notificationType.startsWith("suggested_") ||
-            notificationType.startsWith("idle_") ||
-            notificationType.startsWith("unfinished_") ||
-            notificationType.startsWith("weather_") ||
-            notificationType.startsWith("calendar_")) {
-            return CHANNEL_ASSISTANT;
-        }
-
-        // Journal-related
-        if (notificationType.startsWith("journal_") ||
-            notificationType.contains("journal")) {
-            return CHANNEL_ASSISTANT;
-        }
+        return NotificationRouting.channelFor(notificationType);
+    }
 
-        // Default to alerts for unknown types
-        return CHANNEL_ALERTS;
+    /**
+     * Same as getChannelForType(String), loading persisted server overrides first
+     */
+    public static String getChannelForType(Context context, String notificationType) {
+        return NotificationRouting.channelFor(context, notificationType);
     }
 
     /**
@@ -0,0 +1,21 @@
+package ai.journalmate.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * BroadcastReceiver for notification delete intents
+ *
+ * Fired when the user swipes a notification away (or clears all); records
+ * the dismissal for NotificationTelemetry.
+ */
+public class NotificationEventReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (NotificationTelemetry.ACTION_DISMISSED.equals(intent.getAction())) {
+            NotificationTelemetry.recordFromIntent(context, intent, NotificationTelemetry.EVENT_DISMISSED, null);
+        }
+    }
+}
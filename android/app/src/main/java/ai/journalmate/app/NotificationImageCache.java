@@ -0,0 +1,238 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Images for rich push notifications (activity covers, avatars)
+ *
+ * Bitmaps are downsampled to notification size before they are kept, so the
+ * caches hold small images regardless of the source resolution:
+ * - memory: LruCache sized in bytes, for repeats within the same process
+ * - disk: cacheDir/push_images, trimmed oldest-used first to a fixed budget
+ *
+ * A fetch that misses the caller's deadline keeps running in the background,
+ * so the next notification with the same URL gets the image from cache.
+ */
+public final class NotificationImageCache {
+    private static final String TAG = "NotificationImageCache";
+    private static final String DIR_NAME = "push_images";
+
+    private static final int MEMORY_CACHE_BYTES = 4 * 1024 * 1024;
+    private static final long DISK_CACHE_BYTES = 10 * 1024 * 1024;
+    private static final int MAX_DOWNLOAD_BYTES = 5 * 1024 * 1024;
+
+    // BigPictureStyle is shown at most ~450dp wide with a 2:1 aspect
+    private static final int PICTURE_MAX_WIDTH = 1024;
+    private static final int PICTURE_MAX_HEIGHT = 512;
+
+    public enum Kind { PICTURE, AVATAR }
+
+    private static final LruCache<String, Bitmap> memoryCache = new LruCache<String, Bitmap>(MEMORY_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    // Two threads so a cover and an avatar for the same push download together
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private static final Map<String, Future<Bitmap>> inFlight = new ConcurrentHashMap<>();
+
+    private NotificationImageCache() {}
+
+    /**
+     * Cached image only - never touches the network
+     */
+    public static Bitmap getCached(Context context, String url, Kind kind) {
+        String key = key(url, kind);
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) return bitmap;
+
+        File file = new File(cacheDir(context), key);
+        if (!file.exists()) return null;
+
+        bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+            file.setLastModified(System.currentTimeMillis()); // LRU touch
+            memoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Start (or join) a download of the image without waiting for it
+     */
+    public static Future<Bitmap> fetch(Context context, String url, Kind kind) {
+        Context appContext = context.getApplicationContext();
+        String key = key(url, kind);
+        return inFlight.computeIfAbsent(key, k -> executor.submit(() -> {
+            try {
+                return download(appContext, url, kind, k);
+            } finally {
+                inFlight.remove(k);
+            }
+        }));
+    }
+
+    /**
+     * Wait for a fetch until the deadline (System.currentTimeMillis based)
+     *
+     * @return the image, or null if it failed or isn't ready in time
+     */
+    public static Bitmap await(Future<Bitmap> future, long deadline) {
+        if (future == null) return null;
+        long remaining = deadline - System.currentTimeMillis();
+        try {
+            return remaining > 0 ? future.get(remaining, TimeUnit.MILLISECONDS) : (future.isDone() ? future.get() : null);
+        } catch (TimeoutException e) {
+            Log.d(TAG, "Image not ready in time, posting without it");
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Bitmap download(Context context, String url, Kind kind, String key) {
+        try {
+            NativeHttp.Response response = NativeHttp.get(context, url, new NativeHttp.Options()
+                .timeouts(5000, 10000)
+                .maxBytes(MAX_DOWNLOAD_BYTES)
+                .accept("image/*"));
+            if (!response.isSuccessful()) {
+                Log.w(TAG, "Image fetch returned " + response.code);
+                return null;
+            }
+
+            Bitmap bitmap = decodeSampled(context, response.body, kind);
+            if (bitmap == null) {
+                Log.w(TAG, "Could not decode image");
+                return null;
+            }
+
+            memoryCache.put(key, bitmap);
+            writeToDisk(context, key, bitmap, kind);
+            return bitmap;
+        } catch (Exception e) {
+            Log.w(TAG, "Image fetch failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decode at the smallest power-of-two sample that still covers the target,
+     * then scale the remainder (avatars are center-cropped to a square)
+     */
+    private static Bitmap decodeSampled(Context context, byte[] data, Kind kind) {
+        int targetWidth;
+        int targetHeight;
+        if (kind == Kind.AVATAR) {
+            Resources res = context.getResources();
+            targetWidth = res.getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+            targetHeight = res.getDimensionPixelSize(android.R.dimen.notification_large_icon_height);
+        } else {
+            targetWidth = PICTURE_MAX_WIDTH;
+            targetHeight = PICTURE_MAX_HEIGHT;
+        }
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        int sampleSize = 1;
+        while (bounds.outWidth / (sampleSize * 2) >= targetWidth
+                && bounds.outHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        Bitmap decoded = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (decoded == null) return null;
+
+        if (kind == Kind.AVATAR) {
+            int side = Math.min(decoded.getWidth(), decoded.getHeight());
+            Bitmap square = Bitmap.createBitmap(decoded,
+                (decoded.getWidth() - side) / 2, (decoded.getHeight() - side) / 2, side, side);
+            return Bitmap.createScaledBitmap(square, targetWidth, targetHeight, true);
+        }
+
+        float scale = Math.min(1f, Math.min(
+            (float) targetWidth / decoded.getWidth(), (float) targetHeight / decoded.getHeight()));
+        if (scale >= 1f) return decoded;
+        return Bitmap.createScaledBitmap(decoded,
+            Math.max(1, Math.round(decoded.getWidth() * scale)),
+            Math.max(1, Math.round(decoded.getHeight() * scale)), true);
+    }
+
+    private static void writeToDisk(Context context, String key, Bitmap bitmap, Kind kind) {
+        File dir = cacheDir(context);
+        File tmp = new File(dir, key + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            // Avatars may be transparent; covers are photos
+            bitmap.compress(kind == Kind.AVATAR ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG, 85, out);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to cache image: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(new File(dir, key))) {
+            tmp.delete();
+        }
+        trimDisk(dir);
+    }
+
+    /**
+     * Drop least recently used files until the directory fits the budget
+     */
+    private static synchronized void trimDisk(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) total += file.length();
+        if (total <= DISK_CACHE_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= DISK_CACHE_BYTES) break;
+            long length = file.length();
+            if (file.delete()) total -= length;
+        }
+    }
+
+    private static File cacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private static String key(String url, Kind kind) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((kind.name() + "|" + url).getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (Exception e) {
+            return kind.name().toLowerCase() + "_" + Integer.toHexString(url.hashCode());
+        }
+    }
+}
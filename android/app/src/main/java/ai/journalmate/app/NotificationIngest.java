@@ -0,0 +1,401 @@
+package ai.journalmate.app;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Ingest pipeline for push notifications
+ *
+ * Every FCM message goes through here before anything is shown:
+ * 1. Dedupe - by server message ID and by collapse key/content within a short
+ *    window, so a notification + data payload or a retried send shows once
+ * 2. Bundle - messages for the same group/activity/type share one stable
+ *    notification ID; while it is still in the shade, new messages fold into
+ *    it as an InboxStyle list instead of stacking separate notifications
+ * 3. Rate limit - each channel may alert (sound/vibration) a few times per
+ *    minute; anything beyond that is posted silently
+ *
+ * Cover images and avatars come from NotificationImageCache. A cache miss
+ * waits at most IMAGE_WAIT_MS; after that the message is posted as text and
+ * the download finishes in the background for the next one. The wait happens
+ * outside the pipeline lock, so other messages keep flowing meanwhile.
+ */
+public final class NotificationIngest {
+    private static final String TAG = "NotificationIngest";
+    private static final String PREFS_NAME = "journalmate_push_ingest";
+    // [[key, seenAt], ...] least recently seen first
+    private static final String KEY_SEEN = "seenLru";
+    private static final String KEY_SEEN_LEGACY = "seen";
+    private static final String KEY_ALERTS = "alerts";
+    private static final String BUNDLE_PREFIX = "bundle:";
+
+    private static final long DEDUPE_ID_TTL_MS = 24 * 60 * 60 * 1000L;
+    private static final long DEDUPE_CONTENT_WINDOW_MS = 60 * 1000L;
+    private static final int MAX_SEEN = 200;
+
+    // Per channel: at most this many alerting posts in the window
+    private static final int ALERTS_PER_WINDOW = 3;
+    private static final long ALERT_WINDOW_MS = 60 * 1000L;
+
+    private static final int MAX_INBOX_LINES = 6;
+    // Longest a push waits for its images before posting text-only
+    private static final long IMAGE_WAIT_MS = 3000;
+    private static final int ACCENT_COLOR = Color.parseColor("#8b5cf6");
+
+    // Guards the persisted dedupe, bundle and alert state - never held while waiting on the network
+    private static final Object lock = new Object();
+
+    private NotificationIngest() {}
+
+    /**
+     * A push message, flattened from the notification and data payloads
+     */
+    public static final class Message {
+        public String messageId;
+        public String collapseKey;
+        public String type;
+        public String title;
+        public String body;
+        public String activityId;
+        public String groupId;
+        // Server-supplied channel, if any; otherwise routed from type
+        public String channelId;
+        // Optional absolute URLs: big picture (activity cover) and large icon (actor)
+        public String imageUrl;
+        public String avatarUrl;
+        // Server send time (epoch ms), 0 if unknown - for delivery latency
+        public long sentAt;
+    }
+
+    /**
+     * Run a message through dedupe, bundling and rate limiting, then post it
+     *
+     * @return the notification ID it was posted under, or 0 if it was dropped
+     */
+    public static int ingest(Context context, Message message) {
+        if (message.title == null && message.body == null) {
+            return 0;
+        }
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+        // Recorded right away, so a redelivery arriving during the image wait is dropped
+        synchronized (lock) {
+            if (isDuplicate(prefs, message, System.currentTimeMillis())) {
+                Log.d(TAG, "Dropping duplicate push: " + message.messageId);
+                return 0;
+            }
+        }
+
+        NotificationChannels.ensureChannels(context);
+        String channelId = message.channelId != null && NotificationRouting.isKnownChannel(message.channelId)
+            ? message.channelId
+            : (message.type != null ? NotificationChannels.getChannelForType(context, message.type) : NotificationChannels.CHANNEL_PUSH);
+
+        String bundleKey = channelId + ":" + bundleScope(message);
+        int notificationId = ("push:" + bundleKey).hashCode();
+
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) return 0;
+
+        Bitmap picture = null;
+        Bitmap avatar = null;
+        if (message.imageUrl != null || message.avatarUrl != null) {
+            long deadline = System.currentTimeMillis() + IMAGE_WAIT_MS;
+            // Only a single notification shows a big picture; bundles keep the inbox list
+            boolean wantsPicture = message.imageUrl != null && !isShowing(manager, notificationId);
+            Future<Bitmap> pictureFetch = null;
+            Future<Bitmap> avatarFetch = null;
+            if (wantsPicture) {
+                picture = NotificationImageCache.getCached(context, message.imageUrl, NotificationImageCache.Kind.PICTURE);
+                if (picture == null) {
+                    pictureFetch = NotificationImageCache.fetch(context, message.imageUrl, NotificationImageCache.Kind.PICTURE);
+                }
+            }
+            if (message.avatarUrl != null) {
+                avatar = NotificationImageCache.getCached(context, message.avatarUrl, NotificationImageCache.Kind.AVATAR);
+                if (avatar == null) {
+                    avatarFetch = NotificationImageCache.fetch(context, message.avatarUrl, NotificationImageCache.Kind.AVATAR);
+                }
+            }
+            if (pictureFetch != null) picture = NotificationImageCache.await(pictureFetch, deadline);
+            if (avatarFetch != null) avatar = NotificationImageCache.await(avatarFetch, deadline);
+        }
+
+        synchronized (lock) {
+            // Fold into the bundle only while its notification is still showing
+            JSONObject bundle = isShowing(manager, notificationId) ? readBundle(prefs, bundleKey) : null;
+            if (bundle == null) {
+                bundle = new JSONObject();
+            }
+            appendToBundle(bundle, message);
+            if (bundle.optInt("count", 1) > 1) {
+                // Another message opened this bundle while the images loaded
+                picture = null;
+            }
+
+            long now = System.currentTimeMillis();
+            // Quiet hours silence the post without spending an alert token
+            boolean alert = !DeliveryPolicy.silenceNow(context, channelId) && takeAlertToken(prefs, channelId, now);
+            NotificationCompat.Builder builder = buildNotification(context, channelId, notificationId, bundle, message, alert);
+            applyImages(builder, message, picture, avatar);
+
+            try {
+                manager.notify(notificationId, builder.build());
+            } catch (SecurityException e) {
+                Log.w(TAG, "Notification permission missing: " + e.getMessage());
+                return 0;
+            }
+
+            prefs.edit().putString(BUNDLE_PREFIX + bundleKey, bundle.toString()).apply();
+            NotificationTelemetry.posted(context, notificationId, channelId, message.type, message.sentAt, null);
+            Log.d(TAG, "Posted " + bundleKey + " (" + bundle.optInt("count") + " in bundle, alert=" + alert + ")");
+        }
+        return notificationId;
+    }
+
+    /**
+     * Messages are bundled per group, then per activity, then per type
+     */
+    private static String bundleScope(Message message) {
+        if (message.groupId != null) return "group:" + message.groupId;
+        if (message.activityId != null) return "activity:" + message.activityId;
+        if (message.collapseKey != null) return "collapse:" + message.collapseKey;
+        return "type:" + (message.type != null ? message.type : "general");
+    }
+
+    private static boolean isDuplicate(SharedPreferences prefs, Message message, long now) {
+        String contentKey = "c:" + (message.collapseKey != null ? message.collapseKey : "")
+            + "|" + message.title + "|" + message.body;
+        String idKey = message.messageId != null ? "m:" + message.messageId : null;
+
+        SeenTable seen = new SeenTable(MAX_SEEN);
+        try {
+            JSONArray stored = new JSONArray(prefs.getString(KEY_SEEN, "[]"));
+            for (int i = 0; i < stored.length(); i++) {
+                JSONArray entry = stored.optJSONArray(i);
+                if (entry != null) seen.restore(entry.optString(0), entry.optLong(1));
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Unreadable seen table, starting over: " + e.getMessage());
+        }
+
+        if (seen.isDuplicate(idKey, Integer.toHexString(contentKey.hashCode()), now)) {
+            return true;
+        }
+
+        // Expired entries are dropped on write; the size bound evicts least recently seen
+        JSONArray updated = new JSONArray();
+        for (Map.Entry<String, Long> entry : seen.entries.entrySet()) {
+            if (!SeenTable.isExpired(entry.getKey(), entry.getValue(), now)) {
+                updated.put(new JSONArray().put(entry.getKey()).put((long) entry.getValue()));
+            }
+        }
+        prefs.edit()
+            .putString(KEY_SEEN, updated.toString())
+            .remove(KEY_SEEN_LEGACY)
+            .apply();
+        return false;
+    }
+
+    /**
+     * Message ids (kept DEDUPE_ID_TTL_MS) and content hashes (kept
+     * DEDUPE_CONTENT_WINDOW_MS) with when they were last seen. Bounded as an
+     * LRU, so a full table only forgets the entries seen longest ago - never
+     * the one a redelivery is about to hit.
+     */
+    static final class SeenTable {
+        final LruMap<String, Long> entries;
+
+        SeenTable(int maxEntries) {
+            entries = new LruMap<>(maxEntries);
+        }
+
+        /**
+         * Add an entry loaded from storage (oldest first)
+         */
+        void restore(String key, long seenAt) {
+            if (key != null && !key.isEmpty()) entries.put(key, seenAt);
+        }
+
+        /**
+         * Whether the message was seen within its window; records it when not
+         *
+         * @param idKey "m:" + server message id, or null
+         * @param contentKey hash of collapse key, title and body
+         */
+        boolean isDuplicate(String idKey, String contentKey, long now) {
+            if (idKey != null && isFresh(idKey, now)) return true;
+            if (isFresh(contentKey, now)) return true;
+
+            if (idKey != null) entries.put(idKey, now);
+            entries.put(contentKey, now);
+            return false;
+        }
+
+        private boolean isFresh(String key, long now) {
+            Long seenAt = entries.get(key);
+            return seenAt != null && !isExpired(key, seenAt, now);
+        }
+
+        static boolean isExpired(String key, long seenAt, long now) {
+            long ttl = key.startsWith("m:") ? DEDUPE_ID_TTL_MS : DEDUPE_CONTENT_WINDOW_MS;
+            return now - seenAt >= ttl;
+        }
+    }
+
+    /**
+     * Token bucket per channel, persisted as the alert timestamps in the window
+     */
+    private static boolean takeAlertToken(SharedPreferences prefs, String channelId, long now) {
+        try {
+            JSONObject alerts = new JSONObject(prefs.getString(KEY_ALERTS, "{}"));
+            JSONArray recent = alerts.optJSONArray(channelId);
+            JSONArray kept = new JSONArray();
+            if (recent != null) {
+                for (int i = 0; i < recent.length(); i++) {
+                    long at = recent.optLong(i);
+                    if (now - at < ALERT_WINDOW_MS) kept.put(at);
+                }
+            }
+
+            boolean allowed = kept.length() < ALERTS_PER_WINDOW;
+            if (allowed) kept.put(now);
+            alerts.put(channelId, kept);
+            prefs.edit().putString(KEY_ALERTS, alerts.toString()).apply();
+            return allowed;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private static boolean isShowing(NotificationManager manager, int notificationId) {
+        try {
+            for (StatusBarNotification sbn : manager.getActiveNotifications()) {
+                if (sbn.getId() == notificationId) return true;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not read active notifications: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static JSONObject readBundle(SharedPreferences prefs, String bundleKey) {
+        String json = prefs.getString(BUNDLE_PREFIX + bundleKey, null);
+        if (json == null) return null;
+        try {
+            return new JSONObject(json);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void appendToBundle(JSONObject bundle, Message message) {
+        try {
+            JSONArray lines = bundle.optJSONArray("lines");
+            if (lines == null) lines = new JSONArray();
+
+            String line = message.title != null && message.body != null
+                ? message.title + ": " + message.body
+                : (message.title != null ? message.title : message.body);
+
+            // Newest first, capped - the count keeps the true total
+            JSONArray updated = new JSONArray().put(line);
+            for (int i = 0; i < lines.length() && updated.length() < MAX_INBOX_LINES; i++) {
+                updated.put(lines.optString(i));
+            }
+            bundle.put("lines", updated);
+            bundle.put("count", bundle.optInt("count", 0) + 1);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to update bundle: " + e.getMessage());
+        }
+    }
+
+    private static void applyImages(NotificationCompat.Builder builder, Message message,
+            Bitmap picture, Bitmap avatar) {
+        if (avatar != null) {
+            builder.setLargeIcon(avatar);
+        }
+        if (picture != null) {
+            NotificationCompat.BigPictureStyle style = new NotificationCompat.BigPictureStyle()
+                .bigPicture(picture);
+            if (message.body != null) {
+                style.setSummaryText(message.body);
+            }
+            builder.setStyle(style);
+            if (avatar == null) {
+                // Collapsed view shows the cover as a thumbnail
+                builder.setLargeIcon(picture);
+            }
+        }
+    }
+
+    private static NotificationCompat.Builder buildNotification(Context context, String channelId,
+            int notificationId, JSONObject bundle, Message latest, boolean alert) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        int count = bundle.optInt("count", 1);
+        if (count == 1 && latest.activityId != null) {
+            // Deep link only when the notification is about a single item
+            intent.putExtra("activityId", latest.activityId);
+        }
+        NotificationTelemetry.tag(intent, notificationId, channelId, latest.type);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            notificationId,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setColor(ACCENT_COLOR)
+            .setColorized(true)
+            .setOnlyAlertOnce(!alert)
+            .setSilent(!alert);
+        NotificationTelemetry.track(context, builder, null, notificationId, channelId, latest.type);
+
+        if (count == 1) {
+            builder.setContentTitle(latest.title != null ? latest.title : "JournalMate")
+                .setContentText(latest.body != null ? latest.body : "");
+        } else {
+            String summary = count + " new updates";
+            NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle()
+                .setBigContentTitle(summary);
+            JSONArray lines = bundle.optJSONArray("lines");
+            int shown = 0;
+            if (lines != null) {
+                for (int i = 0; i < lines.length(); i++) {
+                    inbox.addLine(lines.optString(i));
+                    shown++;
+                }
+            }
+            if (count > shown) {
+                inbox.setSummaryText("+" + (count - shown) + " more");
+            }
+            builder.setContentTitle(latest.title != null ? latest.title : summary)
+                .setContentText(summary)
+                .setNumber(count)
+                .setStyle(inbox);
+        }
+        return builder;
+    }
+}
@@ -1,14 +1,14 @@
 package ai.journalmate.app;
 
-import android.app.AlarmManager;
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Build;
+import android.provider.Settings;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
@@ -26,6 +26,7 @@ import com.getcapacitor.JSObject;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Iterator;
 import java.util.Map;
 
 @CapacitorPlugin(
@@ -39,17 +40,12 @@ import java.util.Map;
 )
 public class NotificationPlugin extends Plugin {
     private static final String TAG = "NotificationPlugin";
-    private static final String CHANNEL_ID = "journalmate_notifications";
-    private static final String CHANNEL_NAME = "JournalMate Notifications";
-    private static final String CHANNEL_DESC = "Notifications from JournalMate app";
-    private static final String CHANNEL_ID_ALERTS = "journalmate_alerts";
-    private static final String CHANNEL_NAME_ALERTS = "JournalMate Alerts";
     private static final String SCHEDULED_PREFS = "scheduled_notifications";
 
     @Override
     public void load() {
         super.load();
-        createNotificationChannel();
+        NotificationChannels.ensureChannels(getContext());
         restoreScheduledNotifications();
     }
 
@@ -59,81 +55,12 @@ public class NotificationPlugin extends Plugin {
      */
     private void restoreScheduledNotifications() {
         try {
-            SharedPreferences prefs = getContext().getSharedPreferences(SCHEDULED_PREFS, Context.MODE_PRIVATE);
-            Map<String, ?> all = prefs.getAll();
-            int restored = 0;
-
-            for (Map.Entry<String, ?> entry : all.entrySet()) {
-                try {
-                    JSONObject json = new JSONObject((String) entry.getValue());
-                    long triggerAt = json.getLong("triggerAt");
-
-                    if (triggerAt > System.currentTimeMillis()) {
-                        // Future notification - reschedule
-                        scheduleAlarm(
-                            json.getInt("id"),
-                            json.getString("title"),
-                            json.getString("body"),
-                            triggerAt
-                        );
-                        restored++;
-                    } else {
-                        // Past due - remove from storage
-                        prefs.edit().remove(entry.getKey()).apply();
-                    }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Failed to parse scheduled notification: " + e.getMessage());
-                    prefs.edit().remove(entry.getKey()).apply();
-                }
-            }
-
-            if (restored > 0) {
-                Log.d(TAG, "Restored " + restored + " scheduled notifications");
-            }
+            ReminderScheduler.restoreScheduledNotifications(getContext());
         } catch (Exception e) {
             Log.e(TAG, "Failed to restore scheduled notifications: " + e.getMessage());
         }
     }
 
-    /**
-     * Create notification channels (required for Android 8.0+)
-     */
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager notificationManager = getContext().getSystemService(NotificationManager.class);
-            if (notificationManager == null) {
-                Log.e(TAG, "NotificationManager is null, cannot create channels");
-                return;
-            }
-
-            // Default channel for general notifications
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_DEFAULT
-            );
-            channel.setDescription(CHANNEL_DESC);
-            channel.enableVibration(true);
-            channel.setShowBadge(true);
-            notificationManager.createNotificationChannel(channel);
-            Log.d(TAG, "Default notification channel created: " + CHANNEL_ID);
-
-            // HIGH importance channel for alerts and test notifications
-            NotificationChannel alertChannel = new NotificationChannel(
-                CHANNEL_ID_ALERTS,
-                CHANNEL_NAME_ALERTS,
-                NotificationManager.IMPORTANCE_HIGH
-            );
-            alertChannel.setDescription("Important alerts and test notifications");
-            alertChannel.enableVibration(true);
-            alertChannel.setVibrationPattern(new long[]{0, 500, 200, 500});
-            alertChannel.setShowBadge(true);
-            alertChannel.enableLights(true);
-            notificationManager.createNotificationChannel(alertChannel);
-            Log.d(TAG, "Alert notification channel created: " + CHANNEL_ID_ALERTS);
-        }
-    }
-
     /**
      * Check if notification permission is granted
      */
@@ -232,7 +159,7 @@ public class NotificationPlugin extends Plugin {
             );
 
             // Build the notification using ALERTS channel for high visibility
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(getContext(), CHANNEL_ID_ALERTS)
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(getContext(), NotificationChannels.CHANNEL_ALERTS)
                 .setSmallIcon(R.drawable.ic_notification)
                 .setContentTitle(title)
                 .setContentText(body)
@@ -325,6 +252,8 @@ public class NotificationPlugin extends Plugin {
         String body = call.getString("body", "");
         Integer id = call.getInt("id", (int) System.currentTimeMillis());
         Long triggerAt = call.getLong("triggerAt");
+        // Optional: "low" batches into a shared window, "high" is never deferred
+        String priority = call.getString("priority");
 
         if (triggerAt == null) {
             call.reject("triggerAt is required (milliseconds since epoch)");
@@ -344,10 +273,10 @@ public class NotificationPlugin extends Plugin {
 
         try {
             // Schedule the alarm
-            scheduleAlarm(id, title, body, triggerAt);
+            ReminderScheduler.scheduleNotification(getContext(), id, title, body, triggerAt, priority);
 
             // Store for restoration after app restart
-            saveScheduledNotification(id, title, body, triggerAt);
+            saveScheduledNotification(id, title, body, triggerAt, priority);
 
             JSObject result = new JSObject();
             result.put("success", true);
@@ -405,61 +334,95 @@ public class NotificationPlugin extends Plugin {
     }
 
     /**
-     * Schedule an alarm using AlarmManager
+     * Update the native delivery policy (from the user's notification preferences)
+     *
+     * Options: quietHoursStart / quietHoursEnd ("HH:MM", device local time),
+     * quietHoursEnabled (default: whether both times are given), channels
+     * ({ channelId: "ON_TIME" | "SILENT_IN_QUIET" | "DEFER" | "BATCH" | null }).
+     * Pending scheduled notifications are re-armed under the new policy.
      */
-    private void scheduleAlarm(int id, String title, String body, long triggerAt) {
-        Intent intent = new Intent(getContext(), NotificationAlarmReceiver.class);
-        intent.setAction("SCHEDULED_NOTIFICATION");
-        intent.putExtra("id", id);
-        intent.putExtra("title", title);
-        intent.putExtra("body", body);
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            getContext(),
-            id,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        AlarmManager alarmManager = (AlarmManager) getContext().getSystemService(Context.ALARM_SERVICE);
-
-        if (alarmManager == null) {
-            Log.e(TAG, "AlarmManager not available");
-            return;
+    @PluginMethod
+    public void setDeliveryPolicy(PluginCall call) {
+        int start = DeliveryPolicy.parseTime(call.getString("quietHoursStart"));
+        int end = DeliveryPolicy.parseTime(call.getString("quietHoursEnd"));
+        // The switch is stored on its own: turning quiet hours off sends no times
+        boolean enabled = call.getBoolean("quietHoursEnabled", start >= 0 && end >= 0);
+        if (start >= 0 && end >= 0) {
+            DeliveryPolicy.setQuietHours(getContext(), enabled, start, end);
+        } else {
+            DeliveryPolicy.setQuietHoursEnabled(getContext(), enabled);
         }
 
-        // Use exact alarms when possible for precise timing
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            // Android 12+ - check if we can schedule exact alarms
-            if (alarmManager.canScheduleExactAlarms()) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                Log.d(TAG, "Scheduled exact alarm for ID " + id);
-            } else {
-                // Fall back to inexact alarm
-                alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-                Log.d(TAG, "Scheduled inexact alarm for ID " + id + " (exact alarms not permitted)");
+        JSObject channels = call.getObject("channels");
+        if (channels != null) {
+            Iterator<String> keys = channels.keys();
+            while (keys.hasNext()) {
+                String channelId = keys.next();
+                String mode = channels.optString(channelId, null);
+                try {
+                    DeliveryPolicy.setChannelMode(getContext(), channelId,
+                        mode == null || mode.isEmpty() || "null".equals(mode) ? null : DeliveryPolicy.Mode.valueOf(mode));
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Unknown delivery mode for " + channelId + ": " + mode);
+                }
+            }
+        }
+
+        int rearmed = ReminderScheduler.restoreScheduledNotifications(getContext());
+
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("rescheduled", rearmed);
+        call.resolve(result);
+    }
+
+    /**
+     * Measured alarm delivery accuracy on this device (see AlarmAccuracy)
+     *
+     * Returns { exact, inexact: { samples, total, medianMs?, p90Ms?, maxMs? },
+     * canScheduleExactAlarms, inexactLeadMs, shouldRequestExactAlarms }
+     */
+    @PluginMethod
+    public void getAlarmAccuracy(PluginCall call) {
+        call.resolve(AlarmAccuracy.toJS(getContext()));
+    }
+
+    /**
+     * Open the system "Alarms & reminders" page (Android 12+); resolves with
+     * whether exact alarms are already allowed
+     */
+    @PluginMethod
+    public void requestExactAlarmPermission(PluginCall call) {
+        boolean granted = AlarmAccuracy.canScheduleExactAlarms(getContext());
+        if (!granted && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            try {
+                Intent intent = new Intent(Settings.ACTION_REQUEST_SCHEDULE_EXACT_ALARM);
+                intent.setData(Uri.parse("package:" + getContext().getPackageName()));
+                intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+                getContext().startActivity(intent);
+            } catch (Exception e) {
+                Log.e(TAG, "Could not open exact alarm settings: " + e.getMessage());
             }
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            // Android 6.0+ - use setExactAndAllowWhileIdle for Doze mode
-            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-            Log.d(TAG, "Scheduled exact alarm for ID " + id);
-        } else {
-            // Older Android - use setExact
-            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
-            Log.d(TAG, "Scheduled alarm for ID " + id);
         }
+
+        JSObject result = new JSObject();
+        result.put("granted", granted);
+        call.resolve(result);
     }
 
     /**
      * Save scheduled notification to SharedPreferences for restoration
      */
-    private void saveScheduledNotification(int id, String title, String body, long triggerAt) {
+    private void saveScheduledNotification(int id, String title, String body, long triggerAt, String priority) {
         try {
             JSONObject json = new JSONObject();
             json.put("id", id);
             json.put("title", title);
             json.put("body", body);
             json.put("triggerAt", triggerAt);
+            if (priority != null) {
+                json.put("priority", priority);
+            }
 
             SharedPreferences prefs = getContext().getSharedPreferences(SCHEDULED_PREFS, Context.MODE_PRIVATE);
             prefs.edit().putString(String.valueOf(id), json.toString()).apply();
@@ -0,0 +1,268 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Routing table from server notification types to Android channels
+ *
+ * Types are underscore-separated tokens ("streak_milestone_30"). Routes are
+ * compiled once into:
+ * - exact: full type -> channel
+ * - prefix: a trie over leading tokens; the deepest match wins, so
+ *   "streak_milestone" can refine "streak"
+ * - keywords: a token anywhere in the type ("review", "checkin"), used only
+ *   when nothing else matched
+ * Resolved types are cached, so repeat types are a single map lookup.
+ *
+ * The server publishes overrides at /api/notifications/routing (exact types,
+ * or "prefix_*" keys). They are persisted and layered over the built-in
+ * table, so types can be re-routed without an app update.
+ */
+public final class NotificationRouting {
+    private static final String TAG = "NotificationRouting";
+    private static final String PREFS_NAME = "journalmate_notification_routing";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_ROUTES = "routes";
+    private static final String KEY_FETCHED_AT = "fetchedAt";
+
+    private static final long REFRESH_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+    // Types are a small, fixed vocabulary; anything past this is noise
+    static final int MAX_CACHED_TYPES = 256;
+
+    private static final String[][] BUILT_IN_PREFIXES = {
+        {"task", NotificationChannels.CHANNEL_TASKS},
+        {"goal", NotificationChannels.CHANNEL_TASKS},
+        {"activity", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"timeline", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"trip", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"reservation", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"flight", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"hotel", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"movie", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"show", NotificationChannels.CHANNEL_ACTIVITIES},
+        {"group", NotificationChannels.CHANNEL_GROUPS},
+        {"streak", NotificationChannels.CHANNEL_STREAKS},
+        {"streak_milestone", NotificationChannels.CHANNEL_ACHIEVEMENTS},
+        {"weekly", NotificationChannels.CHANNEL_ASSISTANT},
+        {"monthly", NotificationChannels.CHANNEL_ASSISTANT},
+        {"quarterly", NotificationChannels.CHANNEL_ASSISTANT},
+        {"suggested", NotificationChannels.CHANNEL_ASSISTANT},
+        {"idle", NotificationChannels.CHANNEL_ASSISTANT},
+        {"unfinished", NotificationChannels.CHANNEL_ASSISTANT},
+        {"weather", NotificationChannels.CHANNEL_ASSISTANT},
+        {"calendar", NotificationChannels.CHANNEL_ASSISTANT},
+        {"journal", NotificationChannels.CHANNEL_ASSISTANT},
+    };
+
+    private static final String[][] BUILT_IN_KEYWORDS = {
+        {"checkin", NotificationChannels.CHANNEL_ASSISTANT},
+        {"review", NotificationChannels.CHANNEL_ASSISTANT},
+        {"journal", NotificationChannels.CHANNEL_ASSISTANT},
+    };
+
+    private static final String[] KNOWN_CHANNELS = {
+        NotificationChannels.CHANNEL_TASKS,
+        NotificationChannels.CHANNEL_ACTIVITIES,
+        NotificationChannels.CHANNEL_GROUPS,
+        NotificationChannels.CHANNEL_STREAKS,
+        NotificationChannels.CHANNEL_ACHIEVEMENTS,
+        NotificationChannels.CHANNEL_ASSISTANT,
+        NotificationChannels.CHANNEL_ALERTS,
+        NotificationChannels.CHANNEL_REMINDERS,
+        NotificationChannels.CHANNEL_SCHEDULED,
+        NotificationChannels.CHANNEL_PUSH,
+        NotificationChannels.CHANNEL_GENERAL,
+    };
+
+    private static volatile Table table = Table.compile(null);
+    private static volatile boolean loaded = false;
+
+    private NotificationRouting() {}
+
+    /**
+     * Compiled, immutable routing table plus its resolution cache
+     */
+    static final class Table {
+        final Map<String, String> exact = new HashMap<>();
+        final TrieNode prefixes = new TrieNode();
+        final Map<String, String> keywords = new HashMap<>();
+        // Bounded LRU: a full cache forgets only the least recently resolved type
+        final Map<String, String> cache = Collections.synchronizedMap(new LruMap<String, String>(MAX_CACHED_TYPES));
+
+        static Table compile(JSONObject overrides) {
+            Table compiled = new Table();
+            for (String[] rule : BUILT_IN_PREFIXES) {
+                compiled.prefixes.insert(rule[0].split("_"), rule[1]);
+            }
+            for (String[] rule : BUILT_IN_KEYWORDS) {
+                compiled.keywords.put(rule[0], rule[1]);
+            }
+
+            if (overrides != null) {
+                Iterator<String> keys = overrides.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    String channel = overrides.optString(key, null);
+                    if (channel == null || !isKnownChannel(channel)) {
+                        Log.w(TAG, "Ignoring route to unknown channel: " + key + " -> " + channel);
+                        continue;
+                    }
+                    if (key.endsWith("_*")) {
+                        compiled.prefixes.insert(key.substring(0, key.length() - 2).split("_"), channel);
+                    } else {
+                        compiled.exact.put(key, channel);
+                    }
+                }
+            }
+            return compiled;
+        }
+
+        String resolve(String type) {
+            String cached = cache.get(type);
+            if (cached != null) return cached;
+
+            String channel = exact.get(type);
+            if (channel == null) {
+                String[] tokens = type.split("_");
+                channel = prefixes.longestMatch(tokens);
+                if (channel == null) {
+                    for (String token : tokens) {
+                        channel = keywords.get(token);
+                        if (channel != null) break;
+                    }
+                }
+            }
+            if (channel == null) {
+                // Default to alerts for unknown types
+                channel = NotificationChannels.CHANNEL_ALERTS;
+            }
+
+            cache.put(type, channel);
+            return channel;
+        }
+    }
+
+    private static final class TrieNode {
+        final Map<String, TrieNode> children = new HashMap<>();
+        String channel;
+
+        void insert(String[] tokens, String target) {
+            TrieNode node = this;
+            for (String token : tokens) {
+                TrieNode child = node.children.get(token);
+                if (child == null) {
+                    child = new TrieNode();
+                    node.children.put(token, child);
+                }
+                node = child;
+            }
+            node.channel = target;
+        }
+
+        String longestMatch(String[] tokens) {
+            TrieNode node = this;
+            String match = null;
+            for (String token : tokens) {
+                node = node.children.get(token);
+                if (node == null) break;
+                if (node.channel != null) match = node.channel;
+            }
+            return match;
+        }
+    }
+
+    /**
+     * Channel for a notification type, using persisted server overrides
+     */
+    public static String channelFor(Context context, String notificationType) {
+        if (!loaded && context != null) {
+            load(context);
+        }
+        return channelFor(notificationType);
+    }
+
+    /**
+     * Channel for a notification type, using whatever table is loaded
+     */
+    public static String channelFor(String notificationType) {
+        if (notificationType == null || notificationType.isEmpty()) {
+            return NotificationChannels.CHANNEL_ALERTS;
+        }
+        return table.resolve(notificationType);
+    }
+
+    public static boolean isKnownChannel(String channelId) {
+        for (String known : KNOWN_CHANNELS) {
+            if (known.equals(channelId)) return true;
+        }
+        return false;
+    }
+
+    private static synchronized void load(Context context) {
+        if (loaded) return;
+        String json = prefs(context).getString(KEY_ROUTES, null);
+        if (json != null) {
+            try {
+                table = Table.compile(new JSONObject(json));
+            } catch (Exception e) {
+                Log.w(TAG, "Discarding unreadable routing overrides: " + e.getMessage());
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Whether the overrides are due for a refresh from the server
+     */
+    public static boolean needsRefresh(Context context) {
+        long fetchedAt = prefs(context).getLong(KEY_FETCHED_AT, 0);
+        return System.currentTimeMillis() - fetchedAt > REFRESH_INTERVAL_MS;
+    }
+
+    /**
+     * Fetch the server routing table and apply it if its version changed.
+     * Blocking - call from a worker or background thread.
+     */
+    public static void refresh(Context context) {
+        SharedPreferences prefs = prefs(context);
+        String currentVersion = prefs.getString(KEY_VERSION, "");
+        try {
+            NativeHttp.Response response = NativeHttp.get(context,
+                "/api/notifications/routing?version=" + currentVersion);
+            if (!response.isSuccessful()) {
+                Log.w(TAG, "Routing fetch returned " + response.code);
+                return;
+            }
+
+            JSONObject body = response.json();
+            SharedPreferences.Editor editor = prefs.edit().putLong(KEY_FETCHED_AT, System.currentTimeMillis());
+            String version = body.optString("version", "");
+            JSONObject routes = body.optJSONObject("routes");
+            if (routes != null && !version.equals(currentVersion)) {
+                Table compiled = Table.compile(routes);
+                synchronized (NotificationRouting.class) {
+                    table = compiled;
+                    loaded = true;
+                }
+                editor.putString(KEY_VERSION, version).putString(KEY_ROUTES, routes.toString());
+                Log.d(TAG, "Routing table updated to " + version + " (" + routes.length() + " routes)");
+            }
+            editor.apply();
+        } catch (Exception e) {
+            Log.w(TAG, "Routing refresh failed: " + e.getMessage());
+        }
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
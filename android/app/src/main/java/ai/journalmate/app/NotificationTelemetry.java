@@ -0,0 +1,353 @@
+package ai.journalmate.app;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import org.json.JSONArray;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local delivery telemetry for native notifications
+ *
+ * Records what happens to a notification after the app posts it:
+ * - posted: notify() was called, with the delay from the scheduled (alarm)
+ *   or sent (push) time and whether the alarm was exact. Alarm delays
+ *   compare two device-clock times; push delays compare the server's send
+ *   time with the device clock, so they are kept raw (possibly negative)
+ *   and the server corrects them with the clock skew it measures at upload.
+ * - shown / blocked: an estimate of whether the app and channel allowed it
+ *   to display (Do Not Disturb and OEM restrictions aren't visible here)
+ * - tapped, action, dismissed (via setDeleteIntent)
+ *
+ * Events go into a TelemetryRing file (fixed slots, oldest overwritten
+ * first, with a drop counter), so recording one writes one slot rather than
+ * the whole buffer. NotificationTelemetryWorker uploads them in batches when
+ * the device is online; nothing here does network I/O per event. An uploaded
+ * batch is acknowledged up to its last sequence, so events recorded or
+ * dropped while the upload was in flight are kept for the next one.
+ */
+public final class NotificationTelemetry {
+    private static final String TAG = "NotificationTelemetry";
+    private static final String PREFS_NAME = "journalmate_notification_telemetry";
+    // Pre-ring storage, imported once
+    private static final String KEY_EVENTS = "events";
+    private static final String RING_FILE = "notification_telemetry.ring";
+
+    public static final String EVENT_POSTED = "posted";
+    public static final String EVENT_SHOWN = "shown";
+    public static final String EVENT_BLOCKED = "blocked";
+    public static final String EVENT_TAPPED = "tapped";
+    public static final String EVENT_ACTION = "action";
+    public static final String EVENT_DISMISSED = "dismissed";
+
+    // Carried on alarm intents so the receiver can measure delivery delay
+    public static final String EXTRA_SCHEDULED_AT = "telemetryScheduledAt";
+    public static final String EXTRA_EXACT = "telemetryExact";
+    // Carried on content/delete/action intents to attribute the event
+    static final String EXTRA_NOTIFICATION_ID = "telemetryNotificationId";
+    static final String EXTRA_CHANNEL = "telemetryChannel";
+    static final String EXTRA_TYPE = "telemetryType";
+
+    static final String ACTION_DISMISSED = "NOTIFICATION_DISMISSED";
+
+    // Which clock a posted event's latency was measured against
+    static final String CLOCK_DEVICE = "device";
+    static final String CLOCK_SERVER = "server";
+    // Longest channel/type/detail kept, so a record fits its ring slot
+    private static final int MAX_FIELD_CHARS = 48;
+
+    private static final int CAPACITY = 500;
+    private static final long UPLOAD_DELAY_MINUTES = 15;
+    private static final String UPLOAD_WORK_NAME = "notification_telemetry_upload";
+
+    // Opened lazily; each record is a compact JSON array:
+    // [at, event, notificationId, channel, type, latencyMs (null = n/a), exact (-1/0/1), detail, latencyClock]
+    private static TelemetryRing ring;
+    private static boolean uploadScheduled = false;
+
+    private NotificationTelemetry() {}
+
+    /**
+     * Events read for one upload, and what to acknowledge once it succeeds
+     */
+    static final class Batch {
+        final JSONArray events;
+        // Highest sequence in the batch, -1 if empty
+        final long lastSequence;
+        // Drop counter as reported with this batch
+        final int dropped;
+
+        Batch(JSONArray events, long lastSequence, int dropped) {
+            this.events = events;
+            this.lastSequence = lastSequence;
+            this.dropped = dropped;
+        }
+    }
+
+    /**
+     * A notification was just posted
+     *
+     * @param referenceAt when it was meant to appear - the alarm trigger time
+     *                    (device clock) or the push send time (server clock) -
+     *                    or 0 if unknown
+     * @param exact       whether it came from an exact alarm, or null for a push
+     */
+    public static void posted(Context context, int notificationId, String channelId, String type,
+                              long referenceAt, Boolean exact) {
+        long now = System.currentTimeMillis();
+        // Raw difference: a push measured against a skewed device clock can be negative
+        Long latency = referenceAt > 0 ? now - referenceAt : null;
+        String clock = exact != null ? CLOCK_DEVICE : CLOCK_SERVER;
+        record(context, EVENT_POSTED, notificationId, channelId, type, latency, exact, null, clock);
+        record(context, isVisible(context, channelId) ? EVENT_SHOWN : EVENT_BLOCKED,
+            notificationId, channelId, type, null, null, null, null);
+    }
+
+    /**
+     * Attribute taps and dismissals: tags the content intent and adds a delete intent
+     */
+    public static void track(Context context, NotificationCompat.Builder builder, Intent contentIntent,
+                             int notificationId, String channelId, String type) {
+        if (contentIntent != null) {
+            tag(contentIntent, notificationId, channelId, type);
+        }
+
+        Intent deleteIntent = new Intent(context, NotificationEventReceiver.class);
+        deleteIntent.setAction(ACTION_DISMISSED);
+        tag(deleteIntent, notificationId, channelId, type);
+        builder.setDeleteIntent(PendingIntent.getBroadcast(
+            context,
+            notificationId,
+            deleteIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        ));
+    }
+
+    /**
+     * Copy attribution extras onto an intent (content, action or delete)
+     */
+    public static Intent tag(Intent intent, int notificationId, String channelId, String type) {
+        intent.putExtra(EXTRA_NOTIFICATION_ID, notificationId);
+        intent.putExtra(EXTRA_CHANNEL, channelId);
+        intent.putExtra(EXTRA_TYPE, type);
+        return intent;
+    }
+
+    /**
+     * Record an event for an intent carrying attribution extras; no-op otherwise
+     */
+    public static void recordFromIntent(Context context, Intent intent, String event, String detail) {
+        if (intent == null || !intent.hasExtra(EXTRA_CHANNEL)) return;
+        record(context, event,
+            intent.getIntExtra(EXTRA_NOTIFICATION_ID, 0),
+            intent.getStringExtra(EXTRA_CHANNEL),
+            intent.getStringExtra(EXTRA_TYPE),
+            null, null, detail, null);
+        // A redelivered activity intent must not count as a second tap
+        intent.removeExtra(EXTRA_CHANNEL);
+    }
+
+    public static synchronized void record(Context context, String event, int notificationId,
+                                           String channelId, String type, Long latencyMs,
+                                           Boolean exact, String detail, String latencyClock) {
+        TelemetryRing buffer = ring(context);
+        if (buffer == null) return;
+        try {
+            buffer.append(encode(System.currentTimeMillis(), event, notificationId, channelId, type,
+                latencyMs, exact, detail, latencyClock));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Could not record " + event + ": " + e.getMessage());
+            return;
+        }
+
+        if (!uploadScheduled) {
+            scheduleUpload(context);
+        }
+    }
+
+    /**
+     * One event as a compact JSON array that fits a ring slot
+     */
+    static String encode(long at, String event, int notificationId, String channelId, String type,
+                         Long latencyMs, Boolean exact, String detail, String latencyClock) {
+        String record = encodeFields(at, event, notificationId, clip(channelId), clip(type),
+            latencyMs, exact, clip(detail), latencyClock);
+        if (record.getBytes(StandardCharsets.UTF_8).length > TelemetryRing.MAX_TEXT_BYTES) {
+            // Only heavily escaped text gets here; keep the event, lose the labels
+            record = encodeFields(at, event, notificationId, "", "", latencyMs, exact, "", latencyClock);
+        }
+        return record;
+    }
+
+    private static String encodeFields(long at, String event, int notificationId, String channelId,
+                                       String type, Long latencyMs, Boolean exact, String detail,
+                                       String latencyClock) {
+        JsonBuilder json = new JsonBuilder(128)
+            .beginArray()
+            .value(at)
+            .value(event)
+            .value(notificationId)
+            .value(channelId)
+            .value(type);
+        if (latencyMs != null) {
+            json.value(latencyMs.longValue());
+        } else {
+            json.rawValue("null");
+        }
+        return json
+            .value(exact == null ? -1 : (exact ? 1 : 0))
+            .value(detail)
+            .value(latencyClock)
+            .endArray()
+            .toString();
+    }
+
+    private static String clip(String value) {
+        if (value == null) return "";
+        return value.length() > MAX_FIELD_CHARS ? value.substring(0, MAX_FIELD_CHARS) : value;
+    }
+
+    /**
+     * Oldest events first, up to max, with the current drop count (for the upload worker)
+     */
+    static synchronized Batch peek(Context context, int max) {
+        JSONArray batch = new JSONArray();
+        TelemetryRing buffer = ring(context);
+        if (buffer == null) return new Batch(batch, -1, 0);
+
+        long lastSequence = -1;
+        try {
+            List<TelemetryRing.Record> records = buffer.read(max);
+            for (TelemetryRing.Record record : records) {
+                try {
+                    batch.put(new JSONArray(record.text));
+                } catch (Exception e) {
+                    Log.w(TAG, "Skipping unreadable telemetry record " + record.sequence);
+                }
+                lastSequence = record.sequence;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read telemetry: " + e.getMessage());
+        }
+        return new Batch(batch, lastSequence, buffer.dropped());
+    }
+
+    /**
+     * Remove the events an upload delivered and the drops it reported. Events
+     * recorded - and drops counted - while it was in flight are kept, even if
+     * the ring wrapped meanwhile.
+     */
+    static synchronized void acknowledge(Context context, Batch batch) {
+        uploadScheduled = false;
+        TelemetryRing buffer = ring(context);
+        if (buffer == null) return;
+        try {
+            buffer.acknowledge(batch.lastSequence, batch.dropped);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not acknowledge telemetry: " + e.getMessage());
+            return;
+        }
+        if (buffer.size() > 0) {
+            scheduleUpload(context);
+        }
+    }
+
+    static synchronized void uploadFinished() {
+        uploadScheduled = false;
+    }
+
+    private static void scheduleUpload(Context context) {
+        try {
+            Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(NotificationTelemetryWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(UPLOAD_DELAY_MINUTES, TimeUnit.MINUTES)
+                .build();
+
+            // KEEP: events recorded before the batch runs ride along with it
+            WorkManager.getInstance(context).enqueueUniqueWork(
+                UPLOAD_WORK_NAME,
+                ExistingWorkPolicy.KEEP,
+                request
+            );
+            uploadScheduled = true;
+        } catch (Exception e) {
+            Log.w(TAG, "Could not schedule telemetry upload: " + e.getMessage());
+        }
+    }
+
+    private static boolean isVisible(Context context, String channelId) {
+        if (!NotificationManagerCompat.from(context).areNotificationsEnabled()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && channelId != null) {
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            NotificationChannel channel = manager != null ? manager.getNotificationChannel(channelId) : null;
+            return channel == null || channel.getImportance() != NotificationManager.IMPORTANCE_NONE;
+        }
+        return true;
+    }
+
+    private static TelemetryRing ring(Context context) {
+        if (ring != null) return ring;
+        try {
+            ring = new TelemetryRing(new File(context.getFilesDir(), RING_FILE), CAPACITY);
+            importLegacyEvents(context, ring);
+        } catch (IOException e) {
+            Log.w(TAG, "Telemetry storage unavailable: " + e.getMessage());
+        }
+        return ring;
+    }
+
+    /**
+     * Move events buffered by builds that kept them in SharedPreferences
+     * ([..., latencyMs (-1 = n/a), exact, detail, sequence]) into the ring
+     */
+    private static void importLegacyEvents(Context context, TelemetryRing target) {
+        SharedPreferences prefs = prefs(context);
+        if (!prefs.contains(KEY_EVENTS)) return;
+        try {
+            JSONArray legacy = new JSONArray(prefs.getString(KEY_EVENTS, "[]"));
+            for (int i = 0; i < legacy.length(); i++) {
+                JSONArray entry = legacy.optJSONArray(i);
+                if (entry == null) continue;
+                long latency = entry.optLong(5, -1);
+                int exact = entry.optInt(6, -1);
+                target.append(encode(entry.optLong(0), entry.optString(1), entry.optInt(2),
+                    entry.optString(3), entry.optString(4), latency >= 0 ? latency : null,
+                    exact < 0 ? null : exact == 1, entry.optString(7),
+                    latency < 0 ? null : (exact < 0 ? CLOCK_SERVER : CLOCK_DEVICE)));
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Discarding unreadable legacy telemetry: " + e.getMessage());
+        }
+        prefs.edit().clear().apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
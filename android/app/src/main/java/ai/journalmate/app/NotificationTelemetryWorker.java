@@ -0,0 +1,97 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Uploads buffered notification telemetry in one request
+ *
+ * Scheduled by NotificationTelemetry with a network constraint and a delay,
+ * so events from a burst of notifications go up together.
+ */
+public class NotificationTelemetryWorker extends Worker {
+    private static final String TAG = "NotificationTelemetryWorker";
+    private static final String PREFS_NAME = "journalmate_prefs";
+    // Server accepts at most this many per request
+    private static final int BATCH_SIZE = 200;
+
+    public NotificationTelemetryWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getString("authToken", null) == null) {
+            // Logged out - keep the events for the next session
+            NotificationTelemetry.uploadFinished();
+            return Result.success();
+        }
+
+        NotificationTelemetry.Batch pending = NotificationTelemetry.peek(context, BATCH_SIZE);
+        JSONArray batch = pending.events;
+        if (batch.length() == 0) {
+            NotificationTelemetry.uploadFinished();
+            return Result.success();
+        }
+
+        try {
+            JSONArray events = new JSONArray();
+            for (int i = 0; i < batch.length(); i++) {
+                JSONArray entry = batch.getJSONArray(i);
+                JSONObject event = new JSONObject()
+                    .put("at", entry.optLong(0))
+                    .put("event", entry.optString(1))
+                    .put("notificationId", entry.optInt(2))
+                    .put("channel", entry.optString(3))
+                    .put("type", entry.optString(4));
+                if (!entry.isNull(5)) {
+                    event.put("latencyMs", entry.optLong(5));
+                    event.put("latencyClock", entry.optString(8, NotificationTelemetry.CLOCK_DEVICE));
+                }
+                int exact = entry.optInt(6, -1);
+                if (exact >= 0) event.put("exact", exact == 1);
+                String detail = entry.optString(7, "");
+                if (!detail.isEmpty()) event.put("detail", detail);
+                String name = entry.optString(1);
+                if (NotificationTelemetry.EVENT_SHOWN.equals(name) || NotificationTelemetry.EVENT_BLOCKED.equals(name)) {
+                    event.put("estimated", true);
+                }
+                events.put(event);
+            }
+
+            // deviceTime lets the server measure this device's clock skew
+            JSONObject body = new JSONObject()
+                .put("events", events)
+                .put("dropped", pending.dropped)
+                .put("deviceTime", System.currentTimeMillis());
+
+            NativeHttp.Response response = NativeHttp.postJson(context, "/api/notifications/telemetry", body);
+            if (response.isSuccessful()) {
+                NotificationTelemetry.acknowledge(context, pending);
+                Log.d(TAG, "Uploaded " + batch.length() + " notification events");
+                return Result.success();
+            }
+            Log.w(TAG, "Telemetry upload returned " + response.code);
+            if (response.code >= 400 && response.code < 500) {
+                // Rejected (auth/validation) - retrying won't help; drop the batch
+                NotificationTelemetry.acknowledge(context, pending);
+                return Result.success();
+            }
+            return Result.retry();
+        } catch (Exception e) {
+            Log.e(TAG, "Telemetry upload failed: " + e.getMessage());
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ai.journalmate.app;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.util.Log;
+import android.util.LruCache;
+
+/**
+ * Renders progress rings and 7-day sparklines into bitmaps for RemoteViews
+ *
+ * Widgets and the live notification can only show what RemoteViews supports,
+ * so richer visuals have to be shipped as bitmaps - which are costly to draw and
+ * are copied over binder on every update. Rendered bitmaps are cached in an LRU
+ * keyed by (size, value, theme), so re-rendering the same state is a cache hit,
+ * and every bitmap is capped well below the binder transaction limit.
+ */
+public final class ProgressBitmapRenderer {
+    private static final String TAG = "ProgressBitmapRenderer";
+
+    public static final int THEME_DARK = 0;
+    public static final int THEME_LIGHT = 1;
+
+    // Brand purple, matches the notification accent and widget cards
+    private static final int COLOR_PROGRESS = Color.parseColor("#8B5CF6");
+    private static final int COLOR_COMPLETE = Color.parseColor("#10B981");
+    private static final int COLOR_TRACK_DARK = Color.parseColor("#33FFFFFF");
+    private static final int COLOR_TRACK_LIGHT = Color.parseColor("#1F000000");
+
+    // Binder transactions are capped at 1MB per process, shared by everything
+    // in flight - keep any single bitmap to a fraction of that
+    private static final int MAX_BITMAP_BYTES = 160 * 1024;
+
+    private static LruCache<String, Bitmap> cache;
+
+    private ProgressBitmapRenderer() {}
+
+    /**
+     * Progress ring for a percentage (0-100)
+     */
+    public static Bitmap progressRing(Context context, int sizeDp, int percent, int theme) {
+        int clamped = Math.max(0, Math.min(100, percent));
+        int sizePx = clampSquare(dpToPx(context, sizeDp));
+        String key = "ring:" + sizePx + ":" + clamped + ":" + theme;
+
+        LruCache<String, Bitmap> lru = getCache(context);
+        Bitmap cached = lru.get(key);
+        if (cached != null) return cached;
+
+        Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        float stroke = sizePx * 0.11f;
+        float inset = stroke / 2f + 1f;
+        RectF bounds = new RectF(inset, inset, sizePx - inset, sizePx - inset);
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(stroke);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+
+        paint.setColor(theme == THEME_LIGHT ? COLOR_TRACK_LIGHT : COLOR_TRACK_DARK);
+        canvas.drawArc(bounds, 0, 360, false, paint);
+
+        if (clamped > 0) {
+            paint.setColor(clamped >= 100 ? COLOR_COMPLETE : COLOR_PROGRESS);
+            canvas.drawArc(bounds, -90, 360f * clamped / 100f, false, paint);
+        }
+
+        lru.put(key, bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Sparkline for the last 7 days of completions (oldest first)
+     */
+    public static Bitmap sparkline(Context context, int widthDp, int heightDp, int[] values, int theme) {
+        if (values == null || values.length < 2) return null;
+
+        int widthPx = dpToPx(context, widthDp);
+        int heightPx = dpToPx(context, heightDp);
+        // Scale down proportionally if the bitmap would be too big for binder
+        float scale = (float) Math.sqrt((double) MAX_BITMAP_BYTES / (4.0 * widthPx * heightPx));
+        if (scale < 1f) {
+            widthPx = Math.max(1, (int) (widthPx * scale));
+            heightPx = Math.max(1, (int) (heightPx * scale));
+        }
+
+        StringBuilder key = new StringBuilder("spark:")
+            .append(widthPx).append('x').append(heightPx).append(':').append(theme);
+        for (int v : values) key.append(':').append(v);
+
+        LruCache<String, Bitmap> lru = getCache(context);
+        Bitmap cached = lru.get(key.toString());
+        if (cached != null) return cached;
+
+        int max = 1;
+        for (int v : values) max = Math.max(max, v);
+
+        Bitmap bitmap = Bitmap.createBitmap(widthPx, heightPx, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        float stroke = Math.max(2f, heightPx * 0.08f);
+        float pad = stroke;
+        float stepX = (widthPx - 2 * pad) / (values.length - 1);
+        float usableY = heightPx - 2 * pad;
+
+        Path line = new Path();
+        for (int i = 0; i < values.length; i++) {
+            float x = pad + i * stepX;
+            float y = pad + usableY * (1f - Math.max(0, values[i]) / (float) max);
+            if (i == 0) line.moveTo(x, y); else line.lineTo(x, y);
+        }
+
+        Path fill = new Path(line);
+        fill.lineTo(pad + (values.length - 1) * stepX, heightPx);
+        fill.lineTo(pad, heightPx);
+        fill.close();
+
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor((COLOR_PROGRESS & 0x00FFFFFF) | (theme == THEME_LIGHT ? 0x22000000 : 0x33000000));
+        canvas.drawPath(fill, paint);
+
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(stroke);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setColor(COLOR_PROGRESS);
+        canvas.drawPath(line, paint);
+
+        lru.put(key.toString(), bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Theme matching the current system night mode (for the notification shade)
+     */
+    public static int systemTheme(Context context) {
+        int nightMode = context.getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
+        return nightMode == Configuration.UI_MODE_NIGHT_NO ? THEME_LIGHT : THEME_DARK;
+    }
+
+    /**
+     * Drop all cached bitmaps (e.g. on trim memory)
+     */
+    public static synchronized void clear() {
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
+    /**
+     * Memory budget by device class: low-RAM devices get a fixed 1MB, others
+     * 1/64 of the per-app heap class, between 2MB and 8MB
+     */
+    private static synchronized LruCache<String, Bitmap> getCache(Context context) {
+        if (cache == null) {
+            int budgetBytes = 1024 * 1024;
+            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            if (am != null && !am.isLowRamDevice()) {
+                int heapBytes = am.getMemoryClass() * 1024 * 1024;
+                budgetBytes = Math.max(2 * 1024 * 1024, Math.min(8 * 1024 * 1024, heapBytes / 64));
+            }
+
+            cache = new LruCache<String, Bitmap>(budgetBytes) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+            Log.d(TAG, "Bitmap cache budget: " + (budgetBytes / 1024) + "KB");
+        }
+        return cache;
+    }
+
+    private static int clampSquare(int sizePx) {
+        int maxSide = (int) Math.sqrt(MAX_BITMAP_BYTES / 4.0);
+        return Math.max(1, Math.min(sizePx, maxSide));
+    }
+
+    private static int dpToPx(Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+}
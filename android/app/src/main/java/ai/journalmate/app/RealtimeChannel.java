@@ -0,0 +1,330 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Build;
+import android.util.Log;
+
+import ai.journalmate.app.widgets.WidgetSnapshot;
+import ai.journalmate.app.widgets.WidgetUpdater;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Long-lived Server-Sent Events connection for the foreground service
+ *
+ * Optional (off by default). When enabled, JournalMateService keeps one
+ * connection to /api/events/stream and applies task and stats events to
+ * the widget snapshot and the live notification as they arrive,
+ * instead of waiting for the next TaskSyncWorker poll. The server sends a
+ * heartbeat comment every 25s; a read timeout well above that detects dead
+ * connections, and reconnects back off exponentially with jitter. A regained
+ * network cuts the backoff short.
+ *
+ * Requests this install makes (widget completions, the web app) carry its
+ * origin id in X-Client-Origin; events that echo one of them back are
+ * dropped, since their change is already applied locally.
+ */
+public class RealtimeChannel {
+    private static final String TAG = "RealtimeChannel";
+    private static final String PREFS_NAME = "journalmate_prefs";
+    private static final String KEY_ENABLED = "realtimeEnabled";
+    private static final String KEY_ORIGIN_ID = "realtimeOriginId";
+    public static final String ORIGIN_HEADER = "X-Client-Origin";
+
+    // Server heartbeat is 25s - two missed beats means the connection is gone
+    private static final int READ_TIMEOUT_MS = 60 * 1000;
+    private static final long MIN_BACKOFF_MS = 2 * 1000;
+    private static final long MAX_BACKOFF_MS = 5 * 60 * 1000;
+    private static final int MAX_SEEN_COMPLETIONS = 64;
+
+    private static volatile boolean connected = false;
+
+    private final Context context;
+    private final Object lock = new Object();
+    private final Random random = new Random();
+    private volatile boolean running = false;
+    private volatile HttpURLConnection connection;
+    private Thread thread;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    // Completions already applied, so a redelivery (reconnect replay) isn't counted twice
+    private final Map<String, Boolean> seenCompletions =
+        new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_SEEN_COMPLETIONS;
+            }
+        };
+
+    public RealtimeChannel(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static boolean isEnabled(Context context) {
+        return prefs(context).getBoolean(KEY_ENABLED, false);
+    }
+
+    public static void setEnabled(Context context, boolean enabled) {
+        prefs(context).edit().putBoolean(KEY_ENABLED, enabled).apply();
+    }
+
+    /**
+     * Stable id of this install, sent with the requests whose events should not echo back
+     */
+    public static synchronized String originId(Context context) {
+        SharedPreferences prefs = prefs(context);
+        String id = prefs.getString(KEY_ORIGIN_ID, null);
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            prefs.edit().putString(KEY_ORIGIN_ID, id).apply();
+        }
+        return id;
+    }
+
+    /**
+     * True while the stream is open - pushes are arriving, so polling can back off
+     */
+    public static boolean isConnected() {
+        return connected;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+
+        thread = new Thread(this::runLoop, "JournalMateRealtime");
+        thread.start();
+        registerNetworkCallback();
+        Log.d(TAG, "Realtime channel started");
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+
+        unregisterNetworkCallback();
+        HttpURLConnection current = connection;
+        if (current != null) {
+            current.disconnect(); // unblocks the reader
+        }
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        thread = null;
+        connected = false;
+        Log.d(TAG, "Realtime channel stopped");
+    }
+
+    private void runLoop() {
+        long backoff = MIN_BACKOFF_MS;
+
+        while (running) {
+            String authToken = prefs(context).getString("authToken", null);
+            if (authToken == null) {
+                // Logged out - nothing to stream until credentials are set again
+                waitFor(MAX_BACKOFF_MS);
+                continue;
+            }
+
+            try {
+                if (connectAndRead()) {
+                    backoff = MIN_BACKOFF_MS;
+                }
+            } catch (Exception e) {
+                if (running) {
+                    Log.w(TAG, "Stream dropped: " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+                connection = null;
+            }
+
+            if (!running) break;
+
+            // Full jitter so a server restart doesn't get every device back at once
+            long delay = backoff / 2 + (long) (random.nextDouble() * backoff / 2);
+            Log.d(TAG, "Reconnecting in " + delay + "ms");
+            waitFor(delay);
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * Open the stream and dispatch events until it closes
+     *
+     * @return true if the connection was established (resets the backoff)
+     */
+    private boolean connectAndRead() throws Exception {
+        HttpURLConnection conn = NativeHttp.open(context, "GET", "/api/events/stream",
+            new NativeHttp.Options().accept("text/event-stream").timeouts(10000, READ_TIMEOUT_MS));
+        connection = conn;
+
+        int responseCode = conn.getResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            Log.w(TAG, "Stream rejected with " + responseCode);
+            conn.disconnect();
+            return false;
+        }
+
+        connected = true;
+        Log.d(TAG, "Stream connected");
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), "UTF-8"));
+        try {
+            String event = "message";
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        dispatch(event, data.toString());
+                    }
+                    event = "message";
+                    data.setLength(0);
+                } else if (line.startsWith(":")) {
+                    // Heartbeat comment - the read itself resets the timeout
+                } else if (line.startsWith("event:")) {
+                    event = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) data.append('\n');
+                    data.append(line.substring(5).trim());
+                }
+            }
+        } finally {
+            reader.close();
+            conn.disconnect();
+        }
+        return true;
+    }
+
+    private void dispatch(String event, String data) {
+        try {
+            JSONObject payload = new JSONObject(data);
+            if (originId(context).equals(payload.optString("origin", null))) {
+                Log.d(TAG, "Ignoring own " + event);
+                return;
+            }
+
+            switch (event) {
+                case "task:updated":
+                    if (payload.optBoolean("completed", false)) {
+                        applyTaskCompleted(payload.optString("taskId", ""));
+                    }
+                    break;
+
+                case "widget_update":
+                    // Same envelope as the FCM widget_update push
+                    Map<String, String> stats = new HashMap<>();
+                    Iterator<String> keys = payload.keys();
+                    while (keys.hasNext()) {
+                        String key = keys.next();
+                        stats.put(key, payload.optString(key));
+                    }
+                    long version = payload.optLong("version", 0);
+                    if (version > 0 && WidgetSnapshot.applyStatsUpdate(context, version, stats)) {
+                        WidgetUpdater.requestRefresh(context);
+                    }
+                    break;
+
+                default:
+                    Log.d(TAG, "Ignoring event: " + event);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to handle " + event + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A task was completed elsewhere (web, another device)
+     */
+    private void applyTaskCompleted(String taskId) {
+        if (taskId.isEmpty() || seenCompletions.put(taskId, Boolean.TRUE) != null) {
+            return;
+        }
+        if (!WidgetSnapshot.applyRemoteCompletion(context, taskId)) {
+            // Already reflected locally (queued from the widget, or in the last sync)
+            return;
+        }
+        WidgetUpdater.requestRefresh(context);
+
+        // The persisted progress if nothing was published in this process yet
+        LiveProgressState.Snapshot current = LiveProgressState.restore(context);
+        if (current.totalTasks == 0) {
+            // Nothing to count from - fetch real numbers instead of showing 1/0
+            TaskSyncWorker.requestExpeditedSync(context);
+        } else if (current.completedTasks < current.totalTasks) {
+            LiveProgressState.publish(new LiveProgressState.Snapshot(
+                current.completedTasks + 1, current.totalTasks, current.streak,
+                current.nextTaskTitle, current.nextTaskTime, current.upcoming));
+        }
+        Log.d(TAG, "Applied remote completion: " + taskId);
+    }
+
+    private void waitFor(long millis) {
+        synchronized (lock) {
+            if (!running) return;
+            try {
+                lock.wait(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Reconnect right away when a network comes back instead of sleeping out the backoff
+     */
+    private void registerNetworkCallback() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return;
+
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return;
+
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                if (!connected) {
+                    synchronized (lock) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+        };
+        try {
+            cm.registerDefaultNetworkCallback(networkCallback);
+        } catch (Exception e) {
+            Log.w(TAG, "Network callback unavailable: " + e.getMessage());
+            networkCallback = null;
+        }
+    }
+
+    private void unregisterNetworkCallback() {
+        if (networkCallback == null) return;
+
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            try {
+                cm.unregisterNetworkCallback(networkCallback);
+            } catch (Exception e) {
+                // Already unregistered
+            }
+        }
+        networkCallback = null;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,181 @@
+package ai.journalmate.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Single place where native reminders become AlarmManager alarms
+ *
+ * Task reminders (sync worker, snooze) and JS-scheduled notifications (plugin,
+ * boot/app restore) all go through here, so every alarm gets the same
+ * DeliveryPolicy decision (quiet hours, deferral, batching), the same
+ * exact/inexact handling, and the same telemetry extras.
+ */
+public final class ReminderScheduler {
+    private static final String TAG = "ReminderScheduler";
+    static final String SCHEDULED_PREFS = "scheduled_notifications";
+
+    // Set when the policy decided the notification should not make noise
+    public static final String EXTRA_SILENT = "deliverySilent";
+    // The time the caller asked for (deliveries may be deferred past it)
+    public static final String EXTRA_TARGET_AT = "deliveryTargetAt";
+    // The trigger time handed to AlarmManager, for AlarmAccuracy (exact/inexact alarms only)
+    static final String EXTRA_ARMED_AT = "deliveryArmedAt";
+
+    private ReminderScheduler() {}
+
+    /**
+     * Remind about a task at triggerAt (TaskReminderReceiver shows it)
+     */
+    public static void scheduleTaskReminder(Context context, String taskId, String title,
+                                            long triggerAt, int requestCode) {
+        Intent intent = new Intent(context, TaskReminderReceiver.class);
+        intent.setAction("TASK_REMINDER");
+        intent.putExtra("taskId", taskId);
+        intent.putExtra("title", title);
+
+        setAlarm(context, intent, requestCode, triggerAt, NotificationChannels.CHANNEL_REMINDERS, null);
+    }
+
+    /**
+     * Show a JS-scheduled notification at triggerAt (NotificationAlarmReceiver shows it)
+     *
+     * @param priority optional "low" / "high" override of the channel's delivery mode
+     */
+    public static void scheduleNotification(Context context, int id, String title, String body,
+                                            long triggerAt, String priority) {
+        Intent intent = new Intent(context, NotificationAlarmReceiver.class);
+        intent.setAction("SCHEDULED_NOTIFICATION");
+        intent.putExtra("id", id);
+        intent.putExtra("title", title);
+        intent.putExtra("body", body);
+
+        setAlarm(context, intent, id, triggerAt, NotificationChannels.CHANNEL_SCHEDULED, priority);
+    }
+
+    /**
+     * Re-arm all stored JS-scheduled notifications (after boot, app start or a
+     * policy change) and drop the ones already past
+     *
+     * @return number of notifications re-armed
+     */
+    public static int restoreScheduledNotifications(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(SCHEDULED_PREFS, Context.MODE_PRIVATE);
+        Map<String, ?> all = prefs.getAll();
+        SharedPreferences.Editor editor = prefs.edit();
+        int restored = 0;
+        int expired = 0;
+
+        for (Map.Entry<String, ?> entry : all.entrySet()) {
+            try {
+                JSONObject json = new JSONObject((String) entry.getValue());
+                long triggerAt = json.getLong("triggerAt");
+
+                if (triggerAt > System.currentTimeMillis()) {
+                    scheduleNotification(
+                        context,
+                        json.getInt("id"),
+                        json.getString("title"),
+                        json.getString("body"),
+                        triggerAt,
+                        json.optString("priority", null)
+                    );
+                    restored++;
+                } else {
+                    // Past due - remove from storage
+                    editor.remove(entry.getKey());
+                    expired++;
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Failed to parse scheduled notification: " + e.getMessage());
+                editor.remove(entry.getKey());
+            }
+        }
+        editor.apply();
+
+        if (restored > 0 || expired > 0) {
+            Log.d(TAG, "Scheduled notifications: " + restored + " restored, " + expired + " expired");
+        }
+        return restored;
+    }
+
+    /**
+     * Called first thing by the alarm receivers to measure how late the alarm fired
+     */
+    public static void onAlarmFired(Context context, Intent intent) {
+        if (!intent.hasExtra(EXTRA_ARMED_AT)) return;
+        AlarmAccuracy.record(context,
+            intent.getBooleanExtra(NotificationTelemetry.EXTRA_EXACT, false)
+                ? AlarmAccuracy.STRATEGY_EXACT : AlarmAccuracy.STRATEGY_INEXACT,
+            intent.getLongExtra(EXTRA_ARMED_AT, 0));
+    }
+
+    private static void setAlarm(Context context, Intent intent, int requestCode, long targetAt,
+                                 String channelId, String priority) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager not available");
+            return;
+        }
+
+        DeliveryPolicy.Decision decision = DeliveryPolicy.decide(context, channelId, priority, targetAt);
+        boolean exact = decision.windowMs == 0 && AlarmAccuracy.canScheduleExactAlarms(context);
+
+        // Without exact alarms, arm early by however late inexact alarms have
+        // been firing on this device, so reminders land near their due time
+        long armAt = decision.deliverAt;
+        if (decision.windowMs == 0 && !exact) {
+            long lead = AlarmAccuracy.inexactLeadMs(context);
+            armAt = Math.max(System.currentTimeMillis(), decision.deliverAt - lead);
+        }
+
+        intent.putExtra(EXTRA_TARGET_AT, targetAt);
+        intent.putExtra(EXTRA_SILENT, decision.silent);
+        intent.putExtra(NotificationTelemetry.EXTRA_SCHEDULED_AT, decision.deliverAt);
+        intent.putExtra(NotificationTelemetry.EXTRA_EXACT, exact);
+        if (decision.windowMs == 0) {
+            // Windowed alarms are late by design; they would skew the stats
+            intent.putExtra(EXTRA_ARMED_AT, armAt);
+        } else {
+            intent.removeExtra(EXTRA_ARMED_AT);
+        }
+
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            requestCode,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        if (decision.windowMs > 0) {
+            // Batched/deferred: let the OS coalesce this with other alarms in the window
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, decision.deliverAt, decision.windowMs, pendingIntent);
+        } else if (exact) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                // Android 6.0+ - use setExactAndAllowWhileIdle for Doze mode
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, armAt, pendingIntent);
+            } else {
+                alarmManager.setExact(AlarmManager.RTC_WAKEUP, armAt, pendingIntent);
+            }
+        } else {
+            // Android 12+ without exact alarm permission
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, armAt, pendingIntent);
+        }
+
+        Log.d(TAG, "Alarm " + requestCode + " on " + channelId + " at " + decision.deliverAt
+            + (decision.deliverAt != targetAt ? " (target " + targetAt + ")" : "")
+            + (decision.windowMs > 0 ? " window " + decision.windowMs / 60000 + "m" : exact ? " exact" : " inexact")
+            + (armAt != decision.deliverAt ? " armed " + (decision.deliverAt - armAt) / 1000 + "s early" : "")
+            + (decision.silent ? " silent" : ""));
+    }
+}
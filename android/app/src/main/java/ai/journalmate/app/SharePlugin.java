@@ -4,18 +4,34 @@ import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cold-start share retrieval for web builds that predate AppBridge.drainEvents()
+ *
+ * Returns the oldest queued share (one per call) from NativeEventQueue.
+ * getIngestedMedia() hands out the upload-ready copies SharedMediaIngest made
+ * of shared images, getVideoPreview() SharedVideoIngest's metadata, keyframes
+ * and audio for shared videos. prefetchUrl()/getPrefetchStatus() expose
+ * UrlPrefetcher's warm-up of shared social media links.
+ */
 @CapacitorPlugin(name = "SharePlugin")
 public class SharePlugin extends Plugin {
 
     @PluginMethod
     public void getPendingShare(PluginCall call) {
-        String shareData = MainActivity.getPendingShareData();
+        JSONObject event = NativeEventQueue.takeFirst(getContext(), NativeEventQueue.TYPE_SHARE);
+        JSONObject shareData = event != null ? event.optJSONObject("payload") : null;
         
         JSObject result = new JSObject();
         if (shareData != null) {
-            result.put("data", shareData);
+            result.put("data", shareData.toString());
             result.put("hasData", true);
         } else {
             result.put("data", null);
@@ -24,4 +40,162 @@ public class SharePlugin extends Plugin {
         
         call.resolve(result);
     }
+
+    /**
+     * Upload-ready files for shared image URIs, in the same order:
+     * { media: [{ source, path, thumbnailPath, width, height, bytes, mimeType } | { source, error }] }
+     * Waits for ingest that is still running; paths are file:// URIs.
+     */
+    @PluginMethod
+    public void getIngestedMedia(PluginCall call) {
+        JSArray uris = call.getArray("uris");
+        if (uris == null) {
+            call.reject("uris is required");
+            return;
+        }
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < uris.length(); i++) {
+            String uri = uris.optString(i, null);
+            if (uri != null) sources.add(uri);
+        }
+
+        SharedMediaIngest.collect(getContext(), sources, results -> {
+            JSArray media = new JSArray();
+            for (SharedMediaIngest.Result result : results) {
+                JSObject item = new JSObject();
+                item.put("source", result.source);
+                if (result.isSuccessful()) {
+                    item.put("path", android.net.Uri.fromFile(result.file).toString());
+                    item.put("thumbnailPath", android.net.Uri.fromFile(result.thumbnail).toString());
+                    item.put("width", result.width);
+                    item.put("height", result.height);
+                    item.put("bytes", result.file.length());
+                    item.put("mimeType", "image/jpeg");
+                } else {
+                    item.put("error", result.error);
+                }
+                media.put(item);
+            }
+            JSObject ret = new JSObject();
+            ret.put("media", media);
+            call.resolve(ret);
+        });
+    }
+
+    /**
+     * Metadata and keyframes for shared video URIs, in the same order:
+     * { videos: [{ source, durationMs, width, height, rotation, hasAudio, bitrate,
+     *   frames: [{ timeMs, path, width, height }], audioPath? } | { source, error }] }
+     * Options: timestampsMs (default: evenly spaced), includeAudio (AAC track as .m4a).
+     */
+    @PluginMethod
+    public void getVideoPreview(PluginCall call) {
+        JSArray uris = call.getArray("uris");
+        if (uris == null) {
+            call.reject("uris is required");
+            return;
+        }
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < uris.length(); i++) {
+            String uri = uris.optString(i, null);
+            if (uri != null) sources.add(uri);
+        }
+        long[] timestamps = null;
+        JSArray requested = call.getArray("timestampsMs");
+        if (requested != null && requested.length() > 0) {
+            timestamps = new long[requested.length()];
+            for (int i = 0; i < requested.length(); i++) {
+                timestamps[i] = requested.optLong(i);
+            }
+        }
+
+        SharedVideoIngest.collect(getContext(), sources, timestamps, call.getBoolean("includeAudio", false), results -> {
+            JSArray videos = new JSArray();
+            for (SharedVideoIngest.Result result : results) {
+                JSObject item = new JSObject();
+                item.put("source", result.source);
+                if (!result.isSuccessful()) {
+                    item.put("error", result.error);
+                    videos.put(item);
+                    continue;
+                }
+                item.put("durationMs", result.durationMs);
+                item.put("width", result.width);
+                item.put("height", result.height);
+                item.put("rotation", result.rotation);
+                item.put("hasAudio", result.hasAudio);
+                item.put("bitrate", result.bitrate);
+                JSArray frames = new JSArray();
+                for (SharedVideoIngest.Frame frame : result.frames) {
+                    JSObject f = new JSObject();
+                    f.put("timeMs", frame.timeMs);
+                    f.put("path", android.net.Uri.fromFile(frame.file).toString());
+                    f.put("width", frame.width);
+                    f.put("height", frame.height);
+                    frames.put(f);
+                }
+                item.put("frames", frames);
+                if (result.audio != null) {
+                    item.put("audioPath", android.net.Uri.fromFile(result.audio).toString());
+                } else if (result.audioError != null) {
+                    item.put("audioError", result.audioError);
+                }
+                videos.put(item);
+            }
+            JSObject ret = new JSObject();
+            ret.put("videos", videos);
+            call.resolve(ret);
+        });
+    }
+
+    /**
+     * Start (or join) server-side extraction of a social media link:
+     * { url } -> { prefetch: { url, canonicalUrl, platform, state, ... } | null }
+     */
+    @PluginMethod
+    public void prefetchUrl(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null) {
+            call.reject("url is required");
+            return;
+        }
+        UrlPrefetcher.Handle handle = UrlPrefetcher.prefetch(getContext(), url);
+        JSObject result = new JSObject();
+        result.put("prefetch", handle != null ? toJS(handle) : null);
+        call.resolve(result);
+    }
+
+    /**
+     * The prefetch for a link, if one was started: { url, refresh? } -> { prefetch | null }
+     * refresh also asks the server for its extraction status (serverStatus
+     * 'complete' means the content is cached and parsing will be instant).
+     */
+    @PluginMethod
+    public void getPrefetchStatus(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null) {
+            call.reject("url is required");
+            return;
+        }
+        UrlPrefetcher.Handle handle = UrlPrefetcher.find(url);
+        if (handle == null || !call.getBoolean("refresh", false)) {
+            JSObject result = new JSObject();
+            result.put("prefetch", handle != null ? toJS(handle) : null);
+            call.resolve(result);
+            return;
+        }
+        UrlPrefetcher.refreshServerStatus(getContext(), handle, () -> {
+            JSObject result = new JSObject();
+            result.put("prefetch", toJS(handle));
+            call.resolve(result);
+        });
+    }
+
+    private static JSObject toJS(UrlPrefetcher.Handle handle) {
+        try {
+            return JSObject.fromJSONObject(handle.toJson());
+        } catch (Exception e) {
+            return new JSObject();
+        }
+    }
 }
@@ -0,0 +1,274 @@
+package ai.journalmate.app;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Upload-ready copies of images shared into the app
+ *
+ * MainActivity starts ingest the moment a share intent arrives, so it runs
+ * while the WebView is still starting. Each image is decoded with
+ * subsampling, scaled to MAX_EDGE, re-encoded as JPEG and written to
+ * cacheDir/shared_media with a thumbnail next to it. Re-encoding drops the
+ * original EXIF block (GPS location included); orientation is applied to the
+ * pixels and only the capture time is written back.
+ *
+ * Outputs are keyed by the source URI, so the web app can ask for the same
+ * URIs later (collect()) and gets the finished files, or waits for the ones
+ * still in progress - jobs run in order on one thread, which also keeps a
+ * burst of 12 MP decodes from competing for memory.
+ */
+public final class SharedMediaIngest {
+    private static final String TAG = "SharedMediaIngest";
+    private static final String DIR_NAME = "shared_media";
+
+    private static final int MAX_EDGE = 2048;
+    private static final int JPEG_QUALITY = 82;
+    private static final int THUMB_EDGE = 320;
+    private static final int THUMB_QUALITY = 70;
+    private static final long DISK_CACHE_BYTES = 100 * 1024 * 1024;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public static final class Result {
+        public final String source;
+        public final File file;
+        public final File thumbnail;
+        public final int width;
+        public final int height;
+        public final String error;
+
+        Result(String source, File file, File thumbnail, int width, int height, String error) {
+            this.source = source;
+            this.file = file;
+            this.thumbnail = thumbnail;
+            this.width = width;
+            this.height = height;
+            this.error = error;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+
+    public interface Callback {
+        void onCollected(List<Result> results);
+    }
+
+    private SharedMediaIngest() {}
+
+    /**
+     * Start ingesting shared images in the background
+     */
+    public static void start(Context context, List<Uri> uris) {
+        Context appContext = context.getApplicationContext();
+        for (Uri uri : uris) {
+            executor.execute(() -> ingest(appContext, uri.toString()));
+        }
+    }
+
+    /**
+     * Results for the given source URIs, in the same order, once every
+     * earlier job has finished. URIs that were never started (or whose output
+     * was trimmed) are ingested now. The callback runs on the ingest thread.
+     */
+    public static void collect(Context context, List<String> sources, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            List<Result> results = new ArrayList<>(sources.size());
+            for (String source : sources) {
+                results.add(ingest(appContext, source));
+            }
+            callback.onCollected(results);
+        });
+    }
+
+    private static Result ingest(Context context, String source) {
+        File dir = cacheDir(context);
+        String key = key(source);
+        File file = new File(dir, key + ".jpg");
+        File thumbnail = new File(dir, key + "_thumb.jpg");
+
+        if (file.exists() && thumbnail.exists()) {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getPath(), bounds);
+            if (bounds.outWidth > 0) {
+                file.setLastModified(System.currentTimeMillis()); // LRU touch
+                return new Result(source, file, thumbnail, bounds.outWidth, bounds.outHeight, null);
+            }
+        }
+
+        ContentResolver resolver = context.getContentResolver();
+        Uri uri = Uri.parse(source);
+        long startedAt = System.currentTimeMillis();
+        try {
+            String mimeType = resolver.getType(uri);
+            if ("image/gif".equals(mimeType)) {
+                // Re-encoding would drop the animation
+                return new Result(source, null, null, 0, 0, "unsupported type");
+            }
+
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                BitmapFactory.decodeStream(in, null, bounds);
+            }
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+                return new Result(source, null, null, 0, 0, "not an image");
+            }
+
+            int orientation = ExifInterface.ORIENTATION_NORMAL;
+            String capturedAt = null;
+            // ExifInterface(InputStream) is API 24+; older devices keep the stored orientation
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                try (InputStream in = resolver.openInputStream(uri)) {
+                    ExifInterface exif = new ExifInterface(in);
+                    orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+                    capturedAt = exif.getAttribute(ExifInterface.TAG_DATETIME_ORIGINAL);
+                } catch (Exception e) {
+                    Log.d(TAG, "No readable EXIF: " + e.getMessage());
+                }
+            }
+
+            // Smallest power-of-two sample that still covers MAX_EDGE
+            int sampleSize = 1;
+            while (Math.max(bounds.outWidth, bounds.outHeight) / (sampleSize * 2) >= MAX_EDGE) {
+                sampleSize *= 2;
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            Bitmap decoded;
+            try (InputStream in = resolver.openInputStream(uri)) {
+                decoded = BitmapFactory.decodeStream(in, null, options);
+            }
+            if (decoded == null) {
+                return new Result(source, null, null, 0, 0, "decode failed");
+            }
+
+            Bitmap scaled = scaleToFit(decoded, MAX_EDGE);
+            if (scaled != decoded) decoded.recycle();
+            Bitmap image = orient(scaled, orientation);
+            if (image != scaled) scaled.recycle();
+            Bitmap thumb = scaleToFit(image, THUMB_EDGE);
+
+            write(image, file, JPEG_QUALITY);
+            write(thumb, thumbnail, THUMB_QUALITY);
+            if (capturedAt != null) {
+                try {
+                    ExifInterface exif = new ExifInterface(file.getPath());
+                    exif.setAttribute(ExifInterface.TAG_DATETIME_ORIGINAL, capturedAt);
+                    exif.saveAttributes();
+                } catch (Exception e) {
+                    Log.d(TAG, "Could not keep capture time: " + e.getMessage());
+                }
+            }
+
+            Result result = new Result(source, file, thumbnail, image.getWidth(), image.getHeight(), null);
+            Log.d(TAG, "Ingested " + bounds.outWidth + "x" + bounds.outHeight + " -> "
+                + result.width + "x" + result.height + ", " + (file.length() / 1024) + " KB in "
+                + (System.currentTimeMillis() - startedAt) + "ms");
+            if (thumb != image) thumb.recycle();
+            image.recycle();
+            trimDisk(dir);
+            return result;
+        } catch (OutOfMemoryError e) {
+            Log.e(TAG, "Out of memory ingesting shared image");
+            return new Result(source, null, null, 0, 0, "out of memory");
+        } catch (Exception e) {
+            Log.w(TAG, "Shared image ingest failed: " + e.getMessage());
+            file.delete();
+            thumbnail.delete();
+            return new Result(source, null, null, 0, 0, e.getMessage() != null ? e.getMessage() : "failed");
+        }
+    }
+
+    private static Bitmap scaleToFit(Bitmap bitmap, int maxEdge) {
+        float scale = Math.min(1f, (float) maxEdge / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        if (scale >= 1f) return bitmap;
+        return Bitmap.createScaledBitmap(bitmap,
+            Math.max(1, Math.round(bitmap.getWidth() * scale)),
+            Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+    }
+
+    private static Bitmap orient(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90: matrix.postRotate(90); break;
+            case ExifInterface.ORIENTATION_ROTATE_180: matrix.postRotate(180); break;
+            case ExifInterface.ORIENTATION_ROTATE_270: matrix.postRotate(270); break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL: matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL: matrix.postScale(1, -1); break;
+            case ExifInterface.ORIENTATION_TRANSPOSE: matrix.postRotate(90); matrix.postScale(-1, 1); break;
+            case ExifInterface.ORIENTATION_TRANSVERSE: matrix.postRotate(270); matrix.postScale(-1, 1); break;
+            default: return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    private static void write(Bitmap bitmap, File target, int quality) throws Exception {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new java.io.IOException("Could not write " + target.getName());
+        }
+    }
+
+    /**
+     * Drop least recently used files until the directory fits the budget
+     */
+    private static void trimDisk(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) total += file.length();
+        if (total <= DISK_CACHE_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= DISK_CACHE_BYTES) break;
+            long length = file.length();
+            if (file.delete()) total -= length;
+        }
+    }
+
+    private static File cacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private static String key(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(source.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (Exception e) {
+            return "share_" + Integer.toHexString(source.hashCode());
+        }
+    }
+}
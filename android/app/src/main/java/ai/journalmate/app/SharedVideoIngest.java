@@ -0,0 +1,368 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMetadataRetriever;
+import android.media.MediaMuxer;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Metadata, keyframes and (on request) the audio track of shared videos
+ *
+ * MainActivity starts a default pass when a video share arrives, while the
+ * WebView boots: duration, dimensions and keyframes spread evenly across the
+ * video - the same count and spacing the server's frame OCR uses, at the same
+ * 1280px width - so the app can upload a few hundred KB of frames instead of
+ * the whole file. collect() returns those, or extracts frames at the
+ * caller's own timestamps and remuxes the AAC audio track for transcription.
+ *
+ * Frames come from the nearest sync frame (cheap to decode). Everything is
+ * written to cacheDir/shared_video/<key>/, keyed by the source URI, and reused
+ * across calls; jobs run in order on one thread.
+ */
+public final class SharedVideoIngest {
+    private static final String TAG = "SharedVideoIngest";
+    private static final String DIR_NAME = "shared_video";
+
+    private static final int FRAME_MAX_WIDTH = 1280;
+    private static final int FRAME_QUALITY = 80;
+    private static final int MIN_DEFAULT_FRAMES = 10;
+    private static final int MAX_DEFAULT_FRAMES = 20;
+    private static final int MAX_REQUESTED_FRAMES = 30;
+    private static final long DISK_CACHE_BYTES = 100 * 1024 * 1024;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public static final class Frame {
+        public final long timeMs;
+        public final File file;
+        public final int width;
+        public final int height;
+
+        Frame(long timeMs, File file, int width, int height) {
+            this.timeMs = timeMs;
+            this.file = file;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static final class Result {
+        public final String source;
+        public long durationMs;
+        public int width;
+        public int height;
+        public int rotation;
+        public boolean hasAudio;
+        public int bitrate;
+        public final List<Frame> frames = new ArrayList<>();
+        public File audio;
+        public String audioError;
+        public String error;
+
+        Result(String source) {
+            this.source = source;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+
+    public interface Callback {
+        void onCollected(List<Result> results);
+    }
+
+    private SharedVideoIngest() {}
+
+    /**
+     * Start the default pass (metadata + evenly spaced keyframes)
+     */
+    public static void start(Context context, List<Uri> uris) {
+        Context appContext = context.getApplicationContext();
+        for (Uri uri : uris) {
+            executor.execute(() -> process(appContext, uri.toString(), null, false));
+        }
+    }
+
+    /**
+     * Results for the given source URIs, in the same order, after every
+     * earlier job. The callback runs on the ingest thread.
+     *
+     * @param timestampsMs frame times; null for the default spacing
+     * @param includeAudio also remux the audio track to an .m4a file
+     */
+    public static void collect(Context context, List<String> sources, long[] timestampsMs,
+                               boolean includeAudio, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            List<Result> results = new ArrayList<>(sources.size());
+            for (String source : sources) {
+                results.add(process(appContext, source, timestampsMs, includeAudio));
+            }
+            callback.onCollected(results);
+        });
+    }
+
+    private static Result process(Context context, String source, long[] timestampsMs, boolean includeAudio) {
+        Result result = new Result(source);
+        File dir = new File(cacheDir(context), key(source));
+        if (!dir.exists()) dir.mkdirs();
+        dir.setLastModified(System.currentTimeMillis()); // LRU touch
+
+        long startedAt = System.currentTimeMillis();
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(context, Uri.parse(source));
+            result.durationMs = parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION));
+            result.rotation = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_ROTATION));
+            int storedWidth = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_WIDTH));
+            int storedHeight = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_VIDEO_HEIGHT));
+            // Report the size as displayed
+            boolean sideways = result.rotation == 90 || result.rotation == 270;
+            result.width = sideways ? storedHeight : storedWidth;
+            result.height = sideways ? storedWidth : storedHeight;
+            result.hasAudio = "yes".equals(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_HAS_AUDIO));
+            result.bitrate = (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE));
+            if (result.durationMs <= 0) {
+                result.error = "not a video";
+                return result;
+            }
+
+            long[] times = timestampsMs != null ? clampTimes(timestampsMs, result.durationMs)
+                : defaultTimes(result.durationMs);
+            for (long timeMs : times) {
+                Frame frame = frameAt(retriever, dir, timeMs);
+                if (frame != null) result.frames.add(frame);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Shared video processing failed: " + e.getMessage());
+            result.error = e.getMessage() != null ? e.getMessage() : "failed";
+            return result;
+        } finally {
+            try {
+                retriever.release();
+            } catch (Exception e) {
+                // Nothing to clean up
+            }
+        }
+
+        if (includeAudio && result.hasAudio) {
+            try {
+                result.audio = extractAudio(context, source, dir);
+            } catch (Exception e) {
+                Log.w(TAG, "Audio extraction failed: " + e.getMessage());
+                result.audioError = e.getMessage() != null ? e.getMessage() : "failed";
+            }
+        }
+
+        Log.d(TAG, "Processed " + result.durationMs + "ms video: " + result.frames.size() + " frame(s)"
+            + (result.audio != null ? " + audio" : "") + " in " + (System.currentTimeMillis() - startedAt) + "ms");
+        trimDisk(cacheDir(context));
+        return result;
+    }
+
+    /**
+     * Same spacing as the server's frame OCR: one frame per ~3s, 10-20 frames,
+     * evenly spaced and never at the very start or end
+     */
+    private static long[] defaultTimes(long durationMs) {
+        int count = (int) Math.min(MAX_DEFAULT_FRAMES, Math.max(MIN_DEFAULT_FRAMES, (durationMs + 2999) / 3000));
+        long interval = durationMs / (count + 1);
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = interval * (i + 1);
+        }
+        return times;
+    }
+
+    private static long[] clampTimes(long[] requested, long durationMs) {
+        long[] times = Arrays.copyOf(requested, Math.min(requested.length, MAX_REQUESTED_FRAMES));
+        for (int i = 0; i < times.length; i++) {
+            times[i] = Math.max(0, Math.min(durationMs, times[i]));
+        }
+        return times;
+    }
+
+    private static Frame frameAt(MediaMetadataRetriever retriever, File dir, long timeMs) {
+        File file = new File(dir, "frame_" + timeMs + ".jpg");
+        if (file.exists()) {
+            android.graphics.BitmapFactory.Options bounds = new android.graphics.BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            android.graphics.BitmapFactory.decodeFile(file.getPath(), bounds);
+            if (bounds.outWidth > 0) return new Frame(timeMs, file, bounds.outWidth, bounds.outHeight);
+        }
+
+        Bitmap bitmap = retriever.getFrameAtTime(timeMs * 1000, MediaMetadataRetriever.OPTION_CLOSEST_SYNC);
+        if (bitmap == null) return null;
+        try {
+            if (bitmap.getWidth() > FRAME_MAX_WIDTH) {
+                Bitmap scaled = Bitmap.createScaledBitmap(bitmap, FRAME_MAX_WIDTH,
+                    Math.max(1, Math.round(bitmap.getHeight() * (float) FRAME_MAX_WIDTH / bitmap.getWidth())), true);
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+            File tmp = new File(dir, file.getName() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, FRAME_QUALITY, out);
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return null;
+            }
+            return new Frame(timeMs, file, bitmap.getWidth(), bitmap.getHeight());
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to write frame at " + timeMs + "ms: " + e.getMessage());
+            return null;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Copy the AAC audio track into an .m4a without re-encoding
+     */
+    private static File extractAudio(Context context, String source, File dir) throws Exception {
+        File file = new File(dir, "audio.m4a");
+        if (file.exists() && file.length() > 0) return file;
+
+        MediaExtractor extractor = new MediaExtractor();
+        MediaMuxer muxer = null;
+        File tmp = new File(dir, "audio.m4a.tmp");
+        try {
+            extractor.setDataSource(context, Uri.parse(source), null);
+            int track = -1;
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat candidate = extractor.getTrackFormat(i);
+                String mime = candidate.getString(MediaFormat.KEY_MIME);
+                if (MediaFormat.MIMETYPE_AUDIO_AAC.equals(mime)) {
+                    track = i;
+                    format = candidate;
+                    break;
+                }
+            }
+            if (track < 0) {
+                // Opus/Vorbis (WebM) would need a re-encode; leave those to the server
+                throw new IllegalStateException("no AAC audio track");
+            }
+
+            extractor.selectTrack(track);
+            muxer = new MediaMuxer(tmp.getPath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+            int outTrack = muxer.addTrack(format);
+            muxer.start();
+
+            int bufferSize = format.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)
+                ? format.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE) : 256 * 1024;
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            while (true) {
+                info.size = extractor.readSampleData(buffer, 0);
+                if (info.size < 0) break;
+                info.offset = 0;
+                info.presentationTimeUs = extractor.getSampleTime();
+                info.flags = (extractor.getSampleFlags() & MediaExtractor.SAMPLE_FLAG_SYNC) != 0
+                    ? MediaCodec.BUFFER_FLAG_KEY_FRAME : 0;
+                muxer.writeSampleData(outTrack, buffer, info);
+                extractor.advance();
+            }
+            muxer.stop();
+        } catch (Exception e) {
+            tmp.delete();
+            throw e;
+        } finally {
+            if (muxer != null) {
+                try {
+                    muxer.release();
+                } catch (Exception e) {
+                    // Already failed
+                }
+            }
+            extractor.release();
+        }
+
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new java.io.IOException("Could not write audio");
+        }
+        return file;
+    }
+
+    /**
+     * Drop least recently used video directories until the cache fits the budget
+     */
+    private static void trimDisk(File root) {
+        File[] dirs = root.listFiles();
+        if (dirs == null) return;
+
+        long total = 0;
+        long[] sizes = new long[dirs.length];
+        for (int i = 0; i < dirs.length; i++) {
+            sizes[i] = sizeOf(dirs[i]);
+            total += sizes[i];
+        }
+        if (total <= DISK_CACHE_BYTES) return;
+
+        Integer[] order = new Integer[dirs.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(dirs[a].lastModified(), dirs[b].lastModified()));
+        for (int i : order) {
+            if (total <= DISK_CACHE_BYTES) break;
+            File[] files = dirs[i].listFiles();
+            if (files != null) {
+                for (File file : files) file.delete();
+            }
+            dirs[i].delete();
+            total -= sizes[i];
+        }
+    }
+
+    private static long sizeOf(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return dir.length();
+        long total = 0;
+        for (File file : files) total += file.length();
+        return total;
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static File cacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), DIR_NAME);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private static String key(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(source.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (Exception e) {
+            return "share_" + Integer.toHexString(source.hashCode());
+        }
+    }
+}
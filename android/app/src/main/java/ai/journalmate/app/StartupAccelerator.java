@@ -0,0 +1,164 @@
+package ai.journalmate.app;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.webkit.WebSettings;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start work that can run before the remote SPA has even started loading
+ *
+ * Started from JournalMateApplication when the process is created for a
+ * visible activity (launcher, share, shortcut, notification tap), and again
+ * from MainActivity as a no-op safety net:
+ * 1. Load the WebView provider (Chromium libraries) off the main thread, so
+ *    BridgeActivity's WebView construction doesn't pay for it.
+ * 2. Resolve and connect to journalmate.ai from NativeHttp. The DNS answer is
+ *    shared with the WebView; the TLS connection stays in the native pool.
+ * 3. Fetch the critical startup payload (the signed-in user's tasks) over
+ *    that connection, so the SPA can render from it (AppBridge
+ *    getStartupPayload) instead of waiting for its own request.
+ *
+ * Payloads are handed out once and only within PAYLOAD_MAX_AGE_MS.
+ */
+public final class StartupAccelerator {
+    private static final String TAG = "StartupAccelerator";
+    private static final String PREFS_NAME = "journalmate_prefs";
+
+    public static final String PAYLOAD_TASKS = "tasks";
+    private static final long PAYLOAD_MAX_AGE_MS = 60 * 1000;
+    private static final int PAYLOAD_MAX_BYTES = 2 * 1024 * 1024;
+
+    /**
+     * A prefetched API response (JSON text) and whose it is
+     */
+    public static final class Payload {
+        public final String json;
+        public final String userId;
+        public final long fetchedAt;
+
+        Payload(String json, String userId, long fetchedAt) {
+            this.json = json;
+            this.userId = userId;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    public interface Callback {
+        void onPayload(Payload payload);
+    }
+
+    // Two threads: the WebView provider load and the network work run side by side
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private static final Map<String, Future<Payload>> payloads = new ConcurrentHashMap<>();
+    private static volatile boolean started = false;
+
+    private StartupAccelerator() {}
+
+    /**
+     * Whether this process was started to show an activity, as opposed to a
+     * push, alarm, widget update or WorkManager job
+     */
+    public static boolean isForegroundLaunch() {
+        ActivityManager.RunningAppProcessInfo info = new ActivityManager.RunningAppProcessInfo();
+        ActivityManager.getMyMemoryState(info);
+        return info.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+    }
+
+    /**
+     * Start the warm-up once per process
+     */
+    public static synchronized void start(Context context) {
+        if (started) return;
+        started = true;
+        Context appContext = context.getApplicationContext();
+        long startedAt = System.currentTimeMillis();
+
+        executor.execute(() -> {
+            try {
+                WebSettings.getDefaultUserAgent(appContext);
+                Log.d(TAG, "WebView provider loaded in " + (System.currentTimeMillis() - startedAt) + "ms");
+            } catch (Exception e) {
+                // WebView missing or updating; BridgeActivity will surface it
+                Log.w(TAG, "WebView warm-up failed: " + e.getMessage());
+            }
+        });
+
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String userId = prefs.getString("userId", null);
+        String authToken = prefs.getString("authToken", null);
+        if (userId == null || authToken == null) {
+            // Signed out: nothing to prefetch, just warm DNS/TLS
+            executor.execute(() -> preconnect(appContext, startedAt));
+            return;
+        }
+
+        // The request itself opens the connection
+        payloads.put(PAYLOAD_TASKS, executor.submit(() -> fetch(appContext, "/api/tasks", userId, startedAt)));
+    }
+
+    /**
+     * Take a prefetched payload, waiting up to maxWaitMs if it is still in flight
+     *
+     * @return the payload, or null if there is none, it failed, or it is too old
+     */
+    public static Payload take(String key, long maxWaitMs) {
+        Future<Payload> future = payloads.remove(key);
+        if (future == null) return null;
+        try {
+            Payload payload = future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            if (payload == null || System.currentTimeMillis() - payload.fetchedAt > PAYLOAD_MAX_AGE_MS) {
+                return null;
+            }
+            return payload;
+        } catch (Exception e) {
+            Log.d(TAG, "Startup payload " + key + " not ready: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * take() without blocking the caller; callback runs on the warm-up pool
+     */
+    public static void take(String key, long maxWaitMs, Callback callback) {
+        executor.execute(() -> callback.onPayload(take(key, maxWaitMs)));
+    }
+
+    private static void preconnect(Context context, long startedAt) {
+        try {
+            NativeHttp.request(context, "HEAD", "/", null, new NativeHttp.Options()
+                .timeouts(5000, 5000)
+                .maxBytes(0)
+                .accept("text/html"));
+            Log.d(TAG, "Preconnected in " + (System.currentTimeMillis() - startedAt) + "ms");
+        } catch (Exception e) {
+            Log.d(TAG, "Preconnect failed: " + e.getMessage());
+        }
+    }
+
+    private static Payload fetch(Context context, String path, String userId, long startedAt) {
+        try {
+            NativeHttp.Response response = NativeHttp.get(context, path, new NativeHttp.Options()
+                .timeouts(5000, 10000)
+                .maxBytes(PAYLOAD_MAX_BYTES));
+            if (!response.isSuccessful()) {
+                Log.w(TAG, "Startup fetch of " + path + " returned " + response.code);
+                return null;
+            }
+            Log.d(TAG, "Prefetched " + path + " (" + response.body.length / 1024 + " KB) in "
+                + (System.currentTimeMillis() - startedAt) + "ms");
+            return new Payload(response.text(), userId, System.currentTimeMillis());
+        } catch (Exception e) {
+            Log.w(TAG, "Startup fetch of " + path + " failed: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,13 +1,10 @@
 package ai.journalmate.app;
 
-import android.app.AlarmManager;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -42,6 +39,8 @@ public class TaskActionReceiver extends BroadcastReceiver {
             return;
         }
 
+        NotificationTelemetry.recordFromIntent(context, intent, NotificationTelemetry.EVENT_ACTION, action);
+
         // Dismiss the notification
         NotificationManager notificationManager = (NotificationManager)
             context.getSystemService(Context.NOTIFICATION_SERVICE);
@@ -111,58 +110,11 @@ public class TaskActionReceiver extends BroadcastReceiver {
      * Snooze reminder - reschedule for later
      */
     private void snoozeReminder(Context context, String taskId, String title, int snoozeMinutes) {
-        AlarmManager alarmManager = (AlarmManager)
-            context.getSystemService(Context.ALARM_SERVICE);
-
-        if (alarmManager == null) {
-            showToast(context, "Failed to snooze");
-            return;
-        }
-
         // Calculate new trigger time
         long triggerTimeMs = System.currentTimeMillis() + (snoozeMinutes * 60 * 1000L);
 
-        // Create reminder intent
-        Intent reminderIntent = new Intent(context, TaskReminderReceiver.class);
-        reminderIntent.setAction("TASK_REMINDER");
-        reminderIntent.putExtra("taskId", taskId);
-        reminderIntent.putExtra("title", title);
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            context,
-            taskId.hashCode() + 5000, // Different request code for snooze
-            reminderIntent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Schedule the snoozed reminder
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            if (alarmManager.canScheduleExactAlarms()) {
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTimeMs,
-                    pendingIntent
-                );
-            } else {
-                alarmManager.setAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTimeMs,
-                    pendingIntent
-                );
-            }
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            alarmManager.setExactAndAllowWhileIdle(
-                AlarmManager.RTC_WAKEUP,
-                triggerTimeMs,
-                pendingIntent
-            );
-        } else {
-            alarmManager.setExact(
-                AlarmManager.RTC_WAKEUP,
-                triggerTimeMs,
-                pendingIntent
-            );
-        }
+        // Different request code for snooze
+        ReminderScheduler.scheduleTaskReminder(context, taskId, title, triggerTimeMs, taskId.hashCode() + 5000);
 
         showToast(context, "⏰ Snoozed for " + snoozeMinutes + " minutes");
         Log.d(TAG, "Reminder snoozed for " + snoozeMinutes + " minutes");
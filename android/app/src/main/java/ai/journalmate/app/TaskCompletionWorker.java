@@ -0,0 +1,118 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import ai.journalmate.app.widgets.WidgetSnapshot;
+import ai.journalmate.app.widgets.WidgetUpdater;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background Worker that delivers task completions made outside the app
+ *
+ * Widget taps complete the task locally first, then enqueue this worker.
+ * WorkManager holds the mutation until a network is available and retries
+ * with backoff, so the completion reaches the server even if the device is
+ * offline when the user taps.
+ */
+public class TaskCompletionWorker extends Worker {
+    private static final String TAG = "TaskCompletionWorker";
+    private static final String PREFS_NAME = "journalmate_prefs";
+    private static final String KEY_TASK_ID = "taskId";
+    private static final int MAX_ATTEMPTS = 10;
+
+    public TaskCompletionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Queue a completion for background delivery (one unique job per task)
+     */
+    public static void enqueue(Context context, String taskId) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(TaskCompletionWorker.class)
+            .setConstraints(constraints)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+            .setInputData(new Data.Builder().putString(KEY_TASK_ID, taskId).build())
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+            "complete_task_" + taskId,
+            ExistingWorkPolicy.KEEP,
+            request
+        );
+
+        Log.d(TAG, "Queued completion for task: " + taskId);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String taskId = getInputData().getString(KEY_TASK_ID);
+        if (taskId == null) {
+            return Result.failure();
+        }
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String authToken = prefs.getString("authToken", null);
+        if (authToken == null) {
+            // Logged out since the tap - nothing can deliver this, undo it
+            Log.w(TAG, "No credentials, reverting completion: " + taskId);
+            revert(context, taskId);
+            return Result.failure();
+        }
+
+        try {
+            NativeHttp.Response response = NativeHttp.request(context, "POST",
+                "/api/tasks/" + taskId + "/complete", "{}".getBytes(StandardCharsets.UTF_8),
+                new NativeHttp.Options().header(RealtimeChannel.ORIGIN_HEADER, RealtimeChannel.originId(context)));
+            int responseCode = response.code;
+            if (responseCode == 200 || responseCode == 201) {
+                Log.d(TAG, "Task completion delivered: " + taskId);
+                WidgetSnapshot.confirmCompletion(context, taskId);
+                WidgetUpdater.requestRefresh(context);
+                return Result.success();
+            }
+
+            if (responseCode >= 400 && responseCode < 500 && responseCode != 408 && responseCode != 429) {
+                // Task deleted or not ours - retrying won't help
+                Log.w(TAG, "Completion rejected (" + responseCode + "), reverting: " + taskId);
+                revert(context, taskId);
+                return Result.failure();
+            }
+
+            Log.w(TAG, "Completion failed with " + responseCode + ", will retry");
+        } catch (Exception e) {
+            Log.e(TAG, "Completion request failed: " + e.getMessage());
+        }
+
+        if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+            revert(context, taskId);
+            return Result.failure();
+        }
+        return Result.retry();
+    }
+
+    private void revert(Context context, String taskId) {
+        WidgetSnapshot.revertCompletion(context, taskId);
+        WidgetUpdater.requestRefresh(context);
+    }
+}
@@ -1,6 +1,5 @@
 package ai.journalmate.app;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
@@ -22,8 +21,6 @@ import androidx.core.app.NotificationCompat;
  */
 public class TaskReminderReceiver extends BroadcastReceiver {
     private static final String TAG = "TaskReminderReceiver";
-    private static final String CHANNEL_ID = "journalmate_reminders";
-    private static final String CHANNEL_NAME = "Task Reminders";
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -33,6 +30,7 @@ public class TaskReminderReceiver extends BroadcastReceiver {
         if (!"TASK_REMINDER".equals(action)) {
             return;
         }
+        ReminderScheduler.onAlarmFired(context, intent);
 
         String taskId = intent.getStringExtra("taskId");
         String title = intent.getStringExtra("title");
@@ -42,43 +40,25 @@ public class TaskReminderReceiver extends BroadcastReceiver {
         }
 
         // Create notification channel
-        createNotificationChannel(context);
+        NotificationChannels.ensureChannels(context);
 
         // Show the reminder notification
-        showReminderNotification(context, taskId, title);
-    }
-
-    /**
-     * Create high-priority notification channel for reminders
-     */
-    private void createNotificationChannel(Context context) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                CHANNEL_NAME,
-                NotificationManager.IMPORTANCE_HIGH // High = sound + heads-up
-            );
-            channel.setDescription("Reminders for upcoming tasks");
-            channel.enableVibration(true);
-            channel.setVibrationPattern(new long[]{0, 500, 200, 500});
-            channel.setShowBadge(true);
-
-            NotificationManager manager = context.getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-            }
-        }
+        showReminderNotification(context, taskId, title, intent);
     }
 
     /**
      * Show the task reminder notification
      */
-    private void showReminderNotification(Context context, String taskId, String title) {
+    private void showReminderNotification(Context context, String taskId, String title, Intent alarmIntent) {
+        int notificationId = taskId != null ? taskId.hashCode() : (int) System.currentTimeMillis();
+        String channelId = NotificationChannels.CHANNEL_REMINDERS;
+
         // Intent to open app and view the task
         Intent openIntent = new Intent(context, MainActivity.class);
         openIntent.setAction("VIEW_TASK");
         openIntent.putExtra("taskId", taskId);
         openIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        NotificationTelemetry.tag(openIntent, notificationId, channelId, "task_reminder");
 
         PendingIntent openPendingIntent = PendingIntent.getActivity(
             context,
@@ -91,6 +71,7 @@ public class TaskReminderReceiver extends BroadcastReceiver {
         Intent doneIntent = new Intent(context, TaskActionReceiver.class);
         doneIntent.setAction("MARK_DONE");
         doneIntent.putExtra("taskId", taskId);
+        NotificationTelemetry.tag(doneIntent, notificationId, channelId, "task_reminder");
 
         PendingIntent donePendingIntent = PendingIntent.getBroadcast(
             context,
@@ -105,6 +86,7 @@ public class TaskReminderReceiver extends BroadcastReceiver {
         snoozeIntent.putExtra("taskId", taskId);
         snoozeIntent.putExtra("title", title);
         snoozeIntent.putExtra("snoozeMinutes", 15);
+        NotificationTelemetry.tag(snoozeIntent, notificationId, channelId, "task_reminder");
 
         PendingIntent snoozePendingIntent = PendingIntent.getBroadcast(
             context,
@@ -120,7 +102,7 @@ public class TaskReminderReceiver extends BroadcastReceiver {
         int accentColor = Color.parseColor("#8b5cf6");
 
         // Build notification with dark theme styling
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
             .setSmallIcon(R.drawable.ic_notification)
             .setContentTitle("⏰ Task Reminder")
             .setContentText(title)
@@ -135,16 +117,22 @@ public class TaskReminderReceiver extends BroadcastReceiver {
             .setColor(accentColor)
             .setColorized(true)
             .addAction(R.drawable.ic_notification, "✓ Done", donePendingIntent)
-            .addAction(R.drawable.ic_notification, "⏰ Snooze 15m", snoozePendingIntent);
+            .addAction(R.drawable.ic_notification, "⏰ Snooze 15m", snoozePendingIntent)
+            // Delivered during quiet hours (DeliveryPolicy decided at scheduling time)
+            .setSilent(alarmIntent.getBooleanExtra(ReminderScheduler.EXTRA_SILENT, false));
+        NotificationTelemetry.track(context, builder, null, notificationId, channelId, "task_reminder");
 
         // Show notification
         NotificationManager manager = (NotificationManager)
             context.getSystemService(Context.NOTIFICATION_SERVICE);
 
         if (manager != null) {
-            int notificationId = taskId != null ? taskId.hashCode() : (int) System.currentTimeMillis();
             manager.notify(notificationId, builder.build());
             Log.d(TAG, "Reminder notification shown for: " + title);
+            NotificationTelemetry.posted(context, notificationId, channelId, "task_reminder",
+                alarmIntent.getLongExtra(NotificationTelemetry.EXTRA_SCHEDULED_AT, 0),
+                alarmIntent.hasExtra(NotificationTelemetry.EXTRA_EXACT)
+                    ? alarmIntent.getBooleanExtra(NotificationTelemetry.EXTRA_EXACT, true) : null);
         }
     }
 }
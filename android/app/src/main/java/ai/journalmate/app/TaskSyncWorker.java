@@ -1,31 +1,37 @@
 package ai.journalmate.app;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
-import android.appwidget.AppWidgetManager;
-import android.content.ComponentName;
+import android.app.Notification;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ServiceInfo;
 import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
-import ai.journalmate.app.widgets.JournalMateWidget2x2;
-import ai.journalmate.app.widgets.JournalMateWidget4x1;
-import ai.journalmate.app.widgets.JournalMateWidget4x2;
+import ai.journalmate.app.widgets.WidgetFields;
+import ai.journalmate.app.widgets.WidgetSnapshot;
+import ai.journalmate.app.widgets.WidgetUpdater;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -41,12 +47,65 @@ import java.util.concurrent.TimeUnit;
 public class TaskSyncWorker extends Worker {
     private static final String TAG = "TaskSyncWorker";
     private static final String PREFS_NAME = "journalmate_prefs";
-    private static final String BASE_URL = "https://journalmate.ai";
+    private static final int SYNC_NOTIFICATION_ID = 1002;
+    private static final String KEY_LAST_SYNC = "lastSyncTime";
+    private static final String KEY_FORCE = "force";
+    private static final long FULL_SYNC_WHILE_STREAMING_MS = 6 * 60 * 60 * 1000L;
+
+    // Status of the last fetch, 0 when it didn't get a response
+    private int lastResponseCode = 0;
 
     public TaskSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
 
+    /**
+     * Run one sync as soon as possible (e.g. the live notification restored
+     * stale progress). Falls back to regular work when out of expedited quota.
+     */
+    public static void requestExpeditedSync(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(TaskSyncWorker.class)
+            .setConstraints(constraints)
+            .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+            .setInputData(new Data.Builder().putBoolean(KEY_FORCE, true).build())
+            .build();
+
+        WorkManager.getInstance(context).enqueueUniqueWork(
+            "task_sync_expedited",
+            ExistingWorkPolicy.KEEP,
+            request
+        );
+    }
+
+    /**
+     * Expedited work runs as a foreground service before Android 12
+     */
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        Context context = getApplicationContext();
+        NotificationChannels.ensureChannels(context);
+
+        Notification notification = new NotificationCompat.Builder(context, NotificationChannels.CHANNEL_FOREGROUND)
+            .setSmallIcon(R.drawable.ic_notification)
+            .setContentTitle("JournalMate")
+            .setContentText("Syncing your tasks…")
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setOngoing(true)
+            .setShowWhen(false)
+            .build();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return new ForegroundInfo(SYNC_NOTIFICATION_ID, notification,
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        }
+        return new ForegroundInfo(SYNC_NOTIFICATION_ID, notification);
+    }
+
     @NonNull
     @Override
     public Result doWork() {
@@ -64,8 +123,19 @@ public class TaskSyncWorker extends Worker {
                 return Result.success(); // Don't retry, user not logged in
             }
 
+            // The foreground service's realtime stream is delivering changes as they
+            // happen - skip the poll, but still do a full sync now and then so
+            // reminders get scheduled for tasks created elsewhere
+            long sinceLastSync = System.currentTimeMillis() - prefs.getLong(KEY_LAST_SYNC, 0);
+            if (RealtimeChannel.isConnected() && !getInputData().getBoolean(KEY_FORCE, false)
+                    && sinceLastSync < FULL_SYNC_WHILE_STREAMING_MS) {
+                Log.d(TAG, "Realtime stream connected, skipping poll");
+                return Result.success();
+            }
+
             // Fetch tasks from server
-            JSONObject tasksData = fetchTasks(authToken);
+            long tasksSequence = WidgetSnapshot.tasksSequence(getApplicationContext());
+            JSONObject tasksData = fetchTasks();
 
             if (tasksData != null) {
                 // Schedule reminders for upcoming tasks
@@ -74,11 +144,27 @@ public class TaskSyncWorker extends Worker {
                 // Update foreground service with new data
                 updateForegroundService(tasksData);
 
+                // Keep the widget task rows in step with the server (only if a size that shows them is placed)
+                if (WidgetFields.needsTasks(getApplicationContext())) {
+                    WidgetSnapshot.saveFetchedTasks(getApplicationContext(), tasksData.optJSONArray("tasks"), tasksSequence);
+                }
+
                 // Refresh all home screen widgets with latest data
                 refreshAllWidgets();
 
+                // Pick up server-side notification re-routing about once a day
+                if (NotificationRouting.needsRefresh(getApplicationContext())) {
+                    NotificationRouting.refresh(getApplicationContext());
+                }
+
+                prefs.edit().putLong(KEY_LAST_SYNC, System.currentTimeMillis()).apply();
                 Log.d(TAG, "Background sync completed successfully");
                 return Result.success();
+            } else if (lastResponseCode >= 400 && lastResponseCode < 500
+                    && lastResponseCode != 408 && lastResponseCode != 429) {
+                // Signed out on the server or similar - retrying won't help
+                Log.w(TAG, "Task fetch rejected (" + lastResponseCode + "), not retrying");
+                return Result.failure();
             } else {
                 Log.w(TAG, "Failed to fetch tasks");
                 return Result.retry(); // Try again later
@@ -93,41 +179,18 @@ public class TaskSyncWorker extends Worker {
     /**
      * Fetch tasks from the JournalMate API
      */
-    private JSONObject fetchTasks(String authToken) {
-        HttpURLConnection connection = null;
+    private JSONObject fetchTasks() {
         try {
-            URL url = new URL(BASE_URL + "/api/tasks/upcoming");
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + authToken);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setConnectTimeout(10000);
-            connection.setReadTimeout(10000);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(connection.getInputStream())
-                );
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-
-                return new JSONObject(response.toString());
-            } else {
-                Log.w(TAG, "API returned status: " + responseCode);
-                return null;
+            NativeHttp.Response response = NativeHttp.get(getApplicationContext(), "/api/tasks/upcoming");
+            lastResponseCode = response.code;
+            if (response.isSuccessful()) {
+                return response.json();
             }
+            Log.w(TAG, "API returned status: " + response.code);
+            return null;
         } catch (Exception e) {
             Log.e(TAG, "Failed to fetch tasks: " + e.getMessage());
             return null;
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
         }
     }
 
@@ -139,11 +202,6 @@ public class TaskSyncWorker extends Worker {
             JSONArray tasks = tasksData.optJSONArray("tasks");
             if (tasks == null) return;
 
-            AlarmManager alarmManager = (AlarmManager)
-                getApplicationContext().getSystemService(Context.ALARM_SERVICE);
-
-            if (alarmManager == null) return;
-
             // Get reminder preferences
             SharedPreferences prefs = getApplicationContext()
                 .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
@@ -168,7 +226,9 @@ public class TaskSyncWorker extends Worker {
 
                     // Only schedule if reminder time is in the future
                     if (reminderTimeMs > System.currentTimeMillis()) {
-                        scheduleReminder(alarmManager, taskId, title, reminderTimeMs);
+                        // Task ID hash as request code, so a re-sync replaces rather than duplicates
+                        ReminderScheduler.scheduleTaskReminder(
+                            getApplicationContext(), taskId, title, reminderTimeMs, taskId.hashCode());
                     }
                 }
             }
@@ -180,59 +240,6 @@ public class TaskSyncWorker extends Worker {
         }
     }
 
-    /**
-     * Schedule a single task reminder using AlarmManager
-     */
-    private void scheduleReminder(AlarmManager alarmManager, String taskId, String title, long triggerTimeMs) {
-        Intent intent = new Intent(getApplicationContext(), TaskReminderReceiver.class);
-        intent.setAction("TASK_REMINDER");
-        intent.putExtra("taskId", taskId);
-        intent.putExtra("title", title);
-
-        // Use task ID hash as request code for uniqueness
-        int requestCode = taskId.hashCode();
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            getApplicationContext(),
-            requestCode,
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        // Schedule exact alarm for precise timing
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            // Android 12+ requires checking for exact alarm permission
-            if (alarmManager.canScheduleExactAlarms()) {
-                alarmManager.setExactAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTimeMs,
-                    pendingIntent
-                );
-            } else {
-                // Fallback to inexact alarm
-                alarmManager.setAndAllowWhileIdle(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTimeMs,
-                    pendingIntent
-                );
-            }
-        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            alarmManager.setExactAndAllowWhileIdle(
-                AlarmManager.RTC_WAKEUP,
-                triggerTimeMs,
-                pendingIntent
-            );
-        } else {
-            alarmManager.setExact(
-                AlarmManager.RTC_WAKEUP,
-                triggerTimeMs,
-                pendingIntent
-            );
-        }
-
-        Log.d(TAG, "Scheduled reminder for task: " + title + " at " + triggerTimeMs);
-    }
-
     /**
      * Update the foreground service notification with task data
      */
@@ -251,6 +258,34 @@ public class TaskSyncWorker extends Worker {
                 nextTaskTime = nextTask.optString("dueTime", "");
             }
 
+            // Timed tasks let the notification count down and roll over by itself
+            List<LiveProgressState.UpcomingTask> upcoming = new ArrayList<>();
+            JSONArray tasks = tasksData.optJSONArray("tasks");
+            if (tasks != null) {
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < tasks.length(); i++) {
+                    JSONObject task = tasks.optJSONObject(i);
+                    if (task == null || task.optBoolean("completed", false)) continue;
+
+                    String dueDate = task.optString("dueDate", "");
+                    long dueTimeMs = dueDate.isEmpty() ? 0 : parseDueDate(dueDate);
+                    if (dueTimeMs > now) {
+                        upcoming.add(new LiveProgressState.UpcomingTask(task.optString("title", "Task"), dueTimeMs));
+                    }
+                }
+            }
+
+            // Running service picks this up in-process; otherwise start it with an intent
+            LiveProgressState.Snapshot snapshot = new LiveProgressState.Snapshot(
+                completedTasks, totalTasks, streak, nextTaskTitle, nextTaskTime, upcoming);
+            boolean delivered = LiveProgressState.publish(snapshot);
+            // Save the confirmation even when nothing changed, so a service restart
+            // doesn't find the restored progress stale and ask for this sync again
+            LiveProgressState.persist(getApplicationContext());
+            if (delivered) {
+                return;
+            }
+
             // Send update to foreground service
             Intent serviceIntent = new Intent(getApplicationContext(), JournalMateService.class);
             serviceIntent.setAction("UPDATE_PROGRESS");
@@ -277,14 +312,16 @@ public class TaskSyncWorker extends Worker {
     private long parseDueDate(String dateStr) {
         try {
             // Simple ISO 8601 parsing
-            // Format: 2024-01-15T10:30:00.000Z
+            // Format: 2024-01-15T10:30:00.000Z (UTC when it ends in Z, else local time)
             if (dateStr.contains("T")) {
                 String[] parts = dateStr.split("T");
                 String[] dateParts = parts[0].split("-");
                 String timePart = parts[1].replace("Z", "").split("\\.")[0];
                 String[] timeParts = timePart.split(":");
 
-                Calendar cal = Calendar.getInstance();
+                Calendar cal = dateStr.endsWith("Z")
+                    ? Calendar.getInstance(TimeZone.getTimeZone("UTC"))
+                    : Calendar.getInstance();
                 cal.set(Calendar.YEAR, Integer.parseInt(dateParts[0]));
                 cal.set(Calendar.MONTH, Integer.parseInt(dateParts[1]) - 1);
                 cal.set(Calendar.DAY_OF_MONTH, Integer.parseInt(dateParts[2]));
@@ -307,32 +344,10 @@ public class TaskSyncWorker extends Worker {
      */
     private void refreshAllWidgets() {
         try {
-            Context context = getApplicationContext();
-            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-
-            // Refresh all widget types
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget2x2.class);
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget4x1.class);
-            refreshWidgetClass(context, appWidgetManager, JournalMateWidget4x2.class);
-
+            WidgetUpdater.refreshNow(getApplicationContext());
             Log.d(TAG, "All widgets refreshed from background sync");
         } catch (Exception e) {
             Log.e(TAG, "Failed to refresh widgets: " + e.getMessage());
         }
     }
-
-    /**
-     * Refresh a specific widget class by sending update broadcast
-     */
-    private void refreshWidgetClass(Context context, AppWidgetManager manager, Class<?> widgetClass) {
-        ComponentName widget = new ComponentName(context, widgetClass);
-        int[] ids = manager.getAppWidgetIds(widget);
-        if (ids.length > 0) {
-            Intent intent = new Intent(context, widgetClass);
-            intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
-            intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
-            context.sendBroadcast(intent);
-            Log.d(TAG, "Refreshed " + ids.length + " widgets of type: " + widgetClass.getSimpleName());
-        }
-    }
 }
@@ -0,0 +1,154 @@
+package ai.journalmate.app;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring of text records in one file
+ *
+ * The file is a small header (first and next sequence, drop count,
+ * capacity) followed by fixed-width slots; record n lives in slot
+ * n % capacity. Appending writes one slot and the header - nothing is
+ * shifted or rewritten - and a full ring overwrites its oldest record,
+ * counting it as dropped. Acknowledging only moves the first sequence.
+ *
+ * Each slot starts with its record's sequence, so a slot that was
+ * written but never made it into the header (process death in between)
+ * is recognized and skipped. Not thread-safe; callers serialize access.
+ */
+final class TelemetryRing implements Closeable {
+    static final int RECORD_BYTES = 384;
+    // Sequence prefix of each slot
+    private static final int SLOT_HEADER_BYTES = 8;
+    static final int MAX_TEXT_BYTES = RECORD_BYTES - SLOT_HEADER_BYTES;
+    private static final int HEADER_BYTES = 32;
+
+    static final class Record {
+        final long sequence;
+        final String text;
+
+        Record(long sequence, String text) {
+            this.sequence = sequence;
+            this.text = text;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final int capacity;
+    private long firstSequence = 0;
+    private long nextSequence = 0;
+    private int dropped = 0;
+
+    TelemetryRing(File path, int capacity) throws IOException {
+        this.capacity = capacity;
+        this.file = new RandomAccessFile(path, "rw");
+        if (file.length() >= HEADER_BYTES) {
+            file.seek(0);
+            long first = file.readLong();
+            long next = file.readLong();
+            int storedDropped = file.readInt();
+            int storedCapacity = file.readInt();
+            if (storedCapacity == capacity && first >= 0 && next >= first && next - first <= capacity) {
+                firstSequence = first;
+                nextSequence = next;
+                dropped = Math.max(0, storedDropped);
+                return;
+            }
+            // Different layout: start empty, but keep sequences increasing
+            firstSequence = Math.max(0, next);
+            nextSequence = firstSequence;
+        }
+        writeHeader();
+    }
+
+    /**
+     * Append a record, overwriting the oldest one if the ring is full
+     *
+     * @param text at most MAX_TEXT_BYTES of UTF-8, no NUL characters
+     * @return the record's sequence
+     */
+    long append(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_TEXT_BYTES) {
+            throw new IllegalArgumentException("Record is " + bytes.length + " bytes, max " + MAX_TEXT_BYTES);
+        }
+        long sequence = nextSequence;
+        // Zero padding marks the end of the text
+        byte[] slot = new byte[MAX_TEXT_BYTES];
+        System.arraycopy(bytes, 0, slot, 0, bytes.length);
+
+        file.seek(slotOffset(sequence));
+        file.writeLong(sequence);
+        file.write(slot);
+
+        nextSequence++;
+        if (nextSequence - firstSequence > capacity) {
+            firstSequence = nextSequence - capacity;
+            dropped++;
+        }
+        writeHeader();
+        return sequence;
+    }
+
+    /**
+     * Up to max records, oldest first
+     */
+    List<Record> read(int max) throws IOException {
+        List<Record> records = new ArrayList<>();
+        byte[] slot = new byte[MAX_TEXT_BYTES];
+        for (long sequence = firstSequence; sequence < nextSequence && records.size() < max; sequence++) {
+            try {
+                file.seek(slotOffset(sequence));
+                if (file.readLong() != sequence) continue;
+                file.readFully(slot);
+            } catch (EOFException e) {
+                continue;
+            }
+            int length = 0;
+            while (length < slot.length && slot[length] != 0) length++;
+            records.add(new Record(sequence, new String(slot, 0, length, StandardCharsets.UTF_8)));
+        }
+        return records;
+    }
+
+    /**
+     * Forget every record up to and including lastSequence, and the drops
+     * already reported. Records appended (or dropped) since are kept.
+     */
+    void acknowledge(long lastSequence, int droppedReported) throws IOException {
+        firstSequence = Math.max(firstSequence, Math.min(lastSequence + 1, nextSequence));
+        dropped = Math.max(0, dropped - droppedReported);
+        writeHeader();
+    }
+
+    int size() {
+        return (int) (nextSequence - firstSequence);
+    }
+
+    int dropped() {
+        return dropped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private long slotOffset(long sequence) {
+        return HEADER_BYTES + (sequence % capacity) * RECORD_BYTES;
+    }
+
+    private void writeHeader() throws IOException {
+        file.seek(0);
+        file.writeLong(firstSequence);
+        file.writeLong(nextSequence);
+        file.writeInt(dropped);
+        file.writeInt(capacity);
+    }
+}
@@ -0,0 +1,344 @@
+package ai.journalmate.app;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Server-side extraction warm-up for shared social media links
+ *
+ * A shared reel/TikTok/YouTube link is recognized by platform and
+ * canonicalized the same way the server keys its URL content cache
+ * (server/utils/urlCacheKey.ts), then POSTed to /api/parse-url/prefetch on
+ * a small bounded pool through NativeHttp. The same canonical URL is sent
+ * once: requests in flight or sent within RECENT_MS are joined instead of
+ * repeated, so sharing one reel three times - or tracking params differing
+ * between shares - doesn't start three extractions. Transient failures
+ * retry with backoff.
+ *
+ * Every prefetch has a Handle the web app can query (SharePlugin
+ * getPrefetchStatus) to know whether extraction is already warm.
+ */
+public final class UrlPrefetcher {
+    private static final String TAG = "UrlPrefetcher";
+
+    // Matches the server's prefetch status retention
+    private static final long RECENT_MS = 30 * 60 * 1000;
+    private static final int MAX_TRACKED = 32;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long[] RETRY_DELAYS_MS = {2000, 8000};
+
+    public static final String PLATFORM_INSTAGRAM = "instagram";
+    public static final String PLATFORM_TIKTOK = "tiktok";
+    public static final String PLATFORM_YOUTUBE = "youtube";
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_SENT = "sent";
+    public static final String STATE_RETRYING = "retrying";
+    public static final String STATE_FAILED = "failed";
+
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://[^\\s<>\"]+", Pattern.CASE_INSENSITIVE);
+    // Stories aren't extractable server-side, but are still keyed like the server does
+    private static final Pattern INSTAGRAM_PATH = Pattern.compile("/(reel|reels|p)/([^/]+)");
+    private static final Pattern INSTAGRAM_KEY_PATH = Pattern.compile("/(reel|reels|p|stories)/([^/]+)");
+    private static final Pattern TIKTOK_VIDEO_PATH = Pattern.compile("^/(@[^/]+)/video/(\\d+)");
+    private static final String[] TRACKING_PARAMS = {
+        "utm_source", "utm_medium", "utm_campaign", "utm_content", "utm_term",
+        "fbclid", "gclid", "ref", "source", "igsh", "igshid", "si", "feature"
+    };
+
+    /**
+     * One canonical URL's prefetch
+     */
+    public static final class Handle {
+        public final String url;
+        public final String canonicalUrl;
+        public final String platform;
+        public final long createdAt;
+        volatile String state = STATE_QUEUED;
+        volatile int attempts = 0;
+        volatile long sentAt = 0;
+        volatile String serverStatus = null;
+        volatile String error = null;
+
+        Handle(String url, String canonicalUrl, String platform) {
+            this.url = url;
+            this.canonicalUrl = canonicalUrl;
+            this.platform = platform;
+            this.createdAt = System.currentTimeMillis();
+        }
+
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            try {
+                json.put("url", url);
+                json.put("canonicalUrl", canonicalUrl);
+                json.put("platform", platform);
+                json.put("state", state);
+                json.put("attempts", attempts);
+                json.put("createdAt", createdAt);
+                if (sentAt > 0) json.put("sentAt", sentAt);
+                if (serverStatus != null) json.put("serverStatus", serverStatus);
+                if (error != null) json.put("error", error);
+            } catch (Exception e) {
+                // Plain values only
+            }
+            return json;
+        }
+    }
+
+    // Two threads: a burst of shares doesn't queue behind one slow request
+    private static final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2);
+    // Canonical URL -> handle, oldest first
+    private static final Map<String, Handle> handles = new LinkedHashMap<>();
+
+    static {
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private UrlPrefetcher() {}
+
+    /**
+     * Start (or join) a prefetch for the first supported link in text
+     *
+     * @return the handle, or null when the text has no supported link
+     */
+    public static Handle prefetch(Context context, String text) {
+        String url = findSupportedUrl(text);
+        if (url == null) return null;
+        String canonical = canonicalize(url);
+        String platform = platformOf(url);
+
+        synchronized (handles) {
+            prune();
+            Handle existing = handles.get(canonical);
+            if (existing != null && !STATE_FAILED.equals(existing.state)) {
+                Log.d(TAG, "Already prefetching " + canonical + " (" + existing.state + ")");
+                return existing;
+            }
+
+            Handle handle = new Handle(url, canonical, platform);
+            handles.remove(canonical);
+            handles.put(canonical, handle);
+            while (handles.size() > MAX_TRACKED) {
+                Iterator<String> oldest = handles.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+
+            Context appContext = context.getApplicationContext();
+            executor.execute(() -> send(appContext, handle));
+            Log.d(TAG, "Prefetching " + platform + " link " + canonical);
+            return handle;
+        }
+    }
+
+    /**
+     * The tracked prefetch for a link (any variant of it), or null
+     */
+    public static Handle find(String text) {
+        String url = findSupportedUrl(text);
+        if (url == null) return null;
+        synchronized (handles) {
+            prune();
+            return handles.get(canonicalize(url));
+        }
+    }
+
+    /**
+     * Ask the server how far extraction has got, then run done (on the pool)
+     */
+    public static void refreshServerStatus(Context context, Handle handle, Runnable done) {
+        Context appContext = context.getApplicationContext();
+        executor.execute(() -> {
+            try {
+                NativeHttp.Response response = NativeHttp.get(appContext,
+                    "/api/parse-url/prefetch-status?url=" + Uri.encode(handle.canonicalUrl));
+                if (response.isSuccessful()) {
+                    handle.serverStatus = response.json().optString("status", null);
+                }
+            } catch (Exception e) {
+                Log.d(TAG, "Prefetch status check failed: " + e.getMessage());
+            }
+            done.run();
+        });
+    }
+
+    private static void send(Context context, Handle handle) {
+        handle.attempts++;
+        try {
+            String body = new JsonBuilder(handle.canonicalUrl.length() + 16)
+                .beginObject().name("url").value(handle.canonicalUrl).endObject().toString();
+            NativeHttp.Response response = NativeHttp.request(context, "POST", "/api/parse-url/prefetch",
+                body.getBytes("UTF-8"), new NativeHttp.Options().timeouts(5000, 5000));
+
+            if (response.isSuccessful()) {
+                handle.state = STATE_SENT;
+                handle.sentAt = System.currentTimeMillis();
+                handle.serverStatus = response.json().optString("status", null);
+                Log.d(TAG, "Prefetch accepted for " + handle.canonicalUrl + ": " + handle.serverStatus);
+                return;
+            }
+            if (response.code >= 400 && response.code < 500 && response.code != 408 && response.code != 429) {
+                handle.state = STATE_FAILED;
+                handle.error = "HTTP " + response.code;
+                return;
+            }
+            handle.error = "HTTP " + response.code;
+        } catch (Exception e) {
+            handle.error = e.getMessage();
+        }
+
+        if (handle.attempts >= MAX_ATTEMPTS) {
+            Log.w(TAG, "Prefetch gave up for " + handle.canonicalUrl + ": " + handle.error);
+            handle.state = STATE_FAILED;
+            return;
+        }
+        handle.state = STATE_RETRYING;
+        long delay = RETRY_DELAYS_MS[Math.min(handle.attempts - 1, RETRY_DELAYS_MS.length - 1)];
+        executor.schedule(() -> send(context, handle), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static void prune() {
+        long cutoff = System.currentTimeMillis() - RECENT_MS;
+        Iterator<Handle> it = handles.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().createdAt < cutoff) it.remove();
+        }
+    }
+
+    /**
+     * First link in text on a platform the server can extract
+     */
+    static String findSupportedUrl(String text) {
+        if (text == null) return null;
+        Matcher matcher = URL_PATTERN.matcher(text);
+        while (matcher.find()) {
+            // Shared text often ends the link with punctuation
+            String url = matcher.group().replaceAll("[).,!?'\\]]+$", "");
+            if (platformOf(url) != null) return url;
+        }
+        return null;
+    }
+
+    static String platformOf(String url) {
+        URI uri = parse(url);
+        if (uri == null) return null;
+        String host = host(uri);
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+
+        if (host.equals("instagram.com") || host.endsWith(".instagram.com")) {
+            return INSTAGRAM_PATH.matcher(path).find() ? PLATFORM_INSTAGRAM : null;
+        }
+        if (host.equals("tiktok.com") || host.endsWith(".tiktok.com")) {
+            // Video pages and share short links (vm.tiktok.com/..., tiktok.com/t/...)
+            return TIKTOK_VIDEO_PATH.matcher(path).find() || host.startsWith("vm.") || host.startsWith("vt.")
+                || path.startsWith("/t/") ? PLATFORM_TIKTOK : null;
+        }
+        if (host.equals("youtu.be")) {
+            return path.length() > 1 ? PLATFORM_YOUTUBE : null;
+        }
+        if (host.equals("youtube.com") || host.endsWith(".youtube.com")) {
+            return queryParameter(uri, "v") != null || path.contains("/shorts/") ? PLATFORM_YOUTUBE : null;
+        }
+        return null;
+    }
+
+    /**
+     * Same keys as the server's normalizeUrlForCache (server/utils/urlCacheKey.ts),
+     * so every variant of a link maps to one cache entry. Short links are kept
+     * as they are; the server resolves those. Unparseable URLs come back unchanged.
+     */
+    static String canonicalize(String url) {
+        URI uri = parse(url);
+        if (uri == null) return url;
+        String host = host(uri);
+        String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+
+        if (host.contains("instagram.com")) {
+            Matcher m = INSTAGRAM_KEY_PATH.matcher(path);
+            if (m.find()) {
+                String kind = m.group(1).equals("reels") ? "reel" : m.group(1);
+                return "https://www.instagram.com/" + kind + "/" + m.group(2) + "/";
+            }
+        }
+        if (host.contains("tiktok.com")) {
+            Matcher m = TIKTOK_VIDEO_PATH.matcher(path);
+            if (m.find()) {
+                return "https://www.tiktok.com/" + m.group(1) + "/video/" + m.group(2);
+            }
+        }
+        if (host.contains("youtube.com") || host.contains("youtu.be")) {
+            String videoId;
+            if (host.contains("youtu.be")) {
+                videoId = path.length() > 1 ? path.substring(1).split("/")[0] : null;
+            } else if (path.contains("/shorts/")) {
+                videoId = path.substring(path.indexOf("/shorts/") + "/shorts/".length()).split("/")[0];
+            } else {
+                videoId = queryParameter(uri, "v");
+            }
+            if (videoId != null && !videoId.isEmpty()) {
+                return "https://www.youtube.com/watch?v=" + videoId;
+            }
+        }
+
+        // Anything else: drop tracking parameters and the fragment
+        StringBuilder query = new StringBuilder();
+        if (uri.getRawQuery() != null) {
+            for (String pair : uri.getRawQuery().split("&")) {
+                if (pair.isEmpty() || isTrackingParam(pair.split("=", 2)[0])) continue;
+                if (query.length() > 0) query.append('&');
+                query.append(pair);
+            }
+        }
+        StringBuilder canonical = new StringBuilder()
+            .append(uri.getScheme().toLowerCase(Locale.US))
+            .append("://")
+            .append(uri.getRawAuthority().toLowerCase(Locale.US))
+            .append(path.isEmpty() ? "/" : path);
+        if (query.length() > 0) canonical.append('?').append(query);
+        return canonical.toString();
+    }
+
+    private static URI parse(String url) {
+        try {
+            URI uri = new URI(url);
+            return uri.getScheme() != null && uri.getRawAuthority() != null ? uri : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String host(URI uri) {
+        return uri.getHost() != null ? uri.getHost().toLowerCase(Locale.US) : "";
+    }
+
+    private static String queryParameter(URI uri, String name) {
+        if (uri.getRawQuery() == null) return null;
+        for (String pair : uri.getRawQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            if (parts[0].equals(name)) return parts.length > 1 ? parts[1] : "";
+        }
+        return null;
+    }
+
+    private static boolean isTrackingParam(String name) {
+        for (String param : TRACKING_PARAMS) {
+            if (param.equals(name)) return true;
+        }
+        return false;
+    }
+}
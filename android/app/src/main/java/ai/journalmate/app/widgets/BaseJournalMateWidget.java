@@ -8,19 +8,23 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.widget.RemoteViews;
 import android.util.Log;
+import android.graphics.Bitmap;
+import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.View;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import ai.journalmate.app.MainActivity;
+import ai.journalmate.app.NativeHttp;
+import ai.journalmate.app.ProgressBitmapRenderer;
 import ai.journalmate.app.R;
 
 /**
@@ -33,7 +37,6 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
 
     private static final String TAG = "JournalMateWidget";
     private static final String PREFS_NAME = "journalmate_widget";
-    private static final String API_BASE_URL = "https://journalmate.ai";
     private static final ExecutorService executor = Executors.newSingleThreadExecutor();
     private static final Handler mainHandler = new Handler(Looper.getMainLooper());
 
@@ -43,6 +46,32 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
      */
     protected abstract int getLayoutId();
 
+    /**
+     * Whether this widget size has room for today's task rows.
+     * Sizes that return true must include the widget_task_* views in their layout.
+     */
+    protected boolean showsTaskList() {
+        return false;
+    }
+
+    /**
+     * Whether this widget size shows today's ring and the 7-day sparkline.
+     * Sizes that return true must include widget_trend_row in their layout.
+     */
+    protected boolean showsProgressVisuals() {
+        return false;
+    }
+
+    private static final int[] TASK_ROW_IDS = {
+        R.id.widget_task_row_1, R.id.widget_task_row_2, R.id.widget_task_row_3
+    };
+    private static final int[] TASK_CHECK_IDS = {
+        R.id.widget_task_check_1, R.id.widget_task_check_2, R.id.widget_task_check_3
+    };
+    private static final int[] TASK_TITLE_IDS = {
+        R.id.widget_task_title_1, R.id.widget_task_title_2, R.id.widget_task_title_3
+    };
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
         for (int appWidgetId : appWidgetIds) {
@@ -69,6 +98,8 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
         updateWidgetViews(context, views,
             streak, totalCompleted,
             plansComplete, completionRate);
+        bindTaskRows(context, views);
+        bindProgressVisuals(context, views);
 
         // Set click listener to open app at Progress Dashboard
         Intent intent = new Intent(context, MainActivity.class);
@@ -88,7 +119,10 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
         // This prevents unnecessary API calls when app updates cache directly
         long cacheAge = System.currentTimeMillis() - lastFetchTime;
         long fiveMinutes = 5 * 60 * 1000;
-        if (cacheAge > fiveMinutes) {
+        if (WidgetSnapshot.hasPendingCompletions(context)) {
+            // Server doesn't have the widget completions yet - a fetch now would roll the counts back
+            Log.d(TAG, "Completions pending, keeping optimistic data");
+        } else if (cacheAge > fiveMinutes) {
             Log.d(TAG, "Cache is " + (cacheAge / 1000) + "s old, fetching fresh data from API");
             fetchWidgetData(context, appWidgetManager, appWidgetId);
         } else {
@@ -108,6 +142,90 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
         views.setTextViewText(R.id.widget_notifications_count, completionRate + "%");
     }
 
+    /**
+     * Bind today's progress ring and the 7-day sparkline as cached bitmaps
+     */
+    protected void bindProgressVisuals(Context context, RemoteViews views) {
+        if (!showsProgressVisuals()) return;
+
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        int tasksCompleted = prefs.getInt("tasksCompleted", 0);
+        int tasksTotal = prefs.getInt("tasksTotal", 0);
+        int[] weekly = WidgetSnapshot.getWeeklyCompleted(context);
+
+        if (tasksTotal <= 0 && weekly == null) {
+            views.setViewVisibility(R.id.widget_trend_row, View.GONE);
+            return;
+        }
+        views.setViewVisibility(R.id.widget_trend_row, View.VISIBLE);
+
+        int percent = tasksTotal > 0 ? (tasksCompleted * 100) / tasksTotal : 0;
+        views.setImageViewBitmap(R.id.widget_progress_ring, ProgressBitmapRenderer.progressRing(
+            context, 32, percent, ProgressBitmapRenderer.THEME_DARK));
+
+        Bitmap sparkline = ProgressBitmapRenderer.sparkline(
+            context, 160, 28, weekly, ProgressBitmapRenderer.THEME_DARK);
+        if (sparkline != null) {
+            views.setImageViewBitmap(R.id.widget_sparkline, sparkline);
+            views.setViewVisibility(R.id.widget_sparkline, View.VISIBLE);
+        } else {
+            views.setViewVisibility(R.id.widget_sparkline, View.GONE);
+        }
+    }
+
+    /**
+     * Bind today's tasks from the local snapshot. Tapping the circle completes
+     * the task through WidgetTaskActionReceiver; tapping the title opens it.
+     */
+    protected void bindTaskRows(Context context, RemoteViews views) {
+        if (!showsTaskList()) return;
+
+        List<WidgetSnapshot.Task> tasks = WidgetSnapshot.getTasks(context);
+        if (tasks.isEmpty()) {
+            views.setViewVisibility(R.id.widget_task_list, View.GONE);
+            return;
+        }
+        views.setViewVisibility(R.id.widget_task_list, View.VISIBLE);
+
+        for (int i = 0; i < TASK_ROW_IDS.length; i++) {
+            if (i >= tasks.size()) {
+                views.setViewVisibility(TASK_ROW_IDS[i], View.GONE);
+                continue;
+            }
+
+            WidgetSnapshot.Task task = tasks.get(i);
+            views.setViewVisibility(TASK_ROW_IDS[i], View.VISIBLE);
+            views.setTextViewText(TASK_CHECK_IDS[i], task.completed ? "\u2713" : "\u25CB");
+            views.setTextViewText(TASK_TITLE_IDS[i], task.title);
+
+            if (!task.completed) {
+                // Unique data URI so each task gets its own PendingIntent
+                Intent completeIntent = new Intent(context, WidgetTaskActionReceiver.class);
+                completeIntent.setAction(WidgetTaskActionReceiver.ACTION_COMPLETE_TASK);
+                completeIntent.setData(Uri.parse("journalmate-widget://task/" + Uri.encode(task.id)));
+                completeIntent.putExtra(WidgetTaskActionReceiver.EXTRA_TASK_ID, task.id);
+                PendingIntent completePendingIntent = PendingIntent.getBroadcast(
+                    context, task.id.hashCode(), completeIntent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                );
+                views.setOnClickPendingIntent(TASK_CHECK_IDS[i], completePendingIntent);
+            } else {
+                views.setOnClickPendingIntent(TASK_CHECK_IDS[i], null);
+            }
+
+            Intent openIntent = new Intent(context, MainActivity.class);
+            openIntent.setAction("VIEW_TASK");
+            openIntent.setData(Uri.parse("journalmate-widget://open/" + Uri.encode(task.id)));
+            openIntent.putExtra("taskId", task.id);
+            openIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            PendingIntent openPendingIntent = PendingIntent.getActivity(
+                context, task.id.hashCode(), openIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+            );
+            views.setOnClickPendingIntent(TASK_TITLE_IDS[i], openPendingIntent);
+        }
+    }
+
     protected void fetchWidgetData(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
         SharedPreferences prefs = context.getSharedPreferences("CapacitorStorage", Context.MODE_PRIVATE);
 
@@ -133,55 +251,55 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
 
         executor.execute(() -> {
             try {
-                URL url = new URL(API_BASE_URL + "/api/tasks/widget");
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-
+                // Only ask for what the placed widget sizes actually render
+                Set<String> fields = WidgetFields.fieldsForFetch(context, getClass());
+                long statsSequence = WidgetSnapshot.statsSequence(context);
+                long tasksSequence = WidgetSnapshot.tasksSequence(context);
+                NativeHttp.Options options = new NativeHttp.Options();
                 // Use authToken if available (preferred), otherwise use userId
                 if (finalAuthToken != null) {
-                    conn.setRequestProperty("Authorization", "Bearer " + finalAuthToken);
+                    options.header("Authorization", "Bearer " + finalAuthToken);
                     Log.d(TAG, "Using auth token for widget API");
                 } else if (finalUserId != null) {
-                    conn.setRequestProperty("X-User-ID", finalUserId);
+                    options.header("X-User-ID", finalUserId);
                     Log.d(TAG, "Using user ID for widget API");
                 }
+                // Full URL: this request carries the widget's own credentials,
+                // so NativeHttp must not attach the app's token on top
+                NativeHttp.Response response = NativeHttp.get(context,
+                    NativeHttp.BASE_URL + "/api/tasks/widget?fields=" + WidgetFields.toQueryParam(fields), options);
 
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
-
-                int responseCode = conn.getResponseCode();
+                int responseCode = response.code;
                 if (responseCode == 200) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
+                    JSONObject json = response.json();
+
+                    // Cache only the projected fields the server returned -
+                    // anything else in the cache is left as it was. Skipped when
+                    // a push or local write landed while the request was out.
+                    SharedPreferences widgetPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                    SharedPreferences.Editor editor = widgetPrefs.edit();
+                    if (WidgetSnapshot.acceptFetchedStats(context, statsSequence)) {
+                        for (String field : fields) {
+                            if (json.has(field) && !(json.opt(field) instanceof JSONArray)) {
+                                editor.putInt(field, json.optInt(field, 0));
+                            }
+                        }
                     }
-                    reader.close();
+                    editor.putLong("lastFetchTime", System.currentTimeMillis()).apply();
 
-                    JSONObject json = new JSONObject(response.toString());
+                    if (fields.contains(WidgetFields.TASKS)) {
+                        WidgetSnapshot.saveFetchedTasks(context, json.optJSONArray(WidgetFields.TASKS), tasksSequence);
+                    }
+                    if (fields.contains(WidgetFields.WEEKLY_COMPLETED)) {
+                        WidgetSnapshot.saveWeeklyCompleted(context, json.optJSONArray(WidgetFields.WEEKLY_COMPLETED));
+                    }
+                    WidgetSnapshot.retainFields(context, fields);
 
                     // Parse API response - matches Reports page summary cards
-                    int tasksCompleted = json.optInt("tasksCompleted", 0);
-                    int tasksTotal = json.optInt("tasksTotal", 0);
-                    int streak = json.optInt("streak", 0);
-                    int totalCompleted = json.optInt("totalCompleted", 0);
-                    int completionRate = json.optInt("completionRate", 0);
-                    int plansComplete = json.optInt("plansComplete", 0);
-                    int totalPlans = json.optInt("totalPlans", 0);
-
-                    // Cache the data
-                    SharedPreferences widgetPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-                    widgetPrefs.edit()
-                        .putInt("tasksCompleted", tasksCompleted)
-                        .putInt("tasksTotal", tasksTotal)
-                        .putInt("streak", streak)
-                        .putInt("totalCompleted", totalCompleted)
-                        .putInt("completionRate", completionRate)
-                        .putInt("plansComplete", plansComplete)
-                        .putInt("totalPlans", totalPlans)
-                        .putLong("lastFetchTime", System.currentTimeMillis())
-                        .apply();
+                    int streak = widgetPrefs.getInt("streak", 0);
+                    int totalCompleted = widgetPrefs.getInt("totalCompleted", 0);
+                    int completionRate = widgetPrefs.getInt("completionRate", 0);
+                    int plansComplete = widgetPrefs.getInt("plansComplete", 0);
 
                     // Update widget on main thread
                     mainHandler.post(() -> {
@@ -189,6 +307,8 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
                         updateWidgetViews(context, views,
                             streak, totalCompleted,
                             plansComplete, completionRate);
+                        bindTaskRows(context, views);
+                        bindProgressVisuals(context, views);
 
                         // Re-set click listener to open Progress Dashboard
                         Intent intent = new Intent(context, MainActivity.class);
@@ -208,7 +328,6 @@ public abstract class BaseJournalMateWidget extends AppWidgetProvider {
                 } else {
                     Log.e(TAG, "API returned error: " + responseCode);
                 }
-                conn.disconnect();
             } catch (Exception e) {
                 Log.e(TAG, "Failed to fetch widget data: " + e.getMessage());
             }
@@ -5,7 +5,9 @@ import ai.journalmate.app.R;
 /**
  * 4x2 Large Widget - Dark navy design with cards.
  * Shows header with logo + "JournalMate" text, followed by 4 data cards
- * for Goals, Tasks, Activities, Groups.
+ * for Goals, Tasks, Activities, Groups, today's progress ring with a 7-day
+ * sparkline, and up to 3 of today's tasks that can be completed straight
+ * from the home screen.
  */
 public class JournalMateWidget4x2 extends BaseJournalMateWidget {
 
@@ -13,4 +15,14 @@ public class JournalMateWidget4x2 extends BaseJournalMateWidget {
     protected int getLayoutId() {
         return R.layout.widget_4x2_large;
     }
+
+    @Override
+    protected boolean showsProgressVisuals() {
+        return true;
+    }
+
+    @Override
+    protected boolean showsTaskList() {
+        return true;
+    }
 }
@@ -0,0 +1,93 @@
+package ai.journalmate.app.widgets;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.text.TextUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Which widget data fields each widget size renders.
+ *
+ * Fetches and the local snapshot only deal with the union of the fields for
+ * the sizes actually placed on the home screen, so a user with just a compact
+ * widget never downloads or stores the large widget's task list and trend.
+ */
+public final class WidgetFields {
+    public static final String TASKS = "tasks";
+    public static final String WEEKLY_COMPLETED = "weeklyCompleted";
+
+    // The four summary cards every size shows (Reports page metrics)
+    private static final String[] SUMMARY_FIELDS = {
+        "streak", "totalCompleted", "plansComplete", "completionRate"
+    };
+
+    // 4x2 adds today's ring (tasksCompleted/tasksTotal), task rows and the sparkline
+    private static final String[] LARGE_FIELDS = {
+        "streak", "totalCompleted", "plansComplete", "completionRate",
+        "tasksCompleted", "tasksTotal", TASKS, WEEKLY_COMPLETED
+    };
+
+    private static final Map<Class<?>, String[]> FIELDS_BY_WIDGET = new HashMap<>();
+    static {
+        FIELDS_BY_WIDGET.put(JournalMateWidget2x1.class, SUMMARY_FIELDS);
+        FIELDS_BY_WIDGET.put(JournalMateWidget2x2.class, SUMMARY_FIELDS);
+        FIELDS_BY_WIDGET.put(JournalMateWidget4x1.class, SUMMARY_FIELDS);
+        FIELDS_BY_WIDGET.put(JournalMateWidget4x2.class, LARGE_FIELDS);
+    }
+
+    private WidgetFields() {}
+
+    /**
+     * Fields needed by the widgets currently placed (empty if there are none)
+     */
+    public static Set<String> placedFields(Context context) {
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        Set<String> fields = new TreeSet<>();
+
+        for (Class<?> widgetClass : WidgetUpdater.WIDGET_CLASSES) {
+            int[] ids = manager.getAppWidgetIds(new ComponentName(context, widgetClass));
+            if (ids.length > 0) {
+                fields.addAll(Arrays.asList(FIELDS_BY_WIDGET.get(widgetClass)));
+            }
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Fields for a fetch triggered by a widget of the given class - the placed
+     * union, or that widget's own fields if the host hasn't reported it yet
+     */
+    static Set<String> fieldsForFetch(Context context, Class<?> widgetClass) {
+        Set<String> fields = new TreeSet<>(placedFields(context));
+        String[] own = FIELDS_BY_WIDGET.get(widgetClass);
+        if (own != null) {
+            fields.addAll(Arrays.asList(own));
+        }
+        return fields;
+    }
+
+    /**
+     * Whether any placed widget shows today's task rows
+     */
+    public static boolean needsTasks(Context context) {
+        return placedFields(context).contains(TASKS);
+    }
+
+    /**
+     * Whether any placed widget shows the 7-day sparkline
+     */
+    public static boolean needsWeeklyTrend(Context context) {
+        return placedFields(context).contains(WEEKLY_COMPLETED);
+    }
+
+    static String toQueryParam(Set<String> fields) {
+        return TextUtils.join(",", fields);
+    }
+}
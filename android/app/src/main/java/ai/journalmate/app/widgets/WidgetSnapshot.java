@@ -0,0 +1,424 @@
+package ai.journalmate.app.widgets;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local snapshot of the data the home screen widgets render.
+ *
+ * Lives in the same "journalmate_widget" prefs the widgets already read their
+ * stats from, and adds today's task list plus the set of task completions made
+ * from the widget that the server has not confirmed yet. Those completions are
+ * applied optimistically and re-applied whenever a fresh task list is saved, so
+ * a sync that lands before the queued mutation cannot un-check a task.
+ *
+ * Ordering never compares device time with server time. Server pushes are
+ * ordered by their server-issued version alone. Stats and the task list
+ * each also carry a local write sequence that every write bumps (push, app
+ * bridge, optimistic completion, confirmation). A widget or background fetch
+ * reads the sequence before its request and its response is kept only if
+ * nothing was written in the meantime, so a snapshot computed before a local
+ * change can't overwrite it.
+ */
+public final class WidgetSnapshot {
+    private static final String TAG = "WidgetSnapshot";
+    static final String PREFS_NAME = "journalmate_widget";
+    private static final String KEY_TASKS = "tasks";
+    private static final String KEY_PENDING_COMPLETIONS = "pendingCompletions";
+    // Highest server-issued push version applied
+    private static final String KEY_PUSH_VERSION = "statsPushVersion";
+    // Local write sequences, only ever compared with themselves
+    private static final String KEY_STATS_SEQUENCE = "statsSequence";
+    private static final String KEY_TASKS_SEQUENCE = "tasksSequence";
+    private static final String KEY_WEEKLY_COMPLETED = "weeklyCompleted";
+
+    // Integer stats a server push may carry - same keys the widgets and updateWidgetData use
+    private static final String[] PUSHED_STAT_KEYS = {
+        "streak", "totalCompleted", "completionRate", "plansComplete", "totalPlans",
+        "tasksCompleted", "tasksTotal", "unreadNotifications"
+    };
+
+    // Counters an optimistic completion bumps - a push computed before the queued
+    // completion reached the server would roll them back
+    private static final String[] OPTIMISTIC_STAT_KEYS = {"tasksCompleted", "totalCompleted"};
+
+    // Widgets show at most 3 rows, keep a few spare so completing one promotes the next
+    private static final int MAX_STORED_TASKS = 8;
+
+    private WidgetSnapshot() {}
+
+    /**
+     * A single task row as shown on the widget
+     */
+    public static class Task {
+        public final String id;
+        public final String title;
+        public final boolean completed;
+
+        Task(String id, String title, boolean completed) {
+            this.id = id;
+            this.title = title;
+            this.completed = completed;
+        }
+    }
+
+    /**
+     * Get today's tasks, incomplete ones first
+     */
+    public static synchronized List<Task> getTasks(Context context) {
+        List<Task> open = new ArrayList<>();
+        List<Task> done = new ArrayList<>();
+        try {
+            String json = prefs(context).getString(KEY_TASKS, null);
+            if (json == null) return open;
+
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject obj = array.getJSONObject(i);
+                Task task = new Task(
+                    obj.optString("id", ""),
+                    obj.optString("title", "Task"),
+                    obj.optBoolean("completed", false)
+                );
+                if (task.id.isEmpty()) continue;
+                (task.completed ? done : open).add(task);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read task snapshot: " + e.getMessage());
+        }
+        open.addAll(done);
+        return open;
+    }
+
+    /**
+     * Write sequence of the task list; read it before a fetch and hand it to
+     * saveFetchedTasks with the response
+     */
+    public static synchronized long tasksSequence(Context context) {
+        return prefs(context).getLong(KEY_TASKS_SEQUENCE, 0);
+    }
+
+    /**
+     * Replace the task list with one written locally (the JS bridge)
+     */
+    public static synchronized void saveTasks(Context context, JSONArray tasks) {
+        writeTasks(context, tasks);
+    }
+
+    /**
+     * Replace the task list with a fetched snapshot, unless the list was
+     * written after the fetch read tasksSequence. Completions still waiting
+     * for server confirmation are re-applied.
+     */
+    public static synchronized void saveFetchedTasks(Context context, JSONArray tasks, long sequence) {
+        long current = tasksSequence(context);
+        if (sequence != current) {
+            Log.d(TAG, "Ignoring fetched task list (written since: " + sequence + " -> " + current + ")");
+            return;
+        }
+        writeTasks(context, tasks);
+    }
+
+    private static void writeTasks(Context context, JSONArray tasks) {
+        if (tasks == null) return;
+
+        try {
+            Set<String> pending = getPendingCompletions(context);
+            JSONArray stored = new JSONArray();
+            for (int i = 0; i < tasks.length() && stored.length() < MAX_STORED_TASKS; i++) {
+                JSONObject src = tasks.optJSONObject(i);
+                if (src == null) continue;
+
+                String id = src.optString("id", "");
+                if (id.isEmpty()) continue;
+
+                JSONObject task = new JSONObject();
+                task.put("id", id);
+                task.put("title", src.optString("title", "Task"));
+                task.put("completed", src.optBoolean("completed", false) || pending.contains(id));
+                stored.put(task);
+            }
+
+            prefs(context).edit()
+                .putString(KEY_TASKS, stored.toString())
+                .putLong(KEY_TASKS_SEQUENCE, tasksSequence(context) + 1)
+                .apply();
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to save task snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply stats pushed by the server (FCM widget_update) with last-writer-wins
+     * by version. Versions are server-assigned and monotonic per user and are
+     * only compared with each other, so a push delivered late or twice can never
+     * overwrite newer numbers. Only keys present in the payload are
+     * written, minus the counters widget completions still in flight have bumped;
+     * the stats cache is marked fresh so widgets do not follow the push with
+     * their own fetch.
+     *
+     * @return true if the update was newer than the cached stats and was applied
+     */
+    public static synchronized boolean applyStatsUpdate(Context context, long version, Map<String, String> stats) {
+        SharedPreferences prefs = prefs(context);
+        long currentVersion = prefs.getLong(KEY_PUSH_VERSION, 0);
+        if (version <= currentVersion) {
+            Log.d(TAG, "Ignoring stale stats update v" + version + " (have v" + currentVersion + ")");
+            return false;
+        }
+
+        boolean completionsPending = !getPendingCompletions(context).isEmpty();
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String key : PUSHED_STAT_KEYS) {
+            String value = stats.get(key);
+            if (value == null || (completionsPending && isOptimisticStat(key))) continue;
+            try {
+                editor.putInt(key, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Bad value for " + key + ": " + value);
+            }
+        }
+        String weekly = stats.get(KEY_WEEKLY_COMPLETED);
+        if (weekly != null) {
+            editor.putString(KEY_WEEKLY_COMPLETED, weekly);
+        }
+        editor.putLong(KEY_PUSH_VERSION, version)
+            .putLong(KEY_STATS_SEQUENCE, statsSequence(context) + 1)
+            .putLong("lastFetchTime", System.currentTimeMillis())
+            .apply();
+
+        Log.d(TAG, "Applied stats update v" + version);
+        return true;
+    }
+
+    /**
+     * Write sequence of the stats; read it before a fetch and hand it to
+     * acceptFetchedStats with the response
+     */
+    public static synchronized long statsSequence(Context context) {
+        return prefs(context).getLong(KEY_STATS_SEQUENCE, 0);
+    }
+
+    /**
+     * Record a local write of the stats (app bridge) so fetches already in
+     * flight are dropped
+     */
+    public static synchronized void markStatsWritten(Context context) {
+        prefs(context).edit().putLong(KEY_STATS_SEQUENCE, statsSequence(context) + 1).apply();
+    }
+
+    /**
+     * Whether stats fetched after reading statsSequence may be written, i.e.
+     * nothing was written since. Counts as a write when they may.
+     */
+    public static synchronized boolean acceptFetchedStats(Context context, long sequence) {
+        long current = statsSequence(context);
+        if (sequence != current) {
+            Log.d(TAG, "Ignoring fetched stats (written since: " + sequence + " -> " + current + ")");
+            return false;
+        }
+        markStatsWritten(context);
+        return true;
+    }
+
+    /**
+     * Store completions per day for the last 7 days (oldest first)
+     */
+    public static synchronized void saveWeeklyCompleted(Context context, JSONArray days) {
+        if (days == null) return;
+
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < days.length(); i++) {
+            if (i > 0) csv.append(',');
+            csv.append(days.optInt(i, 0));
+        }
+        prefs(context).edit().putString(KEY_WEEKLY_COMPLETED, csv.toString()).apply();
+    }
+
+    /**
+     * Completions per day for the last 7 days, or null if never provided
+     */
+    public static synchronized int[] getWeeklyCompleted(Context context) {
+        String csv = prefs(context).getString(KEY_WEEKLY_COMPLETED, null);
+        if (csv == null || csv.isEmpty()) return null;
+
+        String[] parts = csv.split(",");
+        int[] values = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return values.length >= 2 ? values : null;
+    }
+
+    /**
+     * Drop stored lists no placed widget renders any more (e.g. after the large
+     * widget is removed). Tasks are kept while completions are still queued.
+     */
+    public static synchronized void retainFields(Context context, Set<String> fields) {
+        SharedPreferences.Editor editor = prefs(context).edit();
+        if (!fields.contains(KEY_TASKS) && getPendingCompletions(context).isEmpty()) {
+            editor.remove(KEY_TASKS);
+        }
+        if (!fields.contains(KEY_WEEKLY_COMPLETED)) {
+            editor.remove(KEY_WEEKLY_COMPLETED);
+        }
+        editor.apply();
+    }
+
+    /**
+     * Optimistically mark a task completed and bump today's counters.
+     *
+     * @return false if the task was unknown or already completed
+     */
+    public static synchronized boolean markCompletedLocally(Context context, String taskId) {
+        if (!setTaskCompleted(context, taskId, true)) {
+            return false;
+        }
+
+        SharedPreferences prefs = prefs(context);
+        Set<String> pending = getPendingCompletions(context);
+        pending.add(taskId);
+
+        int tasksTotal = prefs.getInt("tasksTotal", 0);
+        int tasksCompleted = prefs.getInt("tasksCompleted", 0) + 1;
+        prefs.edit()
+            .putStringSet(KEY_PENDING_COMPLETIONS, pending)
+            .putInt("tasksCompleted", tasksTotal > 0 ? Math.min(tasksCompleted, tasksTotal) : tasksCompleted)
+            .putInt("totalCompleted", prefs.getInt("totalCompleted", 0) + 1)
+            .putLong(KEY_STATS_SEQUENCE, statsSequence(context) + 1)
+            .apply();
+
+        Log.d(TAG, "Task completed locally: " + taskId + " (" + pending.size() + " pending)");
+        return true;
+    }
+
+    /**
+     * A task was completed on another device (realtime event). Ticks the row
+     * if it is shown and today's counters, and expires the stats cache so
+     * streak and rate come from the server on the next update. Counters move
+     * even when no row (or no snapshot) has the task - the caller drops
+     * repeated events.
+     *
+     * @return false if the completion was already reflected locally
+     */
+    public static synchronized boolean applyRemoteCompletion(Context context, String taskId) {
+        if (getPendingCompletions(context).contains(taskId) || isTaskCompleted(context, taskId)) {
+            return false;
+        }
+        setTaskCompleted(context, taskId, true);
+
+        SharedPreferences prefs = prefs(context);
+        int tasksTotal = prefs.getInt("tasksTotal", 0);
+        int tasksCompleted = prefs.getInt("tasksCompleted", 0) + 1;
+        prefs.edit()
+            .putInt("tasksCompleted", tasksTotal > 0 ? Math.min(tasksCompleted, tasksTotal) : tasksCompleted)
+            .putInt("totalCompleted", prefs.getInt("totalCompleted", 0) + 1)
+            .putLong("lastFetchTime", 0)
+            .apply();
+        return true;
+    }
+
+    /**
+     * The server accepted the completion. Expire the stats cache so the next
+     * widget update pulls server-computed streak and rate.
+     */
+    public static synchronized void confirmCompletion(Context context, String taskId) {
+        Set<String> pending = getPendingCompletions(context);
+        pending.remove(taskId);
+        // A snapshot requested before this point may predate the completion
+        prefs(context).edit()
+            .putStringSet(KEY_PENDING_COMPLETIONS, pending)
+            .putLong(KEY_TASKS_SEQUENCE, tasksSequence(context) + 1)
+            .putLong("lastFetchTime", 0)
+            .apply();
+    }
+
+    /**
+     * The server rejected the completion permanently - undo the optimistic update
+     */
+    public static synchronized void revertCompletion(Context context, String taskId) {
+        Set<String> pending = getPendingCompletions(context);
+        if (!pending.remove(taskId)) return;
+
+        setTaskCompleted(context, taskId, false);
+
+        SharedPreferences prefs = prefs(context);
+        prefs.edit()
+            .putStringSet(KEY_PENDING_COMPLETIONS, pending)
+            .putInt("tasksCompleted", Math.max(0, prefs.getInt("tasksCompleted", 0) - 1))
+            .putInt("totalCompleted", Math.max(0, prefs.getInt("totalCompleted", 0) - 1))
+            .apply();
+
+        Log.w(TAG, "Reverted local completion: " + taskId);
+    }
+
+    /**
+     * True while widget completions are queued but not yet on the server.
+     * A stats fetch in this window would briefly roll the counters back.
+     */
+    public static synchronized boolean hasPendingCompletions(Context context) {
+        return !getPendingCompletions(context).isEmpty();
+    }
+
+    private static boolean isTaskCompleted(Context context, String taskId) {
+        for (Task task : getTasks(context)) {
+            if (task.id.equals(taskId)) return task.completed;
+        }
+        return false;
+    }
+
+    private static boolean setTaskCompleted(Context context, String taskId, boolean completed) {
+        try {
+            SharedPreferences prefs = prefs(context);
+            String json = prefs.getString(KEY_TASKS, null);
+            if (json == null) return false;
+
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject task = array.getJSONObject(i);
+                if (taskId.equals(task.optString("id"))) {
+                    if (task.optBoolean("completed", false) == completed) return false;
+                    task.put("completed", completed);
+                    prefs.edit()
+                        .putString(KEY_TASKS, array.toString())
+                        .putLong(KEY_TASKS_SEQUENCE, tasksSequence(context) + 1)
+                        .apply();
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to update task snapshot: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static boolean isOptimisticStat(String key) {
+        for (String optimistic : OPTIMISTIC_STAT_KEYS) {
+            if (optimistic.equals(key)) return true;
+        }
+        return false;
+    }
+
+    private static Set<String> getPendingCompletions(Context context) {
+        // Copy - the set returned by SharedPreferences must not be modified
+        return new HashSet<>(prefs(context).getStringSet(KEY_PENDING_COMPLETIONS, new HashSet<>()));
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,42 @@
+package ai.journalmate.app.widgets;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import ai.journalmate.app.TaskCompletionWorker;
+
+/**
+ * BroadcastReceiver for task row taps on the home screen widgets
+ *
+ * Completes the task in the local snapshot, re-renders the widgets right away
+ * and queues the server mutation with WorkManager. No activity or WebView is
+ * started, so completing a task from the home screen takes milliseconds.
+ */
+public class WidgetTaskActionReceiver extends BroadcastReceiver {
+    private static final String TAG = "WidgetTaskAction";
+    public static final String ACTION_COMPLETE_TASK = "ai.journalmate.app.widgets.COMPLETE_TASK";
+    public static final String EXTRA_TASK_ID = "taskId";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_COMPLETE_TASK.equals(intent.getAction())) {
+            return;
+        }
+
+        String taskId = intent.getStringExtra(EXTRA_TASK_ID);
+        if (taskId == null || taskId.isEmpty()) {
+            return;
+        }
+
+        Log.d(TAG, "Completing task from widget: " + taskId);
+
+        if (WidgetSnapshot.markCompletedLocally(context, taskId)) {
+            WidgetUpdater.refreshNow(context);
+            TaskCompletionWorker.enqueue(context, taskId);
+        } else {
+            Log.d(TAG, "Task already completed or not in snapshot: " + taskId);
+        }
+    }
+}
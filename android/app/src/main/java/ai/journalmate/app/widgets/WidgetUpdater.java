@@ -0,0 +1,69 @@
+package ai.journalmate.app.widgets;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Single entry point for re-rendering the home screen widgets.
+ *
+ * refreshNow() re-renders every placed widget immediately (used for optimistic
+ * updates from widget taps). requestRefresh() coalesces bursts - a sync, a JS
+ * update and a push arriving within the same window produce one render pass.
+ */
+public final class WidgetUpdater {
+    private static final String TAG = "WidgetUpdater";
+    private static final long COALESCE_WINDOW_MS = 300;
+
+    static final Class<?>[] WIDGET_CLASSES = {
+        JournalMateWidget2x1.class,
+        JournalMateWidget2x2.class,
+        JournalMateWidget4x1.class,
+        JournalMateWidget4x2.class
+    };
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static Context appContext;
+    private static final Runnable coalescedRefresh = () -> {
+        if (appContext != null) {
+            refreshNow(appContext);
+        }
+    };
+
+    private WidgetUpdater() {}
+
+    /**
+     * Schedule a refresh, merging with any refresh already pending
+     */
+    public static void requestRefresh(Context context) {
+        appContext = context.getApplicationContext();
+        mainHandler.removeCallbacks(coalescedRefresh);
+        mainHandler.postDelayed(coalescedRefresh, COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * Re-render all placed widgets right away
+     */
+    public static void refreshNow(Context context) {
+        mainHandler.removeCallbacks(coalescedRefresh);
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        int refreshed = 0;
+
+        for (Class<?> widgetClass : WIDGET_CLASSES) {
+            int[] ids = manager.getAppWidgetIds(new ComponentName(context, widgetClass));
+            if (ids.length > 0) {
+                Intent intent = new Intent(context, widgetClass);
+                intent.setAction(AppWidgetManager.ACTION_APPWIDGET_UPDATE);
+                intent.putExtra(AppWidgetManager.EXTRA_APPWIDGET_IDS, ids);
+                context.sendBroadcast(intent);
+                refreshed += ids.length;
+            }
+        }
+
+        Log.d(TAG, "Refreshed " + refreshed + " widgets");
+    }
+}
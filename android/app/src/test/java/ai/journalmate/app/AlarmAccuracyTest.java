@@ -0,0 +1,71 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONArray;
+import org.junit.Test;
+
+/**
+ * Drift percentiles and the lead time they give inexact alarms
+ */
+public class AlarmAccuracyTest {
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    private static InMemoryPrefs inexactSamples(long... drifts) {
+        JSONArray samples = new JSONArray();
+        for (long drift : drifts) samples.put(drift);
+        InMemoryPrefs prefs = new InMemoryPrefs();
+        prefs.edit().putString(AlarmAccuracy.STRATEGY_INEXACT, samples.toString()).apply();
+        return prefs;
+    }
+
+    @Test
+    public void sorted_ordersSamples() {
+        assertArrayEquals(new long[] {-5, 1, 3}, AlarmAccuracy.sorted(new JSONArray().put(3).put(-5).put(1)));
+    }
+
+    @Test
+    public void percentile_isNearestRank() {
+        long[] values = {10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+        assertEquals(50, AlarmAccuracy.percentile(values, 50));
+        assertEquals(90, AlarmAccuracy.percentile(values, 90));
+        assertEquals(100, AlarmAccuracy.percentile(values, 100));
+        assertEquals(10, AlarmAccuracy.percentile(values, 0));
+    }
+
+    @Test
+    public void percentile_smallSamples() {
+        assertEquals(7, AlarmAccuracy.percentile(new long[] {7}, 90));
+        assertEquals(1, AlarmAccuracy.percentile(new long[] {1, 2}, 50));
+        assertEquals(2, AlarmAccuracy.percentile(new long[] {1, 2}, 51));
+    }
+
+    @Test
+    public void inexactLead_needsEnoughSamples() {
+        long late = 10 * MINUTE_MS;
+        assertEquals(0, AlarmAccuracy.inexactLeadMs(inexactSamples(late, late, late, late)));
+        assertEquals(late, AlarmAccuracy.inexactLeadMs(inexactSamples(late, late, late, late, late)));
+    }
+
+    @Test
+    public void inexactLead_zeroWhileMedianWithinThreshold() {
+        long ok = AlarmAccuracy.DRIFT_THRESHOLD_MS;
+        assertEquals(0, AlarmAccuracy.inexactLeadMs(inexactSamples(0, ok, ok, ok, 60 * MINUTE_MS)));
+    }
+
+    @Test
+    public void inexactLead_isMedianCappedAtMax() {
+        assertEquals(4 * MINUTE_MS, AlarmAccuracy.inexactLeadMs(inexactSamples(
+            MINUTE_MS, 3 * MINUTE_MS, 4 * MINUTE_MS, 9 * MINUTE_MS, 60 * MINUTE_MS)));
+        long hour = 60 * MINUTE_MS;
+        assertEquals(AlarmAccuracy.MAX_LEAD_MS, AlarmAccuracy.inexactLeadMs(inexactSamples(hour, hour, hour, hour, hour)));
+    }
+
+    @Test
+    public void inexactLead_noSamplesOrUnreadable() {
+        assertEquals(0, AlarmAccuracy.inexactLeadMs(new InMemoryPrefs()));
+        InMemoryPrefs prefs = new InMemoryPrefs();
+        prefs.edit().putString(AlarmAccuracy.STRATEGY_INEXACT, "not json").apply();
+        assertEquals(0, AlarmAccuracy.inexactLeadMs(prefs));
+    }
+}
@@ -0,0 +1,127 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The readiness latch: pending actions, page reloads and the page-load fallback
+ */
+public class BridgeReadinessTest {
+    private static final String PAGE = "page";
+
+    private BridgeReadiness.Latch<String> latch;
+    private List<String> ran;
+
+    @Before
+    public void setUp() {
+        latch = new BridgeReadiness.Latch<>();
+        ran = new ArrayList<>();
+        latch.attach(PAGE);
+    }
+
+    private BridgeReadiness.Latch.Callback<String> record(String name) {
+        return target -> ran.add(name + "@" + target);
+    }
+
+    @Test
+    public void pendingActions_runInOrderWhenSpaSignals() {
+        latch.whenReady("route", record("route"));
+        latch.whenReady("events", record("events"));
+        assertTrue(ran.isEmpty());
+
+        latch.open(true);
+
+        assertEquals(Arrays.asList("route@page", "events@page"), ran);
+        assertTrue(latch.isReady());
+        assertTrue(latch.spaSignaled());
+        assertTrue(latch.pending.isEmpty());
+    }
+
+    @Test
+    public void sameKey_replacesPendingAction() {
+        latch.whenReady("route", record("old"));
+        latch.whenReady("route", record("new"));
+        latch.open(true);
+
+        assertEquals(Arrays.asList("new@page"), ran);
+    }
+
+    @Test
+    public void whenReady_runsImmediatelyOnceOpen() {
+        latch.open(true);
+        latch.whenReady("events", record("events"));
+
+        assertEquals(Arrays.asList("events@page"), ran);
+    }
+
+    @Test
+    public void pageStarted_closesLatchUntilNextSignal() {
+        latch.open(true);
+        latch.pageStarted();
+
+        assertFalse(latch.isReady());
+        latch.whenReady("events", record("events"));
+        assertTrue(ran.isEmpty());
+
+        latch.open(true);
+        assertEquals(Arrays.asList("events@page"), ran);
+    }
+
+    @Test
+    public void fallback_opensUnsignaledLatch() {
+        int generation = latch.pageStarted();
+        latch.whenReady("events", record("events"));
+
+        latch.fallbackDue(generation);
+
+        assertTrue(latch.isReady());
+        assertFalse(latch.spaSignaled());
+        assertEquals(Arrays.asList("events@page"), ran);
+    }
+
+    @Test
+    public void fallback_fromAnOlderPageLoadIsIgnored() {
+        int first = latch.pageStarted();
+        latch.pageStarted();
+
+        latch.fallbackDue(first);
+
+        assertFalse(latch.isReady());
+    }
+
+    @Test
+    public void fallback_afterSignalKeepsItSignaled() {
+        int generation = latch.pageStarted();
+        latch.open(true);
+        latch.fallbackDue(generation);
+
+        assertTrue(latch.spaSignaled());
+    }
+
+    @Test
+    public void detached_latchHoldsActionsForTheNextAttach() {
+        latch.detach(PAGE);
+        latch.whenReady("events", record("events"));
+        latch.open(true);
+        assertTrue(ran.isEmpty());
+
+        latch.attach("next");
+        latch.open(true);
+        assertEquals(Arrays.asList("events@next"), ran);
+    }
+
+    @Test
+    public void failingAction_doesNotStopTheRest() {
+        latch.whenReady("bad", target -> { throw new IllegalStateException("boom"); });
+        latch.whenReady("events", record("events"));
+        latch.open(true);
+
+        assertEquals(Arrays.asList("events@page"), ran);
+    }
+}
@@ -0,0 +1,111 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Quiet-hours and batching math in DeliveryPolicy, including windows that span midnight
+ */
+public class DeliveryPolicyTest {
+    private static final int TEN_PM = 22 * 60;
+    private static final int SEVEN_AM = 7 * 60;
+
+    private TimeZone originalZone;
+
+    @Before
+    public void pinTimeZone() {
+        originalZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(originalZone);
+    }
+
+    private static long at(int day, int hour, int minute) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2026, Calendar.MARCH, day, hour, minute, 0);
+        return cal.getTimeInMillis();
+    }
+
+    @Test
+    public void isQuiet_windowAcrossMidnight() {
+        assertFalse(DeliveryPolicy.isQuiet(at(10, 21, 59), TEN_PM, SEVEN_AM));
+        assertTrue(DeliveryPolicy.isQuiet(at(10, 22, 0), TEN_PM, SEVEN_AM));
+        assertTrue(DeliveryPolicy.isQuiet(at(10, 23, 30), TEN_PM, SEVEN_AM));
+        assertTrue(DeliveryPolicy.isQuiet(at(11, 0, 0), TEN_PM, SEVEN_AM));
+        assertTrue(DeliveryPolicy.isQuiet(at(11, 6, 59), TEN_PM, SEVEN_AM));
+        assertFalse(DeliveryPolicy.isQuiet(at(11, 7, 0), TEN_PM, SEVEN_AM));
+        assertFalse(DeliveryPolicy.isQuiet(at(11, 12, 0), TEN_PM, SEVEN_AM));
+    }
+
+    @Test
+    public void isQuiet_windowWithinOneDay() {
+        assertFalse(DeliveryPolicy.isQuiet(at(10, 12, 59), 13 * 60, 14 * 60));
+        assertTrue(DeliveryPolicy.isQuiet(at(10, 13, 0), 13 * 60, 14 * 60));
+        assertFalse(DeliveryPolicy.isQuiet(at(10, 14, 0), 13 * 60, 14 * 60));
+    }
+
+    @Test
+    public void isQuiet_emptyWindowIsNeverQuiet() {
+        assertFalse(DeliveryPolicy.isQuiet(at(10, 22, 0), TEN_PM, TEN_PM));
+    }
+
+    @Test
+    public void quietEndAfter_beforeMidnightEndsNextMorning() {
+        assertEquals(at(11, 7, 0), DeliveryPolicy.quietEndAfter(at(10, 23, 30), SEVEN_AM));
+    }
+
+    @Test
+    public void quietEndAfter_afterMidnightEndsSameMorning() {
+        assertEquals(at(11, 7, 0), DeliveryPolicy.quietEndAfter(at(11, 2, 0), SEVEN_AM));
+    }
+
+    @Test
+    public void quietEndAfter_isStrictlyLater() {
+        assertEquals(at(12, 7, 0), DeliveryPolicy.quietEndAfter(at(11, 7, 0), SEVEN_AM));
+    }
+
+    @Test
+    public void quietEndAfter_rollsOverMonthEnd() {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2026, Calendar.MARCH, 31, 23, 0, 0);
+        long end = DeliveryPolicy.quietEndAfter(cal.getTimeInMillis(), SEVEN_AM);
+
+        cal.setTimeInMillis(end);
+        assertEquals(Calendar.APRIL, cal.get(Calendar.MONTH));
+        assertEquals(1, cal.get(Calendar.DAY_OF_MONTH));
+        assertEquals(7, cal.get(Calendar.HOUR_OF_DAY));
+    }
+
+    @Test
+    public void parseTime_acceptsHoursAndMinutes() {
+        assertEquals(SEVEN_AM, DeliveryPolicy.parseTime("07:00"));
+        assertEquals(TEN_PM + 30, DeliveryPolicy.parseTime(" 22 : 30 "));
+        assertEquals(9 * 60, DeliveryPolicy.parseTime("9"));
+    }
+
+    @Test
+    public void parseTime_rejectsMalformed() {
+        assertEquals(-1, DeliveryPolicy.parseTime(null));
+        assertEquals(-1, DeliveryPolicy.parseTime("24:00"));
+        assertEquals(-1, DeliveryPolicy.parseTime("12:60"));
+        assertEquals(-1, DeliveryPolicy.parseTime("noon"));
+    }
+
+    @Test
+    public void nextWindowBoundary_roundsUpToTheWindow() {
+        long boundary = at(10, 12, 0) + DeliveryPolicy.BATCH_WINDOW_MS;
+        assertEquals(at(10, 12, 0), DeliveryPolicy.nextWindowBoundary(at(10, 12, 0)));
+        assertEquals(boundary, DeliveryPolicy.nextWindowBoundary(at(10, 12, 0) + 1));
+    }
+}
@@ -0,0 +1,54 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * JsonBuilder output must parse as JSON and embed safely in a script
+ */
+public class JsonBuilderTest {
+
+    @Test
+    public void quote_escapesQuotesBackslashesAndWhitespace() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\re\\tf\"", JsonBuilder.quote("a\"b\\c\nd\re\tf"));
+    }
+
+    @Test
+    public void quote_escapesControlCharsAndLineSeparators() {
+        assertEquals("\"\\u0000\\u001f\\u2028\\u2029\"", JsonBuilder.quote("\u0000\u001f\u2028\u2029"));
+    }
+
+    @Test
+    public void quote_keepsOtherUnicodeAsIs() {
+        assertEquals("\"café ✓ 😀\"", JsonBuilder.quote("café ✓ 😀"));
+        assertEquals("\"\"", JsonBuilder.quote(""));
+    }
+
+    @Test
+    public void nestedValues_areSeparatedByCommas() {
+        String json = new JsonBuilder()
+            .beginObject()
+            .name("a").value(1)
+            .name("b").beginArray().value("x").value(true).rawValue("{}").endArray()
+            .name("c").value((String) null)
+            .endObject()
+            .toString();
+        assertEquals("{\"a\":1,\"b\":[\"x\",true,{}],\"c\":null}", json);
+    }
+
+    @Test
+    public void deepNesting_growsPastInitialDepth() {
+        JsonBuilder builder = new JsonBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.beginArray().value(i);
+            expected.append(i == 0 ? "[" : ",[").append(i);
+        }
+        for (int i = 0; i < 20; i++) {
+            builder.endArray();
+            expected.append(']');
+        }
+        assertEquals(expected.toString(), builder.toString());
+    }
+}
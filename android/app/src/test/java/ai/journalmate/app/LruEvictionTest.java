@@ -0,0 +1,55 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Bounded caches evict the least recently used entry: LruMap itself and the
+ * notification dedupe table
+ */
+public class LruEvictionTest {
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    @Test
+    public void lruMap_evictsLeastRecentlyUsed() {
+        LruMap<String, Integer> map = new LruMap<>(2);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.get("a");
+        map.put("c", 3);
+
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("b"));
+        assertTrue(map.containsKey("c"));
+    }
+
+    @Test
+    public void seenTable_contentRepeatsWithinWindow() {
+        NotificationIngest.SeenTable seen = new NotificationIngest.SeenTable(10);
+        assertFalse(seen.isDuplicate(null, "k", 0));
+        assertTrue(seen.isDuplicate(null, "k", 59_999));
+        assertFalse(seen.isDuplicate(null, "k", 60_000));
+    }
+
+    @Test
+    public void seenTable_messageIdOutlivesContentWindow() {
+        NotificationIngest.SeenTable seen = new NotificationIngest.SeenTable(10);
+        assertFalse(seen.isDuplicate("m:1", "k1", 0));
+        assertTrue(seen.isDuplicate("m:1", "k2", 2 * HOUR_MS));
+        assertFalse(seen.isDuplicate("m:1", "k3", 24 * HOUR_MS));
+    }
+
+    @Test
+    public void seenTable_fullTableForgetsOldestOnly() {
+        NotificationIngest.SeenTable seen = new NotificationIngest.SeenTable(2);
+        seen.isDuplicate(null, "a", 0);
+        seen.isDuplicate(null, "b", 1);
+        seen.isDuplicate(null, "c", 2);
+
+        assertEquals(2, seen.entries.size());
+        assertFalse(seen.entries.containsKey("a"));
+        assertTrue(seen.isDuplicate(null, "c", 3));
+    }
+}
@@ -0,0 +1,117 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONArray;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * NativeEventQueue keeps events in order until they are acknowledged
+ */
+public class NativeEventQueueTest {
+    private InMemoryPrefs prefs;
+
+    @Before
+    public void setUp() {
+        prefs = new InMemoryPrefs();
+    }
+
+    private long enqueue(String type, int n) {
+        return NativeEventQueue.enqueue(prefs, type, "{\"n\":" + n + "}");
+    }
+
+    private JSONArray peek() throws Exception {
+        return new JSONArray(NativeEventQueue.peekAll(prefs));
+    }
+
+    @Test
+    public void enqueue_keepsArrivalOrderWithIncreasingSeq() throws Exception {
+        long first = enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        long second = enqueue(NativeEventQueue.TYPE_ROUTE, 2);
+
+        assertTrue(second > first);
+        JSONArray events = peek();
+        assertEquals(2, events.length());
+        assertEquals(first, events.getJSONObject(0).getLong("seq"));
+        assertEquals("share", events.getJSONObject(0).getString("type"));
+        assertEquals(2, events.getJSONObject(1).getJSONObject("payload").getInt("n"));
+    }
+
+    @Test
+    public void peekAll_leavesEventsQueued() throws Exception {
+        enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        peek();
+
+        assertFalse(NativeEventQueue.isEmpty(prefs));
+        assertEquals(1, peek().length());
+    }
+
+    @Test
+    public void acknowledge_removesEventsUpToSeq() throws Exception {
+        enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        long second = enqueue(NativeEventQueue.TYPE_SHARE, 2);
+        long third = enqueue(NativeEventQueue.TYPE_SHARE, 3);
+
+        NativeEventQueue.acknowledge(prefs, second);
+
+        JSONArray events = peek();
+        assertEquals(1, events.length());
+        assertEquals(third, events.getJSONObject(0).getLong("seq"));
+
+        NativeEventQueue.acknowledge(prefs, third);
+        assertTrue(NativeEventQueue.isEmpty(prefs));
+    }
+
+    @Test
+    public void acknowledge_olderSeqIsNoOp() throws Exception {
+        long first = enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        NativeEventQueue.acknowledge(prefs, first);
+        enqueue(NativeEventQueue.TYPE_SHARE, 2);
+
+        NativeEventQueue.acknowledge(prefs, first);
+        assertEquals(1, peek().length());
+    }
+
+    @Test
+    public void seq_keepsIncreasingAfterAcknowledge() {
+        long first = enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        NativeEventQueue.acknowledge(prefs, first);
+
+        assertTrue(enqueue(NativeEventQueue.TYPE_SHARE, 2) > first);
+    }
+
+    @Test
+    public void drain_returnsAndClears() throws Exception {
+        enqueue(NativeEventQueue.TYPE_SHARE, 1);
+        enqueue(NativeEventQueue.TYPE_SHARE, 2);
+
+        assertEquals(2, new JSONArray(NativeEventQueue.drain(prefs)).length());
+        assertTrue(NativeEventQueue.isEmpty(prefs));
+    }
+
+    @Test
+    public void takeFirst_takesOldestOfType() throws Exception {
+        enqueue(NativeEventQueue.TYPE_ROUTE, 1);
+        enqueue(NativeEventQueue.TYPE_SHARE, 2);
+        enqueue(NativeEventQueue.TYPE_SHARE, 3);
+
+        assertEquals(2, NativeEventQueue.takeFirst(prefs, NativeEventQueue.TYPE_SHARE)
+            .getJSONObject("payload").getInt("n"));
+        assertEquals(2, peek().length());
+        assertNull(NativeEventQueue.takeFirst(prefs, NativeEventQueue.TYPE_AUTH));
+    }
+
+    @Test
+    public void enqueue_fullQueueDropsOldest() throws Exception {
+        for (int i = 0; i < NativeEventQueue.CAPACITY + 2; i++) {
+            enqueue(NativeEventQueue.TYPE_SHARE, i);
+        }
+
+        JSONArray events = peek();
+        assertEquals(NativeEventQueue.CAPACITY, events.length());
+        assertEquals(2, events.getJSONObject(0).getJSONObject("payload").getInt("n"));
+        assertEquals(NativeEventQueue.CAPACITY + 1,
+            events.getJSONObject(events.length() - 1).getJSONObject("payload").getInt("n"));
+    }
+}
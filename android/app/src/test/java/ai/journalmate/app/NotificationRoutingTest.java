@@ -0,0 +1,59 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Compiled routing table: channel resolution and its bounded cache
+ */
+public class NotificationRoutingTest {
+
+    @Test
+    public void resolve_deepestPrefixWins() {
+        NotificationRouting.Table table = NotificationRouting.Table.compile(null);
+        assertEquals(NotificationChannels.CHANNEL_STREAKS, table.resolve("streak_at_risk"));
+        assertEquals(NotificationChannels.CHANNEL_ACHIEVEMENTS, table.resolve("streak_milestone_30"));
+    }
+
+    @Test
+    public void resolve_keywordOnlyWhenNoPrefixMatches() {
+        NotificationRouting.Table table = NotificationRouting.Table.compile(null);
+        assertEquals(NotificationChannels.CHANNEL_ASSISTANT, table.resolve("evening_checkin"));
+        assertEquals(NotificationChannels.CHANNEL_TASKS, table.resolve("task_review"));
+        assertEquals(NotificationChannels.CHANNEL_ALERTS, table.resolve("something_else"));
+    }
+
+    @Test
+    public void overrides_exactAndPrefixLayerOverBuiltIns() throws Exception {
+        JSONObject overrides = new JSONObject()
+            .put("task_due", NotificationChannels.CHANNEL_REMINDERS)
+            .put("promo_*", NotificationChannels.CHANNEL_GENERAL)
+            .put("group_invite", "not_a_channel");
+        NotificationRouting.Table table = NotificationRouting.Table.compile(overrides);
+
+        assertEquals(NotificationChannels.CHANNEL_REMINDERS, table.resolve("task_due"));
+        assertEquals(NotificationChannels.CHANNEL_TASKS, table.resolve("task_overdue"));
+        assertEquals(NotificationChannels.CHANNEL_GENERAL, table.resolve("promo_spring_sale"));
+        assertEquals(NotificationChannels.CHANNEL_GROUPS, table.resolve("group_invite"));
+    }
+
+    @Test
+    public void routingCache_isBoundedAndKeepsRecentTypes() {
+        NotificationRouting.Table table = NotificationRouting.Table.compile(null);
+        assertEquals(NotificationChannels.CHANNEL_TASKS, table.resolve("task_due"));
+        for (int i = 0; i < NotificationRouting.MAX_CACHED_TYPES - 1; i++) {
+            table.resolve("custom_" + i);
+        }
+        assertEquals(NotificationRouting.MAX_CACHED_TYPES, table.cache.size());
+
+        // A hit refreshes task_due, so the next miss evicts custom_0 instead
+        table.resolve("task_due");
+        assertEquals(NotificationChannels.CHANNEL_ALERTS, table.resolve("unknown_type"));
+
+        assertEquals(NotificationRouting.MAX_CACHED_TYPES, table.cache.size());
+        assertTrue(table.cache.containsKey("task_due"));
+        assertFalse(table.cache.containsKey("custom_0"));
+    }
+}
@@ -0,0 +1,179 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * The telemetry ring file (ordering, overwrite-on-full, sequence
+ * acknowledgement, recovery after reopening) and the records
+ * NotificationTelemetry stores in it
+ */
+public class TelemetryRingTest {
+    private static final int CAPACITY = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File path;
+    private TelemetryRing ring;
+
+    @Before
+    public void setUp() throws Exception {
+        path = new File(folder.getRoot(), "ring");
+        ring = new TelemetryRing(path, CAPACITY);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ring.close();
+    }
+
+    private static String texts(List<TelemetryRing.Record> records) {
+        StringBuilder joined = new StringBuilder();
+        for (TelemetryRing.Record record : records) {
+            joined.append(record.text).append(';');
+        }
+        return joined.toString();
+    }
+
+    @Test
+    public void append_readsBackOldestFirst() throws Exception {
+        assertEquals(0, ring.append("a"));
+        assertEquals(1, ring.append("b"));
+
+        List<TelemetryRing.Record> records = ring.read(10);
+        assertEquals("a;b;", texts(records));
+        assertEquals(1, records.get(1).sequence);
+        assertEquals("a;", texts(ring.read(1)));
+    }
+
+    @Test
+    public void fullRing_overwritesOldestAndCountsDrops() throws Exception {
+        for (int i = 0; i < CAPACITY + 2; i++) {
+            ring.append("e" + i);
+        }
+
+        assertEquals(CAPACITY, ring.size());
+        assertEquals(2, ring.dropped());
+        assertEquals("e2;e3;e4;e5;", texts(ring.read(10)));
+    }
+
+    @Test
+    public void acknowledge_keepsRecordsAppendedDuringUpload() throws Exception {
+        ring.append("a");
+        ring.append("b");
+        List<TelemetryRing.Record> batch = ring.read(10);
+        ring.append("c");
+
+        ring.acknowledge(batch.get(batch.size() - 1).sequence, 0);
+
+        assertEquals("c;", texts(ring.read(10)));
+    }
+
+    @Test
+    public void acknowledge_afterWrapKeepsNewerRecordsAndDrops() throws Exception {
+        ring.append("a");
+        ring.append("b");
+        List<TelemetryRing.Record> batch = ring.read(10);
+        int reportedDrops = ring.dropped();
+        // The ring wraps while the upload is in flight
+        for (int i = 0; i < CAPACITY + 1; i++) {
+            ring.append("n" + i);
+        }
+
+        ring.acknowledge(batch.get(batch.size() - 1).sequence, reportedDrops);
+
+        assertEquals("n1;n2;n3;n4;", texts(ring.read(10)));
+        assertEquals(3, ring.dropped());
+    }
+
+    @Test
+    public void acknowledge_reportedDropsAreSubtracted() throws Exception {
+        for (int i = 0; i < CAPACITY + 3; i++) {
+            ring.append("e" + i);
+        }
+        ring.acknowledge(-1, 2);
+        assertEquals(1, ring.dropped());
+        assertEquals(CAPACITY, ring.size());
+    }
+
+    @Test
+    public void reopen_keepsRecordsAndSequences() throws Exception {
+        ring.append("a");
+        ring.append("b");
+        ring.acknowledge(0, 0);
+        ring.close();
+
+        ring = new TelemetryRing(path, CAPACITY);
+        assertEquals("b;", texts(ring.read(10)));
+        assertEquals(2, ring.append("c"));
+    }
+
+    @Test
+    public void slotWrittenButNotInHeader_isSkipped() throws Exception {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring.append("e" + i);
+        }
+        ring.close();
+
+        // Simulate process death after writing slot 0 for sequence 4, before the header
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            raw.seek(32);
+            raw.writeLong(4);
+        }
+
+        ring = new TelemetryRing(path, CAPACITY);
+        assertEquals("e1;e2;e3;", texts(ring.read(10)));
+    }
+
+    @Test
+    public void capacityChange_startsEmptyWithIncreasingSequences() throws Exception {
+        ring.append("a");
+        ring.append("b");
+        ring.close();
+
+        ring = new TelemetryRing(path, CAPACITY * 2);
+        assertEquals(0, ring.size());
+        assertEquals(2, ring.append("c"));
+        assertEquals("c;", texts(ring.read(10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void append_rejectsOversizedRecords() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= TelemetryRing.MAX_TEXT_BYTES; i++) text.append('x');
+        ring.append(text.toString());
+    }
+
+    @Test
+    public void encode_keepsRawLatencyAndFitsASlot() throws Exception {
+        JSONArray posted = new JSONArray(NotificationTelemetry.encode(1000L, "posted", 7, "journalmate_push",
+            "task_due", -1500L, null, null, NotificationTelemetry.CLOCK_SERVER));
+        assertEquals(-1500L, posted.getLong(5));
+        assertEquals(-1, posted.getInt(6));
+        assertEquals("server", posted.getString(8));
+
+        JSONArray shown = new JSONArray(NotificationTelemetry.encode(1000L, "shown", 7, null,
+            null, null, null, null, null));
+        assertTrue(shown.isNull(5));
+        assertTrue(shown.isNull(8));
+
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < 200; i++) escaped.append('\u0001');
+        String label = escaped.toString();
+        String record = NotificationTelemetry.encode(1000L, "action", 7, label, label, 5L, true, label,
+            NotificationTelemetry.CLOCK_DEVICE);
+        assertTrue(record.getBytes("UTF-8").length <= TelemetryRing.MAX_TEXT_BYTES);
+        assertEquals("action", new JSONArray(record).getString(1));
+    }
+}
@@ -0,0 +1,89 @@
+package ai.journalmate.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Shared-link recognition and canonical keys. The expected keys are what the
+ * server's normalizeUrlForCache (server/utils/urlCacheKey.ts) returns for the
+ * same input; a mismatch means a prefetch warms a cache entry nobody reads.
+ */
+public class UrlPrefetcherTest {
+    private static final String[][] SERVER_KEYS = {
+        {"https://www.instagram.com/reel/Cabc123/?igsh=xyz",
+            "https://www.instagram.com/reel/Cabc123/"},
+        {"https://instagram.com/reels/Cabc123/",
+            "https://www.instagram.com/reel/Cabc123/"},
+        {"https://www.instagram.com/someuser/reel/Cabc123/?utm_source=ig_web_copy_link",
+            "https://www.instagram.com/reel/Cabc123/"},
+        {"https://www.instagram.com/p/Bxyz/?igshid=abc",
+            "https://www.instagram.com/p/Bxyz/"},
+        {"https://www.instagram.com/stories/someuser/123/",
+            "https://www.instagram.com/stories/someuser/"},
+        {"https://www.tiktok.com/@chef.ana/video/7312345678901234567?is_from_webapp=1&sender_device=pc",
+            "https://www.tiktok.com/@chef.ana/video/7312345678901234567"},
+        {"https://m.tiktok.com/@chef.ana/video/7312345678901234567",
+            "https://www.tiktok.com/@chef.ana/video/7312345678901234567"},
+        {"https://vm.tiktok.com/ZMabc123/",
+            "https://vm.tiktok.com/ZMabc123/"},
+        {"https://youtu.be/dQw4w9WgXcQ?si=abcdef",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ"},
+        {"https://www.youtube.com/watch?v=dQw4w9WgXcQ&feature=share",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ"},
+        {"https://youtube.com/shorts/abcDEF12345?si=x",
+            "https://www.youtube.com/watch?v=abcDEF12345"},
+        {"https://m.youtube.com/watch?v=dQw4w9WgXcQ&t=42",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ"},
+        {"https://Example.com/Article?id=5&utm_source=x&si=y#top",
+            "https://example.com/Article?id=5"},
+        {"https://example.com",
+            "https://example.com/"},
+        {"https://example.com/a?feature=share&ref=home&keep=1",
+            "https://example.com/a?keep=1"}
+    };
+
+    @Test
+    public void canonicalize_matchesServerCacheKeys() {
+        for (String[] example : SERVER_KEYS) {
+            assertEquals(example[0], example[1], UrlPrefetcher.canonicalize(example[0]));
+        }
+    }
+
+    @Test
+    public void canonicalize_returnsUnparseableUrlsUnchanged() {
+        assertEquals("not a url", UrlPrefetcher.canonicalize("not a url"));
+        assertEquals("https://exa mple.com/", UrlPrefetcher.canonicalize("https://exa mple.com/"));
+    }
+
+    @Test
+    public void platformOf_recognizesExtractableLinks() {
+        assertEquals(UrlPrefetcher.PLATFORM_INSTAGRAM, UrlPrefetcher.platformOf("https://www.instagram.com/reels/Cabc/"));
+        assertEquals(UrlPrefetcher.PLATFORM_INSTAGRAM, UrlPrefetcher.platformOf("https://www.instagram.com/someuser/reel/Cabc/"));
+        assertEquals(UrlPrefetcher.PLATFORM_TIKTOK, UrlPrefetcher.platformOf("https://www.tiktok.com/@a/video/123"));
+        assertEquals(UrlPrefetcher.PLATFORM_TIKTOK, UrlPrefetcher.platformOf("https://vm.tiktok.com/ZMabc/"));
+        assertEquals(UrlPrefetcher.PLATFORM_TIKTOK, UrlPrefetcher.platformOf("https://www.tiktok.com/t/ZTabc/"));
+        assertEquals(UrlPrefetcher.PLATFORM_YOUTUBE, UrlPrefetcher.platformOf("https://youtu.be/dQw4w9WgXcQ"));
+        assertEquals(UrlPrefetcher.PLATFORM_YOUTUBE, UrlPrefetcher.platformOf("https://m.youtube.com/watch?v=dQw4w9WgXcQ"));
+        assertEquals(UrlPrefetcher.PLATFORM_YOUTUBE, UrlPrefetcher.platformOf("https://youtube.com/shorts/abc"));
+    }
+
+    @Test
+    public void platformOf_rejectsOtherLinks() {
+        assertNull(UrlPrefetcher.platformOf("https://www.instagram.com/stories/someuser/123/"));
+        assertNull(UrlPrefetcher.platformOf("https://www.instagram.com/someuser/"));
+        assertNull(UrlPrefetcher.platformOf("https://www.tiktok.com/@a"));
+        assertNull(UrlPrefetcher.platformOf("https://youtu.be/"));
+        assertNull(UrlPrefetcher.platformOf("https://www.youtube.com/feed/subscriptions"));
+        assertNull(UrlPrefetcher.platformOf("https://notinstagram.example/reel/abc"));
+        assertNull(UrlPrefetcher.platformOf("not a url"));
+    }
+
+    @Test
+    public void findSupportedUrl_picksFirstSupportedLinkAndTrimsPunctuation() {
+        assertEquals("https://youtu.be/dQw4w9WgXcQ", UrlPrefetcher.findSupportedUrl(
+            "See https://example.com/x and (https://youtu.be/dQw4w9WgXcQ)."));
+        assertNull(UrlPrefetcher.findSupportedUrl("nothing here https://example.com"));
+        assertNull(UrlPrefetcher.findSupportedUrl(null));
+    }
+}
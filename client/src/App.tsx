@@ -14,6 +14,7 @@ import { useAuth } from "@/hooks/useAuth";
 import { UpgradeModal } from "@/components/UpgradeModal";
 import { PWAInstallPrompt } from "@/components/PWAInstallPrompt";
 import { initializeMobileFeatures } from "@/lib/mobile";
+import { signalNativeBridgeReady, onNativeEvent, takeNativeStartupPayload, type NativeRoutePayload } from "@/lib/nativeBridge";
 import { ThemeProvider } from "@/components/ThemeProvider";
 import { useDailyTheme, type ThemeId } from "@/hooks/useDailyTheme";
 import ErrorBoundary from "@/components/ErrorBoundary";
@@ -56,7 +57,15 @@ function AppContent() {
   const { user } = useAuth();
   
   // Get current location for error boundary reset
-  const [location] = useLocation();
+  const [location, setLocation] = useLocation();
+
+  // Shortcuts, notification taps and deep links from the Android shell
+  // become history API route changes instead of page reloads
+  useEffect(() => onNativeEvent<NativeRoutePayload>('route', ({ route, source }) => {
+    if (!route?.startsWith('/')) return;
+    console.log('[NATIVE BRIDGE] Navigating to', route, `(${source})`);
+    setLocation(route);
+  }), [setLocation]);
 
   // Daily theme state - persisted to backend API
   const { currentThemeId, setTheme, clearTheme, isSettingTheme } = useDailyTheme();
@@ -247,6 +256,47 @@ function App() {
     initializeMobileFeatures().catch(console.error);
   }, []);
 
+  // Child effects (AuthHandler's deep link listeners) have run by now,
+  // so native code can deliver queued routes, shares and auth tokens
+  useEffect(() => {
+    signalNativeBridgeReady();
+  }, []);
+
+  // Render tasks from the response native code fetched while the WebView
+  // was still starting - only once /api/user confirms the same signed-in
+  // user, and unless our own request already landed
+  useEffect(() => {
+    let cancelled = false;
+    let unsubscribe: (() => void) | undefined;
+
+    const whenUserResolved = () =>
+      new Promise<{ id?: string } | null>((resolve) => {
+        const check = (): boolean => {
+          const state = queryClient.getQueryState<{ id?: string } | null>(["/api/user"]);
+          if (state?.status !== "success" && state?.status !== "error") return false;
+          resolve(state.status === "success" ? state.data ?? null : null);
+          return true;
+        };
+        if (check()) return;
+        unsubscribe = queryClient.getQueryCache().subscribe(() => {
+          if (check()) unsubscribe?.();
+        });
+      });
+
+    takeNativeStartupPayload('tasks').then(async (payload) => {
+      if (!payload) return;
+      const user = await whenUserResolved();
+      if (cancelled || !user?.id || user.id !== payload.userId) return;
+      if (queryClient.getQueryData(["/api/tasks"]) !== undefined) return;
+      queryClient.setQueryData(["/api/tasks"], payload.data, { updatedAt: payload.fetchedAt });
+    });
+
+    return () => {
+      cancelled = true;
+      unsubscribe?.();
+    };
+  }, []);
+
   return (
     <QueryClientProvider client={queryClient}>
       <HelmetProvider>
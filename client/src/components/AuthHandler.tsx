@@ -4,6 +4,7 @@ import { useLocation } from 'wouter';
 import { App } from '@capacitor/app';
 import { isNative, isAndroid } from '@/lib/platform';
 import { apiUrl } from '@/lib/api';
+import { acknowledgeNativeAuthToken, onNativeEvent, type NativeAuthPayload } from '@/lib/nativeBridge';
 
 export function AuthHandler() {
   const { toast } = useToast();
@@ -14,6 +15,10 @@ export function AuthHandler() {
    * Exchange auth token for session - handles OAuth deep link callback
    */
   const exchangeTokenForSession = async (token: string) => {
+    // Tell the Android shell the token arrived (whichever path delivered it),
+    // so it doesn't reload the app with the token in the URL as a fallback
+    acknowledgeNativeAuthToken(token);
+
     // Prevent duplicate processing
     if (hasProcessedToken.current) {
       console.log('[AuthHandler] Token already processed, skipping');
@@ -155,6 +160,14 @@ export function AuthHandler() {
 
     window.addEventListener('authDeepLink', handleAuthDeepLink as EventListener);
 
+    // Current Android shell: the token arrives through the native event queue
+    const removeNativeAuthHandler = onNativeEvent<NativeAuthPayload>('auth', ({ token }) => {
+      console.log('[AuthHandler] Received auth token from native event queue');
+      if (token) {
+        exchangeTokenForSession(token);
+      }
+    });
+
     // Listen for Capacitor App URL open events (handles both iOS and Android)
     // This fires when app is resumed with a deep link
     let appUrlListener: { remove: () => void } | null = null;
@@ -174,6 +187,7 @@ export function AuthHandler() {
 
     return () => {
       window.removeEventListener('authDeepLink', handleAuthDeepLink as EventListener);
+      removeNativeAuthHandler();
       if (appUrlListener) {
         appUrlListener.remove();
       }
@@ -1,6 +1,7 @@
 import { useEffect, useRef } from 'react';
 import { useQuery } from '@tanstack/react-query';
 import { apiRequest } from '@/lib/queryClient';
+import { syncDeliveryPolicy } from '@/lib/notifications';
 import { type NotificationPreferences } from '@shared/schema';
 
 interface NotificationServiceProps {
@@ -17,6 +18,15 @@ export default function NotificationService({ userId }: NotificationServiceProps
     staleTime: 60000, // 1 minute
   });
 
+  // Native reminders apply quiet hours on the device (no-op off Android)
+  useEffect(() => {
+    if (!preferences) return;
+    syncDeliveryPolicy({
+      quietHoursStart: preferences.quietHoursStart,
+      quietHoursEnd: preferences.quietHoursEnd,
+    });
+  }, [preferences?.quietHoursStart, preferences?.quietHoursEnd]);
+
   // Reminder checking service - runs globally regardless of tab
   useEffect(() => {
     const checkReminders = async () => {
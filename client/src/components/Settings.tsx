@@ -45,6 +45,7 @@ import {
   stopForegroundService,
   getBackgroundServiceStatus,
   isBackgroundServiceAvailable,
+  setRealtimeEnabled,
 } from '@/lib/backgroundService';
 import {
   checkBiometricAvailability,
@@ -135,6 +136,7 @@ export default function Settings({ onOpenUpgradeModal }: SettingsProps = {}) {
   const [notificationStatus, setNotificationStatus] = useState<'granted' | 'denied' | 'default'>('default');
   const [foregroundServiceEnabled, setForegroundServiceEnabled] = useState(false);
   const [foregroundServiceLoading, setForegroundServiceLoading] = useState(false);
+  const [realtimeStreamEnabled, setRealtimeStreamEnabled] = useState(false);
 
   // Native features state
   const [biometricAvailable, setBiometricAvailable] = useState(false);
@@ -310,6 +312,7 @@ export default function Settings({ onOpenUpgradeModal }: SettingsProps = {}) {
             const status = await getBackgroundServiceStatus();
             if (status) {
               setForegroundServiceEnabled(status.backgroundSyncEnabled);
+              setRealtimeStreamEnabled(!!status.realtimeEnabled);
             }
           } catch (error) {
             setForegroundServiceEnabled(false);
@@ -731,6 +734,20 @@ export default function Settings({ onOpenUpgradeModal }: SettingsProps = {}) {
     }
   };
 
+  // Handle live updates (realtime stream in the foreground service) toggle
+  const handleRealtimeToggle = async (enabled: boolean) => {
+    const success = await setRealtimeEnabled(enabled);
+    if (success) {
+      setRealtimeStreamEnabled(enabled);
+    } else {
+      toast({
+        title: 'Error',
+        description: 'Could not change live updates',
+        variant: 'destructive'
+      });
+    }
+  };
+
   // Toggle biometric login (enable/disable)
   const handleBiometricToggle = async (enabled: boolean) => {
     setBiometricLoading(true);
@@ -1361,6 +1378,25 @@ export default function Settings({ onOpenUpgradeModal }: SettingsProps = {}) {
                     disabled={foregroundServiceLoading}
                   />
                 </div>
+                {foregroundServiceEnabled && (
+                  <div className="flex items-center justify-between">
+                    <div>
+                      <Label className="text-sm flex items-center gap-2">
+                        <Zap className="w-4 h-4" />
+                        Live Updates
+                      </Label>
+                      <p className="text-xs text-muted-foreground">
+                        {realtimeStreamEnabled
+                          ? 'Widgets and notification update as tasks change'
+                          : 'Update widgets and notification instantly'}
+                      </p>
+                    </div>
+                    <Switch
+                      checked={realtimeStreamEnabled}
+                      onCheckedChange={handleRealtimeToggle}
+                    />
+                  </div>
+                )}
               </>
             )}
 
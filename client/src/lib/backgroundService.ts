@@ -24,6 +24,8 @@ interface BackgroundServicePlugin {
     streak: number;
     nextTaskTitle?: string;
     nextTaskTime?: string;
+    nextTaskDueAt?: number;
+    upcomingTasks?: Array<{ title: string; dueAt: number }>;
   }): Promise<{ success: boolean }>;
   enableBackgroundSync(options: { intervalMinutes: number }): Promise<{ success: boolean; intervalMinutes: number }>;
   disableBackgroundSync(): Promise<{ success: boolean }>;
@@ -39,6 +41,8 @@ interface BackgroundServicePlugin {
     plansComplete: number;
     totalPlans: number;
     unreadNotifications: number;
+    tasks?: Array<{ id: string; title: string; completed: boolean }>;
+    weeklyCompleted?: number[];
   }): Promise<{ success: boolean }>;
   refreshWidgets(): Promise<{ success: boolean }>;
   getStatus(): Promise<{
@@ -46,7 +50,11 @@ interface BackgroundServicePlugin {
     syncIntervalMinutes: number;
     reminderMinutesBefore: number;
     hasCredentials: boolean;
+    realtimeEnabled?: boolean;
+    realtimeConnected?: boolean;
+    originId?: string;
   }>;
+  setRealtimeEnabled(options: { enabled: boolean }): Promise<{ success: boolean; enabled: boolean }>;
   // One-time notifications
   showNotification(options: { title: string; body: string; id?: number }): Promise<{ success: boolean; id?: number; error?: string }>;
   cancelNotification(options: { id: number }): Promise<{ success: boolean }>;
@@ -117,6 +125,10 @@ export async function updateTaskProgress(options: {
   streak?: number;
   nextTaskTitle?: string;
   nextTaskTime?: string;
+  /** Due time of the next task (epoch ms) - enables the native countdown */
+  nextTaskDueAt?: number;
+  /** Remaining timed tasks, so the notification can promote the next one by itself */
+  upcomingTasks?: Array<{ title: string; dueAt: number }>;
 }): Promise<boolean> {
   if (!isNative()) {
     return false;
@@ -129,6 +141,8 @@ export async function updateTaskProgress(options: {
       streak: options.streak || 0,
       nextTaskTitle: options.nextTaskTitle,
       nextTaskTime: options.nextTaskTime,
+      nextTaskDueAt: options.nextTaskDueAt,
+      upcomingTasks: options.upcomingTasks,
     });
     return result.success;
   } catch (error) {
@@ -177,6 +191,49 @@ export async function disableBackgroundSync(): Promise<boolean> {
   }
 }
 
+/**
+ * Enable or disable the realtime event stream in the foreground service.
+ * While connected, task and notification changes reach the widgets and the
+ * ongoing notification immediately and the periodic sync backs off.
+ */
+export async function setRealtimeEnabled(enabled: boolean): Promise<boolean> {
+  if (!isNative()) {
+    return false;
+  }
+
+  try {
+    const result = await BackgroundService!.setRealtimeEnabled({ enabled });
+    console.log('[BACKGROUND] Realtime stream', enabled ? 'enabled' : 'disabled');
+    return result.success;
+  } catch (error) {
+    console.error('[BACKGROUND] Failed to set realtime mode:', error);
+    return false;
+  }
+}
+
+let originHeaders: Promise<Record<string, string>> | null = null;
+
+/**
+ * Headers that tag a request as made by this install, so the realtime
+ * stream doesn't echo its change back to the widgets and notification
+ * (empty on web and on app builds without the stream)
+ */
+export function getRealtimeOriginHeaders(): Promise<Record<string, string>> {
+  if (!isNative()) {
+    return Promise.resolve({});
+  }
+  if (!originHeaders) {
+    originHeaders = BackgroundService!.getStatus()
+      .then((status): Record<string, string> =>
+        status.originId ? { 'X-Client-Origin': status.originId } : {})
+      .catch(() => {
+        originHeaders = null;
+        return {};
+      });
+  }
+  return originHeaders;
+}
+
 /**
  * Store user credentials for background workers
  * Background workers need these to authenticate with the API
@@ -250,6 +307,8 @@ export async function updateWidgetData(data: {
   plansComplete: number;
   totalPlans: number;
   unreadNotifications: number;
+  tasks?: Array<{ id: string; title: string; completed: boolean }>;
+  weeklyCompleted?: number[];
 }): Promise<boolean> {
   console.log('[BACKGROUND] updateWidgetData called:', data);
 
@@ -299,6 +358,8 @@ export async function getBackgroundServiceStatus(): Promise<{
   syncIntervalMinutes: number;
   reminderMinutesBefore: number;
   hasCredentials: boolean;
+  realtimeEnabled?: boolean;
+  realtimeConnected?: boolean;
 } | null> {
   if (!isNative()) {
     return null;
@@ -0,0 +1,119 @@
+/**
+ * Background media uploads (Android)
+ *
+ * Hands shared files (content:// URIs, or the file:// copies from native
+ * image ingest) to the native MediaUpload plugin, which uploads them in
+ * resumable chunks through WorkManager. Uploads keep going when the app is
+ * backgrounded and resume where they stopped after a network drop.
+ * Finished uploads carry the same `media` object as /api/journal/upload.
+ *
+ * Uses direct bridge access, which works with remote URLs (unlike registerPlugin).
+ */
+
+import { isAndroid } from './platform';
+
+export type BackgroundUploadStatus = 'queued' | 'uploading' | 'done' | 'failed' | 'cancelled';
+
+export interface BackgroundUpload {
+  id: string;
+  uri: string;
+  status: BackgroundUploadStatus;
+  offset: number;
+  size: number;
+  media?: { url: string; type: 'image' | 'video'; filename: string };
+  error?: string;
+}
+
+interface MediaUploadPlugin {
+  enqueue(options: {
+    uri: string;
+    mimeType?: string;
+    filename?: string;
+    wifiOnly?: boolean;
+  }): Promise<{ id: string }>;
+  getUploads(): Promise<{ uploads: BackgroundUpload[] }>;
+  cancel(options: { id: string }): Promise<{ success: boolean }>;
+  addListener(
+    eventName: 'uploadProgress',
+    listener: (upload: BackgroundUpload) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+function getMediaUploadPlugin(): MediaUploadPlugin | null {
+  if (!isAndroid()) return null;
+  try {
+    return (window as any).Capacitor?.Plugins?.MediaUpload ?? null;
+  } catch {
+    return null;
+  }
+}
+
+/**
+ * Whether this app build can upload in the background
+ */
+export function isBackgroundUploadAvailable(): boolean {
+  return !!getMediaUploadPlugin()?.enqueue;
+}
+
+/**
+ * Queue a file for background upload
+ *
+ * @returns the upload id, or null where background upload isn't available
+ */
+export async function startBackgroundUpload(
+  uri: string,
+  options: { mimeType?: string; filename?: string; wifiOnly?: boolean } = {}
+): Promise<string | null> {
+  const plugin = getMediaUploadPlugin();
+  if (!plugin?.enqueue) return null;
+
+  try {
+    const { id } = await plugin.enqueue({ uri, ...options });
+    console.log('[MEDIA UPLOAD] Queued background upload:', id);
+    return id;
+  } catch (error) {
+    console.error('[MEDIA UPLOAD] Failed to queue upload:', error);
+    return null;
+  }
+}
+
+export async function getBackgroundUploads(): Promise<BackgroundUpload[]> {
+  const plugin = getMediaUploadPlugin();
+  if (!plugin?.getUploads) return [];
+
+  try {
+    const { uploads } = await plugin.getUploads();
+    return uploads || [];
+  } catch (error) {
+    console.error('[MEDIA UPLOAD] Failed to list uploads:', error);
+    return [];
+  }
+}
+
+export async function cancelBackgroundUpload(id: string): Promise<void> {
+  const plugin = getMediaUploadPlugin();
+  if (!plugin?.cancel) return;
+
+  try {
+    await plugin.cancel({ id });
+  } catch (error) {
+    console.error('[MEDIA UPLOAD] Failed to cancel upload:', error);
+  }
+}
+
+/**
+ * Listen for upload progress and completion
+ *
+ * @returns cleanup function that removes the listener
+ */
+export function onBackgroundUploadProgress(
+  handler: (upload: BackgroundUpload) => void
+): () => void {
+  const plugin = getMediaUploadPlugin();
+  if (!plugin?.addListener) return () => {};
+
+  const registration = plugin.addListener('uploadProgress', handler);
+  return () => {
+    registration.then((listener) => listener.remove()).catch(() => {});
+  };
+}
@@ -0,0 +1,245 @@
+/**
+ * Native bridge handshake (Android)
+ *
+ * MainActivity appends shortcut routes, incoming shares and OAuth tokens to a
+ * persisted, ordered native event queue. Once the web app says it is ready,
+ * it fetches the whole queue in one AppBridge.drainEvents() call; later events
+ * arrive batched on the 'nativeEvents' plugin listener. Each event goes
+ * to the handler registered for its type (events for a type without a
+ * handler yet are held until one registers).
+ *
+ * Events stay in the native queue until they are handled: once a handler
+ * (and the promise it returns, if any) finishes, the event is acknowledged
+ * with AppBridge.ackEvents(), so a reload before then delivers it again.
+ * Redeliveries within one page load are skipped by sequence number.
+ *
+ * Uses direct bridge access, which works with remote URLs (unlike registerPlugin).
+ */
+
+export type NativeEventType = 'share' | 'route' | 'auth';
+
+export interface NativeEvent<T = any> {
+  seq: number;
+  type: NativeEventType;
+  at: number;
+  payload: T;
+}
+
+export interface NativeRoutePayload {
+  route: string;
+  source: 'shortcut' | 'notification' | 'deepLink';
+}
+
+export interface NativeAuthPayload {
+  token: string;
+}
+
+interface AppBridgePlugin {
+  ready(options?: { acknowledge: boolean }): Promise<{ success: boolean }>;
+  drainEvents(options?: { acknowledge: boolean }): Promise<{ events: NativeEvent[] }>;
+  ackEvents?(options: { seq: number }): Promise<{ success: boolean }>;
+  ackAuthToken(options: { token: string }): Promise<{ success: boolean }>;
+  getStartupPayload(options: { key: string }): Promise<{ data: any | null; userId?: string; fetchedAt?: number }>;
+  addListener(
+    eventName: 'nativeEvents',
+    listener: (data: { events: NativeEvent[] }) => void
+  ): Promise<{ remove: () => void }>;
+}
+
+/**
+ * Returns nothing, or a promise that settles once the event is fully taken care of
+ */
+type NativeEventHandler = (payload: any, event: NativeEvent) => void | Promise<unknown>;
+
+const handlers: Partial<Record<NativeEventType, NativeEventHandler>> = {};
+// Drained events whose type has no handler yet, in arrival order
+let heldEvents: NativeEvent[] = [];
+let draining: Promise<void> | null = null;
+// Highest seq received in this page load; anything at or below it is a redelivery
+let lastReceivedSeq = 0;
+// Received events not acknowledged yet, in seq order
+const unacknowledged: { seq: number; handled: boolean }[] = [];
+
+function getAppBridgePlugin(): AppBridgePlugin | null {
+  try {
+    return (window as any).Capacitor?.Plugins?.AppBridge ?? null;
+  } catch {
+    return null;
+  }
+}
+
+/**
+ * Acknowledge the longest run of handled events, so native code drops them
+ * Acknowledgements are cumulative, so an unhandled event holds back later ones.
+ */
+function acknowledgeHandledEvents() {
+  let upToSeq = 0;
+  while (unacknowledged.length > 0 && unacknowledged[0].handled) {
+    upToSeq = unacknowledged.shift()!.seq;
+  }
+  if (upToSeq === 0) return;
+
+  const plugin = getAppBridgePlugin();
+  plugin?.ackEvents?.({ seq: upToSeq }).catch((error) => {
+    console.error('[NATIVE BRIDGE] Failed to acknowledge native events:', error);
+  });
+}
+
+function markHandled(seq: number) {
+  const entry = unacknowledged.find((pending) => pending.seq === seq);
+  if (entry) {
+    entry.handled = true;
+    acknowledgeHandledEvents();
+  }
+}
+
+function receiveNativeEvents(events: NativeEvent[] | undefined) {
+  events?.forEach((event) => {
+    if (event.seq <= lastReceivedSeq) return;
+    lastReceivedSeq = event.seq;
+    unacknowledged.push({ seq: event.seq, handled: false });
+    dispatchNativeEvent(event);
+  });
+}
+
+function dispatchNativeEvent(event: NativeEvent) {
+  const handler = handlers[event.type];
+  if (!handler) {
+    heldEvents.push(event);
+    return;
+  }
+  // A failing handler still acknowledges, so one bad event can't block the queue
+  const fail = (error: unknown) => {
+    console.error(`[NATIVE BRIDGE] ${event.type} handler failed:`, error);
+  };
+  try {
+    Promise.resolve(handler(event.payload, event))
+      .catch(fail)
+      .finally(() => markHandled(event.seq));
+  } catch (error) {
+    fail(error);
+    markHandled(event.seq);
+  }
+}
+
+/**
+ * Handle native events of one type (one handler per type; the latest wins)
+ * Events that arrived before the handler registered are delivered immediately.
+ * An event is acknowledged when the handler returns, or when the promise it
+ * returns settles.
+ *
+ * @returns cleanup function that removes the handler
+ */
+export function onNativeEvent<T = any>(
+  type: NativeEventType,
+  handler: (payload: T, event: NativeEvent<T>) => void | Promise<unknown>
+): () => void {
+  handlers[type] = handler as NativeEventHandler;
+
+  const ready = heldEvents.filter((event) => event.type === type);
+  if (ready.length > 0) {
+    heldEvents = heldEvents.filter((event) => event.type !== type);
+    ready.forEach(dispatchNativeEvent);
+  }
+
+  return () => {
+    if (handlers[type] === handler) {
+      delete handlers[type];
+    }
+  };
+}
+
+/**
+ * Fetch and dispatch everything MainActivity has queued, in one bridge call
+ */
+export function drainNativeEvents(): Promise<void> {
+  const plugin = getAppBridgePlugin();
+  if (!plugin?.drainEvents) return Promise.resolve();
+
+  // Coalesce overlapping drains
+  if (!draining) {
+    draining = plugin.drainEvents({ acknowledge: true })
+      .then(({ events }) => {
+        if (events?.length) {
+          console.log(`[NATIVE BRIDGE] Drained ${events.length} native event(s)`);
+          receiveNativeEvents(events);
+        }
+      })
+      .catch((error) => {
+        console.error('[NATIVE BRIDGE] Failed to drain native events:', error);
+      })
+      .finally(() => {
+        draining = null;
+      });
+  }
+  return draining;
+}
+
+/**
+ * Tell native code the SPA is mounted and listening, then drain the queue
+ * Safe to call on every platform; a no-op where AppBridge doesn't exist
+ */
+export async function signalNativeBridgeReady(): Promise<void> {
+  const plugin = getAppBridgePlugin();
+  if (!plugin) return;
+
+  try {
+    await plugin.addListener('nativeEvents', ({ events }) => {
+      receiveNativeEvents(events);
+    });
+  } catch (error) {
+    console.error('[NATIVE BRIDGE] Failed to listen for native events:', error);
+  }
+
+  try {
+    await plugin.ready({ acknowledge: true });
+    console.log('[NATIVE BRIDGE] Ready signaled');
+    await drainNativeEvents();
+  } catch (error) {
+    console.error('[NATIVE BRIDGE] Failed to signal ready:', error);
+  }
+}
+
+/**
+ * Whether this app build queues native events (and shares no longer need SharePlugin.getPendingShare)
+ */
+export function hasNativeEventQueue(): boolean {
+  return !!getAppBridgePlugin()?.drainEvents;
+}
+
+/**
+ * Confirm an OAuth token from a deep link reached the app, so MainActivity
+ * doesn't fall back to reloading the page with the token in the URL
+ */
+export async function acknowledgeNativeAuthToken(token: string): Promise<void> {
+  const plugin = getAppBridgePlugin();
+  if (!plugin?.ackAuthToken) return;
+
+  try {
+    await plugin.ackAuthToken({ token });
+  } catch (error) {
+    console.error('[NATIVE BRIDGE] Failed to acknowledge auth token:', error);
+  }
+}
+
+/**
+ * Take an API response the app prefetched natively during cold start (once)
+ *
+ * Currently 'tasks' (GET /api/tasks for the signed-in user). Resolves null
+ * when there is none, it is stale, or this app build doesn't prefetch.
+ */
+export async function takeNativeStartupPayload<T = any>(
+  key: 'tasks'
+): Promise<{ data: T; userId: string; fetchedAt: number } | null> {
+  const plugin = getAppBridgePlugin();
+  if (!plugin?.getStartupPayload) return null;
+
+  try {
+    const result = await plugin.getStartupPayload({ key });
+    if (result?.data == null || !result.userId || !result.fetchedAt) return null;
+    return { data: result.data as T, userId: result.userId, fetchedAt: result.fetchedAt };
+  } catch (error) {
+    console.error('[NATIVE BRIDGE] Failed to take startup payload:', error);
+    return null;
+  }
+}
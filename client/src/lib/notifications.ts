@@ -30,10 +30,34 @@ interface NativeNotificationsPlugin {
   checkPermission(): Promise<{ granted: boolean; platform: string }>;
   requestPermission(): Promise<{ granted: boolean; platform: string }>;
   show(options: { title: string; body: string; id?: number }): Promise<{ success: boolean; id?: number; error?: string }>;
-  schedule(options: { title: string; body: string; id?: number; triggerAt: number }): Promise<{ success: boolean; id?: number; scheduledAt?: number; error?: string }>;
+  schedule(options: { title: string; body: string; id?: number; triggerAt: number; priority?: 'low' | 'high' }): Promise<{ success: boolean; id?: number; scheduledAt?: number; error?: string }>;
   cancel(options: { id: number }): Promise<{ success: boolean }>;
   cancelAll(): Promise<{ success: boolean }>;
   getPending(): Promise<{ notifications: Record<string, any>; count: number }>;
+  setDeliveryPolicy(options: {
+    quietHoursStart?: string;
+    quietHoursEnd?: string;
+    quietHoursEnabled?: boolean;
+    channels?: Record<string, 'ON_TIME' | 'SILENT_IN_QUIET' | 'DEFER' | 'BATCH' | null>;
+  }): Promise<{ success: boolean; rescheduled: number }>;
+  getAlarmAccuracy(): Promise<AlarmAccuracy>;
+  requestExactAlarmPermission(): Promise<{ granted: boolean }>;
+}
+
+interface AlarmDriftStats {
+  samples: number;
+  total: number;
+  medianMs?: number;
+  p90Ms?: number;
+  maxMs?: number;
+}
+
+export interface AlarmAccuracy {
+  exact: AlarmDriftStats;
+  inexact: AlarmDriftStats;
+  canScheduleExactAlarms: boolean;
+  inexactLeadMs: number;
+  shouldRequestExactAlarms: boolean;
 }
 
 /**
@@ -561,6 +585,66 @@ export async function scheduleReminder(options: {
   });
 }
 
+/**
+ * Sync quiet hours to the native reminder scheduler (Android only)
+ * Native alarms fire while the WebView is closed, so the device needs its own copy;
+ * pending notifications are re-armed under the new policy.
+ */
+export async function syncDeliveryPolicy(options: {
+  quietHoursStart?: string | null;
+  quietHoursEnd?: string | null;
+}) {
+  if (!isAndroid()) return;
+
+  const plugin = getNativeNotificationsPlugin();
+  if (!plugin?.setDeliveryPolicy) return;
+
+  try {
+    const enabled = !!(options.quietHoursStart && options.quietHoursEnd);
+    const result = await plugin.setDeliveryPolicy({
+      quietHoursEnabled: enabled,
+      ...(enabled ? { quietHoursStart: options.quietHoursStart!, quietHoursEnd: options.quietHoursEnd! } : {}),
+    });
+    console.log('[NOTIFICATIONS] Delivery policy synced:', result);
+  } catch (error) {
+    console.error('[NOTIFICATIONS] Failed to sync delivery policy:', error);
+  }
+}
+
+/**
+ * Measured reminder delivery accuracy on this device (Android only)
+ * Use shouldRequestExactAlarms to decide whether to ask for the exact alarm permission.
+ */
+export async function getAlarmAccuracy(): Promise<AlarmAccuracy | null> {
+  if (!isAndroid()) return null;
+
+  const plugin = getNativeNotificationsPlugin();
+  if (!plugin?.getAlarmAccuracy) return null;
+
+  try {
+    return await plugin.getAlarmAccuracy();
+  } catch (error) {
+    console.error('[NOTIFICATIONS] Failed to get alarm accuracy:', error);
+    return null;
+  }
+}
+
+/**
+ * Open the system exact alarm setting (Android 12+); returns whether it was already granted
+ */
+export async function requestExactAlarmPermission(): Promise<boolean> {
+  const plugin = isAndroid() ? getNativeNotificationsPlugin() : null;
+  if (!plugin?.requestExactAlarmPermission) return false;
+
+  try {
+    const result = await plugin.requestExactAlarmPermission();
+    return result.granted;
+  } catch (error) {
+    console.error('[NOTIFICATIONS] Failed to request exact alarm permission:', error);
+    return false;
+  }
+}
+
 /**
  * Cancel a scheduled notification
  */
@@ -648,6 +732,9 @@ export default {
   initializePushNotifications,
   showLocalNotification,
   scheduleReminder,
+  syncDeliveryPolicy,
+  getAlarmAccuracy,
+  requestExactAlarmPermission,
   cancelNotification,
   getPendingNotifications,
   unregisterDevice,
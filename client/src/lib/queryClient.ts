@@ -12,6 +12,7 @@ export async function apiRequest(
   method: string,
   url: string,
   data?: unknown | undefined,
+  extraHeaders?: Record<string, string>,
 ): Promise<Response> {
   const isFormData = data instanceof FormData;
 
@@ -20,7 +21,10 @@ export async function apiRequest(
 
   const res = await fetch(fullUrl, {
     method,
-    headers: isFormData ? {} : (data ? { "Content-Type": "application/json" } : {}),
+    headers: {
+      ...(isFormData ? {} : (data ? { "Content-Type": "application/json" } : {})),
+      ...extraHeaders,
+    },
     body: isFormData ? data : (data ? JSON.stringify(data) : undefined),
     credentials: "include",
   });
@@ -9,10 +9,19 @@ import { Share, ShareResult } from '@capacitor/share';
 import { registerPlugin } from '@capacitor/core';
 import { isNative, isIOS, isAndroid, getPlatform } from './platform';
 import { apiUrl } from './api';
+import { onNativeEvent, hasNativeEventQueue } from './nativeBridge';
 
 // Define the SharePlugin interface for our custom Android plugin
 interface SharePluginInterface {
   getPendingShare(): Promise<{ hasData: boolean; data: string | null }>;
+  getIngestedMedia(options: { uris: string[] }): Promise<{ media: IngestedMedia[] }>;
+  getVideoPreview(options: {
+    uris: string[];
+    timestampsMs?: number[];
+    includeAudio?: boolean;
+  }): Promise<{ videos: SharedVideoPreview[] }>;
+  prefetchUrl(options: { url: string }): Promise<{ prefetch: SharedUrlPrefetch | null }>;
+  getPrefetchStatus(options: { url: string; refresh?: boolean }): Promise<{ prefetch: SharedUrlPrefetch | null }>;
 }
 
 // Register our custom SharePlugin only on native (defined in MainActivity.java)
@@ -279,15 +288,167 @@ export async function shareActivity(activity: {
  * ```
  */
 export interface IncomingShareData {
-  type: 'text' | 'url' | 'file';
+  type: 'text' | 'url' | 'file' | 'image' | 'video';
   title?: string;
   text?: string;
   url?: string;
   files?: string[];
+  mediaType?: 'image' | 'video';
+  caption?: string;
 }
 
-// Store incoming share data temporarily
-let pendingShareData: IncomingShareData | null = null;
+/**
+ * A shared video after native pre-processing: metadata plus JPEG keyframes
+ * (and the audio track as .m4a when requested), so AI parsing can work from a
+ * few frames instead of the whole file. Paths are file:// URIs; `webPath`
+ * versions can be fetched. On failure only `source` and `error` are set.
+ */
+export interface SharedVideoPreview {
+  source: string;
+  durationMs?: number;
+  width?: number;
+  height?: number;
+  rotation?: number;
+  hasAudio?: boolean;
+  bitrate?: number;
+  frames?: Array<{ timeMs: number; path: string; webPath?: string; width: number; height: number }>;
+  audioPath?: string;
+  audioWebPath?: string;
+  audioError?: string;
+  error?: string;
+}
+
+/**
+ * A shared image after native ingest: downscaled, re-encoded JPEG without
+ * location EXIF, plus a thumbnail. Paths are file:// URIs; `webPath` and
+ * `thumbnailWebPath` can be fetched or used as <img> sources.
+ * On failure only `source` and `error` are set - fall back to the source URI.
+ */
+export interface IngestedMedia {
+  source: string;
+  path?: string;
+  thumbnailPath?: string;
+  webPath?: string;
+  thumbnailWebPath?: string;
+  width?: number;
+  height?: number;
+  bytes?: number;
+  mimeType?: string;
+  error?: string;
+}
+
+/**
+ * Native prefetch of a shared social media link (Android)
+ * MainActivity starts server-side extraction as soon as the link is shared;
+ * `serverStatus` 'complete' (after a refresh) means parsing it is instant.
+ */
+export interface SharedUrlPrefetch {
+  url: string;
+  canonicalUrl: string;
+  platform: 'instagram' | 'tiktok' | 'youtube';
+  state: 'queued' | 'sent' | 'retrying' | 'failed';
+  attempts: number;
+  createdAt: number;
+  sentAt?: number;
+  serverStatus?: 'prefetching' | 'processing' | 'complete' | 'error' | 'not_started' | 'skipped';
+  error?: string;
+}
+
+/**
+ * The native prefetch for a link, if one was started (any variant of the
+ * link matches). Pass refresh to also get the server's extraction status.
+ * Returns null off Android, on older app builds, or for unsupported links.
+ */
+export async function getSharedUrlPrefetch(
+  url: string,
+  options: { refresh?: boolean } = {}
+): Promise<SharedUrlPrefetch | null> {
+  if (!isAndroid()) return null;
+
+  try {
+    const { prefetch } = await SharePlugin!.getPrefetchStatus({ url, ...options });
+    return prefetch;
+  } catch (error) {
+    console.warn('[SHARE ANDROID] Native prefetch status unavailable:', error);
+    return null;
+  }
+}
+
+/**
+ * Start (or join) native prefetch of a social media link
+ * Shares through the share sheet are already prefetched by MainActivity;
+ * this covers links that reach the parse flow another way (clipboard,
+ * pasted text). Returns null off Android, on older app builds, or for
+ * unsupported links.
+ */
+export async function prefetchSharedUrl(url: string): Promise<SharedUrlPrefetch | null> {
+  if (!isAndroid()) return null;
+
+  try {
+    const { prefetch } = await SharePlugin!.prefetchUrl({ url });
+    return prefetch;
+  } catch (error) {
+    console.warn('[SHARE ANDROID] Native prefetch unavailable:', error);
+    return null;
+  }
+}
+
+/**
+ * Metadata and keyframes for an Android video share
+ * The default pass (evenly spaced frames) starts when the share arrives;
+ * custom timestamps or the audio track are extracted on request.
+ * Meant as input for AI parsing, not as a stand-in for the video itself.
+ * Returns [] where native pre-processing isn't available.
+ */
+export async function getSharedVideoPreview(
+  data: IncomingShareData,
+  options: { timestampsMs?: number[]; includeAudio?: boolean } = {}
+): Promise<SharedVideoPreview[]> {
+  if (!isAndroid() || data.mediaType !== 'video' || !data.files?.length) return [];
+
+  try {
+    const { videos } = await SharePlugin!.getVideoPreview({ uris: data.files, ...options });
+    const convert = (window as any).Capacitor?.convertFileSrc;
+    const toWeb = (path?: string) => (path && convert ? convert(path) : path);
+    return (videos || []).map((video) => ({
+      ...video,
+      frames: video.frames?.map((frame) => ({ ...frame, webPath: toWeb(frame.path) })),
+      audioWebPath: toWeb(video.audioPath),
+    }));
+  } catch (error) {
+    // Older app builds don't have getVideoPreview
+    console.warn('[SHARE ANDROID] Native video pre-processing unavailable:', error);
+    return [];
+  }
+}
+
+/**
+ * Upload-ready files for an Android image share
+ * MainActivity starts the ingest when the share arrives, so this usually
+ * resolves immediately. Returns [] where native ingest isn't available.
+ */
+export async function getIngestedSharedMedia(data: IncomingShareData): Promise<IngestedMedia[]> {
+  if (!isAndroid() || data.mediaType !== 'image' || !data.files?.length) return [];
+
+  try {
+    const { media } = await SharePlugin!.getIngestedMedia({ uris: data.files });
+    const convert = (window as any).Capacitor?.convertFileSrc;
+    return (media || []).map((item) => ({
+      ...item,
+      webPath: item.path && convert ? convert(item.path) : item.path,
+      thumbnailWebPath: item.thumbnailPath && convert ? convert(item.thumbnailPath) : item.thumbnailPath,
+    }));
+  } catch (error) {
+    // Older app builds don't have getIngestedMedia
+    console.warn('[SHARE ANDROID] Native media ingest unavailable:', error);
+    return [];
+  }
+}
+
+// Incoming shares not consumed yet, oldest first - a burst of shares keeps every item
+const pendingShareQueue: IncomingShareData[] = [];
+// Resolvers for shares from the native event queue, called once the app consumes them
+const shareConsumedCallbacks = new WeakMap<IncomingShareData, () => void>();
 
 /**
  * Initialize incoming share listener
@@ -318,7 +479,8 @@ export function initIncomingShareListener(): void {
   }
 
   // Android: Check for cold start share data using our registered SharePlugin
-  if (isAndroid()) {
+  // (app builds without the native event queue; taking a share there removes it natively)
+  if (isAndroid() && !hasNativeEventQueue()) {
     console.log('[SHARE ANDROID] Checking for cold start share data...');
     SharePlugin!.getPendingShare()
       .then((result) => {
@@ -340,7 +502,23 @@ export function initIncomingShareListener(): void {
       });
   }
 
-  // Android: Listen for 'incomingShare' events from MainActivity (hot start)
+  // Android: shares queued by MainActivity (cold and hot start, in arrival order)
+  if (isAndroid()) {
+    onNativeEvent<IncomingShareData>('share', (shareData) => {
+      console.log('[SHARE ANDROID] Share received from native event queue:', shareData);
+      if (!shareData || !(shareData.text || shareData.files || shareData.url || shareData.type)) return;
+
+      // Surface the share right away; getIngestedSharedMedia / getSharedVideoPreview
+      // fetch the native pre-processing results when a consumer needs them.
+      // The native event stays queued until the app consumes the share.
+      return new Promise<void>((resolve) => {
+        shareConsumedCallbacks.set(shareData, resolve);
+        setPendingShareData(shareData);
+      });
+    });
+  }
+
+  // Android: Listen for 'incomingShare' events from MainActivity (hot start, older app builds)
   // MainActivity dispatches CustomEvent with share data in event.detail (already parsed JSON object)
   window.addEventListener('incomingShare', (event: any) => {
     console.log('[SHARE ANDROID] incomingShare event received');
@@ -585,10 +763,10 @@ async function persistPendingShare(data: IncomingShareData): Promise<string | nu
 }
 
 /**
- * Set pending share data (called from native layer or intent handler)
+ * Queue incoming share data (called from native layer or intent handler)
  */
 export function setPendingShareData(data: IncomingShareData): void {
-  pendingShareData = data;
+  pendingShareQueue.push(data);
   console.log('[SHARE] Received incoming share:', data);
 
   // Persist to server immediately (fire-and-forget)
@@ -604,11 +782,16 @@ export function setPendingShareData(data: IncomingShareData): void {
 }
 
 /**
- * Get and clear pending share data
+ * Take the oldest pending share; call until it returns null to drain a burst in order
+ * Call it when the share is about to be processed - until then a reload
+ * re-delivers shares from the native event queue.
  */
 export function consumePendingShareData(): IncomingShareData | null {
-  const data = pendingShareData;
-  pendingShareData = null;
+  const data = pendingShareQueue.shift() ?? null;
+  if (data) {
+    shareConsumedCallbacks.get(data)?.();
+    shareConsumedCallbacks.delete(data);
+  }
   return data;
 }
 
@@ -616,7 +799,7 @@ export function consumePendingShareData(): IncomingShareData | null {
  * Check if there's pending share data
  */
 export function hasPendingShareData(): boolean {
-  return pendingShareData !== null;
+  return pendingShareQueue.length > 0;
 }
 
 /**
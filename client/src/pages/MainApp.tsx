@@ -195,7 +195,8 @@ import {
   consumePendingShareData,
   hasPendingShareData,
   initIncomingShareListener,
-  type IncomingShareData
+  prefetchSharedUrl,
+  getSharedUrlPrefetch
 } from "@/lib/shareSheet";
 import { readClipboard } from "@/lib/clipboard";
 import {
@@ -204,7 +205,8 @@ import {
   getBackgroundServiceStatus,
   startForegroundService,
   updateWidgetData,
-  refreshWidgets
+  refreshWidgets,
+  getRealtimeOriginHeaders
 } from "@/lib/backgroundService";
 
 interface ProgressData {
@@ -523,46 +525,46 @@ export default function MainApp({
   useEffect(() => { pendingShareContentRef.current = pendingShareContent; }, [pendingShareContent]);
   // Track share IDs that have already been processed to prevent re-processing
   const processedShareIdsRef = useRef<Set<string>>(new Set());
+  // Ref mirror of processingStatus (declared with the goal mutation below)
+  const processingStatusRef = useRef<'idle' | 'processing' | 'success' | 'error'>('idle');
+
+  // Start the next pending share once nothing is being processed. Shares wait
+  // in shareSheet's queue (in arrival order) until then, so the native event
+  // queue keeps them across a reload.
+  const pumpShareQueue = useCallback(() => {
+    if (pendingShareContentRef.current || processingStatusRef.current === 'processing') return;
+    let shareData = consumePendingShareData();
+    while (shareData) {
+      const sharedContent = shareData.text || shareData.url || '';
+      if (sharedContent) {
+        console.log('[SHARE MainApp] Starting share processing:', sharedContent.substring(0, 100));
+        pendingShareContentRef.current = sharedContent;
+        setPendingShareContent(sharedContent);
+        return;
+      }
+      shareData = consumePendingShareData();
+    }
+  }, []);
 
   // Initialize share listener early (but don't process yet - wait for mutation)
   useEffect(() => {
     // Initialize share listener for native platforms
     initIncomingShareListener();
 
-    // Check for pending share data and store it for later processing
+    // Pick up shares that arrived before this mounted
     const checkPendingTimeout = setTimeout(() => {
       if (hasPendingShareData()) {
-        const shareData = consumePendingShareData();
-        if (shareData) {
-          const sharedContent = shareData.text || shareData.url || '';
-          if (sharedContent) {
-            console.log('[SHARE MainApp] Storing pending share for processing:', sharedContent.substring(0, 100));
-            setPendingShareContent(sharedContent);
-          }
-        }
+        pumpShareQueue();
       }
     }, 100);
 
-    // Listen for future incoming shares via custom event
-    const shareHandler = (data: IncomingShareData) => {
-      const sharedContent = data.text || data.url || '';
-      if (sharedContent) {
-        console.log('[SHARE MainApp] Received share, storing for processing:', sharedContent.substring(0, 100));
-        setPendingShareContent(sharedContent);
-      }
-    };
-    const cleanup = onIncomingShare(shareHandler);
+    // Future incoming shares are queued by shareSheet; the event is the signal to drain
+    const cleanup = onIncomingShare(() => pumpShareQueue());
 
     // Also listen directly for the incomingShare event as a backup
-    const directHandler = (event: any) => {
+    const directHandler = () => {
       console.log('[SHARE MainApp] Direct incomingShare event received');
-      const shareData = event.detail;
-      if (shareData) {
-        const sharedContent = shareData.text || shareData.url || '';
-        if (sharedContent) {
-          setPendingShareContent(sharedContent);
-        }
-      }
+      pumpShareQueue();
     };
     window.addEventListener('incomingShare', directHandler);
 
@@ -1593,6 +1595,14 @@ export default function MainApp({
   const [processingStatus, setProcessingStatus] = useState<'idle' | 'processing' | 'success' | 'error'>('idle');
   const [processingMessage, setProcessingMessage] = useState('');
 
+  // A finished share lets the next queued one start
+  useEffect(() => {
+    processingStatusRef.current = processingStatus;
+    if (processingStatus !== 'processing') {
+      pumpShareQueue();
+    }
+  }, [processingStatus, pumpShareQueue]);
+
   // Auto-hide success bar after 8 seconds
   useEffect(() => {
     if (processingStatus === 'success') {
@@ -1703,8 +1713,24 @@ export default function MainApp({
     }
 
     // Show processing bar
+    const sharedMessage = 'Creating an action plan from your shared content...';
     setProcessingStatus('processing');
-    setProcessingMessage('Creating an action plan from your shared content...');
+    setProcessingMessage(sharedMessage);
+
+    // Android: warm (or join) native extraction of the link; if the server
+    // already has it, say so instead of the generic message
+    if (isUrl) {
+      const url = sharedContent.trim();
+      prefetchSharedUrl(url)
+        .then(prefetch => prefetch ? getSharedUrlPrefetch(url, { refresh: true }) : null)
+        .then(prefetch => {
+          if (prefetch?.serverStatus === 'complete') {
+            setProcessingMessage(current => current === sharedMessage
+              ? 'Content already extracted — creating your action plan...'
+              : current);
+          }
+        });
+    }
 
     // Trigger the goal processing mutation after a brief delay
     setTimeout(() => {
@@ -1723,9 +1749,12 @@ export default function MainApp({
   // Complete task mutation
   const completeTaskMutation = useMutation({
     mutationFn: async (taskId: string) => {
+      // Tagged with this install, so the native stream doesn't count it a second time
       const response = await apiRequest(
         "POST",
         `/api/tasks/${taskId}/complete`,
+        undefined,
+        await getRealtimeOriginHeaders(),
       );
       return response.json();
     },
@@ -64,6 +64,8 @@ import { z } from "zod";
 import crypto from "crypto";
 import { sendWelcomeEmail, sendPasswordResetEmail } from "./emailService";
 import { generateContentHash } from "./utils/contentHash";
+import { checkChunk } from "./utils/resumableUpload";
+import { normalizeUrlForCache } from "./utils/urlCacheKey";
 import multer from "multer";
 import path from "path";
 import fs from "fs";
@@ -363,6 +365,53 @@ function getUserId(req: any): string | null {
   return null;
 }
 
+// Helper for routes the Android app, widgets and workers also call: the native
+// Bearer token first, then the session. bearerRejected is set when a token was
+// sent but doesn't resolve (expired or revoked) and there is no session - such
+// callers get a 401 instead of falling back to the demo user.
+async function resolveNativeOrSessionUser(
+  req: any,
+): Promise<{ userId: string | null; bearerRejected: boolean }> {
+  const authHeader = req.headers.authorization;
+  if (authHeader && authHeader.startsWith("Bearer ")) {
+    try {
+      const tokenData = await storage.getNativeAuthToken(authHeader.substring(7));
+      if (tokenData) {
+        return { userId: tokenData.userId, bearerRejected: false };
+      }
+    } catch (e) {
+      // Token lookup failed, treated as an unresolved token
+    }
+    const sessionUserId = getUserId(req);
+    return { userId: sessionUserId, bearerRejected: !sessionUserId };
+  }
+  return { userId: getUserId(req), bearerRejected: false };
+}
+
+// Helper: local YYYY-MM-DD of a task date - the day key /api/progress and the widget endpoints use
+function toLocalDateStr(d: any): string | null {
+  if (!d) return null;
+  if (d instanceof Date) return `${d.getFullYear()}-${String(d.getMonth() + 1).padStart(2, "0")}-${String(d.getDate()).padStart(2, "0")}`;
+  return d.toString().split("T")[0];
+}
+
+// Helper: consecutive days with a completed task, counting back from today
+// (today without a completion yet doesn't break the streak) - SAME as /api/progress
+function completionStreak(completedTasks: any[], now: Date = new Date()): number {
+  const completionDays = new Set(completedTasks.map((t: any) => toLocalDateStr(t.completedAt)));
+  let streak = 0;
+  for (let i = 0; i < 365; i++) {
+    const checkDate = new Date(now);
+    checkDate.setDate(checkDate.getDate() - i);
+    if (completionDays.has(toLocalDateStr(checkDate))) {
+      streak++;
+    } else if (i > 0) {
+      break;
+    }
+  }
+  return streak;
+}
+
 // Helper to get session-based demo user ID for unauthenticated users
 // Each session gets a unique demo ID to prevent state collision
 function getDemoUserId(req: any): string {
@@ -5384,7 +5433,13 @@ ${sitemaps
   // Get user tasks
   app.get("/api/tasks", async (req, res) => {
     try {
-      const userId = getUserId(req) || DEMO_USER_ID;
+      // The Android app prefetches this at cold start with its native token; a
+      // token that no longer resolves must not be answered with the demo user's tasks
+      const auth = await resolveNativeOrSessionUser(req);
+      if (auth.bearerRejected) {
+        return res.status(401).json({ error: "Authentication required" });
+      }
+      const userId = auth.userId || DEMO_USER_ID;
       const tasks = await storage.getUserTasks(userId);
       res.json(tasks);
     } catch (error) {
@@ -5430,9 +5485,18 @@ ${sitemaps
           ),
         );
 
+      // Optional projection (?fields=streak,totalCompleted,...): widgets ask only for
+      // what the sizes placed on the home screen render. Without it, the full payload.
+      const fieldsParam = typeof req.query.fields === "string" ? req.query.fields : "";
+      const requestedFields = fieldsParam
+        ? new Set(fieldsParam.split(",").map((f) => f.trim()).filter(Boolean))
+        : null;
+      const wants = (field: string) => !requestedFields || requestedFields.has(field);
+
       // Get unread notifications count
-      const unreadNotifications =
-        await storage.getUnreadNotificationsCount(userId);
+      const unreadNotifications = wants("unreadNotifications")
+        ? await storage.getUnreadNotificationsCount(userId)
+        : 0;
 
       // Get today's date in YYYY-MM-DD format (local timezone) - SAME as /api/progress
       const now = new Date();
@@ -5466,27 +5530,7 @@ ${sitemaps
       const totalToday = activeTasks.length;
 
       // Calculate actual consecutive day streak - SAME as /api/progress
-      let weeklyStreak = 0;
-      {
-        const streakToday = new Date();
-        streakToday.setHours(0, 0, 0, 0);
-        const getDateStrForStreak = (d: any): string | null => {
-          if (!d) return null;
-          if (d instanceof Date) return `${d.getFullYear()}-${String(d.getMonth() + 1).padStart(2, '0')}-${String(d.getDate()).padStart(2, '0')}`;
-          return d.toString().split('T')[0];
-        };
-        for (let i = 0; i < 365; i++) {
-          const checkDate = new Date(streakToday);
-          checkDate.setDate(checkDate.getDate() - i);
-          const dateStr = `${checkDate.getFullYear()}-${String(checkDate.getMonth() + 1).padStart(2, '0')}-${String(checkDate.getDate()).padStart(2, '0')}`;
-          const hasActivity = completedTasks.some((t: any) => getDateStrForStreak(t.completedAt) === dateStr);
-          if (hasActivity) {
-            weeklyStreak++;
-          } else if (i > 0) {
-            break;
-          }
-        }
-      }
+      const weeklyStreak = wants("streak") ? completionStreak(completedTasks, now) : 0;
 
       // Total completed - SAME as /api/progress
       const totalCompleted = completedTasks.length;
@@ -5498,7 +5542,10 @@ ${sitemaps
           : 0;
 
       // Plans complete - SAME as /api/reports
-      const userActivities = await storage.getUserActivities(userId);
+      const userActivities =
+        wants("plansComplete") || wants("totalPlans")
+          ? await storage.getUserActivities(userId)
+          : [];
       const plansComplete = userActivities.filter(
         (a: any) => a.totalTasks > 0 && a.completedTasks === a.totalTasks
       ).length;
@@ -5508,7 +5555,7 @@ ${sitemaps
       // - Total: totalCompleted (Tasks Done)
       // - Plans: plansComplete (Plans Complete)
       // - Rate: completionRate (Completion Rate)
-      res.json({
+      const payload: Record<string, any> = {
         tasksCompleted: completedToday,
         tasksTotal: totalToday,
         streak: weeklyStreak,
@@ -5517,25 +5564,170 @@ ${sitemaps
         plansComplete: plansComplete,
         totalPlans: userActivities.length,
         unreadNotifications: unreadNotifications,
-        timestamp: new Date().toISOString(),
-      });
+      };
+
+      // Large widget only: today's task rows and the 7-day completion trend
+      if (requestedFields?.has("tasks")) {
+        payload.tasks = [...activeTasks]
+          .sort((a: any, b: any) => Number(!!a.completed) - Number(!!b.completed))
+          .slice(0, 8)
+          .map((task: any) => ({ id: task.id, title: task.title, completed: !!task.completed }));
+      }
+      if (requestedFields?.has("weeklyCompleted")) {
+        const countsByDay = new Map<string, number>();
+        for (const t of completedTasks) {
+          const day = toLocalDateStr(t.completedAt);
+          if (day) countsByDay.set(day, (countsByDay.get(day) || 0) + 1);
+        }
+        const weeklyCompleted: number[] = [];
+        for (let i = 6; i >= 0; i--) {
+          const day = new Date(now);
+          day.setDate(day.getDate() - i);
+          weeklyCompleted.push(countsByDay.get(toLocalDateStr(day)!) || 0);
+        }
+        payload.weeklyCompleted = weeklyCompleted;
+      }
+
+      if (requestedFields) {
+        for (const key of Object.keys(payload)) {
+          if (!requestedFields.has(key)) delete payload[key];
+        }
+      }
+
+      res.json({ ...payload, timestamp: new Date().toISOString() });
     } catch (error) {
       console.error("Widget data error:", error);
       res.status(500).json({ error: "Failed to fetch widget data" });
     }
   });
 
+  // Today's tasks for the native background sync (TaskSyncWorker): reminders are
+  // scheduled from dueDate, the live notification and widget rows from the rest
+  app.get("/api/tasks/upcoming", async (req, res) => {
+    try {
+      const { userId } = await resolveNativeOrSessionUser(req);
+      if (!userId) {
+        return res.status(401).json({ error: "Authentication required" });
+      }
+
+      const tasks = await db
+        .select()
+        .from(tasksTable)
+        .where(
+          and(
+            eq(tasksTable.userId, userId),
+            or(eq(tasksTable.archived, false), isNull(tasksTable.archived)),
+          ),
+        );
+
+      // Same local-date rules as /api/tasks/widget
+      const now = new Date();
+      const today = toLocalDateStr(now);
+
+      const completedTasks = tasks.filter((task: any) => task.completed === true);
+      const todaysTasks = tasks.filter(
+        (task: any) => !task.completed || toLocalDateStr(task.completedAt) === today,
+      );
+      const dueTime = (task: any) =>
+        task.dueDate ? new Date(task.dueDate).getTime() : Number.MAX_SAFE_INTEGER;
+
+      // Open tasks first, soonest due first
+      const ordered = [...todaysTasks].sort(
+        (a: any, b: any) =>
+          Number(!!a.completed) - Number(!!b.completed) || dueTime(a) - dueTime(b),
+      );
+      const nextTask = ordered.find(
+        (task: any) => !task.completed && task.dueDate && dueTime(task) > now.getTime(),
+      );
+
+      res.json({
+        tasks: ordered.slice(0, 50).map((task: any) => ({
+          id: task.id,
+          title: task.title,
+          completed: !!task.completed,
+          dueDate: task.dueDate ? new Date(task.dueDate).toISOString() : null,
+        })),
+        completedCount: todaysTasks.filter((task: any) => task.completed).length,
+        totalCount: todaysTasks.length,
+        streak: completionStreak(completedTasks, now),
+        nextTask: nextTask
+          ? {
+              id: nextTask.id,
+              title: nextTask.title,
+              dueTime: new Date(nextTask.dueDate!).toLocaleTimeString("en-US", {
+                hour: "numeric",
+                minute: "2-digit",
+              }),
+            }
+          : null,
+        timestamp: now.toISOString(),
+      });
+    } catch (error) {
+      console.error("Upcoming tasks error:", error);
+      res.status(500).json({ error: "Failed to fetch upcoming tasks" });
+    }
+  });
+
+  // Server-Sent Events stream of the user's own events (task completions,
+  // notifications) for the native foreground service. Same events as the
+  // user's Socket.IO room; a comment line every 25s keeps proxies from idling it out.
+  app.get("/api/events/stream", async (req, res) => {
+    const { userId } = await resolveNativeOrSessionUser(req);
+    if (!userId) {
+      return res.status(401).json({ error: "Authentication required" });
+    }
+
+    res.writeHead(200, {
+      "Content-Type": "text/event-stream",
+      "Cache-Control": "no-cache, no-transform",
+      Connection: "keep-alive",
+      "X-Accel-Buffering": "no",
+    });
+    res.write(": connected\n\n");
+
+    const unsubscribe = socketService.addStreamSubscriber(userId, res);
+    const heartbeat = setInterval(() => res.write(": ping\n\n"), 25000);
+
+    req.on("close", () => {
+      clearInterval(heartbeat);
+      unsubscribe();
+    });
+  });
+
   // Complete a task (swipe right)
   app.post("/api/tasks/:taskId/complete", async (req, res) => {
     try {
       const { taskId } = req.params;
-      const userId = getUserId(req) || DEMO_USER_ID;
-      const task = await storage.completeTask(taskId, userId);
 
+      // Widget completions (TaskCompletionWorker) authenticate with the native token;
+      // web and demo callers keep the demo fallback
+      const auth = await resolveNativeOrSessionUser(req);
+      if (auth.bearerRejected) {
+        return res.status(401).json({ error: "Authentication required" });
+      }
+      const userId = auth.userId || DEMO_USER_ID;
+
+      const result = await storage.completeTask(taskId, userId);
+      if (result.conflict) {
+        return res.status(409).json({ error: "Task was modified", currentTask: result.currentTask });
+      }
+      const task = result.task;
       if (!task) {
         return res.status(404).json({ error: "Task not found" });
       }
 
+      // Let the user's other devices (native event stream, open tabs) update in place
+      // (distinct from the group "task:completed" event, which shows a toast).
+      // origin lets the device that made the change ignore its own echo.
+      const origin = req.headers["x-client-origin"];
+      socketService.emitToUser(userId, "task:updated", {
+        taskId,
+        completed: true,
+        taskTitle: task.title,
+        origin: typeof origin === "string" ? origin : undefined,
+        timestamp: new Date().toISOString(),
+      });
+
       // Track which groups have already been notified to prevent duplicate notifications
       const notifiedGroupIds = new Set<string>();
 
@@ -7104,6 +7296,9 @@ ${sitemaps
             body: `${sharingUser?.username || "Someone"} shared "${activity?.title}" in ${group?.name || "your group"}`,
             data: { groupId, activityId, groupActivityId: groupActivity.id },
             route: `/groups/${groupId}`,
+            // Cover image when the backdrop is a URL rather than a theme name
+            imageUrl: activity?.backdrop || undefined,
+            avatarUrl: sharingUser?.profileImageUrl || undefined,
           },
         });
 
@@ -13852,6 +14047,85 @@ Return ONLY valid JSON, no markdown or explanation.`;
     }
   });
 
+  // Notification delivery telemetry from the Android app, uploaded in batches.
+  // Stored as feature usage events (category 'notifications') so the existing
+  // analytics summary covers them; latency/exact/channel/type go in metadata.
+  // Alarm latencies compare two device-clock times. Push latencies compare our
+  // send time with the device clock, so they're corrected by the skew measured
+  // from deviceTime (upload transit included) and flagged as estimates, as are
+  // shown/blocked, which the device can only infer from its settings.
+  app.post("/api/notifications/telemetry", async (req: any, res) => {
+    try {
+      const { userId } = await resolveNativeOrSessionUser(req);
+      if (!userId) {
+        return res.status(401).json({ error: "Authentication required" });
+      }
+
+      const { events, dropped, deviceTime } = req.body || {};
+      if (!Array.isArray(events)) {
+        return res.status(400).json({ error: "events array is required" });
+      }
+      // Device clock minus server clock
+      const clockSkewMs = typeof deviceTime === "number" ? deviceTime - Date.now() : null;
+      const latencyOf = (event: any): number | null => {
+        if (typeof event.latencyMs !== "number") return null;
+        if (event.latencyClock === "server" && clockSkewMs !== null) {
+          return event.latencyMs - clockSkewMs;
+        }
+        return event.latencyMs;
+      };
+
+      const validEvents = ["posted", "shown", "blocked", "tapped", "action", "dismissed"];
+      const accepted = events
+        .slice(0, 200)
+        .filter((event: any) => event && validEvents.includes(event.event));
+
+      await Promise.all(
+        accepted.map((event: any) =>
+          storage.createFeatureUsageEvent({
+            userId: userId!,
+            eventName: `notification_${event.event}`,
+            eventCategory: "notifications",
+            metadata: {
+              at: Number(event.at) || null,
+              channel: event.channel || null,
+              type: event.type || null,
+              notificationId: event.notificationId ?? null,
+              latencyMs: latencyOf(event),
+              rawLatencyMs: typeof event.latencyMs === "number" ? event.latencyMs : null,
+              latencyEstimated: event.latencyClock === "server",
+              clockSkewMs,
+              estimated: event.estimated === true,
+              exact: typeof event.exact === "boolean" ? event.exact : null,
+              detail: event.detail || null,
+            },
+          }),
+        ),
+      );
+
+      if (dropped > 0) {
+        console.warn(`[NOTIFICATION] Device ring buffer dropped ${dropped} telemetry events for user ${userId}`);
+      }
+
+      res.json({ success: true, count: accepted.length });
+    } catch (error) {
+      console.error("Notification telemetry error:", error);
+      res.status(500).json({ error: "Failed to record telemetry" });
+    }
+  });
+
+  // Notification type -> Android channel routing (public, no user data).
+  // Devices send the version they have; an unchanged table returns no routes.
+  app.get("/api/notifications/routing", async (req: any, res) => {
+    const { getNotificationRouting } = await import("./services/notificationTemplates");
+    const routing = getNotificationRouting();
+    if (req.query.version === routing.version) {
+      return res.json({ version: routing.version });
+    }
+    res.set("Cache-Control", "public, max-age=3600");
+    res.json(routing);
+  });
+
   // Get available notification test types
   app.get("/api/notifications/test/types", async (_req: any, res) => {
     res.json({
@@ -17742,6 +18016,222 @@ You can find these tasks in your task list and start working on them right away!
     },
   );
 
+  // Resumable media uploads for the Android background uploader. The app
+  // creates an upload, then PUTs raw chunks with an Upload-Offset header.
+  // The bytes on disk are the source of truth for the offset, so an upload
+  // interrupted mid-chunk resumes from GET .../:id instead of starting over.
+  // Finished files land next to /api/journal/upload's and get the same
+  // { url, type, filename } shape.
+  const partialUploadDir = path.join(uploadDir, ".partial");
+  if (!fs.existsSync(partialUploadDir)) {
+    fs.mkdirSync(partialUploadDir, { recursive: true });
+  }
+  const RESUMABLE_MAX_BYTES = 250 * 1024 * 1024;
+  const RESUMABLE_CHUNK_BYTES = 1024 * 1024;
+  // Accepted mime types and the extension the finished file is stored with
+  const resumableExtensions: Record<string, string> = {
+    "image/jpeg": ".jpg",
+    "image/png": ".png",
+    "image/gif": ".gif",
+    "image/webp": ".webp",
+    "image/heic": ".heic",
+    "image/heif": ".heif",
+    "video/mp4": ".mp4",
+    "video/quicktime": ".mov",
+    "video/webm": ".webm",
+    "video/3gpp": ".3gp",
+  };
+  // Unfinished uploads untouched this long are abandoned; finished ones keep
+  // their sidecar as long as the app keeps asking about them
+  const PARTIAL_UPLOAD_TTL_MS = 24 * 60 * 60 * 1000;
+  const FINISHED_UPLOAD_TTL_MS = 7 * 24 * 60 * 60 * 1000;
+  const activeUploadWrites = new Set<string>();
+
+  const readUploadMeta = (uploadId: string): any | null => {
+    if (!/^[a-f0-9]{32}$/.test(uploadId)) return null;
+    try {
+      return JSON.parse(fs.readFileSync(path.join(partialUploadDir, `${uploadId}.json`), "utf8"));
+    } catch {
+      return null;
+    }
+  };
+
+  const uploadTouchedAt = (uploadId: string): number => {
+    try {
+      return fs.statSync(path.join(partialUploadDir, uploadId)).mtimeMs;
+    } catch {
+      return 0;
+    }
+  };
+
+  const uploadOffset = (meta: any): number => {
+    if (meta.completed) return meta.size;
+    try {
+      return fs.statSync(path.join(partialUploadDir, meta.uploadId)).size;
+    } catch {
+      return 0;
+    }
+  };
+
+  // Sweep abandoned partial files and their sidecars every hour
+  setInterval(() => {
+    const now = Date.now();
+    let names: string[];
+    try {
+      names = fs.readdirSync(partialUploadDir);
+    } catch {
+      return;
+    }
+    for (const name of names) {
+      const uploadId = name.replace(/\.json$/, "");
+      if (activeUploadWrites.has(uploadId)) continue;
+      try {
+        const file = path.join(partialUploadDir, name);
+        const age = now - fs.statSync(file).mtimeMs;
+        if (name.endsWith(".json")) {
+          const meta = readUploadMeta(uploadId);
+          const ttl = meta?.completed ? FINISHED_UPLOAD_TTL_MS : PARTIAL_UPLOAD_TTL_MS;
+          // The partial file's mtime counts too: a slow upload is still alive
+          const lastWrite = meta && !meta.completed ? Math.min(age, now - uploadTouchedAt(uploadId)) : age;
+          if (lastWrite > ttl) fs.unlinkSync(file);
+        } else if (age > PARTIAL_UPLOAD_TTL_MS) {
+          fs.unlinkSync(file);
+        }
+      } catch (error) {
+        console.warn("[UPLOAD] Failed to sweep", name, error);
+      }
+    }
+  }, 60 * 60 * 1000);
+
+  app.post("/api/media/uploads", async (req: any, res) => {
+    try {
+      const { userId } = await resolveNativeOrSessionUser(req);
+      if (!userId) {
+        return res.status(401).json({ error: "Authentication required" });
+      }
+      if (isDemoUser(userId)) {
+        return res.status(403).json({
+          error: "Demo users cannot upload media. Please sign in to continue.",
+          requiresAuth: true,
+        });
+      }
+
+      const { filename, mimeType, size } = req.body || {};
+      if (typeof mimeType !== "string" || !Object.prototype.hasOwnProperty.call(resumableExtensions, mimeType)) {
+        return res.status(415).json({ error: "Only images and videos can be uploaded" });
+      }
+      if (typeof size !== "number" || size <= 0 || size > RESUMABLE_MAX_BYTES) {
+        return res.status(413).json({ error: `size must be between 1 and ${RESUMABLE_MAX_BYTES} bytes` });
+      }
+
+      const uploadId = crypto.randomBytes(16).toString("hex");
+      const meta = {
+        uploadId,
+        userId,
+        filename: typeof filename === "string" ? filename.slice(0, 200) : null,
+        mimeType,
+        size,
+        createdAt: Date.now(),
+        completed: false,
+        media: null,
+      };
+      fs.writeFileSync(path.join(partialUploadDir, `${uploadId}.json`), JSON.stringify(meta));
+      fs.writeFileSync(path.join(partialUploadDir, uploadId), Buffer.alloc(0));
+
+      res.status(201).json({ uploadId, offset: 0, size, chunkSize: RESUMABLE_CHUNK_BYTES });
+    } catch (error) {
+      console.error("[UPLOAD] Failed to create resumable upload:", error);
+      res.status(500).json({ error: "Failed to create upload" });
+    }
+  });
+
+  app.get("/api/media/uploads/:id", async (req: any, res) => {
+    const { userId } = await resolveNativeOrSessionUser(req);
+    const meta = readUploadMeta(req.params.id);
+    if (!userId || !meta || meta.userId !== userId) {
+      return res.status(404).json({ error: "Upload not found" });
+    }
+    res.json({
+      uploadId: meta.uploadId,
+      offset: uploadOffset(meta),
+      size: meta.size,
+      completed: meta.completed,
+      media: meta.media,
+    });
+  });
+
+  app.put("/api/media/uploads/:id", async (req: any, res) => {
+    const { userId } = await resolveNativeOrSessionUser(req);
+    const meta = readUploadMeta(req.params.id);
+    if (!userId || !meta || meta.userId !== userId) {
+      return res.status(404).json({ error: "Upload not found" });
+    }
+
+    const rejection = checkChunk(
+      {
+        offset: uploadOffset(meta),
+        size: meta.size,
+        completed: meta.completed,
+        writing: activeUploadWrites.has(meta.uploadId),
+      },
+      req.headers["upload-offset"],
+      req.headers["content-length"],
+    );
+    if (rejection) {
+      return res.status(rejection.status).json(rejection.body);
+    }
+
+    activeUploadWrites.add(meta.uploadId);
+    const partialPath = path.join(partialUploadDir, meta.uploadId);
+    const out = fs.createWriteStream(partialPath, { flags: "a" });
+    let finished = false;
+    const done = () => {
+      if (finished) return;
+      finished = true;
+      activeUploadWrites.delete(meta.uploadId);
+    };
+
+    // A dropped connection keeps whatever arrived; the next GET reports it
+    req.on("aborted", () => {
+      out.end();
+      done();
+    });
+    out.on("error", (error) => {
+      console.error("[UPLOAD] Chunk write failed:", error);
+      done();
+      if (!res.headersSent) res.status(500).json({ error: "Failed to store chunk" });
+    });
+    out.on("finish", () => {
+      if (res.headersSent || req.aborted) {
+        done();
+        return;
+      }
+      try {
+        const newOffset = uploadOffset(meta);
+        if (newOffset >= meta.size) {
+          const ext = resumableExtensions[meta.mimeType] || ".bin";
+          const finalName = `journal_${Date.now()}-${Math.round(Math.random() * 1e9)}${ext}`;
+          fs.renameSync(partialPath, path.join(uploadDir, finalName));
+          meta.completed = true;
+          meta.media = {
+            url: `/attached_assets/journal_media/${finalName}`,
+            type: meta.mimeType.startsWith("video/") ? "video" : "image",
+            filename: finalName,
+          };
+          fs.writeFileSync(path.join(partialUploadDir, `${meta.uploadId}.json`), JSON.stringify(meta));
+        }
+        res.json({ offset: newOffset, size: meta.size, completed: meta.completed, media: meta.media });
+      } catch (error) {
+        console.error("[UPLOAD] Failed to finish chunk:", error);
+        res.status(500).json({ error: "Failed to store chunk" });
+      } finally {
+        done();
+      }
+    });
+
+    req.pipe(out);
+  });
+
   // AI-powered journal entry creation with keyword detection
   app.post("/api/journal/smart-entry", async (req: any, res) => {
     try {
@@ -19859,65 +20349,6 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
       // Resolve shortened URLs first
       resolvedUrl = await resolveShortUrl(url);
 
-      // URL normalization helper for consistent cache keys
-      const normalizeUrlForCache = (urlString: string): string => {
-        try {
-          const parsed = new URL(urlString);
-
-          if (parsed.hostname.includes("instagram.com")) {
-            const pathMatch = parsed.pathname.match(
-              /\/(reel|p|stories)\/([^\/]+)/,
-            );
-            if (pathMatch) {
-              return `https://www.instagram.com/${pathMatch[1]}/${pathMatch[2]}/`;
-            }
-          }
-
-          if (parsed.hostname.includes("tiktok.com")) {
-            const pathMatch = parsed.pathname.match(/\/@[^\/]+\/video\/(\d+)/);
-            if (pathMatch) {
-              const username = parsed.pathname.split("/")[1];
-              return `https://www.tiktok.com/${username}/video/${pathMatch[1]}`;
-            }
-          }
-
-          if (
-            parsed.hostname.includes("youtube.com") ||
-            parsed.hostname.includes("youtu.be")
-          ) {
-            let videoId: string | null = null;
-            if (parsed.hostname.includes("youtu.be")) {
-              videoId = parsed.pathname.slice(1);
-            } else if (parsed.pathname.includes("/shorts/")) {
-              videoId = parsed.pathname.split("/shorts/")[1]?.split("/")[0];
-            } else {
-              videoId = parsed.searchParams.get("v");
-            }
-            if (videoId) {
-              return `https://www.youtube.com/watch?v=${videoId}`;
-            }
-          }
-
-          const paramsToRemove = [
-            "utm_source",
-            "utm_medium",
-            "utm_campaign",
-            "utm_content",
-            "utm_term",
-            "fbclid",
-            "gclid",
-            "ref",
-            "source",
-            "igsh",
-          ];
-          paramsToRemove.forEach((param) => parsed.searchParams.delete(param));
-
-          return parsed.toString();
-        } catch {
-          return urlString;
-        }
-      };
-
       // Check if it's a video-based social media platform
       const videoCheck = isVideoSocialMedia(resolvedUrl);
       if (videoCheck.isVideo) {
@@ -20165,62 +20596,6 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
   });
 
   // Helper functions for URL prefetching (shared with /api/parse-url)
-  const normalizeUrlForCachePrefetch = (urlString: string): string => {
-    try {
-      const parsed = new URL(urlString);
-
-      if (parsed.hostname.includes("instagram.com")) {
-        const pathMatch = parsed.pathname.match(/\/(reel|p|stories)\/([^\/]+)/);
-        if (pathMatch) {
-          return `https://www.instagram.com/${pathMatch[1]}/${pathMatch[2]}/`;
-        }
-      }
-
-      if (parsed.hostname.includes("tiktok.com")) {
-        const pathMatch = parsed.pathname.match(/\/@[^\/]+\/video\/(\d+)/);
-        if (pathMatch) {
-          const username = parsed.pathname.split("/")[1];
-          return `https://www.tiktok.com/${username}/video/${pathMatch[1]}`;
-        }
-      }
-
-      if (
-        parsed.hostname.includes("youtube.com") ||
-        parsed.hostname.includes("youtu.be")
-      ) {
-        let videoId: string | null = null;
-        if (parsed.hostname.includes("youtu.be")) {
-          videoId = parsed.pathname.slice(1);
-        } else if (parsed.pathname.includes("/shorts/")) {
-          videoId = parsed.pathname.split("/shorts/")[1]?.split("/")[0];
-        } else {
-          videoId = parsed.searchParams.get("v");
-        }
-        if (videoId) {
-          return `https://www.youtube.com/watch?v=${videoId}`;
-        }
-      }
-
-      const paramsToRemove = [
-        "utm_source",
-        "utm_medium",
-        "utm_campaign",
-        "utm_content",
-        "utm_term",
-        "fbclid",
-        "gclid",
-        "ref",
-        "source",
-        "igsh",
-      ];
-      paramsToRemove.forEach((param) => parsed.searchParams.delete(param));
-
-      return parsed.toString();
-    } catch {
-      return urlString;
-    }
-  };
-
   const resolveShortUrlPrefetch = async (shortUrl: string): Promise<string> => {
     try {
       const shortenedPatterns = [
@@ -20326,7 +20701,19 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
       try {
         // Resolve shortened URLs
         const resolvedUrl = await resolveShortUrlPrefetch(url);
-        const normalizedUrl = normalizeUrlForCachePrefetch(resolvedUrl);
+        const normalizedUrl = normalizeUrlForCache(resolvedUrl);
+
+        // Same reel shared again (or by the app and the planner at once):
+        // join the running extraction instead of starting another one
+        const existing = prefetchStatus.get(normalizedUrl);
+        if (
+          existing &&
+          (existing.status === "complete" ||
+            (existing.status === "processing" && Date.now() - existing.startedAt < 5 * 60 * 1000))
+        ) {
+          console.log(`[PREFETCH] Already ${existing.status} for ${normalizedUrl}, skipping`);
+          return;
+        }
 
         // Update status
         prefetchStatus.set(normalizedUrl, {
@@ -20424,7 +20811,7 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
         console.error("[PREFETCH] Background extraction error:", err.message);
         try {
           const resolvedUrl = await resolveShortUrlPrefetch(url);
-          const normalizedUrl = normalizeUrlForCachePrefetch(resolvedUrl);
+          const normalizedUrl = normalizeUrlForCache(resolvedUrl);
           prefetchStatus.set(normalizedUrl, {
             status: "error",
             progress: 0,
@@ -20464,7 +20851,7 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
     try {
       // Resolve and normalize URL
       const resolvedUrl = await resolveShortUrlPrefetch(url);
-      const normalizedUrl = normalizeUrlForCachePrefetch(resolvedUrl);
+      const normalizedUrl = normalizeUrlForCache(resolvedUrl);
 
       // Check if already cached (instant completion)
       const cached = await storage.getUrlContentCache(normalizedUrl);
@@ -20554,7 +20941,7 @@ Respond with JSON: { "category": "Category Name", "confidence": 0.0-1.0, "keywor
 
     try {
       const resolvedUrl = await resolveShortUrlPrefetch(url);
-      const normalizedUrl = normalizeUrlForCachePrefetch(resolvedUrl);
+      const normalizedUrl = normalizeUrlForCache(resolvedUrl);
 
       // Check cache first
       const cached = await storage.getUrlContentCache(normalizedUrl);
@@ -3,52 +3,11 @@ import { socialMediaVideoService } from './socialMediaVideoService';
 import { tavilyExtract, isTavilyConfigured } from './tavilyProvider';
 import OpenAI from 'openai';
 import { storage } from '../storage';
+import { normalizeUrlForCache } from '../utils/urlCacheKey';
 
 const openai = new OpenAI({ apiKey: process.env.OPENAI_API_KEY });
 // Tavily client is now managed by tavilyProvider.ts with automatic key rotation
 
-function normalizeUrlForCache(urlString: string): string {
-  try {
-    const parsed = new URL(urlString);
-    
-    if (parsed.hostname.includes('instagram.com')) {
-      const pathMatch = parsed.pathname.match(/\/(reel|p|stories)\/([^\/]+)/);
-      if (pathMatch) {
-        return `https://www.instagram.com/${pathMatch[1]}/${pathMatch[2]}/`;
-      }
-    }
-    
-    if (parsed.hostname.includes('tiktok.com')) {
-      const pathMatch = parsed.pathname.match(/\/@[^\/]+\/video\/(\d+)/);
-      if (pathMatch) {
-        const username = parsed.pathname.split('/')[1];
-        return `https://www.tiktok.com/${username}/video/${pathMatch[1]}`;
-      }
-    }
-    
-    if (parsed.hostname.includes('youtube.com') || parsed.hostname.includes('youtu.be')) {
-      let videoId: string | null = null;
-      if (parsed.hostname.includes('youtu.be')) {
-        videoId = parsed.pathname.slice(1);
-      } else if (parsed.pathname.includes('/shorts/')) {
-        videoId = parsed.pathname.split('/shorts/')[1]?.split('/')[0];
-      } else {
-        videoId = parsed.searchParams.get('v');
-      }
-      if (videoId) {
-        return `https://www.youtube.com/watch?v=${videoId}`;
-      }
-    }
-    
-    const paramsToRemove = ['utm_source', 'utm_medium', 'utm_campaign', 'utm_content', 'utm_term', 'fbclid', 'gclid', 'ref', 'source', 'igsh'];
-    paramsToRemove.forEach(param => parsed.searchParams.delete(param));
-    
-    return parsed.toString();
-  } catch {
-    return urlString;
-  }
-}
-
 export interface ContentSource {
   id: string;
   type: 'url' | 'file' | 'text';
@@ -12,6 +12,23 @@ export interface NotificationPayload {
   body: string;
   data?: Record<string, any>;
   route?: string; // Deep link route
+  imageUrl?: string; // Large picture (activity cover from the pexels/unsplash/tmdb enrichment)
+  avatarUrl?: string; // Small icon (the actor's profile photo)
+}
+
+/**
+ * Only absolute http(s) URLs can be fetched by devices - backdrop theme names
+ * and relative paths are dropped
+ */
+function pushImageFields(payload: NotificationPayload): Record<string, string> {
+  const fields: Record<string, string> = {};
+  if (payload.imageUrl && /^https?:\/\//.test(payload.imageUrl)) {
+    fields.imageUrl = payload.imageUrl;
+  }
+  if (payload.avatarUrl && /^https?:\/\//.test(payload.avatarUrl)) {
+    fields.avatarUrl = payload.avatarUrl;
+  }
+  return fields;
 }
 
 export interface GroupNotificationOptions {
@@ -75,6 +92,13 @@ export async function sendGroupNotification(
 
     console.log(`[NOTIFICATION] Group notification created for ${targetUserIds.length} members`);
 
+    // Default the push avatar to whoever triggered it
+    let avatarUrl = payload.avatarUrl;
+    if (!avatarUrl && actorUserId) {
+      const actor = await storage.getUser(actorUserId);
+      avatarUrl = actor?.profileImageUrl || undefined;
+    }
+
     // Send push notifications to all target users' devices
     const pushService = new PushNotificationService(storage);
     await pushService.sendToUsers(targetUserIds, {
@@ -82,8 +106,11 @@ export async function sendGroupNotification(
       body: payload.body,
       data: {
         ...payload.data,
+        ...pushImageFields({ ...payload, avatarUrl }),
         groupId,
         notificationType,
+        // Group events reuse personal type names (task_completed) - pin the channel
+        channelId: 'journalmate_groups',
         route: payload.route || `/groups/${groupId}`,
       },
     });
@@ -172,9 +199,12 @@ export async function sendUserNotification(
     const result = await pushService.sendToUser(userId, {
       title: payload.title,
       body: payload.body,
-      data: payload.data ? Object.fromEntries(
-        Object.entries(payload.data).map(([k, v]) => [k, String(v)])
-      ) : undefined,
+      data: {
+        ...(payload.data ? Object.fromEntries(
+          Object.entries(payload.data).map(([k, v]) => [k, String(v)])
+        ) : {}),
+        ...pushImageFields(payload),
+      },
     });
 
     console.log(`[NOTIFICATION] Push sent to user ${userId}:`, {
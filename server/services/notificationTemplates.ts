@@ -5,6 +5,8 @@
  * haptic patterns, and channel assignments for all notification types.
  */
 
+import { createHash } from 'crypto';
+
 export interface NotificationTemplate {
   title: (context: Record<string, any>) => string;
   body: (context: Record<string, any>) => string;
@@ -699,6 +701,55 @@ export function generateNotificationMessage(
   };
 }
 
+/**
+ * Routing table for the Android app: notification type -> channel
+ *
+ * Built from the template channel assignments, plus overrides from the
+ * NOTIFICATION_ROUTING_OVERRIDES env var (JSON object; keys are exact types or
+ * "prefix_*"). Devices cache it by version, so re-routing a type only needs a
+ * config change here, not an app release.
+ */
+let routingCache: { version: string; routes: Record<string, string> } | null = null;
+
+export function getNotificationRouting(): { version: string; routes: Record<string, string> } {
+  if (routingCache) return routingCache;
+
+  const routes: Record<string, string> = {};
+  const allTemplates: Record<string, NotificationTemplate> = {
+    ...TaskTemplates,
+    ...ActivityTemplates,
+    ...GoalTemplates,
+    ...GroupTemplates,
+    ...StreakTemplates,
+    ...AccountabilityTemplates,
+    ...SeasonalTemplates,
+    ...TimeChangeTemplates,
+    ...MediaTemplates,
+    ...ReservationTemplates,
+    ...AssistantTemplates,
+    ...JournalTemplates,
+  };
+  for (const [type, template] of Object.entries(allTemplates)) {
+    routes[type] = template.channel;
+  }
+
+  const overrides = process.env.NOTIFICATION_ROUTING_OVERRIDES;
+  if (overrides) {
+    try {
+      const parsed = JSON.parse(overrides);
+      for (const [type, channel] of Object.entries(parsed)) {
+        if (typeof channel === 'string') routes[type] = channel;
+      }
+    } catch (error) {
+      console.error('[NOTIFICATION] Invalid NOTIFICATION_ROUTING_OVERRIDES:', error);
+    }
+  }
+
+  const version = createHash('sha1').update(JSON.stringify(routes)).digest('hex').slice(0, 12);
+  routingCache = { version, routes };
+  return routingCache;
+}
+
 /**
  * Get streak milestone template if applicable
  */
@@ -1,3 +1,4 @@
+import { randomUUID } from 'crypto';
 import type { IStorage } from '../storage.js';
 
 // Dynamic import for firebase-admin to prevent crashes when package not available
@@ -103,8 +104,19 @@ export class PushNotificationService {
         return { success: true, sentCount: 0, failedCount: 0 };
       }
 
-      // Extract token strings from DeviceToken objects
-      const deviceTokens = devices.map((d: any) => d.token);
+      // Android devices get a data-only message: a notification payload is drawn
+      // by the system while the app is in the background, bypassing the app's
+      // ingest pipeline (dedupe, bundling, rate limiting). Other platforms keep
+      // the notification payload. messageId lets the device drop redelivered sends.
+      const messageId = randomUUID();
+      // Send time, so devices can report delivery latency
+      const sentAt = String(Date.now());
+      const androidTokens: string[] = devices
+        .filter((d: any) => d.platform === 'android')
+        .map((d: any) => d.token);
+      const otherTokens: string[] = devices
+        .filter((d: any) => d.platform !== 'android')
+        .map((d: any) => d.token);
 
       // Load firebase-admin for messaging
       const firebaseAdmin = await loadFirebaseAdmin();
@@ -131,14 +143,36 @@ export class PushNotificationService {
         }
       }
 
+      const batches: Array<{ tokens: string[]; message: any }> = [];
+      if (androidTokens.length > 0) {
+        batches.push({
+          tokens: androidTokens,
+          message: {
+            tokens: androidTokens,
+            data: {
+              ...(notification.data || {}),
+              title: notification.title,
+              body: notification.body,
+              messageId,
+              sentAt,
+            },
+            android: {
+              priority: 'high' as const,
+            },
+          },
+        });
+      }
+
       // Send to all devices using FCM multicast
       const message: any = {
-        tokens: deviceTokens,
+        tokens: otherTokens,
         notification: {
           title: notification.title,
           body: notification.body,
+          // Android fetches data.imageUrl itself; elsewhere the system draws it
+          ...(notification.data?.imageUrl ? { imageUrl: notification.data.imageUrl } : {}),
         },
-        data: notification.data || {},
+        data: { ...(notification.data || {}), messageId, sentAt },
         // Platform-specific options
         android: {
           priority: 'high' as const,
@@ -160,7 +194,21 @@ export class PushNotificationService {
         },
       };
 
-      const response = await messagingService.sendEachForMulticast(message);
+      if (otherTokens.length > 0) {
+        batches.push({ tokens: otherTokens, message });
+      }
+
+      const batchResponses = await Promise.all(
+        batches.map(batch => messagingService.sendEachForMulticast(batch.message))
+      );
+
+      // Flatten so token indices line up with responses for the cleanup below
+      const deviceTokens = batches.flatMap(batch => batch.tokens);
+      const response = {
+        successCount: batchResponses.reduce((sum: number, r: any) => sum + r.successCount, 0),
+        failureCount: batchResponses.reduce((sum: number, r: any) => sum + r.failureCount, 0),
+        responses: batchResponses.flatMap((r: any) => r.responses),
+      };
 
       console.log(`[PUSH] Sent to user ${userId}: ${response.successCount}/${deviceTokens.length} devices`);
 
@@ -1,8 +1,13 @@
 import { Server as SocketIOServer, Socket } from 'socket.io';
+import type { Response } from 'express';
 import type { Storage } from '../storage';
 
 let io: SocketIOServer | null = null;
 
+// Server-Sent Events subscribers (native apps), keyed by userId.
+// Receive the same per-user events as the user's Socket.IO room.
+const streamSubscribers = new Map<string, Set<Response>>();
+
 export async function initializeSocketIO(socketServer: SocketIOServer, storage: Storage) {
   io = socketServer;
 
@@ -76,8 +81,31 @@ export async function initializeSocketIO(socketServer: SocketIOServer, storage:
 }
 
 export class SocketService {
+  // Register an SSE response for a user's events; returns the unsubscribe function
+  static addStreamSubscriber(userId: string, res: Response): () => void {
+    let subscribers = streamSubscribers.get(userId);
+    if (!subscribers) {
+      subscribers = new Set();
+      streamSubscribers.set(userId, subscribers);
+    }
+    subscribers.add(res);
+
+    return () => {
+      const current = streamSubscribers.get(userId);
+      if (!current) return;
+      current.delete(res);
+      if (current.size === 0) streamSubscribers.delete(userId);
+    };
+  }
+
   // Emit to specific user
   static emitToUser(userId: string, event: string, data: any) {
+    const subscribers = streamSubscribers.get(userId);
+    if (subscribers) {
+      const frame = `event: ${event}\ndata: ${JSON.stringify(data)}\n\n`;
+      subscribers.forEach((res) => res.write(frame));
+    }
+
     if (!io) {
       console.warn('[SOCKET.IO] Socket.io not initialized, cannot emit event:', event);
       return;
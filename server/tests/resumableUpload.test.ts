@@ -0,0 +1,61 @@
+/**
+ * Resumable upload offsets: a chunk is appended only at the server's offset
+ */
+
+import { describe, test, expect } from '@jest/globals';
+import { checkChunk, type UploadState } from '../utils/resumableUpload';
+
+const state = (overrides: Partial<UploadState> = {}): UploadState => ({
+  offset: 0,
+  size: 3000,
+  completed: false,
+  writing: false,
+  ...overrides,
+});
+
+describe('checkChunk', () => {
+  test('accepts a chunk at the current offset', () => {
+    expect(checkChunk(state(), '0', '1000')).toBeNull();
+    expect(checkChunk(state({ offset: 1000 }), 1000, 2000)).toBeNull();
+  });
+
+  test('409s a client that is behind or ahead, with the server offset', () => {
+    expect(checkChunk(state({ offset: 1000 }), '0', '1000')).toEqual({
+      status: 409,
+      body: { offset: 1000, size: 3000, completed: false },
+    });
+    expect(checkChunk(state({ offset: 1000 }), '2000', '1000')?.status).toBe(409);
+  });
+
+  test('409s a missing or unreadable Upload-Offset', () => {
+    expect(checkChunk(state(), undefined, '1000')?.status).toBe(409);
+    expect(checkChunk(state(), 'abc', '1000')?.status).toBe(409);
+  });
+
+  test('409s while an earlier chunk is still being written', () => {
+    expect(checkChunk(state({ writing: true }), '0', '1000')?.status).toBe(409);
+  });
+
+  test('409s a completed upload so the client picks up the result', () => {
+    expect(checkChunk(state({ offset: 3000, completed: true }), '3000', '1')).toEqual({
+      status: 409,
+      body: { offset: 3000, size: 3000, completed: true },
+    });
+  });
+
+  test('400s a chunk past the declared size', () => {
+    expect(checkChunk(state({ offset: 2500 }), '2500', '501')).toEqual({
+      status: 400,
+      body: { error: 'Chunk exceeds declared size', offset: 2500 },
+    });
+  });
+
+  test('400s a missing or empty body length', () => {
+    expect(checkChunk(state(), '0', undefined)?.status).toBe(400);
+    expect(checkChunk(state(), '0', '0')?.status).toBe(400);
+  });
+
+  test('accepts the final chunk that exactly fills the upload', () => {
+    expect(checkChunk(state({ offset: 2000 }), '2000', '1000')).toBeNull();
+  });
+});
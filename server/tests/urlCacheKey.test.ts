@@ -0,0 +1,57 @@
+/**
+ * URL cache keys: every variant of a shared link maps to one key. The Android
+ * prefetcher (UrlPrefetcher.canonicalize) asserts the same table, so a link
+ * warmed on the device is found by the parse request.
+ */
+
+import { describe, test, expect } from '@jest/globals';
+import { normalizeUrlForCache } from '../utils/urlCacheKey';
+
+const KEYS: [string, string][] = [
+  ['https://www.instagram.com/reel/Cabc123/?igsh=xyz',
+    'https://www.instagram.com/reel/Cabc123/'],
+  ['https://instagram.com/reels/Cabc123/',
+    'https://www.instagram.com/reel/Cabc123/'],
+  ['https://www.instagram.com/someuser/reel/Cabc123/?utm_source=ig_web_copy_link',
+    'https://www.instagram.com/reel/Cabc123/'],
+  ['https://www.instagram.com/p/Bxyz/?igshid=abc',
+    'https://www.instagram.com/p/Bxyz/'],
+  ['https://www.instagram.com/stories/someuser/123/',
+    'https://www.instagram.com/stories/someuser/'],
+  ['https://www.tiktok.com/@chef.ana/video/7312345678901234567?is_from_webapp=1&sender_device=pc',
+    'https://www.tiktok.com/@chef.ana/video/7312345678901234567'],
+  ['https://m.tiktok.com/@chef.ana/video/7312345678901234567',
+    'https://www.tiktok.com/@chef.ana/video/7312345678901234567'],
+  ['https://vm.tiktok.com/ZMabc123/',
+    'https://vm.tiktok.com/ZMabc123/'],
+  ['https://youtu.be/dQw4w9WgXcQ?si=abcdef',
+    'https://www.youtube.com/watch?v=dQw4w9WgXcQ'],
+  ['https://www.youtube.com/watch?v=dQw4w9WgXcQ&feature=share',
+    'https://www.youtube.com/watch?v=dQw4w9WgXcQ'],
+  ['https://youtube.com/shorts/abcDEF12345?si=x',
+    'https://www.youtube.com/watch?v=abcDEF12345'],
+  ['https://m.youtube.com/watch?v=dQw4w9WgXcQ&t=42',
+    'https://www.youtube.com/watch?v=dQw4w9WgXcQ'],
+  ['https://Example.com/Article?id=5&utm_source=x&si=y#top',
+    'https://example.com/Article?id=5'],
+  ['https://example.com',
+    'https://example.com/'],
+  ['https://example.com/a?feature=share&ref=home&keep=1',
+    'https://example.com/a?keep=1'],
+];
+
+describe('normalizeUrlForCache', () => {
+  test.each(KEYS)('%s', (url, key) => {
+    expect(normalizeUrlForCache(url)).toBe(key);
+  });
+
+  test('is idempotent', () => {
+    for (const [, key] of KEYS) {
+      expect(normalizeUrlForCache(key)).toBe(key);
+    }
+  });
+
+  test('returns unparseable input unchanged', () => {
+    expect(normalizeUrlForCache('not a url')).toBe('not a url');
+  });
+});
@@ -0,0 +1,45 @@
+/**
+ * Offset bookkeeping for resumable media uploads (/api/media/uploads)
+ *
+ * The bytes already on disk are the source of truth. A chunk is only
+ * accepted when the client's Upload-Offset matches them exactly; anything
+ * else gets a 409 with the server's offset so the client can resume there.
+ */
+
+export interface UploadState {
+  /** Bytes stored so far (the declared size once completed) */
+  offset: number;
+  /** Declared total size */
+  size: number;
+  completed: boolean;
+  /** A previous chunk is still being written */
+  writing: boolean;
+}
+
+export type ChunkRejection =
+  | { status: 409; body: { offset: number; size: number; completed: boolean } }
+  | { status: 400; body: { error: string; offset: number } };
+
+/**
+ * Decide whether a PUT chunk can be appended
+ *
+ * @param uploadOffset - the Upload-Offset header
+ * @param contentLength - the Content-Length header
+ * @returns null to accept, or the response to send
+ */
+export function checkChunk(
+  state: UploadState,
+  uploadOffset: unknown,
+  contentLength: unknown
+): ChunkRejection | null {
+  const clientOffset = Number(uploadOffset);
+  const length = Number(contentLength);
+  if (state.completed || clientOffset !== state.offset || state.writing) {
+    // Client is out of sync (or a stale retry is still writing): tell it where we are
+    return { status: 409, body: { offset: state.offset, size: state.size, completed: state.completed } };
+  }
+  if (!Number.isFinite(length) || length <= 0 || state.offset + length > state.size) {
+    return { status: 400, body: { error: "Chunk exceeds declared size", offset: state.offset } };
+  }
+  return null;
+}
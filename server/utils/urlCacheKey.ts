@@ -0,0 +1,69 @@
+/**
+ * Cache key for URL content (url_content_cache)
+ *
+ * Every variant of a social media link maps to one key: Instagram
+ * /reel/, /reels/ and /{user}/reel/ paths, TikTok video pages with any
+ * query, and YouTube watch/shorts/youtu.be links. Other URLs lose
+ * tracking parameters and the fragment.
+ *
+ * The Android app's UrlPrefetcher.canonicalize produces the same keys,
+ * so keep the two in step.
+ */
+
+const TRACKING_PARAMS = [
+  "utm_source",
+  "utm_medium",
+  "utm_campaign",
+  "utm_content",
+  "utm_term",
+  "fbclid",
+  "gclid",
+  "ref",
+  "source",
+  "igsh",
+  "igshid",
+  "si",
+  "feature",
+];
+
+export function normalizeUrlForCache(urlString: string): string {
+  try {
+    const parsed = new URL(urlString);
+
+    if (parsed.hostname.includes("instagram.com")) {
+      const pathMatch = parsed.pathname.match(/\/(reel|reels|p|stories)\/([^\/]+)/);
+      if (pathMatch) {
+        const kind = pathMatch[1] === "reels" ? "reel" : pathMatch[1];
+        return `https://www.instagram.com/${kind}/${pathMatch[2]}/`;
+      }
+    }
+
+    if (parsed.hostname.includes("tiktok.com")) {
+      const pathMatch = parsed.pathname.match(/^\/(@[^\/]+)\/video\/(\d+)/);
+      if (pathMatch) {
+        return `https://www.tiktok.com/${pathMatch[1]}/video/${pathMatch[2]}`;
+      }
+    }
+
+    if (parsed.hostname.includes("youtube.com") || parsed.hostname.includes("youtu.be")) {
+      let videoId: string | null = null;
+      if (parsed.hostname.includes("youtu.be")) {
+        videoId = parsed.pathname.slice(1).split("/")[0];
+      } else if (parsed.pathname.includes("/shorts/")) {
+        videoId = parsed.pathname.split("/shorts/")[1]?.split("/")[0];
+      } else {
+        videoId = parsed.searchParams.get("v");
+      }
+      if (videoId) {
+        return `https://www.youtube.com/watch?v=${videoId}`;
+      }
+    }
+
+    TRACKING_PARAMS.forEach((param) => parsed.searchParams.delete(param));
+    parsed.hash = "";
+
+    return parsed.toString();
+  } catch {
+    return urlString;
+  }
+}